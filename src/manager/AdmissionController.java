@@ -0,0 +1,288 @@
+package manager;
+import model.*;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class of an admission layer in front of the hire and return operations of a VehicleManager.
+ * Each vehicle type has its own lane:
+ * 1. A bounded queue of waiting requests. A request for a type whose queue is full is rejected at once.
+ * 2. A token bucket limiting the rate of hires. A hire over the rate is rejected at once.
+ *    Returns are not rate limited, since they put vehicles back into the pool, but they still need room in the queue.
+ * 3. A worker thread that takes the waiting requests in batches and carries out a whole batch under one manager lock.
+ * Rejections throw an AdmissionRejectedException carrying a retry-after hint, so under a burst clients back off
+ * instead of piling up behind the manager lock. Queue depths and the numbers of admitted and rejected requests are exposed as metrics.
+ * @author Fandi Zhou
+ */
+public class AdmissionController implements Closeable {
+
+    private static final int MAX_BATCH = 64;
+
+    private final VehicleManager manager;
+    private final Clock clock;
+    private final Map<String, Lane> lanes = new HashMap<>();//One lane per vehicle type, fixed after construction.
+
+    /**
+     * Constructs an AdmissionController using the system clock.
+     * @param manager        the manager the requests are carried out on.
+     * @param queueCapacity  the largest number of waiting requests per vehicle type.
+     * @param hiresPerSecond the sustained hire rate allowed per vehicle type.
+     * @param burst          the number of hires per vehicle type allowed at once above the rate.
+     * @throws IllegalArgumentException if a limit is not positive.
+     */
+    public AdmissionController(VehicleManager manager, int queueCapacity, double hiresPerSecond, int burst) {
+        this(manager, queueCapacity, hiresPerSecond, burst, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs an AdmissionController.
+     * @param manager        the manager the requests are carried out on.
+     * @param queueCapacity  the largest number of waiting requests per vehicle type.
+     * @param hiresPerSecond the sustained hire rate allowed per vehicle type.
+     * @param burst          the number of hires per vehicle type allowed at once above the rate.
+     * @param clock          the time source used to refill the token buckets.
+     * @throws IllegalArgumentException if a limit is not positive.
+     */
+    public AdmissionController(VehicleManager manager, int queueCapacity, double hiresPerSecond, int burst, Clock clock) {
+        if (queueCapacity < 1 || hiresPerSecond <= 0 || burst < 1) {throw new IllegalArgumentException("Admission limits must be positive");}
+        this.manager = manager;
+        this.clock = clock;
+
+        for (int kind : new int[] {FleetStore.CAR, FleetStore.VAN}) {
+            String type = FleetStore.typeOf(kind);
+            lanes.put(type, new Lane(type, queueCapacity, hiresPerSecond, burst));
+        }
+    }
+
+    /**
+     * Queues a hire. The returned future completes with the hired vehicle once the hire has been carried out,
+     * with null if no vehicle was available or the customer is at the hire limit,
+     * or exceptionally with an IllegalArgumentException if the customer does not meet the hire rules.
+     * @param customerRecord the customer attempting to hire the vehicle.
+     * @param vehicleType    the type of vehicle requested (Car or Van).
+     * @param duration       the duration of the hire in days.
+     * @return a future of the hired vehicle.
+     * @throws AdmissionRejectedException if the queue for the type is full or the hire rate limit has been reached.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public CompletableFuture<Vehicle> hire(CustomerRecord customerRecord, String vehicleType, int duration) {
+        Lane lane = lane(vehicleType);
+        long wait = lane.bucket.tryAcquire(clock.millis());
+        if (wait > 0) {
+            lane.rejected.incrementAndGet();
+            throw new AdmissionRejectedException("Hire rate limit reached for " + vehicleType, wait);
+        }
+
+        CompletableFuture<Vehicle> result = new CompletableFuture<>();
+        try {
+            lane.admit(() -> manager.hire(customerRecord, vehicleType, duration), result);
+        } catch (AdmissionRejectedException e) {
+            lane.bucket.refund();// The hire was never queued, so it must not count against the rate.
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Queues a return. The returned future completes with true once the vehicle has been returned,
+     * or false if the customer had not hired it.
+     * @param vehicleID      the unique ID of the vehicle being returned.
+     * @param customerRecord the customer returning the vehicle.
+     * @param mileage        the distance traveled during this specific hire period.
+     * @return a future of the outcome.
+     * @throws AdmissionRejectedException if the queue for the vehicle's type is full.
+     */
+    public CompletableFuture<Boolean> returnVehicle(VehicleID vehicleID, CustomerRecord customerRecord, int mileage) {
+        Lane lane = lane(vehicleID.getFirstComponent().charAt(0) == 'V' ? "Van" : "Car");
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        lane.admit(() -> manager.giveBack(vehicleID, customerRecord, mileage), result);
+        return result;
+    }
+
+    /**
+     * Get the number of requests waiting for a vehicle type.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the queue depth.
+     */
+    public int getQueueDepth(String vehicleType) {
+        return lane(vehicleType).queue.size();
+    }
+
+    /**
+     * Get the number of requests accepted into the queue of a vehicle type.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the number of admitted requests.
+     */
+    public long getAdmitted(String vehicleType) {
+        return lane(vehicleType).admitted.get();
+    }
+
+    /**
+     * Get the number of requests for a vehicle type that were turned away.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the number of rejected requests.
+     */
+    public long getRejected(String vehicleType) {
+        return lane(vehicleType).rejected.get();
+    }
+
+    /**
+     * Stops the workers. Requests still waiting complete exceptionally with a CancellationException.
+     */
+    @Override
+    public void close() {
+        for (Lane lane : lanes.values()) {
+            lane.worker.interrupt();
+        }
+        for (Lane lane : lanes.values()) {
+            try {
+                lane.worker.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Request<?> r; (r = lane.queue.poll()) != null; ) {
+                r.result.cancel(false);
+            }
+        }
+    }
+
+    private Lane lane(String vehicleType) {
+        Lane lane = lanes.get(vehicleType);
+        if (lane == null) {throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);}
+        return lane;
+    }
+
+    /**
+     * The queue, rate limit, worker and counters of one vehicle type.
+     */
+    private final class Lane {
+        private final ArrayBlockingQueue<Request<?>> queue;
+        private final TokenBucket bucket;
+        private final double perSecond;
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final Thread worker;
+
+        private Lane(String type, int capacity, double perSecond, int burst) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.bucket = new TokenBucket(perSecond, burst, clock.millis());
+            this.perSecond = perSecond;
+            this.worker = new Thread(this::drain, "admission-" + type);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        private <T> void admit(Callable<T> action, CompletableFuture<T> result) {
+            if (!queue.offer(new Request<>(action, result))) {
+                rejected.incrementAndGet();
+                // The queue drains at about the hire rate, so that is how long until there is room again.
+                long wait = Math.max(1, (long) Math.ceil(queue.size() * 1000 / perSecond));
+                throw new AdmissionRejectedException("Admission queue full", wait);
+            }
+            admitted.incrementAndGet();
+        }
+
+        /**
+         * Carries out waiting requests in batches until interrupted.
+         */
+        private void drain() {
+            List<Request<?>> batch = new ArrayList<>(MAX_BATCH);
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, MAX_BATCH - 1);
+
+                    synchronized (manager) {// One lock acquisition for the whole batch.
+                        for (Request<?> r : batch) {
+                            r.run();
+                        }
+                    }
+                    for (Request<?> r : batch) {
+                        r.complete();
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                for (Request<?> r : batch) {
+                    r.result.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * A queued request. Its outcome is kept until the manager lock is released, then the future is completed.
+     */
+    private static final class Request<T> {
+        private final Callable<T> action;
+        private final CompletableFuture<T> result;
+        private T value;
+        private Exception failure;
+
+        private Request(Callable<T> action, CompletableFuture<T> result) {
+            this.action = action;
+            this.result = result;
+        }
+
+        private void run() {
+            try {
+                value = action.call();
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+
+        private void complete() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+
+    /**
+     * A token bucket: holds up to burst tokens and gains perSecond tokens every second. Each hire takes one token.
+     */
+    private static final class TokenBucket {
+        private final double perMilli;
+        private final double capacity;
+        private double tokens;
+        private long last;
+
+        private TokenBucket(double perSecond, int burst, long now) {
+            this.perMilli = perSecond / 1000;
+            this.capacity = burst;
+            this.tokens = burst;
+            this.last = now;
+        }
+
+        /**
+         * Takes a token if there is one.
+         * @return 0 if a token was taken, otherwise the milliseconds until the next token.
+         */
+        private synchronized long tryAcquire(long now) {
+            if (now > last) {
+                tokens = Math.min(capacity, tokens + (now - last) * perMilli);
+                last = now;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / perMilli));
+        }
+
+        /**
+         * Gives back a token taken by a request that was then turned away.
+         */
+        private synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+    }
+}
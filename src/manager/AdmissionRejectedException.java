@@ -0,0 +1,31 @@
+package manager;
+
+/**
+ * Exception thrown by AdmissionController when a request is turned away, because the queue for its vehicle type is full
+ * or the hire rate limit has been reached. The request was not carried out and can be retried later.
+ * @author Fandi Zhou
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    /**
+     * Constructs an AdmissionRejectedException.
+     * @param message          the reason for the rejection.
+     * @param retryAfterMillis how long the client should wait before trying again, in milliseconds.
+     */
+    public AdmissionRejectedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Get the suggested wait before retrying.
+     * @return the wait in milliseconds, at least 1.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
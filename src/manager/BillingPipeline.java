@@ -0,0 +1,331 @@
+package manager;
+import model.*;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class of a billing stage that prices finished hires off the return path.
+ * The pipeline is a FleetEventListener: register it with VehicleManager.addListener and every return is billed.
+ * 1. On return the listener only writes a fixed-size record (customer, vehicle, type, start, end, duration, mileage
+ *    and the service and inspection flags) into a preallocated ring of longs. The only lock taken besides the manager
+ *    lock the return already holds is the pipeline's own, which only the other listener calls compete for.
+ * 2. A background worker takes the records in micro-batches: it waits until a batch is full or the batch delay has passed,
+ *    prices every record of the batch against the tariff of its vehicle type, and hands the invoices to the InvoiceSink
+ *    in one bulk write.
+ * A pipeline serves one manager. A return never waits for the worker: if the ring is full, the record is put on a spill
+ * list that the worker drains after the ring, so invoices are never lost. Spilling allocates a small array per record,
+ * so the ring should be sized for the peak rate of returns; getSpilled tells how often it was too small.
+ * A batch the sink fails to write is tried again, after a pause that doubles up to a second, until it is written, so a
+ * sink that fails part way through a batch may see some invoices twice. Once the pipeline is closed a failed batch is
+ * not retried but kept, and takeUnwritten hands it back to the caller.
+ * Returns made after the pipeline is closed are not billed and are counted by getDroppedAfterClose.
+ * @author Fandi Zhou
+ */
+public class BillingPipeline implements FleetEventListener, Closeable {
+
+    private static final int FIELDS = 7;//Longs per record.
+    private static final int CUSTOMER = 0, VEHICLE = 1, START = 2, END = 3, DURATION = 4, MILEAGE = 5, FLAGS = 6;
+    private static final long SERVICE = 1, INSPECTION = 2, VAN = 4;//Bits of the flags field.
+    private static final long MAX_RETRY_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Clock clock;
+    private final Tariff[] tariffs = new Tariff[2];//Per vehicle kind.
+    private final InvoiceSink sink;
+    private final int maxBatch;
+    private final long batchDelayNanos;
+
+    // Single producer, single consumer ring: the producer writes at tail, the worker reads at head.
+    private final long[] ring;
+    private final int capacity;
+    private volatile long head;
+    private volatile long tail;
+
+    // Records that found the ring full, oldest first. While it is not empty new records go here too, to keep their order.
+    private final Queue<long[]> spill = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Invoice> unwritten = new ConcurrentLinkedQueue<>();//Invoices the sink refused after the pipeline was closed.
+
+    private final Map<Integer, OpenHire> open = new HashMap<>();//The current hire of each vehicle on hire, by packed ID.
+
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final AtomicLong invoiced = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong droppedAfterClose = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+
+    /**
+     * Constructs a BillingPipeline and starts its worker.
+     * @param clock           the time source used to time the hires, normally the manager's clock.
+     * @param carTariff       the tariff of Cars.
+     * @param vanTariff       the tariff of Vans.
+     * @param sink            the destination of the invoices.
+     * @param capacity        the number of records the ring can hold.
+     * @param maxBatch        the largest number of records priced in one batch.
+     * @param batchDelayMillis the longest time the worker waits for a batch to fill, and the first pause before a failed
+     *                         batch is written again.
+     * @throws IllegalArgumentException if capacity, maxBatch or the delay is not positive.
+     */
+    public BillingPipeline(Clock clock, Tariff carTariff, Tariff vanTariff, InvoiceSink sink, int capacity, int maxBatch, long batchDelayMillis) {
+        // A zero delay would make the idle worker spin on parkNanos(0).
+        if (capacity < 1 || maxBatch < 1 || batchDelayMillis < 1) {throw new IllegalArgumentException("Capacity, batch size and delay must be positive");}
+        this.clock = clock;
+        this.tariffs[FleetStore.CAR] = carTariff;
+        this.tariffs[FleetStore.VAN] = vanTariff;
+        this.sink = sink;
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+        this.batchDelayNanos = TimeUnit.MILLISECONDS.toNanos(batchDelayMillis);
+        this.ring = new long[capacity * FIELDS];
+
+        worker = new Thread(this::run, "billing-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void vehicleHired(CustomerRecord c, Vehicle v, int duration) {
+        open.put(v.getVehicleID().pack(), new OpenHire(clock.millis(), duration));
+    }
+
+    @Override
+    public synchronized void mileageReported(Vehicle v, int distance) {
+        OpenHire h = open.get(v.getVehicleID().pack());
+        if (h != null) {h.reported += distance;}
+    }
+
+    @Override
+    public synchronized void vehicleReturned(CustomerRecord c, Vehicle v, int mileage) {
+        int p = v.getVehicleID().pack();
+        OpenHire h = open.remove(p);
+        if (h == null) {return;}// Hired before the pipeline was registered.
+        long flags = (v.getCurrentMileage() >= v.getDistanceRequirement() ? SERVICE : 0)
+                | (v.requiresInspection() ? INSPECTION : 0) | (v instanceof Van ? VAN : 0);
+        enqueue(c.getCustomerID(), p, h.start, clock.millis(), h.duration, h.reported + mileage, flags);
+    }
+
+    /**
+     * Writes a record into the ring, or onto the spill list if the ring is full. Never waits for the worker.
+     * Only one thread writes at a time, the pipeline lock is held.
+     */
+    private void enqueue(int customerID, int packed, long start, long end, int duration, int mileage, long flags) {
+        if (!running) {
+            droppedAfterClose.incrementAndGet();
+            return;
+        }
+        long t = tail;
+        if (t - head == capacity || !spill.isEmpty()) {
+            long[] record = new long[FIELDS];
+            fill(record, 0, customerID, packed, start, end, duration, mileage, flags);
+            spill.add(record);
+            spilled.incrementAndGet();
+            LockSupport.unpark(worker);
+            return;
+        }
+        fill(ring, (int) (t % capacity) * FIELDS, customerID, packed, start, end, duration, mileage, flags);
+        tail = t + 1;// Publishes the record to the worker.
+
+        if (t + 1 - head >= maxBatch) {LockSupport.unpark(worker);}// A full batch is waiting.
+    }
+
+    private static void fill(long[] to, int base, int customerID, int packed, long start, long end, int duration, int mileage, long flags) {
+        to[base + CUSTOMER] = customerID;
+        to[base + VEHICLE] = packed;
+        to[base + START] = start;
+        to[base + END] = Math.max(start, end);
+        to[base + DURATION] = duration;
+        to[base + MILEAGE] = mileage;
+        to[base + FLAGS] = flags;
+    }
+
+    /**
+     * Get the number of returns waiting to be billed.
+     * @return the number of records in the ring and on the spill list.
+     */
+    public int getPending() {
+        return (int) (tail - head) + spill.size();
+    }
+
+    /**
+     * Get the number of returns that found the ring full and went onto the spill list.
+     * @return the number of spilled records.
+     */
+    public long getSpilled() {
+        return spilled.get();
+    }
+
+    /**
+     * Get the number of returns made after the pipeline was closed, which were not billed.
+     * @return the number of dropped returns.
+     */
+    public long getDroppedAfterClose() {
+        return droppedAfterClose.get();
+    }
+
+    /**
+     * Get the number of invoices written.
+     * @return the number of invoices handed to the sink.
+     */
+    public long getInvoiced() {
+        return invoiced.get();
+    }
+
+    /**
+     * Get the number of writes the sink failed, each retried or handed back.
+     * @return the number of failed writes.
+     */
+    public long getWriteFailures() {
+        return writeFailures.get();
+    }
+
+    /**
+     * Takes the invoices the sink failed to write after the pipeline was closed, so they can be written elsewhere.
+     * @return the unwritten invoices in the order of the returns, empty if every invoice was written.
+     */
+    public List<Invoice> takeUnwritten() {
+        List<Invoice> result = new ArrayList<>();
+        Invoice i;
+        while ((i = unwritten.poll()) != null) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of bulk writes made to the sink.
+     * @return the number of batches.
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Waits until every return recorded so far has been invoiced.
+     * @param timeoutMillis the longest time to wait.
+     * @return true if the ring was emptied in time.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean awaitBilled(long timeoutMillis) throws InterruptedException {
+        long target = invoiced.get() + getPending();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (invoiced.get() < target) {
+            if (System.nanoTime() > deadline) {return false;}
+            LockSupport.unpark(worker);
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    /**
+     * Bills every waiting return, then stops the worker. Returns made after this are not billed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;// Taken under the lock so a record being written is finished and billed.
+        }
+        LockSupport.unpark(worker);
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Prices the records in micro-batches until the pipeline is closed and the ring and spill list are empty.
+     */
+    private void run() {
+        List<Invoice> invoices = new ArrayList<>(maxBatch);
+        while (true) {
+            long h = head;
+            long t = tail;
+            if (t != h) {
+                if (t - h < maxBatch && running) {// Give the batch a chance to fill.
+                    LockSupport.parkNanos(this, batchDelayNanos);
+                    t = tail;
+                }
+                int n = (int) Math.min(t - h, maxBatch);
+                for (int i = 0; i < n; i++) {
+                    invoices.add(price(ring, (int) ((h + i) % capacity) * FIELDS));
+                }
+                head = h + n;// Frees the slots for the producer.
+            } else if (!spill.isEmpty()) {// The ring is drained, the spilled records come next in order.
+                long[] record;
+                while (invoices.size() < maxBatch && (record = spill.poll()) != null) {
+                    invoices.add(price(record, 0));
+                }
+            } else {
+                if (!running) {return;}
+                LockSupport.parkNanos(this, batchDelayNanos);
+                continue;
+            }
+
+            deliver(invoices);
+            invoices.clear();
+        }
+    }
+
+    /**
+     * Writes a batch to the sink, trying again after a growing pause while the pipeline runs. Once it is closed a batch
+     * the sink refuses is kept for takeUnwritten. Only invoices the sink accepted are counted as invoiced.
+     */
+    private void deliver(List<Invoice> invoices) {
+        long pause = batchDelayNanos;
+        while (true) {
+            try {
+                sink.write(invoices);
+                invoiced.addAndGet(invoices.size());
+                batches.incrementAndGet();
+                return;
+            } catch (RuntimeException e) {
+                writeFailures.incrementAndGet();
+                System.out.println("Invoice batch of " + invoices.size() + " could not be written: " + e.getMessage());
+                if (!running) {
+                    unwritten.addAll(invoices);
+                    return;
+                }
+            }
+            LockSupport.parkNanos(this, pause);
+            pause = Math.min(pause * 2, MAX_RETRY_PAUSE_NANOS);
+        }
+    }
+
+    /**
+     * Prices the record at an offset of the ring or of a spilled record.
+     */
+    private Invoice price(long[] from, int base) {
+        long flags = from[base + FLAGS];
+        boolean service = (flags & SERVICE) != 0;
+        boolean inspection = (flags & INSPECTION) != 0;
+        int duration = (int) from[base + DURATION];
+        int mileage = (int) from[base + MILEAGE];
+
+        Tariff tariff = tariffs[(flags & VAN) != 0 ? FleetStore.VAN : FleetStore.CAR];
+        long amount = tariff.price(duration, mileage, service, inspection);
+        return new Invoice((int) from[base + CUSTOMER], VehicleID.unpack((int) from[base + VEHICLE]), from[base + START], from[base + END],
+                duration, mileage, service, inspection, amount);
+    }
+
+    /**
+     * A hire that has started but not been returned.
+     */
+    private static final class OpenHire {
+        private final long start;
+        private final int duration;
+        private int reported;//Distance reported by telemetry during the hire.
+
+        private OpenHire(long start, int duration) {
+            this.start = start;
+            this.duration = duration;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package manager;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static manager.CommandProtocol.*;
+
+/**
+ * Class of a client for CommandServer that pipelines commands.
+ * Commands are queued with the add, hire, returnVehicle and available methods and sent together by flush,
+ * which reads their responses as it goes: at most CommandProtocol.MAX_IN_FLIGHT commands are sent before their
+ * responses are read, so a long batch never fills the server's write buffer while the client is still writing. The responses are read with status(i) and value(i), where i is the
+ * position of the command in the batch. The buffers are allocated once, so a batch creates no objects.
+ * A CommandClient is not thread safe; each terminal thread should use its own.
+ * @author Fandi Zhou
+ */
+public class CommandClient implements Closeable {
+
+    private final SocketChannel channel;
+    private final ByteBuffer out;
+    private final ByteBuffer in;
+    private int queued;
+
+    /**
+     * Constructs a CommandClient connected to a server.
+     * @param host        the host of the CommandServer.
+     * @param port        the port of the CommandServer.
+     * @param maxPipeline the largest number of commands in one batch.
+     * @throws IOException if the server cannot be reached.
+     * @throws IllegalArgumentException if maxPipeline is not positive.
+     */
+    public CommandClient(String host, int port, int maxPipeline) throws IOException {
+        if (maxPipeline < 1) {throw new IllegalArgumentException("Pipeline depth must be positive");}
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        this.out = ByteBuffer.allocateDirect(maxPipeline * COMMAND_BYTES);
+        this.in = ByteBuffer.allocateDirect(maxPipeline * RESPONSE_BYTES);
+    }
+
+    /**
+     * Queues a command to add a vehicle.
+     * @param kind FleetStore.CAR or FleetStore.VAN.
+     */
+    public void addVehicle(int kind) {
+        queue(ADD_VEHICLE, kind, 0, 0, 0, 0);
+    }
+
+    /**
+     * Queues a hire command.
+     * @param customerID the customer hiring the vehicle.
+     * @param kind       FleetStore.CAR or FleetStore.VAN.
+     * @param duration   the duration of the hire in days.
+     */
+    public void hire(int customerID, int kind, int duration) {
+        queue(HIRE, kind, duration, customerID, 0, 0);
+    }
+
+    /**
+     * Queues a return command.
+     * @param customerID the customer returning the vehicle.
+     * @param packedID   the packed ID of the vehicle.
+     * @param mileage    the distance traveled during the hire.
+     */
+    public void returnVehicle(int customerID, int packedID, int mileage) {
+        queue(RETURN, 0, 0, customerID, packedID, mileage);
+    }
+
+    /**
+     * Queues a command counting the available vehicles of a type.
+     * @param kind FleetStore.CAR or FleetStore.VAN.
+     */
+    public void available(int kind) {
+        queue(AVAILABLE, kind, 0, 0, 0, 0);
+    }
+
+    /**
+     * Sends every queued command and reads all their responses, one window of MAX_IN_FLIGHT commands at a time.
+     * @return the number of responses, which is the number of commands sent.
+     * @throws IOException if the connection fails.
+     */
+    public int flush() throws IOException {
+        int n = queued;
+        queued = 0;
+
+        in.clear();
+        for (int sent = 0; sent < n; ) {
+            int window = Math.min(MAX_IN_FLIGHT, n - sent);
+            out.limit((sent + window) * COMMAND_BYTES).position(sent * COMMAND_BYTES);
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            sent += window;
+
+            in.limit(sent * RESPONSE_BYTES);
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) {throw new EOFException("Server closed the connection");}
+            }
+        }
+        out.clear();
+        return n;
+    }
+
+    /**
+     * Get the status of a response from the last flush.
+     * @param i the position of the command in the batch.
+     * @return one of the CommandProtocol statuses.
+     */
+    public int status(int i) {
+        return in.get(i * RESPONSE_BYTES);
+    }
+
+    /**
+     * Get the result of a response from the last flush.
+     * @param i the position of the command in the batch.
+     * @return the packed vehicle ID or count, 0 if the command has no result.
+     */
+    public int value(int i) {
+        return in.getInt(i * RESPONSE_BYTES + 4);
+    }
+
+    /**
+     * Closes the connection.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void queue(byte op, int kind, int duration, int customerID, int packedID, int mileage) {
+        if (out.remaining() < COMMAND_BYTES) {throw new IllegalStateException("Pipeline is full, call flush first");}
+        out.put(op).put((byte) kind).putShort((short) duration).putInt(customerID).putInt(packedID).putInt(mileage);
+        queued++;
+    }
+}
@@ -0,0 +1,59 @@
+package manager;
+
+/**
+ * Class holds the layout of the binary command protocol spoken by CommandServer and CommandClient.
+ * Every command is a fixed 16 byte frame, all numbers big-endian:
+ * byte 0      opcode (ADD_VEHICLE, HIRE, RETURN or AVAILABLE).
+ * byte 1      vehicle type ordinal (FleetStore.CAR or FleetStore.VAN).
+ * bytes 2-3   hire duration in days, unsigned.
+ * bytes 4-7   customer ID.
+ * bytes 8-11  packed vehicle ID (VehicleID.pack).
+ * bytes 12-15 mileage.
+ * Every response is a fixed 8 byte frame, sent in the same order as the commands:
+ * byte 0      status (OK, REJECTED, INVALID or NOT_FOUND).
+ * byte 1      the opcode of the command answered.
+ * bytes 2-3   unused, zero.
+ * bytes 4-7   result: the packed ID of the added or hired vehicle, or the number of available vehicles.
+ * Fields a command does not use are ignored and should be zero.
+ * @author Fandi Zhou
+ */
+public final class CommandProtocol {
+
+    private CommandProtocol() {}
+
+    /** Size of a command frame in bytes. */
+    public static final int COMMAND_BYTES = 16;
+
+    /** Size of a response frame in bytes. */
+    public static final int RESPONSE_BYTES = 8;
+
+    /**
+     * The most commands a client may send before reading their responses. The server has room to hold the responses
+     * of this many, so it never stops reading the commands of a client that is still writing.
+     */
+    public static final int MAX_IN_FLIGHT = 1024;
+
+    /** Adds a vehicle of the given type, the result is its packed ID. */
+    public static final byte ADD_VEHICLE = 1;
+
+    /** Hires a vehicle of the given type for a customer and duration, the result is its packed ID. */
+    public static final byte HIRE = 2;
+
+    /** Returns the vehicle with the packed ID from a customer, adding the mileage. */
+    public static final byte RETURN = 3;
+
+    /** Counts the available vehicles of the given type. */
+    public static final byte AVAILABLE = 4;
+
+    /** The command succeeded. */
+    public static final byte OK = 0;
+
+    /** The command was valid but could not be carried out, e.g. no vehicle available or the vehicle is not on hire to the customer. */
+    public static final byte REJECTED = 1;
+
+    /** The command was invalid, e.g. an unknown opcode or type, or the customer does not meet the hire rules. */
+    public static final byte INVALID = 2;
+
+    /** The customer ID is not registered. */
+    public static final byte NOT_FOUND = 3;
+}
@@ -0,0 +1,256 @@
+package manager;
+import model.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+
+import static manager.CommandProtocol.*;
+
+/**
+ * Class of a server for the binary command protocol (see CommandProtocol), for counter terminals and kiosks.
+ * One thread runs a Selector over non-blocking channels. Clients may pipeline any number of commands without waiting:
+ * every complete frame in the read buffer is decoded and executed in order, and the responses are queued in the write buffer
+ * and flushed together, so a batch of commands costs one round trip.
+ * Each connection borrows a read and a write buffer from a pool of direct buffers and gives them back when it closes.
+ * Frames are decoded with absolute gets straight from the buffer, so decoding creates no objects.
+ * When a client stops reading its responses the server stops reading its commands until the write buffer drains.
+ * @author Fandi Zhou
+ */
+public class CommandServer implements Closeable {
+
+    private static final int BUFFER_BYTES = MAX_IN_FLIGHT * RESPONSE_BYTES;//Holds the responses of every command a client may have in flight.
+
+    private final VehicleManager manager;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private final ArrayDeque<ByteBuffer> pool = new ArrayDeque<>();//Free direct buffers, only used by the selector thread.
+    private volatile boolean running = true;
+
+    /**
+     * Constructs and starts a CommandServer.
+     * @param manager the manager the commands are carried out on.
+     * @param port    the TCP port to listen on, 0 for any free port.
+     * @throws IOException if the port cannot be opened.
+     */
+    public CommandServer(VehicleManager manager, int port) throws IOException {
+        this.manager = manager;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        thread = new Thread(this::run, "command-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Get the port the server listens on.
+     * @return the local port.
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Stops the server and closes every connection.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.close();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (!key.isValid()) {continue;}
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            serve(key);
+                        }
+                    } catch (IOException e) {// The client went away.
+                        disconnect(key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            System.out.println("Command server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                disconnect(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Nothing more can be done.
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch = server.accept();
+        if (ch == null) {return;}
+        ch.configureBlocking(false);
+        ch.socket().setTcpNoDelay(true);
+        ch.register(selector, SelectionKey.OP_READ, new Connection(borrow(), borrow()));
+    }
+
+    /**
+     * Reads and executes the pending commands of a connection and writes their responses.
+     */
+    private void serve(SelectionKey key) throws IOException {
+        SocketChannel ch = (SocketChannel) key.channel();
+        Connection c = (Connection) key.attachment();
+
+        if (key.isReadable() && ch.read(c.in) < 0) {
+            disconnect(key);
+            return;
+        }
+
+        // Alternate between executing and flushing until no more progress can be made.
+        boolean progress = true;
+        while (progress) {
+            progress = execute(c) > 0;
+            if (c.out.position() > 0) {
+                c.out.flip();
+                ch.write(c.out);
+                c.out.compact();
+            }
+            if (c.out.remaining() < RESPONSE_BYTES) {break;}// The client is not reading, wait for it.
+        }
+
+        // Only read more commands while there is room for their responses.
+        int ops = c.out.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        key.interestOps(ops);
+    }
+
+    /**
+     * Executes every complete command in the read buffer that there is room to answer.
+     * @return the number of commands executed.
+     */
+    private int execute(Connection c) {
+        ByteBuffer in = c.in;
+        ByteBuffer out = c.out;
+        in.flip();
+
+        int n = 0;
+        while (in.remaining() >= COMMAND_BYTES && out.remaining() >= RESPONSE_BYTES) {
+            int p = in.position();
+            byte op = in.get(p);
+            int kind = in.get(p + 1);
+            int duration = in.getShort(p + 2) & 0xFFFF;
+            int customerID = in.getInt(p + 4);
+            int packedID = in.getInt(p + 8);
+            int mileage = in.getInt(p + 12);
+            in.position(p + COMMAND_BYTES);
+
+            long result = command(op, kind, duration, customerID, packedID, mileage);
+            out.put((byte) (result >>> 32));
+            out.put(op);
+            out.putShort((short) 0);
+            out.putInt((int) result);
+            n++;
+        }
+        in.compact();
+        return n;
+    }
+
+    /**
+     * Carries out one command on the manager.
+     * @return the status in the high 32 bits and the result in the low 32 bits.
+     */
+    private long command(byte op, int kind, int duration, int customerID, int packedID, int mileage) {
+        try {
+            if (op != RETURN && kind != FleetStore.CAR && kind != FleetStore.VAN) {return response(INVALID, 0);}
+            String type = FleetStore.typeOf(kind);
+
+            switch (op) {
+                case ADD_VEHICLE:
+                    return response(OK, manager.addVehicle(type).getVehicleID().pack());
+                case AVAILABLE:
+                    return response(OK, manager.noOfAvailableVehicles(type));
+                case HIRE:
+                case RETURN:
+                    CustomerRecord customer = manager.getCustomerRecord(customerID);
+                    if (customer == null) {return response(NOT_FOUND, 0);}
+                    return op == HIRE ? hire(customer, type, duration) : giveBack(customer, packedID, mileage);
+                default:
+                    return response(INVALID, 0);
+            }
+        } catch (IllegalArgumentException e) {
+            return response(INVALID, 0);
+        }
+    }
+
+    private long hire(CustomerRecord customer, String type, int duration) {
+        Vehicle v = manager.hire(customer, type, duration);
+        return v == null ? response(REJECTED, 0) : response(OK, v.getVehicleID().pack());
+    }
+
+    private long giveBack(CustomerRecord customer, int packedID, int mileage) {
+        boolean returned = manager.giveBack(VehicleID.unpack(packedID), customer, mileage);
+        return returned ? response(OK, packedID) : response(REJECTED, 0);
+    }
+
+    private static long response(byte status, int value) {
+        return ((long) status << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    private void disconnect(SelectionKey key) {
+        Object a = key.attachment();
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // Already closed.
+        }
+        if (a instanceof Connection) {
+            key.attach(null);
+            release(((Connection) a).in);
+            release(((Connection) a).out);
+        }
+    }
+
+    private ByteBuffer borrow() {
+        ByteBuffer b = pool.poll();
+        return b != null ? b : ByteBuffer.allocateDirect(BUFFER_BYTES);
+    }
+
+    private void release(ByteBuffer b) {
+        b.clear();
+        pool.push(b);
+    }
+
+    /**
+     * The buffers of one client connection.
+     */
+    private static final class Connection {
+        private final ByteBuffer in;
+        private final ByteBuffer out;
+
+        private Connection(ByteBuffer in, ByteBuffer out) {
+            this.in = in;
+            this.out = out;
+        }
+    }
+}
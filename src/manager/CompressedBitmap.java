@@ -0,0 +1,424 @@
+package manager;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Class of a compressed set of non-negative ints (vehicle slots), in the style of a Roaring bitmap.
+ * The ints are split into chunks of 65536 by their high 16 bits. Each chunk is held in the cheaper of two containers:
+ * 1. A sorted array of the low 16 bits, while the chunk holds at most 4096 ints (2 bytes per int).
+ * 2. A plain bitmap of 1024 longs once it holds more (8 KB, whatever the number of ints).
+ * A sparse set such as "Vans needing an inspection" stays small, and a dense one such as "Cars" costs one bit per slot.
+ * and, or and andNot work chunk by chunk and return a new bitmap, leaving both inputs unchanged.
+ * @author Fandi Zhou
+ */
+final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;//Largest number of ints held in an array container.
+    private static final int WORDS = 1024;//Longs in a bitmap container.
+
+    private int[] keys = new int[4];//High 16 bits of each chunk, ascending.
+    private Container[] containers = new Container[4];
+    private int chunks;
+
+    /**
+     * Adds an int to the set.
+     * @param x the int to add, not negative.
+     */
+    void add(int x) {
+        int i = index(x >>> 16);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, x >>> 16, new ArrayContainer(new char[4], 0));
+        }
+        containers[i] = containers[i].add((char) x);
+    }
+
+    /**
+     * Removes an int from the set.
+     * @param x the int to remove.
+     */
+    void remove(int x) {
+        int i = index(x >>> 16);
+        if (i < 0) {return;}
+        Container c = containers[i].remove((char) x);
+        if (c.cardinality() == 0) {
+            removeChunk(i);
+        } else {
+            containers[i] = c;
+        }
+    }
+
+    /**
+     * Checks if an int is in the set.
+     * @param x the int to check.
+     * @return true if the int is in the set.
+     */
+    boolean contains(int x) {
+        int i = index(x >>> 16);
+        return i >= 0 && containers[i].contains((char) x);
+    }
+
+    /**
+     * Get the number of ints in the set.
+     * @return the cardinality.
+     */
+    int cardinality() {
+        int n = 0;
+        for (int i = 0; i < chunks; i++) {
+            n += containers[i].cardinality();
+        }
+        return n;
+    }
+
+    /**
+     * Calls an action for every int in the set, in ascending order.
+     * @param action the action to call.
+     */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < chunks; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Returns the ints in both sets.
+     * @param o the other set.
+     * @return a new bitmap.
+     */
+    CompressedBitmap and(CompressedBitmap o) {
+        CompressedBitmap r = new CompressedBitmap();
+        for (int i = 0, j = 0; i < chunks && j < o.chunks; ) {
+            if (keys[i] < o.keys[j]) {
+                i++;
+            } else if (keys[i] > o.keys[j]) {
+                j++;
+            } else {
+                r.append(keys[i], and(containers[i++], o.containers[j++]));
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the ints in this set that are not in the other.
+     * @param o the other set.
+     * @return a new bitmap.
+     */
+    CompressedBitmap andNot(CompressedBitmap o) {
+        CompressedBitmap r = new CompressedBitmap();
+        for (int i = 0, j = 0; i < chunks; ) {
+            if (j == o.chunks || keys[i] < o.keys[j]) {
+                r.append(keys[i], containers[i].copy());
+                i++;
+            } else if (keys[i] > o.keys[j]) {
+                j++;
+            } else {
+                r.append(keys[i], andNot(containers[i++], o.containers[j++]));
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the ints in either set.
+     * @param o the other set.
+     * @return a new bitmap.
+     */
+    CompressedBitmap or(CompressedBitmap o) {
+        CompressedBitmap r = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < chunks || j < o.chunks) {
+            if (j == o.chunks || (i < chunks && keys[i] < o.keys[j])) {
+                r.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i == chunks || keys[i] > o.keys[j]) {
+                r.append(o.keys[j], o.containers[j].copy());
+                j++;
+            } else {
+                r.append(keys[i], or(containers[i++], o.containers[j++]));
+            }
+        }
+        return r;
+    }
+
+    private static Container and(Container a, Container b) {
+        if (a instanceof ArrayContainer) {return ((ArrayContainer) a).filter(b, true);}
+        if (b instanceof ArrayContainer) {return ((ArrayContainer) b).filter(a, true);}
+        long[] w = ((BitmapContainer) a).words.clone();
+        long[] v = ((BitmapContainer) b).words;
+        for (int k = 0; k < WORDS; k++) {
+            w[k] &= v[k];
+        }
+        return fromWords(w);
+    }
+
+    private static Container andNot(Container a, Container b) {
+        if (a instanceof ArrayContainer) {return ((ArrayContainer) a).filter(b, false);}
+        long[] w = ((BitmapContainer) a).words.clone();
+        if (b instanceof ArrayContainer) {
+            ArrayContainer ab = (ArrayContainer) b;
+            for (int k = 0; k < ab.n; k++) {
+                w[ab.values[k] >>> 6] &= ~(1L << ab.values[k]);
+            }
+        } else {
+            long[] v = ((BitmapContainer) b).words;
+            for (int k = 0; k < WORDS; k++) {
+                w[k] &= ~v[k];
+            }
+        }
+        return fromWords(w);
+    }
+
+    private static Container or(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer
+                && a.cardinality() + b.cardinality() <= ARRAY_MAX) {
+            return ((ArrayContainer) a).merge((ArrayContainer) b);
+        }
+        long[] w = a.toWords();
+        b.orInto(w);
+        return fromWords(w);
+    }
+
+    /**
+     * Picks the container for a chunk given as bitmap words, or null if the chunk is empty.
+     */
+    private static Container fromWords(long[] w) {
+        int card = 0;
+        for (long x : w) {
+            card += Long.bitCount(x);
+        }
+        if (card == 0) {return null;}
+        if (card > ARRAY_MAX) {return new BitmapContainer(w, card);}
+
+        char[] values = new char[card];
+        int n = 0;
+        for (int k = 0; k < WORDS; k++) {
+            for (long x = w[k]; x != 0; x &= x - 1) {
+                values[n++] = (char) (k * 64 + Long.numberOfTrailingZeros(x));
+            }
+        }
+        return new ArrayContainer(values, n);
+    }
+
+    private int index(int key) {
+        return Arrays.binarySearch(keys, 0, chunks, key);
+    }
+
+    /**
+     * Adds a chunk after every existing one, skipping empty results.
+     */
+    private void append(int key, Container c) {
+        if (c != null) {insertChunk(chunks, key, c);}
+    }
+
+    private void insertChunk(int i, int key, Container c) {
+        if (chunks == keys.length) {
+            keys = Arrays.copyOf(keys, chunks * 2);
+            containers = Arrays.copyOf(containers, chunks * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, chunks - i);
+        System.arraycopy(containers, i, containers, i + 1, chunks - i);
+        keys[i] = key;
+        containers[i] = c;
+        chunks++;
+    }
+
+    private void removeChunk(int i) {
+        System.arraycopy(keys, i + 1, keys, i, chunks - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, chunks - i - 1);
+        containers[--chunks] = null;
+    }
+
+    /**
+     * The ints of one chunk, as their low 16 bits. add and remove may return a different container when the chunk changes form.
+     */
+    private abstract static class Container {
+        abstract Container add(char v);
+
+        abstract Container remove(char v);
+
+        abstract boolean contains(char v);
+
+        abstract int cardinality();
+
+        abstract void forEach(int high, IntConsumer action);
+
+        abstract Container copy();
+
+        abstract long[] toWords();
+
+        abstract void orInto(long[] w);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int n;
+
+        private ArrayContainer(char[] values, int n) {
+            this.values = values;
+            this.n = n;
+        }
+
+        @Override
+        Container add(char v) {
+            int i = Arrays.binarySearch(values, 0, n, v);
+            if (i >= 0) {return this;}
+            if (n == ARRAY_MAX) {// Too many for an array, switch to a bitmap.
+                long[] w = toWords();
+                w[v >>> 6] |= 1L << v;
+                return new BitmapContainer(w, n + 1);
+            }
+            i = -i - 1;
+            if (n == values.length) {values = Arrays.copyOf(values, Math.min(ARRAY_MAX, n * 2));}
+            System.arraycopy(values, i, values, i + 1, n - i);
+            values[i] = v;
+            n++;
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            int i = Arrays.binarySearch(values, 0, n, v);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, n - i - 1);
+                n--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return Arrays.binarySearch(values, 0, n, v) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return n;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < n; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(n, 1)), n);
+        }
+
+        @Override
+        long[] toWords() {
+            long[] w = new long[WORDS];
+            orInto(w);
+            return w;
+        }
+
+        @Override
+        void orInto(long[] w) {
+            for (int i = 0; i < n; i++) {
+                w[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+
+        /**
+         * Keeps the values that are (keep = true) or are not (keep = false) in another container.
+         */
+        private Container filter(Container other, boolean keep) {
+            char[] r = new char[Math.max(n, 1)];
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                if (other.contains(values[i]) == keep) {r[m++] = values[i];}
+            }
+            return m == 0 ? null : new ArrayContainer(r, m);
+        }
+
+        /**
+         * Merges two sorted arrays into one without duplicates.
+         */
+        private Container merge(ArrayContainer o) {
+            char[] r = new char[n + o.n];
+            int i = 0, j = 0, m = 0;
+            while (i < n || j < o.n) {
+                if (j == o.n || (i < n && values[i] < o.values[j])) {
+                    r[m++] = values[i++];
+                } else if (i == n || values[i] > o.values[j]) {
+                    r[m++] = o.values[j++];
+                } else {
+                    r[m++] = values[i++];
+                    j++;
+                }
+            }
+            return new ArrayContainer(r, m);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int card;
+
+        private BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        @Override
+        Container add(char v) {
+            long bit = 1L << v;
+            if ((words[v >>> 6] & bit) == 0) {
+                words[v >>> 6] |= bit;
+                card++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            long bit = 1L << v;
+            if ((words[v >>> 6] & bit) != 0) {
+                words[v >>> 6] &= ~bit;
+                card--;
+                if (card == ARRAY_MAX) {return fromWords(words);}// Small enough for an array again.
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return (words[v >>> 6] & (1L << v)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int k = 0; k < WORDS; k++) {
+                for (long x = words[k]; x != 0; x &= x - 1) {
+                    action.accept(high | (k * 64 + Long.numberOfTrailingZeros(x)));
+                }
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), card);
+        }
+
+        @Override
+        long[] toWords() {
+            return words.clone();
+        }
+
+        @Override
+        void orInto(long[] w) {
+            for (int k = 0; k < WORDS; k++) {
+                w[k] |= words[k];
+            }
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package manager;
+import model.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class imports customer records in bulk from a CSV file into a VehicleManager.
+ * Each line of the file has the format: firstName,lastName,yyyy-MM-dd,hasCommercialLicence
+ * where hasCommercialLicence is true or false, in any case. An optional header line starting with "firstName" is skipped.
+ * The importer:
+ * 1. Reads the file in fixed size chunks through a FileChannel, so the whole input is never held in memory.
+ * 2. Parses the chunks in parallel on a pool of worker threads. At most two chunks per thread are in flight at once.
+ * 3. Registers the parsed chunks strictly in file order, each chunk under one manager lock once the chunk before it
+ *    is done. The manager rejects a customer already registered, before or earlier in the file, on the Name plus
+ *    birth date key, so the importer keeps no keys of its own.
+ * 4. Writes duplicate and malformed lines to a reject file, followed by the reason, in file order.
+ * When the same customer appears more than once, the first line in the file is kept, however the chunks are scheduled,
+ * and the Customer IDs follow the order of the file.
+ * @author Fandi Zhou
+ */
+public class CustomerImporter {
+
+    private static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+    private final VehicleManager manager;
+    private final int threads;
+    private final int chunkBytes;
+
+    /**
+     * Constructs a CustomerImporter with one worker per processor and 1 MB chunks.
+     * @param manager the manager the customers are registered with.
+     */
+    public CustomerImporter(VehicleManager manager) {
+        this(manager, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Constructs a CustomerImporter.
+     * @param manager    the manager the customers are registered with.
+     * @param threads    the number of parsing threads.
+     * @param chunkBytes the size of each chunk read from the file, must be larger than the longest line.
+     * @throws IllegalArgumentException if threads or chunkBytes is not positive.
+     */
+    public CustomerImporter(VehicleManager manager, int threads, int chunkBytes) {
+        if (threads < 1 || chunkBytes < 1) {throw new IllegalArgumentException("Threads and chunk size must be positive");}
+        this.manager = manager;
+        this.threads = threads;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Imports every customer in the input file.
+     * @param input      the CSV file to read.
+     * @param rejectFile the file duplicate and malformed lines are written to. It is replaced if it exists.
+     * @return a Report with the number of imported and rejected records and the import rate.
+     * @throws IOException if a file cannot be read or written.
+     * @throws IllegalArgumentException if a line is longer than the chunk size.
+     */
+    public Report importFile(Path input, Path rejectFile) throws IOException {
+        long start = System.nanoTime();
+        Counters counters = new Counters();
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);//Registration of the last chunk read.
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 2);//Bounds the number of chunks held in memory.
+        List<Future<?>> tasks = new ArrayList<>();
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+
+            ByteBuffer buf = ByteBuffer.allocate(chunkBytes);
+            boolean first = true;
+
+            while (in.read(buf) != -1 || buf.position() > 0) {
+                buf.flip();
+                int end = lastNewline(buf);
+
+                if (end < 0) {
+                    if (buf.limit() == buf.capacity()) {throw new IllegalArgumentException("Line longer than chunk size of " + chunkBytes + " bytes");}
+                    if (in.position() < in.size()) {// Not at the end of the file yet, read more.
+                        buf.position(buf.limit());
+                        buf.limit(buf.capacity());
+                        continue;
+                    }
+                    end = buf.limit();// Last line without a trailing newline.
+                }
+
+                String chunk = new String(buf.array(), 0, end, StandardCharsets.UTF_8);
+                boolean skipHeader = first;
+                first = false;
+
+                CompletableFuture<Void> before = previous;
+                CompletableFuture<Void> registered = new CompletableFuture<>();
+                previous = registered;
+
+                acquire(inFlight);
+                tasks.add(pool.submit(() -> {
+                    try {
+                        List<Row> rows = parseChunk(chunk, skipHeader);
+                        // The pool starts chunks in the order they were read, so the chunk before is running or done.
+                        before.join();
+                        register(rows, rejects, counters);
+                    } finally {
+                        registered.complete(null);
+                        inFlight.release();
+                    }
+                }));
+
+                // Keep the unfinished line for the next chunk.
+                buf.position(Math.min(end + 1, buf.limit()));
+                buf.compact();
+            }
+
+            for (Future<?> f : tasks) {
+                waitFor(f);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        return new Report(counters.imported.get(), counters.duplicates.get(), counters.malformed.get(), elapsedNanos);
+    }
+
+    /**
+     * Parses the lines of one chunk, without registering anything yet.
+     */
+    private static List<Row> parseChunk(String chunk, boolean skipHeader) {
+        List<Row> rows = new ArrayList<>();
+
+        int pos = 0;
+        while (pos < chunk.length()) {
+            int nl = chunk.indexOf('\n', pos);
+            if (nl < 0) {nl = chunk.length();}
+            String line = chunk.substring(pos, nl).trim();
+            pos = nl + 1;
+
+            if (line.isEmpty()) {continue;}
+            if (skipHeader) {
+                skipHeader = false;
+                if (line.regionMatches(true, 0, "firstName", 0, 9)) {continue;}
+            }
+
+            String[] cols = line.split(",", -1);
+            LocalDate dob = cols.length == 4 ? parseDate(cols[2].trim()) : null;
+            Boolean licence = cols.length == 4 ? parseLicence(cols[3].trim()) : null;
+            if (dob == null || licence == null || cols[0].trim().isEmpty() || cols[1].trim().isEmpty()) {
+                rows.add(new Row(line, null, null, false));// Malformed.
+                continue;
+            }
+            rows.add(new Row(line, new Name(cols[0].trim(), cols[1].trim()), dob, licence));
+        }
+        return rows;
+    }
+
+    /**
+     * Registers the new customers of a parsed chunk and rejects the rest. Chunks are registered one at a time, in file order.
+     */
+    private void register(List<Row> rows, BufferedWriter rejects, Counters counters) {
+        // Register the whole chunk while holding the manager lock once.
+        synchronized (manager) {
+            for (Row row : rows) {
+                if (row.name == null) {
+                    counters.malformed.incrementAndGet();
+                    reject(rejects, row.line, "malformed");
+                    continue;
+                }
+                Date dob = Date.from(row.dob.atStartOfDay(ZoneId.systemDefault()).toInstant());
+                try {
+                    manager.addCustomerRecord(row.name.getFirstName(), row.name.getlastName(), dob, row.licence);
+                    counters.imported.incrementAndGet();
+                } catch (IllegalArgumentException e) {// Already registered, before the import or earlier in the file.
+                    counters.duplicates.incrementAndGet();
+                    reject(rejects, row.line, "duplicate");
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses an ISO date, returning null if it is not valid.
+     */
+    private static LocalDate parseDate(String s) {
+        try {
+            return LocalDate.parse(s);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a licence column, which must be true or false in any case, returning null otherwise.
+     */
+    private static Boolean parseLicence(String s) {
+        if (s.equalsIgnoreCase("true")) {return true;}
+        if (s.equalsIgnoreCase("false")) {return false;}
+        return null;
+    }
+
+    /**
+     * Writes a rejected line and the reason to the reject file.
+     */
+    private static void reject(BufferedWriter rejects, String line, String reason) {
+        synchronized (rejects) {
+            try {
+                rejects.write(line);
+                rejects.write(',');
+                rejects.write(reason);
+                rejects.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Finds the position of the last newline between the buffer's position and limit.
+     */
+    private static int lastNewline(ByteBuffer buf) {
+        for (int i = buf.limit() - 1; i >= buf.position(); i--) {
+            if (buf.get(i) == '\n') {return i;}
+        }
+        return -1;
+    }
+
+    private static void acquire(Semaphore s) throws IOException {
+        try {
+            s.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        }
+    }
+
+    private static void waitFor(Future<?> f) throws IOException {
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {throw ((UncheckedIOException) e.getCause()).getCause();}
+            if (e.getCause() instanceof RuntimeException) {throw (RuntimeException) e.getCause();}
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * A parsed line: a customer, or a malformed line if the name is null.
+     */
+    private static final class Row {
+        private final String line;
+        private final Name name;
+        private final LocalDate dob;
+        private final boolean licence;
+
+        private Row(String line, Name name, LocalDate dob, boolean licence) {
+            this.line = line;
+            this.name = name;
+            this.dob = dob;
+            this.licence = licence;
+        }
+    }
+
+    /**
+     * Counters shared by the worker threads.
+     */
+    private static final class Counters {
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong duplicates = new AtomicLong();
+        private final AtomicLong malformed = new AtomicLong();
+    }
+
+    /**
+     * Class represents the outcome of an import.
+     */
+    public static final class Report {
+        private final long imported;
+        private final long duplicates;
+        private final long malformed;
+        private final long elapsedNanos;
+
+        Report(long imported, long duplicates, long malformed, long elapsedNanos) {
+            this.imported = imported;
+            this.duplicates = duplicates;
+            this.malformed = malformed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Get the number of customers registered.
+         * @return the number of imported records.
+         */
+        public long getImported() {return imported;}
+
+        /**
+         * Get the number of lines rejected as duplicates.
+         * @return the number of duplicate records.
+         */
+        public long getDuplicates() {return duplicates;}
+
+        /**
+         * Get the number of lines rejected because they could not be parsed.
+         * @return the number of malformed lines.
+         */
+        public long getMalformed() {return malformed;}
+
+        /**
+         * Get how long the import took.
+         * @return the elapsed time in milliseconds.
+         */
+        public long getElapsedMillis() {return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);}
+
+        /**
+         * Get the import rate over all lines read.
+         * @return the number of records processed per second.
+         */
+        public double getRecordsPerSecond() {
+            long total = imported + duplicates + malformed;
+            return elapsedNanos == 0 ? 0 : total * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns a one line summary of the import.
+         * @return the summary string.
+         */
+        @Override
+        public String toString() {
+            return String.format("Imported %d, duplicates %d, malformed %d in %d ms (%.0f records/s)",
+                    imported, duplicates, malformed, getElapsedMillis(), getRecordsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package manager;
+import model.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class of the hire rules of every region, compiled into an eligibility bitmask per customer.
+ * A rule says who may hire a vehicle type in a region: a minimum age, and optionally a commercial licence.
+ * A vehicle type without a rule in a region cannot be hired there.
+ * Compiling:
+ * 1. Every (region, vehicle type) pair is given one bit of a long, so up to 32 regions are supported.
+ * 2. The minimum ages of all rules split the ages into bands. For every band the rules are evaluated once, giving
+ *    the mask of a customer of that age with a commercial licence and the mask of one without.
+ * 3. A customer's mask is then a lookup of their age band and licence. The band is cached together with the date of the
+ *    next birthday that moves the customer into a new band, so it is only worked out again on that birthday,
+ *    not on every birthday and not on every check.
+ * Checking a hire, in the manager or in a batch run over millions of customers, is then a single bit test.
+ * With a LicenceCache set, a commercial licence only counts while the licence registry says it is valid.
+ * The cache is only asked when the licence decides the bit being tested, e.g. for a Van but not for a Car,
+ * and it answers from memory, so a check never waits for the registry.
+ * Ages are whole years as Period.between counts them, so a customer born on the 29th of February is a year older on
+ * the 1st of March in other years.
+ * Changing a rule recompiles the bands and drops the cached bands.
+ * The cache is indexed by Customer ID, so a rules object should serve the customers of one storage, e.g. one manager.
+ * Threads: only changing the rules is synchronized. The compiled bands and masks are published as one immutable
+ * object, and each cached band is a single long in an AtomicLongArray, so checks and batch runs take no lock and a
+ * marketing run over millions of customers never holds up the hires checked under the manager lock.
+ * @author Fandi Zhou
+ */
+public class EligibilityRules {
+
+    /**
+     * The region of a manager that has not been given one.
+     */
+    public static final String DEFAULT_REGION = "default";
+
+    /**
+     * The largest number of regions, two vehicle types each in the 64 bits of a mask.
+     */
+    public static final int MAX_REGIONS = 32;
+
+    private static final int KINDS = 2;
+    private static final int MAX_CACHED_ID = 1 << 26;//Customers with larger IDs are evaluated without the cache.
+
+    // A cached band is packed into a long: the band, the birth date it was worked out for (so a different record
+    // using the same ID is never given the wrong band) and the epoch day it must be worked out again.
+    private static final int DAY_BITS = 28;
+    private static final long DAY_OFFSET = 1L << (DAY_BITS - 1);
+    private static final long DAY_MASK = (1L << DAY_BITS) - 1;
+    private static final long NEVER = DAY_MASK;//The packed day of a band that never changes.
+
+    private final Clock clock;
+
+    private final Map<String, Integer> regions = new LinkedHashMap<>();//Region name to region number, changed under the lock.
+    private final Map<Integer, Rule> rules = new HashMap<>();//Bit number to rule, changed under the lock.
+
+    private volatile Compiled compiled = new Compiled(Map.of(), Map.of(), new int[0], new long[] {0}, new long[] {0});
+
+    private volatile LicenceCache licences;//The current validity of commercial licences, null to trust the licence given at registration.
+
+    private final AtomicLong recomputations = new AtomicLong();
+
+    /**
+     * Constructs an EligibilityRules with no rules, so nothing can be hired until rules are added.
+     * @param clock the time source of today's date, normally the manager's clock.
+     */
+    public EligibilityRules(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Creates the standard rules in the default region: a Car needs an age of 18,
+     * and a Van needs an age of 23 and a commercial licence.
+     * @param clock the time source of today's date, normally the manager's clock.
+     * @return the standard rules.
+     */
+    public static EligibilityRules standard(Clock clock) {
+        EligibilityRules r = new EligibilityRules(clock);
+        r.addRule(DEFAULT_REGION, "Car", 18, false);
+        r.addRule(DEFAULT_REGION, "Van", 23, true);
+        return r;
+    }
+
+    /**
+     * Sets the rule for a vehicle type in a region, replacing any rule it already had there.
+     * @param region                 the name of the region, added if it is new.
+     * @param vehicleType            the vehicle type (Car or Van).
+     * @param minAge                 the youngest age that may hire the type.
+     * @param needsCommercialLicence true if a commercial licence is needed as well.
+     * @throws IllegalArgumentException if the vehicle type is unknown, the age is negative or there are too many regions.
+     */
+    public synchronized void addRule(String region, String vehicleType, int minAge, boolean needsCommercialLicence) {
+        int kind = FleetStore.kindOf(vehicleType);
+        if (kind < 0) {throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);}
+        if (minAge < 0) {throw new IllegalArgumentException("Minimum age must not be negative");}
+        Integer r = regions.get(region);
+        if (r == null) {
+            if (regions.size() == MAX_REGIONS) {throw new IllegalArgumentException("No more than " + MAX_REGIONS + " regions are supported");}
+            r = regions.size();
+            regions.put(region, r);
+        }
+        rules.put(r * KINDS + kind, new Rule(minAge, needsCommercialLicence));
+        compile();
+    }
+
+    /**
+     * Removes the rule for a vehicle type in a region, so the type can no longer be hired there.
+     * @param region      the name of the region.
+     * @param vehicleType the vehicle type.
+     */
+    public synchronized void removeRule(String region, String vehicleType) {
+        Integer r = regions.get(region);
+        int kind = FleetStore.kindOf(vehicleType);
+        if (r != null && kind >= 0 && rules.remove(r * KINDS + kind) != null) {compile();}
+    }
+
+    /**
+     * Checks a region has been given at least one rule.
+     * @param region the name of the region.
+     * @return true if the region is known.
+     */
+    public boolean hasRegion(String region) {
+        return compiled.regions.containsKey(region);
+    }
+
+    /**
+     * Get the bit of a vehicle type in a region, to test against the masks from maskOf in a batch run.
+     * @param region      the name of the region.
+     * @param vehicleType the vehicle type.
+     * @return the bit, or 0 if the region or type is unknown, which no mask contains.
+     */
+    public long bitOf(String region, String vehicleType) {
+        Integer r = compiled.regions.get(region);
+        int kind = FleetStore.kindOf(vehicleType);
+        return r == null || kind < 0 ? 0 : 1L << (r * KINDS + kind);
+    }
+
+    /**
+     * Sets the cache of licence lookups used to check commercial licences are still valid.
+     * @param licences the cache, or null to trust the licence each customer registered with.
+     */
+    public void setLicenceCache(LicenceCache licences) {
+        this.licences = licences;
+    }
+
+    /**
+     * Starts a lookup of a customer's commercial licence ahead of their next hire, if the rules have a LicenceCache.
+     * @param c the customer.
+     */
+    public void warmLicence(CustomerRecord c) {
+        LicenceCache l = licences;
+        if (l != null) {l.warm(c);}
+    }
+
+    /**
+     * Get the eligibility mask of a customer, worked out again only if a birthday has moved them into a new age band.
+     * @param c the customer.
+     * @return the mask with the bit of every (region, vehicle type) the customer may hire.
+     */
+    public long maskOf(CustomerRecord c) {
+        Compiled k = compiled;
+        int band = bandOf(k, c);
+        return hasLicence(c) ? k.licensedMasks[band] : k.unlicensedMasks[band];
+    }
+
+    /**
+     * Tests one bit of a customer's mask, asking for the licence only if it decides the bit.
+     */
+    private boolean hasBit(Compiled k, CustomerRecord c, long bit) {
+        int band = bandOf(k, c);
+        if ((k.unlicensedMasks[band] & bit) != 0) {return true;}
+        if ((k.licensedMasks[band] & bit) == 0) {return false;}
+        return hasLicence(c);
+    }
+
+    private boolean hasLicence(CustomerRecord c) {
+        LicenceCache l = licences;
+        return c.isHaveC_licence() && (l == null || l.isValid(c));
+    }
+
+    /**
+     * Finds the age band of a customer, from the cache unless a birthday has moved them into a new band.
+     */
+    private int bandOf(Compiled k, CustomerRecord c) {
+        long today = LocalDate.now(clock).toEpochDay();
+        int id = c.getCustomerID();
+        LocalDate birthDate = birthDateOf(c.getBirthDate().getTime());
+        long birth = birthDate.toEpochDay();
+        AtomicLongArray cache = k.cache;
+        if (id >= 0 && id < cache.length()) {
+            long e = cache.get(id);
+            long until = e & DAY_MASK;
+            if (((e >>> DAY_BITS) & DAY_MASK) == birth + DAY_OFFSET && (until == NEVER || today < until - DAY_OFFSET)) {
+                return (int) (e >>> (2 * DAY_BITS));
+            }
+        }
+
+        recomputations.incrementAndGet();
+        int band = k.bandOf(ageOn(birthDate, LocalDate.ofEpochDay(today)));
+        // The band holds until the birthday that reaches the next threshold.
+        long until = band < k.thresholds.length ? birthdayAt(birthDate, k.thresholds[band]).toEpochDay() + DAY_OFFSET : NEVER;
+
+        if (id >= 0 && id < MAX_CACHED_ID) {
+            if (id >= cache.length()) {cache = k.grow(id);}
+            cache.set(id, (long) band << (2 * DAY_BITS) | (birth + DAY_OFFSET) << DAY_BITS | until);
+        }
+        return band;
+    }
+
+    /**
+     * Checks a customer may hire a vehicle type in a region.
+     * @param c           the customer.
+     * @param region      the name of the region.
+     * @param vehicleType the vehicle type.
+     * @return true if the customer meets the rule of the type in the region.
+     */
+    public boolean canHire(CustomerRecord c, String region, String vehicleType) {
+        Compiled k = compiled;
+        long bit = k.bitOf(region, vehicleType);
+        return bit != 0 && hasBit(k, c, bit);
+    }
+
+    /**
+     * Checks a customer may hire a vehicle type in a region, explaining why not if they may not.
+     * Types that are not recognized are let through, so the caller reports them as unavailable.
+     * @param c           the customer.
+     * @param region      the name of the region.
+     * @param vehicleType the vehicle type.
+     * @throws IllegalArgumentException if the customer does not meet the age or license requirements,
+     *         or the type is not offered in the region.
+     */
+    public void check(CustomerRecord c, String region, String vehicleType) {
+        int kind = FleetStore.kindOf(vehicleType);
+        if (kind < 0) {return;}
+        Compiled k = compiled;
+        Integer r = k.regions.get(region);
+        if (r == null) {throw new IllegalArgumentException("Unknown region: " + region);}
+        if (hasBit(k, c, 1L << (r * KINDS + kind))) {return;}
+
+        // Not eligible: only now look at the rule itself to give the reason.
+        Rule rule = k.rules.get(r * KINDS + kind);
+        if (rule == null) {throw new IllegalArgumentException(vehicleType + " hire is not offered in " + region + "!");}
+        if (ageOn(birthDateOf(c.getBirthDate().getTime()), LocalDate.now(clock)) < rule.minAge) {
+            throw new IllegalArgumentException("Age must above " + rule.minAge + " to rent a " + vehicleType + "!");
+        }
+        if (c.isHaveC_licence()) {throw new IllegalArgumentException("Commercial Licence is no longer valid!");}
+        throw new IllegalArgumentException("Commercial Licence Not Found!");
+    }
+
+    /**
+     * Lists the vehicle types a customer may hire in a region.
+     * @param c      the customer.
+     * @param region the name of the region.
+     * @return the vehicle types, empty if the region is unknown.
+     */
+    public List<String> hireableTypes(CustomerRecord c, String region) {
+        List<String> types = new ArrayList<>(KINDS);
+        Compiled k = compiled;
+        Integer r = k.regions.get(region);
+        if (r == null) {return types;}
+        int band = bandOf(k, c);
+        long mask = hasLicence(c) ? k.licensedMasks[band] : k.unlicensedMasks[band];
+        for (int kind = 0; kind < KINDS; kind++) {
+            if ((mask & (1L << (r * KINDS + kind))) != 0) {types.add(FleetStore.typeOf(kind));}
+        }
+        return types;
+    }
+
+    /**
+     * Selects the customers that may hire a vehicle type in a region, e.g. for a marketing run.
+     * No lock is held, and the whole run uses the rules as they were when it started.
+     * @param customers   the customers to test.
+     * @param region      the name of the region.
+     * @param vehicleType the vehicle type.
+     * @return the eligible customers in the order given.
+     */
+    public List<CustomerRecord> eligible(Iterable<CustomerRecord> customers, String region, String vehicleType) {
+        List<CustomerRecord> result = new ArrayList<>();
+        Compiled k = compiled;
+        long bit = k.bitOf(region, vehicleType);
+        if (bit == 0) {return result;}
+        for (CustomerRecord c : customers) {
+            if (hasBit(k, c, bit)) {result.add(c);}
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of times an age band was worked out instead of taken from the cache.
+     * @return the number of recomputations.
+     */
+    public long getRecomputations() {
+        return recomputations.get();
+    }
+
+    /**
+     * Compiles the rules into the masks of every age band and publishes them with an empty cache of bands.
+     */
+    private void compile() {
+        TreeSet<Integer> ages = new TreeSet<>();
+        for (Rule rule : rules.values()) {
+            if (rule.minAge > 0) {ages.add(rule.minAge);}
+        }
+        int[] t = new int[ages.size()];
+        int i = 0;
+        for (int age : ages) {t[i++] = age;}
+
+        long[] withLicence = new long[t.length + 1];
+        long[] withoutLicence = new long[t.length + 1];
+        for (int band = 0; band <= t.length; band++) {
+            int age = band == 0 ? 0 : t[band - 1];//The youngest age of the band, every age in it gives the same result.
+            for (Map.Entry<Integer, Rule> e : rules.entrySet()) {
+                Rule rule = e.getValue();
+                if (age < rule.minAge) {continue;}
+                withLicence[band] |= 1L << e.getKey();
+                if (!rule.needsCommercialLicence) {withoutLicence[band] |= 1L << e.getKey();}
+            }
+        }
+        compiled = new Compiled(Map.copyOf(regions), Map.copyOf(rules), t, withLicence, withoutLicence);
+    }
+
+    private static LocalDate birthDateOf(long millis) {
+        return new java.sql.Date(millis).toLocalDate();
+    }
+
+    /**
+     * Works out the age in whole years, as Period.between does.
+     */
+    private static int ageOn(LocalDate birth, LocalDate today) {
+        return Period.between(birth, today).getYears();
+    }
+
+    /**
+     * Finds the first day on which ageOn gives an age, e.g. the 1st of March for the 29th of February in other years.
+     */
+    private static LocalDate birthdayAt(LocalDate birth, int age) {
+        LocalDate day = birth.plusYears(age);// Moved back to the 28th of February if the year has no 29th.
+        return day.getDayOfMonth() == birth.getDayOfMonth() ? day : day.plusDays(1);
+    }
+
+    /**
+     * The compiled rules, never changed once published, and the cache of bands worked out with them.
+     */
+    private static final class Compiled {
+        private final Map<String, Integer> regions;
+        private final Map<Integer, Rule> rules;
+        private final int[] thresholds;//thresholds[i] is the lowest age of band i + 1, band 0 is every age below thresholds[0].
+        private final long[] licensedMasks;//Mask of each band with a commercial licence.
+        private final long[] unlicensedMasks;//Mask of each band without one.
+        private volatile AtomicLongArray cache = new AtomicLongArray(0);//Packed band of each Customer ID.
+
+        private Compiled(Map<String, Integer> regions, Map<Integer, Rule> rules, int[] thresholds, long[] licensedMasks, long[] unlicensedMasks) {
+            this.regions = regions;
+            this.rules = rules;
+            this.thresholds = thresholds;
+            this.licensedMasks = licensedMasks;
+            this.unlicensedMasks = unlicensedMasks;
+        }
+
+        private long bitOf(String region, String vehicleType) {
+            Integer r = regions.get(region);
+            int kind = FleetStore.kindOf(vehicleType);
+            return r == null || kind < 0 ? 0 : 1L << (r * KINDS + kind);
+        }
+
+        /**
+         * Finds the age band of an age.
+         */
+        private int bandOf(int age) {
+            int band = Arrays.binarySearch(thresholds, age);
+            return band >= 0 ? band + 1 : -band - 1;
+        }
+
+        /**
+         * Makes room in the cache for an ID. A band cached by another thread during the copy may be lost, and is
+         * then only worked out again.
+         */
+        private synchronized AtomicLongArray grow(int id) {
+            AtomicLongArray old = cache;
+            if (id < old.length()) {return old;}
+            int size = Math.max(id + 1, Math.min(MAX_CACHED_ID, Math.max(1024, old.length() * 2)));
+            AtomicLongArray bigger = new AtomicLongArray(size);
+            for (int i = 0; i < old.length(); i++) {
+                bigger.set(i, old.get(i));
+            }
+            cache = bigger;
+            return bigger;
+        }
+    }
+
+    /**
+     * One hire rule.
+     */
+    private static final class Rule {
+        private final int minAge;
+        private final boolean needsCommercialLicence;
+
+        private Rule(int minAge, boolean needsCommercialLicence) {
+            this.minAge = minAge;
+            this.needsCommercialLicence = needsCommercialLicence;
+        }
+    }
+}
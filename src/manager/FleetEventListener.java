@@ -0,0 +1,80 @@
+package manager;
+import model.*;
+
+/**
+ * Interface of an observer of the changes made by a VehicleManager.
+ * Listeners are registered with VehicleManager.addListener and are called in the order the changes happen,
+ * while the manager lock is held, so they must return quickly and must not call back into the manager.
+ * Every method has an empty default so a listener only overrides the events it needs.
+ * @author Fandi Zhou
+ */
+public interface FleetEventListener {
+
+    /**
+     * Called after a vehicle has been added to the fleet.
+     * @param v the new vehicle.
+     */
+    default void vehicleAdded(Vehicle v) {}
+
+    /**
+     * Called after a customer has been registered.
+     * @param c the new customer.
+     */
+    default void customerAdded(CustomerRecord c) {}
+
+    /**
+     * Called after a vehicle has been hired.
+     * @param c        the customer hiring the vehicle.
+     * @param v        the hired vehicle.
+     * @param duration the duration of the hire in days.
+     */
+    default void vehicleHired(CustomerRecord c, Vehicle v, int duration) {}
+
+    /**
+     * Called after a vehicle has been returned and its mileage updated, before any service or inspection.
+     * @param c       the customer returning the vehicle.
+     * @param v       the returned vehicle.
+     * @param mileage the distance added at return, i.e. the distance of the hire less what odometer readings already reported.
+     */
+    default void vehicleReturned(CustomerRecord c, Vehicle v, int mileage) {}
+
+    /**
+     * Called when a hire passes its due time without the vehicle being returned, once per hire,
+     * e.g. to start charging a late fee or to recover the vehicle.
+     * @param c   the customer who hired the vehicle.
+     * @param v   the overdue vehicle.
+     * @param due the time the vehicle was due back, in milliseconds.
+     */
+    default void hireOverdue(CustomerRecord c, Vehicle v, long due) {}
+
+    /**
+     * Called after an odometer reading taken during a hire has moved the mileage of a vehicle on.
+     * @param v        the vehicle on hire.
+     * @param distance the distance added to its mileage.
+     */
+    default void mileageReported(Vehicle v, int distance) {}
+
+    /**
+     * Called when an odometer reading shows that a vehicle on hire has reached its service interval.
+     * @param v the vehicle due for a service.
+     */
+    default void serviceDue(Vehicle v) {}
+
+    /**
+     * Called after a vehicle has been serviced and its mileage reset.
+     * @param v the serviced vehicle.
+     */
+    default void vehicleServiced(Vehicle v) {}
+
+    /**
+     * Called after a Van has been inspected and its inspection flag cleared.
+     * @param v the inspected vehicle.
+     */
+    default void vehicleInspected(Vehicle v) {}
+
+    /**
+     * Called after a vehicle has been retired from the fleet. Views of the vehicle can no longer be used, so only its ID is given.
+     * @param id the ID of the retired vehicle.
+     */
+    default void vehicleRetired(VehicleID id) {}
+}
@@ -0,0 +1,173 @@
+package manager;
+import model.*;
+
+import java.util.*;
+
+/**
+ * Class of bitmap indexes over the vehicle slots of a FleetStore, used to answer FleetQuery filters.
+ * There is one CompressedBitmap per vehicle kind, one of hired vehicles, one of vehicles flagged for inspection,
+ * and one per mileage bucket of 1000 miles (the last bucket holds everything from 15000 miles up).
+ * The index listens to the FleetStore, so every hire, return, inspection flag and mileage change updates one or two bitmaps.
+ * A query becomes a few and / andNot / or operations over the bitmaps. A mileage bound that falls inside a bucket is
+ * settled by checking the mileage column of just the vehicles in that bucket.
+ * Counting only needs the cardinality of the result, no Vehicle views are created.
+ * @author Fandi Zhou
+ */
+public final class FleetIndex implements FleetStore.Listener {
+
+    /**
+     * The width of a mileage bucket in miles.
+     */
+    public static final int BUCKET_MILES = 1000;
+
+    private static final int BUCKETS = 16;
+
+    private final FleetStore store;
+    private final CompressedBitmap[] byKind = {new CompressedBitmap(), new CompressedBitmap()};
+    private final CompressedBitmap hired = new CompressedBitmap();
+    private final CompressedBitmap inspection = new CompressedBitmap();
+    private final CompressedBitmap[] byMileage = new CompressedBitmap[BUCKETS];
+
+    /**
+     * Constructs a FleetIndex over a fleet store, indexing the vehicles already in it and listening for changes.
+     * @param store the store to index.
+     */
+    public FleetIndex(FleetStore store) {
+        this.store = store;
+        for (int b = 0; b < BUCKETS; b++) {
+            byMileage[b] = new CompressedBitmap();
+        }
+        for (int slot = 0; slot < store.size(); slot++) {
+            vehicleAdded(slot);
+        }
+        store.addListener(this);
+    }
+
+    @Override
+    public void vehicleAdded(int slot) {
+        byKind[store.kind(slot)].add(slot);
+        byMileage[bucket(store.mileage(slot))].add(slot);
+        if (store.isHired(slot)) {hired.add(slot);}
+        if (store.needsInspection(slot)) {inspection.add(slot);}
+    }
+
+    @Override
+    public void vehicleRemoved(int slot) {
+        byKind[store.kind(slot)].remove(slot);
+        byMileage[bucket(store.mileage(slot))].remove(slot);
+        hired.remove(slot);
+        inspection.remove(slot);
+    }
+
+    @Override
+    public void vehicleMoved(int from, int to) {
+        vehicleRemoved(from);
+
+        byKind[store.kind(from)].add(to);
+        byMileage[bucket(store.mileage(from))].add(to);
+        if (store.isHired(from)) {hired.add(to);}
+        if (store.needsInspection(from)) {inspection.add(to);}
+    }
+
+    @Override
+    public void mileageChanged(int slot, int oldMileage, int newMileage) {
+        int from = bucket(oldMileage), to = bucket(newMileage);
+        if (from != to) {
+            byMileage[from].remove(slot);
+            byMileage[to].add(slot);
+        }
+    }
+
+    @Override
+    public void hiredChanged(int slot, boolean h) {
+        if (h) {
+            hired.add(slot);
+        } else {
+            hired.remove(slot);
+        }
+    }
+
+    @Override
+    public void inspectionChanged(int slot, boolean needInspection) {
+        if (needInspection) {
+            inspection.add(slot);
+        } else {
+            inspection.remove(slot);
+        }
+    }
+
+    /**
+     * Counts the vehicles matching a query.
+     * @param q the query.
+     * @return the number of matching vehicles.
+     */
+    public int count(FleetQuery q) {
+        CompressedBitmap[] parts = evaluate(q);
+        int[] n = {parts[0].cardinality()};
+        if (parts[1] != null) {
+            parts[1].forEach(slot -> {if (inRange(slot, q)) {n[0]++;}});
+        }
+        return n[0];
+    }
+
+    /**
+     * Finds the vehicles matching a query.
+     * @param q the query.
+     * @return the matching vehicles in slot order.
+     */
+    public List<Vehicle> find(FleetQuery q) {
+        CompressedBitmap[] parts = evaluate(q);
+        CompressedBitmap result = parts[0];
+        if (parts[1] != null) {
+            CompressedBitmap refined = new CompressedBitmap();
+            parts[1].forEach(slot -> {if (inRange(slot, q)) {refined.add(slot);}});
+            result = result.or(refined);
+        }
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        result.forEach(slot -> vehicles.add(store.view(slot)));
+        return vehicles;
+    }
+
+    /**
+     * Runs the bitmap part of a query.
+     * @return the vehicles that certainly match, and the vehicles in partly covered mileage buckets that still need
+     *         their mileage checked (null if the bound is bucket aligned).
+     */
+    private CompressedBitmap[] evaluate(FleetQuery q) {
+        CompressedBitmap base = q.getKind() >= 0 ? byKind[q.getKind()] : byKind[FleetStore.CAR].or(byKind[FleetStore.VAN]);
+
+        if (q.getHired() != null) {base = q.getHired() ? base.and(hired) : base.andNot(hired);}
+        if (q.getInspection() != null) {base = q.getInspection() ? base.and(inspection) : base.andNot(inspection);}
+
+        int min = q.getMinMileage(), max = q.getMaxMileage();
+        if (min <= 0 && max == Integer.MAX_VALUE) {
+            return new CompressedBitmap[] {base, null};
+        }
+        if (max <= min) {
+            return new CompressedBitmap[] {new CompressedBitmap(), null};
+        }
+
+        CompressedBitmap whole = new CompressedBitmap();//Buckets inside the range.
+        CompressedBitmap partial = null;//Buckets the range only partly covers.
+        for (int b = bucket(min); b <= bucket(max - 1); b++) {
+            long low = (long) b * BUCKET_MILES;
+            long high = b == BUCKETS - 1 ? Long.MAX_VALUE : low + BUCKET_MILES;
+            if (low >= min && high <= max) {
+                whole = whole.or(byMileage[b]);
+            } else {
+                partial = partial == null ? byMileage[b] : partial.or(byMileage[b]);
+            }
+        }
+        return new CompressedBitmap[] {base.and(whole), partial == null ? null : base.and(partial)};
+    }
+
+    private boolean inRange(int slot, FleetQuery q) {
+        int m = store.mileage(slot);
+        return m >= q.getMinMileage() && m < q.getMaxMileage();
+    }
+
+    private static int bucket(int mileage) {
+        return Math.max(0, Math.min(BUCKETS - 1, mileage / BUCKET_MILES));
+    }
+}
@@ -0,0 +1,82 @@
+package manager;
+import model.*;
+
+/**
+ * Class of a filter over the fleet, built from compound conditions on vehicle type, hiring status,
+ * inspection status and mileage. Conditions that are not set match every vehicle, and every condition set must hold.
+ * Example, "Vans, not hired, no inspection pending, mileage under 4000":
+ * new FleetQuery().type("Van").hired(false).inspectionPending(false).mileageBelow(4000)
+ * A query is run with VehicleManager.countVehicles or findVehicles, which answer it from the FleetIndex.
+ * @author Fandi Zhou
+ */
+public final class FleetQuery {
+
+    private int kind = -1;//FleetStore.CAR or VAN, -1 for any.
+    private Boolean hired;//Null for either.
+    private Boolean inspection;//Null for either.
+    private int minMileage = 0;//Inclusive.
+    private int maxMileage = Integer.MAX_VALUE;//Exclusive.
+
+    /**
+     * Keeps only vehicles of a type.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return this query.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public FleetQuery type(String vehicleType) {
+        int k = FleetStore.kindOf(vehicleType);
+        if (k < 0) {throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);}
+        kind = k;
+        return this;
+    }
+
+    /**
+     * Keeps only vehicles that are (or are not) on hire.
+     * @param h true for hired vehicles, false for vehicles not on hire.
+     * @return this query.
+     */
+    public FleetQuery hired(boolean h) {
+        hired = h;
+        return this;
+    }
+
+    /**
+     * Keeps only vehicles that have (or do not have) an inspection pending.
+     * @param pending true for vehicles flagged for inspection, false for the others.
+     * @return this query.
+     */
+    public FleetQuery inspectionPending(boolean pending) {
+        inspection = pending;
+        return this;
+    }
+
+    /**
+     * Keeps only vehicles whose mileage since their last service is below a value.
+     * @param miles the exclusive upper bound.
+     * @return this query.
+     */
+    public FleetQuery mileageBelow(int miles) {
+        maxMileage = Math.min(maxMileage, miles);
+        return this;
+    }
+
+    /**
+     * Keeps only vehicles whose mileage since their last service is at least a value.
+     * @param miles the inclusive lower bound.
+     * @return this query.
+     */
+    public FleetQuery mileageAtLeast(int miles) {
+        minMileage = Math.max(minMileage, miles);
+        return this;
+    }
+
+    int getKind() {return kind;}
+
+    Boolean getHired() {return hired;}
+
+    Boolean getInspection() {return inspection;}
+
+    int getMinMileage() {return minMileage;}
+
+    int getMaxMileage() {return maxMileage;}
+}
@@ -0,0 +1,340 @@
+package manager;
+import model.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class of a utilisation and revenue-day report over a VehicleManager, kept up to date as the changes happen.
+ * The report is a FleetEventListener: register it with VehicleManager.addListener before the first hire
+ * and it updates its totals on every hire, return, service and inspection, so nothing has to be replayed or scanned
+ * when a dashboard asks for the figures. It holds:
+ * 1. Running totals since the report was registered: hires, returns and hired vehicle-days (revenue-days) per vehicle
+ *    type, services and inspections. Each is read in constant time.
+ * 2. The open hires: vehicles on hire per type and the days booked for them, kept apart from the finished hires.
+ * 3. Rolling daily figures in a fixed ring of day buckets, so the last days can be asked for without keeping every event.
+ *    A bucket is reused when its slot comes round again, so the memory is fixed by the window length.
+ * Hire days are counted when the vehicle is returned, on the day of the return, as the days it was actually out:
+ * every day or part of a day from the hire to the return, at least one. A hire returned early or late is therefore
+ * counted for the days it was used, not the days booked. Hires made before the report was registered are not counted.
+ * The methods are synchronized on the report, which is only held for a few array updates, so reading the figures
+ * never waits for the manager lock.
+ * @author Fandi Zhou
+ */
+public class FleetReport implements FleetEventListener {
+
+    /**
+     * The default number of days kept in the rolling window.
+     */
+    public static final int DEFAULT_WINDOW_DAYS = 30;
+
+    private static final int KINDS = 2;
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final Clock clock;
+    private final int windowDays;
+
+    // Running totals, per vehicle kind where it applies.
+    private final long[] hires = new long[KINDS];
+    private final long[] returns = new long[KINDS];
+    private final long[] hiredDays = new long[KINDS];//Days of the finished hires.
+    private final int[] onHire = new int[KINDS];
+    private final long[] openBookedDays = new long[KINDS];//Days booked for the open hires.
+    private final Map<VehicleID, Open> open = new HashMap<>();//The open hire of each vehicle on hire.
+    private long services;
+    private long inspections;
+
+    // Ring of day buckets, the bucket of a day is its epoch day modulo the window length.
+    private final long[] bucketDay;//The epoch day a bucket currently holds, -1 if unused.
+    private final long[][] bucketHires;
+    private final long[][] bucketHiredDays;
+    private final long[] bucketServices;
+    private final long[] bucketInspections;
+
+    /**
+     * Constructs a FleetReport keeping the last 30 days.
+     * @param clock the time source used to find the current day, normally the manager's clock.
+     */
+    public FleetReport(Clock clock) {
+        this(clock, DEFAULT_WINDOW_DAYS);
+    }
+
+    /**
+     * Constructs a FleetReport.
+     * @param clock      the time source used to find the current day, normally the manager's clock.
+     * @param windowDays the number of days kept in the rolling window.
+     * @throws IllegalArgumentException if windowDays is not positive.
+     */
+    public FleetReport(Clock clock, int windowDays) {
+        if (windowDays < 1) {throw new IllegalArgumentException("Window must be at least one day");}
+        this.clock = clock;
+        this.windowDays = windowDays;
+
+        bucketDay = new long[windowDays];
+        bucketHires = new long[windowDays][KINDS];
+        bucketHiredDays = new long[windowDays][KINDS];
+        bucketServices = new long[windowDays];
+        bucketInspections = new long[windowDays];
+        Arrays.fill(bucketDay, -1);
+    }
+
+    @Override
+    public synchronized void vehicleHired(CustomerRecord c, Vehicle v, int duration) {
+        int kind = kind(v);
+        hires[kind]++;
+        onHire[kind]++;
+        openBookedDays[kind] += duration;
+        bucketHires[bucket(today())][kind]++;
+        open.put(v.getVehicleID(), new Open(clock.millis(), duration));
+    }
+
+    @Override
+    public synchronized void vehicleReturned(CustomerRecord c, Vehicle v, int mileage) {
+        Open o = open.remove(v.getVehicleID());
+        if (o == null) {return;}// Hired before the report was registered.
+        int kind = kind(v);
+        long days = Math.max(1, (clock.millis() - o.start + DAY_MILLIS - 1) / DAY_MILLIS);// Part days count as whole days.
+        onHire[kind]--;
+        openBookedDays[kind] -= o.duration;
+        returns[kind]++;
+        hiredDays[kind] += days;
+        bucketHiredDays[bucket(today())][kind] += days;
+    }
+
+    @Override
+    public synchronized void vehicleServiced(Vehicle v) {
+        services++;
+        bucketServices[bucket(today())]++;
+    }
+
+    @Override
+    public synchronized void vehicleInspected(Vehicle v) {
+        inspections++;
+        bucketInspections[bucket(today())]++;
+    }
+
+    /**
+     * Get the number of hires of a vehicle type.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the number of hires since the report was registered.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public synchronized long getHires(String vehicleType) {
+        return hires[kindOf(vehicleType)];
+    }
+
+    /**
+     * Get the number of finished hires of a vehicle type, i.e. the vehicles returned.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the number of returns since the report was registered.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public synchronized long getReturns(String vehicleType) {
+        return returns[kindOf(vehicleType)];
+    }
+
+    /**
+     * Get the hired vehicle-days of a vehicle type, i.e. the days its finished hires were actually out.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the number of revenue days since the report was registered, open hires not included.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public synchronized long getHiredDays(String vehicleType) {
+        return hiredDays[kindOf(vehicleType)];
+    }
+
+    /**
+     * Get the average actual duration of the finished hires of a vehicle type.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the average duration in days, or 0 if no vehicle has been returned.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public synchronized double getAverageHireDuration(String vehicleType) {
+        int kind = kindOf(vehicleType);
+        return returns[kind] == 0 ? 0 : (double) hiredDays[kind] / returns[kind];
+    }
+
+    /**
+     * Get the days booked for the open hires of a vehicle type, i.e. those whose vehicle has not been returned yet.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the booked days of the vehicles on hire.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public synchronized long getOpenBookedDays(String vehicleType) {
+        return openBookedDays[kindOf(vehicleType)];
+    }
+
+    /**
+     * Get the number of vehicles of a type currently on hire.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the number of vehicles on hire.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public synchronized int getOnHire(String vehicleType) {
+        return onHire[kindOf(vehicleType)];
+    }
+
+    /**
+     * Get the number of services carried out.
+     * @return the number of services since the report was registered.
+     */
+    public synchronized long getServices() {
+        return services;
+    }
+
+    /**
+     * Get the number of Van inspections carried out.
+     * @return the number of inspections since the report was registered.
+     */
+    public synchronized long getInspections() {
+        return inspections;
+    }
+
+    /**
+     * Get the hired vehicle-days of the hires of a vehicle type returned over the last days, today included.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @param days        the number of days, at most the window length.
+     * @return the number of revenue days of the returns in the period.
+     * @throws IllegalArgumentException if the vehicle type is not recognized or days is outside the window.
+     */
+    public synchronized long getHiredDaysInLast(String vehicleType, int days) {
+        int kind = kindOf(vehicleType);
+        long today = checkDays(days);
+        long total = 0;
+        for (long day = today; day > today - days; day--) {
+            int b = held(day);
+            if (b >= 0) {total += bucketHiredDays[b][kind];}
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of hires of a vehicle type made over the last days, today included.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @param days        the number of days, at most the window length.
+     * @return the number of hires in the period.
+     * @throws IllegalArgumentException if the vehicle type is not recognized or days is outside the window.
+     */
+    public synchronized long getHiresInLast(String vehicleType, int days) {
+        int kind = kindOf(vehicleType);
+        long today = checkDays(days);
+        long total = 0;
+        for (long day = today; day > today - days; day--) {
+            int b = held(day);
+            if (b >= 0) {total += bucketHires[b][kind];}
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of services carried out over the last days, today included.
+     * @param days the number of days, at most the window length.
+     * @return the number of services in the period.
+     * @throws IllegalArgumentException if days is outside the window.
+     */
+    public synchronized long getServicesInLast(int days) {
+        long today = checkDays(days);
+        long total = 0;
+        for (long day = today; day > today - days; day--) {
+            int b = held(day);
+            if (b >= 0) {total += bucketServices[b];}
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of inspections carried out over the last days, today included.
+     * @param days the number of days, at most the window length.
+     * @return the number of inspections in the period.
+     * @throws IllegalArgumentException if days is outside the window.
+     */
+    public synchronized long getInspectionsInLast(int days) {
+        long today = checkDays(days);
+        long total = 0;
+        for (long day = today; day > today - days; day--) {
+            int b = held(day);
+            if (b >= 0) {total += bucketInspections[b];}
+        }
+        return total;
+    }
+
+    /**
+     * Get the average number of services per day over the last days, today included.
+     * @param days the number of days, at most the window length.
+     * @return the services per day.
+     * @throws IllegalArgumentException if days is outside the window.
+     */
+    public synchronized double getServicesPerDay(int days) {
+        return (double) getServicesInLast(days) / days;
+    }
+
+    /**
+     * Get the number of days kept in the rolling window.
+     * @return the window length in days.
+     */
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    /**
+     * Returns the bucket of a day to write to, clearing it first if it still holds an older day.
+     */
+    private int bucket(long day) {
+        int b = (int) Math.floorMod(day, (long) windowDays);
+        if (bucketDay[b] != day) {
+            bucketDay[b] = day;
+            bucketHires[b][0] = bucketHires[b][1] = 0;
+            bucketHiredDays[b][0] = bucketHiredDays[b][1] = 0;
+            bucketServices[b] = 0;
+            bucketInspections[b] = 0;
+        }
+        return b;
+    }
+
+    /**
+     * Returns the bucket holding a day, or -1 if the day was never written or has been overwritten.
+     */
+    private int held(long day) {
+        int b = (int) Math.floorMod(day, (long) windowDays);
+        return bucketDay[b] == day ? b : -1;
+    }
+
+    /**
+     * Checks a number of days fits in the window and returns today's epoch day.
+     */
+    private long checkDays(int days) {
+        if (days < 1 || days > windowDays) {throw new IllegalArgumentException("Days must be between 1 and " + windowDays + ": " + days);}
+        return today();
+    }
+
+    private long today() {
+        return LocalDate.ofInstant(clock.instant(), clock.getZone()).toEpochDay();
+    }
+
+    private static int kind(Vehicle v) {
+        return v instanceof Van ? FleetStore.VAN : FleetStore.CAR;
+    }
+
+    private static int kindOf(String vehicleType) {
+        int kind = FleetStore.kindOf(vehicleType);
+        if (kind < 0) {throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);}
+        return kind;
+    }
+
+    /**
+     * A hire whose vehicle has not been returned yet.
+     */
+    private static final class Open {
+        private final long start;
+        private final int duration;
+
+        private Open(long start, int duration) {
+            this.start = start;
+            this.duration = duration;
+        }
+    }
+}
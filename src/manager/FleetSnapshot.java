@@ -0,0 +1,77 @@
+package manager;
+import model.*;
+
+import java.util.*;
+
+/**
+ * Class represents an immutable, point-in-time view of the fleet and hire state of a VehicleManager.
+ * A new snapshot is published by the manager after every change, each with a higher version number.
+ * Readers can hold on to a snapshot and query it from any thread without locks while hires continue,
+ * and every query on the same snapshot gives answers that are consistent with each other.
+ * The hire lists are kept in a persistent (path-copying) map, so publishing a new snapshot only copies what changed.
+ * The vehicles in the hire lists are immutable copies of their state when the snapshot was taken, not views of the live fleet.
+ * They cannot be changed; use their IDs to hire and return through the manager.
+ * @author Fandi Zhou
+ */
+public final class FleetSnapshot {
+
+    private final long version;
+    private final Map<String, Integer> available;//Number of vehicles available for hire, per vehicle type.
+    private final PersistentIntMap<List<Vehicle>> hires;//Key: Customer ID, Value: copies of the vehicles hired by that customer.
+
+    /**
+     * Constructs a new FleetSnapshot. Only the VehicleManager creates snapshots.
+     * @param version   the version number of this snapshot.
+     * @param available the number of available vehicles per type.
+     * @param hires     the vehicles hired by each customer.
+     */
+    FleetSnapshot(long version, Map<String, Integer> available, PersistentIntMap<List<Vehicle>> hires) {
+        this.version = version;
+        this.available = Map.copyOf(available);
+        this.hires = hires;
+    }
+
+    /**
+     * Gets the version of this snapshot. Later snapshots always have a higher version.
+     * @return the version number.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of vehicles of the specified type that were available for hire when this snapshot was taken.
+     * @param vehicleType the type of vehicle to count (e.g., "Car", "Van").
+     * @return the number of vehicles available for hire.
+     */
+    public int noOfAvailableVehicles(String vehicleType) {
+        return available.getOrDefault(vehicleType, 0);
+    }
+
+    /**
+     * Retrieves the vehicles a customer had on hire when this snapshot was taken.
+     * @param customerRecord the customer whose hired vehicles are to be retrieved.
+     * @return an immutable list of vehicles. Returns an empty list if the customer had no active hires.
+     */
+    public List<Vehicle> getVechilesByCustomer(CustomerRecord customerRecord) {
+        List<Vehicle> hired = hires.get(customerRecord.getCustomerID());
+        return hired == null ? Collections.emptyList() : hired;
+    }
+
+    /**
+     * Get the number of customers that had at least one vehicle on hire.
+     * @return the number of hiring customers.
+     */
+    public int noOfHiringCustomers() {
+        return hires.size();
+    }
+
+    /**
+     * Returns the version of the snapshot it came from.
+     * @return a short description of the snapshot.
+     */
+    @Override
+    public String toString() {
+        return "FleetSnapshot v" + version + " " + available;
+    }
+}
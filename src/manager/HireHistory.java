@@ -0,0 +1,410 @@
+package manager;
+import model.*;
+
+import java.time.Clock;
+import java.util.*;
+
+/**
+ * Class of the history of every finished hire, kept in compressed append-only segments.
+ * The history is a FleetEventListener: register it with VehicleManager.addListener and every return adds a HireRecord
+ * with the customer, the vehicle, the start and end time, the booked duration and the distance traveled.
+ * Storage:
+ * 1. Records are appended in the order the vehicles are returned and are never changed.
+ * 2. Records are packed into blocks of 64. Inside a block each end time is stored as the difference to the one before,
+ *    and the start time as the length of the hire, so the numbers are small. Every number is written as a varint,
+ *    which takes one byte for values below 128, so a record takes 10 to 20 bytes instead of an object of about 48.
+ * 3. Blocks are grouped into segments, a byte array each. A full segment is trimmed to size and never written again.
+ * Indexes:
+ * 1. Sparse indexes by vehicle and by customer list the blocks that hold at least one of their records, not the records.
+ *    A query only decodes those blocks, so it costs about the number of hires of the vehicle or customer,
+ *    not the size of the whole history. Each list is kept as runs of consecutive blocks, every run written as
+ *    varints of its distance from the run before and its length, so a listed block takes one or two bytes, not a long.
+ *    Only keys that have been hired are in the indexes.
+ * 2. Every block keeps its earliest start and latest end time, so blocks outside a time range are skipped without decoding.
+ * The methods are synchronized on the history, which is only held briefly by a return.
+ * @author Fandi Zhou
+ */
+public class HireHistory implements FleetEventListener {
+
+    private static final int BLOCK_RECORDS = 64;
+    private static final int DEFAULT_SEGMENT_BLOCKS = 1024;
+
+    private static final int KEY_CUSTOMER = 2, KEY_VEHICLE = 3;//The position of the key fields in an encoded record.
+
+    private final Clock clock;
+    private final int segmentBlocks;
+
+    private final List<Segment> segments = new ArrayList<>();
+    private long size;
+    private long prevEnd;//End time of the last record in the open block.
+    private int openBlockRecords = BLOCK_RECORDS;//Records in the open block, full until the first record arrives.
+
+    private final Map<Integer, BlockRuns> byVehicle = new HashMap<>();//Blocks holding each packed vehicle ID.
+    private final Map<Integer, BlockRuns> byCustomer = new HashMap<>();//Blocks holding each Customer ID.
+
+    private final Map<VehicleID, Open> open = new HashMap<>();//Hires that have started but not finished.
+
+    /**
+     * Constructs a HireHistory.
+     * @param clock the time source used to time the hires, normally the manager's clock.
+     */
+    public HireHistory(Clock clock) {
+        this(clock, DEFAULT_SEGMENT_BLOCKS);
+    }
+
+    /**
+     * Constructs a HireHistory with segments of a given size.
+     * @param clock         the time source used to time the hires, normally the manager's clock.
+     * @param segmentBlocks the number of blocks of 64 records in each segment.
+     * @throws IllegalArgumentException if segmentBlocks is not positive.
+     */
+    public HireHistory(Clock clock, int segmentBlocks) {
+        if (segmentBlocks < 1) {throw new IllegalArgumentException("Segments need at least one block");}
+        this.clock = clock;
+        this.segmentBlocks = segmentBlocks;
+    }
+
+    @Override
+    public synchronized void vehicleHired(CustomerRecord c, Vehicle v, int duration) {
+        open.put(v.getVehicleID(), new Open(clock.millis(), duration));
+    }
+
+    @Override
+    public synchronized void mileageReported(Vehicle v, int distance) {
+        Open o = open.get(v.getVehicleID());
+        if (o != null) {o.mileage += distance;}
+    }
+
+    @Override
+    public synchronized void vehicleReturned(CustomerRecord c, Vehicle v, int mileage) {
+        Open o = open.remove(v.getVehicleID());
+        if (o == null) {return;}// Hired before the history was registered.
+        long end = Math.max(o.start, clock.millis());
+        append(new HireRecord(c.getCustomerID(), v.getVehicleID().pack(), o.start, end, o.duration, o.mileage + mileage));
+    }
+
+    /**
+     * Appends a finished hire, e.g. one loaded from an archive. Records should be appended in order of their end time,
+     * which keeps the stored differences small, but any order is accepted.
+     * @param r the hire record.
+     */
+    public synchronized void append(HireRecord r) {
+        if (openBlockRecords == BLOCK_RECORDS) {newBlock();}
+        Segment seg = segments.get(segments.size() - 1);
+        int block = seg.blocks - 1;
+
+        seg.writeVarLong(zigZag(r.getEnd() - prevEnd));
+        seg.writeVarLong(r.getEnd() - r.getStart());
+        seg.writeVarLong(r.getCustomerID());
+        seg.writeVarLong(r.getPackedVehicleID());
+        seg.writeVarLong(r.getDuration());
+        seg.writeVarLong(r.getMileage());
+        prevEnd = r.getEnd();
+        openBlockRecords++;
+        size++;
+
+        seg.minStart[block] = Math.min(seg.minStart[block], r.getStart());
+        seg.maxEnd[block] = Math.max(seg.maxEnd[block], r.getEnd());
+
+        int global = (segments.size() - 1) * segmentBlocks + block;
+        byVehicle.computeIfAbsent(r.getPackedVehicleID(), k -> new BlockRuns()).add(global);
+        byCustomer.computeIfAbsent(r.getCustomerID(), k -> new BlockRuns()).add(global);
+    }
+
+    /**
+     * Returns every hire of a vehicle that started in a time range, oldest first.
+     * @param id   the ID of the vehicle.
+     * @param from the start of the range in milliseconds, inclusive.
+     * @param to   the end of the range in milliseconds, exclusive.
+     * @return the hires of the vehicle in the order they were returned.
+     */
+    public synchronized List<HireRecord> hiresOfVehicle(VehicleID id, long from, long to) {
+        List<HireRecord> result = new ArrayList<>();
+        int packed = id.pack();
+        BlockRuns runs = byVehicle.get(packed);
+        if (runs == null) {return result;}
+
+        for (int global : runs.blocks()) {
+            Segment seg = segment(global);
+            int b = block(global);
+            if (seg.maxEnd[b] < from || seg.minStart[b] >= to) {continue;}// No hire of the block started in the range.
+
+            int before = result.size();
+            seg.decode(b, KEY_VEHICLE, packed, result);
+            for (int j = result.size() - 1; j >= before; j--) {
+                long start = result.get(j).getStart();
+                if (start < from || start >= to) {result.remove(j);}
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns every hire of a vehicle, oldest first.
+     * @param id the ID of the vehicle.
+     * @return the hires of the vehicle in the order they were returned.
+     */
+    public List<HireRecord> hiresOfVehicle(VehicleID id) {
+        return hiresOfVehicle(id, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the most recent hires of a customer, newest first.
+     * @param customerID the ID of the customer.
+     * @param n          the largest number of hires to return.
+     * @return up to n hires of the customer, the last one returned first.
+     */
+    public synchronized List<HireRecord> lastHiresOfCustomer(int customerID, int n) {
+        List<HireRecord> result = new ArrayList<>();
+        BlockRuns runs = byCustomer.get(customerID);
+        if (runs == null) {return result;}
+
+        // Walk the customer's blocks from the newest, and each block from its last record.
+        int[] blocks = runs.blocks();
+        List<HireRecord> records = new ArrayList<>();
+        for (int i = blocks.length - 1; i >= 0 && result.size() < n; i--) {
+            records.clear();
+            segment(blocks[i]).decode(block(blocks[i]), KEY_CUSTOMER, customerID, records);
+            for (int j = records.size() - 1; j >= 0 && result.size() < n; j--) {
+                result.add(records.get(j));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of hires in the history.
+     * @return the number of records.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Get the number of segments.
+     * @return the number of segments, sealed and open.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Get the number of bytes used by the encoded records.
+     * @return the size of the records in bytes, not counting the indexes.
+     */
+    public synchronized long getEncodedBytes() {
+        long total = 0;
+        for (Segment s : segments) {
+            total += s.length;
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of bytes used by the block lists of the vehicle and customer indexes.
+     * @return the size of the encoded block lists in bytes, not counting the maps holding them.
+     */
+    public synchronized long getIndexBytes() {
+        long total = 0;
+        for (BlockRuns r : byVehicle.values()) {
+            total += r.length;
+        }
+        for (BlockRuns r : byCustomer.values()) {
+            total += r.length;
+        }
+        return total;
+    }
+
+    /**
+     * Starts a new block, sealing the current segment and starting a new one if it is full.
+     */
+    private void newBlock() {
+        Segment seg = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (seg == null || seg.blocks == segmentBlocks) {
+            if (seg != null) {seg.seal();}
+            seg = new Segment(segmentBlocks);
+            segments.add(seg);
+        }
+        seg.blockOffsets[seg.blocks] = seg.length;
+        seg.minStart[seg.blocks] = Long.MAX_VALUE;
+        seg.maxEnd[seg.blocks] = Long.MIN_VALUE;
+        seg.blocks++;
+        openBlockRecords = 0;
+        prevEnd = 0;// Every block starts from zero so it can be decoded on its own.
+    }
+
+    private Segment segment(int globalBlock) {
+        return segments.get(globalBlock / segmentBlocks);
+    }
+
+    private int block(int globalBlock) {
+        return globalBlock % segmentBlocks;
+    }
+
+    private static long zigZag(long n) {
+        return (n << 1) ^ (n >> 63);// Small negative differences stay small.
+    }
+
+    private static long unZigZag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /**
+     * A hire that has started but not finished.
+     */
+    private static final class Open {
+        private final long start;
+        private final int duration;
+        private int mileage;//Distance reported by odometer readings so far.
+
+        private Open(long start, int duration) {
+            this.start = start;
+            this.duration = duration;
+        }
+    }
+
+    /**
+     * The global block numbers holding a key, in ascending order, as runs of consecutive blocks.
+     * Each closed run is written as the varint (gap &lt;&lt; 1 | 1 if longer than one block), where gap is its distance
+     * from the end of the run before, followed by the varint of its length - 2 if it is longer than one block.
+     * The open run, the one the newest block may still extend, is kept in fields until the next run starts.
+     */
+    private static final class BlockRuns {
+        private byte[] data = new byte[2];
+        private int length;
+        private int count;//Number of blocks listed.
+        private int closedEnd = -1;//Last block of the last closed run.
+        private int runStart = -1;//First block of the open run, -1 before the first block.
+        private int runEnd;//Last block of the open run.
+
+        private void add(int block) {
+            if (runStart >= 0 && block <= runEnd + 1) {
+                if (block == runEnd + 1) {// Extends the open run.
+                    runEnd = block;
+                    count++;
+                }
+                return;// Already listed.
+            }
+            if (runStart >= 0) {
+                int runLength = runEnd - runStart + 1;
+                writeVarInt((runStart - closedEnd) << 1 | (runLength > 1 ? 1 : 0));
+                if (runLength > 1) {writeVarInt(runLength - 2);}
+                closedEnd = runEnd;
+            }
+            runStart = runEnd = block;
+            count++;
+        }
+
+        /**
+         * Decodes every block listed, oldest first.
+         */
+        private int[] blocks() {
+            int[] blocks = new int[count];
+            int n = 0;
+            int end = -1;
+            int pos = 0;
+            while (pos < length) {
+                int x = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    x |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                int runLength = 1;
+                if ((x & 1) != 0) {
+                    int y = 0;
+                    shift = 0;
+                    do {
+                        b = data[pos++];
+                        y |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    runLength = y + 2;
+                }
+                int start = end + (x >>> 1);
+                for (int i = 0; i < runLength; i++) {
+                    blocks[n++] = start + i;
+                }
+                end = start + runLength - 1;
+            }
+            for (int block = runStart; block <= runEnd && runStart >= 0; block++) {
+                blocks[n++] = block;
+            }
+            return blocks;
+        }
+
+        private void writeVarInt(int v) {
+            if (length + 5 > data.length) {data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));}
+            while ((v & ~0x7F) != 0) {
+                data[length++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            data[length++] = (byte) v;
+        }
+    }
+
+    /**
+     * A run of blocks held in one byte array.
+     */
+    private static final class Segment {
+        private byte[] data = new byte[1024];
+        private int length;
+        private int blocks;
+        private final int[] blockOffsets;//Byte offset of the first record of each block.
+        private final long[] minStart;//Earliest start time in each block.
+        private final long[] maxEnd;//Latest end time in each block.
+
+        private Segment(int capacity) {
+            blockOffsets = new int[capacity];
+            minStart = new long[capacity];
+            maxEnd = new long[capacity];
+        }
+
+        private void writeVarLong(long v) {
+            if (length + 10 > data.length) {data = Arrays.copyOf(data, data.length * 2);}
+            while ((v & ~0x7FL) != 0) {
+                data[length++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            data[length++] = (byte) v;
+        }
+
+        /**
+         * Trims the data to its length, after which the segment is never written again.
+         */
+        private void seal() {
+            data = Arrays.copyOf(data, length);
+        }
+
+        /**
+         * Decodes the records of a block whose key field has the given value, in the order they were appended.
+         * Only matching records are turned into objects, the others are only read past.
+         */
+        private void decode(int block, int keyField, long key, List<HireRecord> records) {
+            int pos = blockOffsets[block];
+            int end = block + 1 < blocks ? blockOffsets[block + 1] : length;
+            long prev = 0;
+            long[] v = new long[6];
+            while (pos < end) {
+                for (int f = 0; f < v.length; f++) {// Read the six varints of a record.
+                    long x = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = data[pos++];
+                        x |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    v[f] = x;
+                }
+                long recordEnd = prev + unZigZag(v[0]);
+                prev = recordEnd;
+                if (v[keyField] == key) {
+                    records.add(new HireRecord((int) v[2], (int) v[3], recordEnd - v[1], recordEnd, (int) v[4], (int) v[5]));
+                }
+            }
+        }
+    }
+}
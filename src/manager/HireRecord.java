@@ -0,0 +1,101 @@
+package manager;
+
+/**
+ * Class of one finished hire, as kept in the HireHistory.
+ * Instances are immutable and created when the history is read, the history itself only keeps the encoded bytes.
+ * @author Fandi Zhou
+ */
+public final class HireRecord {
+
+    private final int customerID;
+    private final int packedVehicleID;
+    private final long start;
+    private final long end;
+    private final int duration;
+    private final int mileage;
+
+    /**
+     * Constructs a new HireRecord.
+     * @param customerID      the ID of the customer who hired the vehicle.
+     * @param packedVehicleID the packed ID of the hired vehicle.
+     * @param start           the time the hire started, in milliseconds.
+     * @param end             the time the vehicle was returned, in milliseconds.
+     * @param duration        the booked duration of the hire in days.
+     * @param mileage         the distance traveled during the hire.
+     * @throws IllegalArgumentException if the hire ends before it starts or a number is negative.
+     */
+    public HireRecord(int customerID, int packedVehicleID, long start, long end, int duration, int mileage) {
+        if (end < start) {throw new IllegalArgumentException("Hire ends before it starts");}
+        if (customerID < 0 || packedVehicleID < 0 || duration < 0 || mileage < 0) {throw new IllegalArgumentException("Hire record values must not be negative");}
+        this.customerID = customerID;
+        this.packedVehicleID = packedVehicleID;
+        this.start = start;
+        this.end = end;
+        this.duration = duration;
+        this.mileage = mileage;
+    }
+
+    /**
+     * Get the ID of the customer.
+     * @return the Customer ID.
+     */
+    public int getCustomerID() {return customerID;}
+
+    /**
+     * Get the ID of the vehicle.
+     * @return the VehicleID, rebuilt from its packed form.
+     */
+    public VehicleID getVehicleID() {return VehicleID.unpack(packedVehicleID);}
+
+    /**
+     * Get the packed ID of the vehicle.
+     * @return the packed vehicle ID.
+     */
+    public int getPackedVehicleID() {return packedVehicleID;}
+
+    /**
+     * Get the time the hire started.
+     * @return the start time in milliseconds.
+     */
+    public long getStart() {return start;}
+
+    /**
+     * Get the time the vehicle was returned.
+     * @return the end time in milliseconds.
+     */
+    public long getEnd() {return end;}
+
+    /**
+     * Get the booked duration of the hire.
+     * @return the duration in days.
+     */
+    public int getDuration() {return duration;}
+
+    /**
+     * Get the distance traveled during the hire.
+     * @return the mileage.
+     */
+    public int getMileage() {return mileage;}
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {return true;}
+        if (!(o instanceof HireRecord)) {return false;}
+        HireRecord r = (HireRecord) o;
+        return customerID == r.customerID && packedVehicleID == r.packedVehicleID && start == r.start
+                && end == r.end && duration == r.duration && mileage == r.mileage;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 31 * customerID + packedVehicleID;
+        h = 31 * h + Long.hashCode(start);
+        return 31 * h + Long.hashCode(end);
+    }
+
+    @Override
+    public String toString() {
+        return "Hire of " + getVehicleID() + " by customer " + customerID + " from " + start + " to " + end
+                + " (" + duration + " days, " + mileage + " miles)";
+    }
+}
@@ -0,0 +1,306 @@
+package manager;
+import model.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Class of a lightweight HTTP/JSON API in front of a VehicleManager, built on the JDK's HttpServer.
+ * Endpoints (parameters are passed in the query string, responses are JSON):
+ * POST /vehicles?type=Car                                                      adds a vehicle.
+ * POST /customers?firstName=A&amp;lastName=B&amp;dob=1990-01-31&amp;commercialLicence=true  registers a customer.
+ * POST /hires?customerID=1&amp;type=Van&amp;duration=3                                  hires a vehicle.
+ * POST /returns?customerID=1&amp;vehicleID=VA3-101&amp;mileage=120                       returns a vehicle.
+ * GET  /availability?type=Car                                                  number of available vehicles.
+ * GET  /customers/{customerID}/vehicles                                        vehicles hired by a customer.
+ * Invalid requests get status 400, unknown customers 404, both with an "error" member.
+ * Requests are handled on virtual threads when the JDK supports them (21 and later), otherwise on a cached thread pool.
+ * JSON responses are written by pooled JsonWriters, so their buffers are reused across requests.
+ * If an AdmissionController is given, hires and returns go through it, and requests it turns away get status 429
+ * with a Retry-After header.
+ * Deployment: the JDK's HttpServer writes the headers and the body of a response separately, so without TCP_NODELAY
+ * each response can wait on a delayed ACK of the client. Start the JVM with -Dsun.net.httpserver.nodelay=true,
+ * or call enableTcpNoDelay before the first HttpServer of the JVM is created; the JDK reads the flag only once.
+ * @author Fandi Zhou
+ */
+public class HttpApi implements Closeable {
+
+    private final VehicleManager manager;
+    private final AdmissionController admission;//Null if hires and returns go straight to the manager.
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ConcurrentLinkedQueue<JsonWriter> writers = new ConcurrentLinkedQueue<>();//Pool of reusable writers.
+
+    /**
+     * Constructs and starts an HttpApi.
+     * @param manager the manager to serve.
+     * @param port    the TCP port to listen on, 0 for any free port.
+     * @throws IOException if the port cannot be opened.
+     */
+    public HttpApi(VehicleManager manager, int port) throws IOException {
+        this(manager, port, null);
+    }
+
+    /**
+     * Constructs and starts an HttpApi that sends hires and returns through an admission layer.
+     * @param manager   the manager to serve.
+     * @param port      the TCP port to listen on, 0 for any free port.
+     * @param admission the admission layer in front of hire and return, or null for none.
+     * @throws IOException if the port cannot be opened.
+     */
+    public HttpApi(VehicleManager manager, int port, AdmissionController admission) throws IOException {
+        this.manager = manager;
+        this.admission = admission;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = newExecutor();
+
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Turns on TCP_NODELAY for the JDK's HttpServer, unless the deployer has set sun.net.httpserver.nodelay already.
+     * Only takes effect if called before the first HttpServer of the JVM is created, e.g. first thing in main.
+     */
+    public static void enableTcpNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Get the port the API listens on.
+     * @return the local port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server and its threads.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Uses a virtual thread per request if the running JDK has them, otherwise a cached pool of platform threads.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        JsonWriter json = writers.poll();
+        if (json == null) {json = new JsonWriter();}
+        json.reset();
+
+        int status;
+        try {
+            status = route(ex, json);
+        } catch (AdmissionRejectedException e) {
+            status = 429;
+            long millis = e.getRetryAfterMillis();
+            ex.getResponseHeaders().set("Retry-After", Long.toString((millis + 999) / 1000));
+            json.reset().beginObject().name("error").value(e.getMessage()).name("retryAfterMillis").value(millis).endObject();
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            json.reset().beginObject().name("error").value(e.getMessage()).endObject();
+        } catch (RuntimeException e) {
+            status = 500;
+            json.reset().beginObject().name("error").value(String.valueOf(e)).endObject();
+        }
+
+        try {
+            ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            ex.sendResponseHeaders(status, json.length());
+            try (OutputStream out = ex.getResponseBody()) {
+                json.writeTo(out);
+            }
+        } finally {
+            writers.offer(json);
+        }
+    }
+
+    /**
+     * Dispatches a request and writes its JSON response.
+     * @return the HTTP status code.
+     */
+    private int route(HttpExchange ex, JsonWriter json) {
+        String method = ex.getRequestMethod();
+        String path = ex.getRequestURI().getPath();
+        Map<String, String> q = query(ex.getRequestURI().getRawQuery());
+
+        if (path.equals("/vehicles") && method.equals("POST")) {
+            Vehicle v = manager.addVehicle(param(q, "type"));
+            json.beginObject();
+            writeVehicle(json, v);
+            json.endObject();
+            return 201;
+        }
+        if (path.equals("/customers") && method.equals("POST")) {
+            Date dob = date(param(q, "dob"));
+            CustomerRecord c = manager.addCustomerRecord(param(q, "firstName"), param(q, "lastName"), dob,
+                    bool(q.getOrDefault("commercialLicence", "false"), "commercialLicence"));
+            json.beginObject().name("customerID").value(c.getCustomerID()).endObject();
+            return 201;
+        }
+        if (path.equals("/hires") && method.equals("POST")) {
+            return hire(q, json);
+        }
+        if (path.equals("/returns") && method.equals("POST")) {
+            return giveBack(q, json);
+        }
+        if (path.equals("/availability") && method.equals("GET")) {
+            String type = param(q, "type");
+            json.beginObject().name("type").value(type).name("available").value(manager.noOfAvailableVehicles(type)).endObject();
+            return 200;
+        }
+        if (path.startsWith("/customers/") && path.endsWith("/vehicles") && method.equals("GET")) {
+            int id = integer(path.substring("/customers/".length(), path.length() - "/vehicles".length()), "customerID");
+            CustomerRecord c = customer(id);
+            if (c == null) {return notFound(json, id);}
+
+            json.beginObject().name("customerID").value(id).name("vehicles").beginArray();
+            for (Vehicle v : manager.getVechilesByCustomer(c)) {
+                json.beginObject();
+                writeVehicle(json, v);
+                json.endObject();
+            }
+            json.endArray().endObject();
+            return 200;
+        }
+
+        json.beginObject().name("error").value("No such endpoint: " + method + " " + path).endObject();
+        return 404;
+    }
+
+    private int hire(Map<String, String> q, JsonWriter json) {
+        int id = integer(param(q, "customerID"), "customerID");
+        CustomerRecord c = customer(id);
+        if (c == null) {return notFound(json, id);}
+
+        String type = param(q, "type");
+        int duration = integer(param(q, "duration"), "duration");
+
+        Vehicle hired = admission == null ? manager.hire(c, type, duration) : await(admission.hire(c, type, duration));
+        boolean ok = hired != null;
+
+        json.beginObject().name("hired").value(ok);
+        if (hired != null) {writeVehicle(json, hired);}
+        json.endObject();
+        return ok ? 201 : 409;
+    }
+
+    private int giveBack(Map<String, String> q, JsonWriter json) {
+        int id = integer(param(q, "customerID"), "customerID");
+        CustomerRecord c = customer(id);
+        if (c == null) {return notFound(json, id);}
+
+        String vehicleID = param(q, "vehicleID");
+        int mileage = integer(param(q, "mileage"), "mileage");
+
+        boolean returned = false;
+        for (Vehicle v : manager.snapshot().getVechilesByCustomer(c)) {// Look the ID up among the customer's hires.
+            if (v.getVehicleID().toString().equals(vehicleID)) {
+                VehicleID vid = v.getVehicleID();
+                returned = admission == null ? manager.giveBack(vid, c, mileage) : await(admission.returnVehicle(vid, c, mileage));
+                break;
+            }
+        }
+
+        json.beginObject().name("returned").value(returned).endObject();
+        return returned ? 200 : 409;
+    }
+
+    /**
+     * Waits for a request queued in the admission layer, passing on the hire rule failures.
+     */
+    private static <T> T await(Future<T> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for admission", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {throw (RuntimeException) e.getCause();}
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private CustomerRecord customer(int id) {
+        return manager.getCustomerRecord(id);
+    }
+
+    private static int notFound(JsonWriter json, int customerID) {
+        json.reset().beginObject().name("error").value("Unknown customer: " + customerID).endObject();
+        return 404;
+    }
+
+    private static void writeVehicle(JsonWriter json, Vehicle v) {
+        json.name("vehicleID").value(v.getVehicleID().toString()).name("type").value(v.getVehicleType());
+    }
+
+    private static String param(Map<String, String> q, String name) {
+        String v = q.get(name);
+        if (v == null || v.isEmpty()) {throw new IllegalArgumentException("Missing parameter: " + name);}
+        return v;
+    }
+
+    private static int integer(String s, String name) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + s);
+        }
+    }
+
+    /**
+     * Parses true or false in any case. Any other value is refused rather than read as false.
+     */
+    private static boolean bool(String s, String name) {
+        if (s.equalsIgnoreCase("true")) {return true;}
+        if (s.equalsIgnoreCase("false")) {return false;}
+        throw new IllegalArgumentException("Invalid " + name + ", expected true or false: " + s);
+    }
+
+    private static Date date(String s) {
+        try {
+            return Date.from(LocalDate.parse(s).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date, expected yyyy-MM-dd: " + s);
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> q = new HashMap<>();
+        if (raw == null) {return q;}
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                q.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return q;
+    }
+}
@@ -0,0 +1,145 @@
+package manager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class of a small load-test client for HttpApi.
+ * A number of worker threads send the same GET request over and over, and the latency of every request is recorded.
+ * The result reports the throughput in requests per second and the median and tail latencies.
+ * Usage: java manager.HttpLoadClient [url] [threads] [requests]
+ * With no arguments an HttpApi is started on a free local port with some vehicles, and /availability is loaded.
+ * @author Fandi Zhou
+ */
+public class HttpLoadClient {
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    /**
+     * Runs a load test and prints the result.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+
+        if (args.length > 0) {
+            System.out.println(new HttpLoadClient().run(URI.create(args[0]), threads, requests));
+            return;
+        }
+
+        HttpApi.enableTcpNoDelay();// Before the server below is created.
+        VehicleManager manager = new VehicleManager();
+        manager.addVehicles("Car", 1000);
+        try (HttpApi api = new HttpApi(manager, 0)) {
+            URI uri = URI.create("http://localhost:" + api.getPort() + "/availability?type=Car");
+            System.out.println(new HttpLoadClient().run(uri, threads, requests));
+        }
+    }
+
+    /**
+     * Sends GET requests to a URI from several threads and measures them.
+     * @param uri      the URI to request.
+     * @param threads  the number of concurrent clients.
+     * @param requests the total number of requests to send.
+     * @return the Result of the run.
+     * @throws IllegalArgumentException if threads or requests is not positive.
+     * @throws InterruptedException if the run is interrupted.
+     */
+    public Result run(URI uri, int threads, int requests) throws InterruptedException {
+        if (threads < 1 || requests < 1) {throw new IllegalArgumentException("Threads and requests must be positive");}
+
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<byte[]> r = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (r.statusCode() >= 400) {errors.incrementAndGet();}
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencies[i] = System.nanoTime() - t0;
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(requests, errors.get(), elapsed, latencies);
+    }
+
+    /**
+     * Class represents the outcome of a load test.
+     */
+    public static final class Result {
+        private final int requests;
+        private final int errors;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+
+        Result(int requests, int errors, long elapsedNanos, long[] sortedLatencies) {
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = sortedLatencies;
+        }
+
+        /**
+         * Get the number of requests sent.
+         * @return the number of requests.
+         */
+        public int getRequests() {return requests;}
+
+        /**
+         * Get the number of requests that failed or got an error status.
+         * @return the number of errors.
+         */
+        public int getErrors() {return errors;}
+
+        /**
+         * Get the throughput of the run.
+         * @return the number of requests per second.
+         */
+        public double getRequestsPerSecond() {
+            return elapsedNanos == 0 ? 0 : requests * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Get a latency percentile.
+         * @param p the percentile, between 0 and 100.
+         * @return the latency in microseconds.
+         */
+        public double percentileMicros(double p) {
+            int i = (int) Math.ceil(p / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(i, sortedLatencies.length - 1))] / 1000.0;
+        }
+
+        /**
+         * Returns a one line summary of the run.
+         * @return the summary string.
+         */
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d errors, %.0f requests/s, p50 %.0f us, p99 %.0f us, p99.9 %.0f us",
+                    requests, errors, getRequestsPerSecond(), percentileMicros(50), percentileMicros(99), percentileMicros(99.9));
+        }
+    }
+}
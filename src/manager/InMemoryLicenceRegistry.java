@@ -0,0 +1,76 @@
+package manager;
+import model.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class of an in-process LicenceRegistry, standing in for the licensing authority in tests and simulations.
+ * A licence is valid if the customer registered with one and it has not been revoked. A delay can be set to act
+ * like a remote call, and the registry can be taken offline to act like an outage.
+ * @author Fandi Zhou
+ */
+public class InMemoryLicenceRegistry implements LicenceRegistry {
+
+    private final Map<Integer, Boolean> overrides = new ConcurrentHashMap<>();//Licences revoked or reinstated, by Customer ID.
+    private volatile long delayMillis;
+    private volatile boolean online = true;
+    private final AtomicLong lookups = new AtomicLong();
+
+    @Override
+    public boolean isCommercialLicenceValid(CustomerRecord c) throws IOException {
+        lookups.incrementAndGet();
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Lookup interrupted", e);
+            }
+        }
+        if (!online) {throw new IOException("Licence registry is offline");}
+        return overrides.getOrDefault(c.getCustomerID(), c.isHaveC_licence());
+    }
+
+    /**
+     * Revokes the commercial licence of a customer.
+     * @param customerID the ID of the customer.
+     */
+    public void revoke(int customerID) {
+        overrides.put(customerID, false);
+    }
+
+    /**
+     * Reinstates the commercial licence of a customer who registered with one.
+     * @param customerID the ID of the customer.
+     */
+    public void reinstate(int customerID) {
+        overrides.remove(customerID);
+    }
+
+    /**
+     * Sets the time every lookup takes, to act like a remote registry.
+     * @param delayMillis the delay in milliseconds, 0 for none.
+     */
+    public void setDelay(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Takes the registry offline or back online. Lookups fail with an IOException while it is offline.
+     * @param online false to act like an outage.
+     */
+    public void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    /**
+     * Get the number of lookups made.
+     * @return the number of calls to isCommercialLicenceValid.
+     */
+    public long getLookups() {
+        return lookups.get();
+    }
+}
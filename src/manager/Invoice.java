@@ -0,0 +1,102 @@
+package manager;
+
+/**
+ * Class of the invoice for one finished hire, created by the BillingPipeline.
+ * @author Fandi Zhou
+ */
+public final class Invoice {
+
+    private final int customerID;
+    private final VehicleID vehicleID;
+    private final long start;
+    private final long end;
+    private final int duration;
+    private final int mileage;
+    private final boolean service;
+    private final boolean inspection;
+    private final long amount;
+
+    /**
+     * Constructs a new Invoice.
+     * @param customerID the ID of the customer billed.
+     * @param vehicleID  the ID of the hired vehicle.
+     * @param start      the time the hire started, in milliseconds.
+     * @param end        the time the vehicle was returned, in milliseconds.
+     * @param duration   the booked duration in days.
+     * @param mileage    the distance traveled.
+     * @param service    true if a service fee was charged.
+     * @param inspection true if an inspection fee was charged.
+     * @param amount     the total in pence.
+     */
+    Invoice(int customerID, VehicleID vehicleID, long start, long end, int duration, int mileage,
+            boolean service, boolean inspection, long amount) {
+        this.customerID = customerID;
+        this.vehicleID = vehicleID;
+        this.start = start;
+        this.end = end;
+        this.duration = duration;
+        this.mileage = mileage;
+        this.service = service;
+        this.inspection = inspection;
+        this.amount = amount;
+    }
+
+    /**
+     * Get the ID of the customer billed.
+     * @return the Customer ID.
+     */
+    public int getCustomerID() {return customerID;}
+
+    /**
+     * Get the ID of the hired vehicle.
+     * @return the VehicleID.
+     */
+    public VehicleID getVehicleID() {return vehicleID;}
+
+    /**
+     * Get the time the hire started.
+     * @return the start time in milliseconds.
+     */
+    public long getStart() {return start;}
+
+    /**
+     * Get the time the vehicle was returned.
+     * @return the end time in milliseconds.
+     */
+    public long getEnd() {return end;}
+
+    /**
+     * Get the booked duration.
+     * @return the duration in days.
+     */
+    public int getDuration() {return duration;}
+
+    /**
+     * Get the distance traveled.
+     * @return the mileage.
+     */
+    public int getMileage() {return mileage;}
+
+    /**
+     * Checks if a service fee was charged.
+     * @return true if the vehicle came back due for a service.
+     */
+    public boolean isService() {return service;}
+
+    /**
+     * Checks if an inspection fee was charged.
+     * @return true if the vehicle came back needing an inspection.
+     */
+    public boolean isInspection() {return inspection;}
+
+    /**
+     * Get the total of the invoice.
+     * @return the amount in pence.
+     */
+    public long getAmount() {return amount;}
+
+    @Override
+    public String toString() {
+        return String.format("Invoice for customer %d, %s, %d days, %d miles: %d.%02d", customerID, vehicleID, duration, mileage, amount / 100, amount % 100);
+    }
+}
@@ -0,0 +1,17 @@
+package manager;
+
+import java.util.List;
+
+/**
+ * Interface of the destination of the invoices made by the BillingPipeline, e.g. a ledger database or a file.
+ * Invoices are always handed over in batches, so an implementation can write each batch with a single bulk operation.
+ * @author Fandi Zhou
+ */
+public interface InvoiceSink {
+
+    /**
+     * Writes a batch of invoices. Called from the billing worker thread only, one batch at a time.
+     * @param invoices the invoices, in the order the vehicles were returned. The list is only valid during the call.
+     */
+    void write(List<Invoice> invoices);
+}
@@ -0,0 +1,176 @@
+package manager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Class of a small streaming JSON writer that writes UTF-8 straight into a reusable byte buffer.
+ * Values are appended in order (no object tree is built), and reset makes the buffer ready for the next response
+ * without allocating a new one, so a writer can be pooled and reused for many responses.
+ * Commas between members and array elements are added automatically.
+ * @author Fandi Zhou
+ */
+final class JsonWriter {
+
+    private static final int MAX_DEPTH = 32;
+
+    private byte[] buf = new byte[512];
+    private int len;
+    private final boolean[] first = new boolean[MAX_DEPTH];//True if nothing has been written yet at each nesting level.
+    private int depth;
+
+    /**
+     * Clears the writer so it can be reused. The buffer is kept.
+     * @return this writer.
+     */
+    JsonWriter reset() {
+        len = 0;
+        depth = 0;
+        return this;
+    }
+
+    JsonWriter beginObject() {
+        separator();
+        put('{');
+        push();
+        return this;
+    }
+
+    JsonWriter endObject() {
+        depth--;
+        put('}');
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        separator();
+        put('[');
+        push();
+        return this;
+    }
+
+    JsonWriter endArray() {
+        depth--;
+        put(']');
+        return this;
+    }
+
+    /**
+     * Writes a member name, the value must be written next.
+     * @param name the member name.
+     * @return this writer.
+     */
+    JsonWriter name(String name) {
+        separator();
+        string(name);
+        put(':');
+        first[depth - 1] = true;// The value follows without a comma.
+        return this;
+    }
+
+    JsonWriter value(String s) {
+        separator();
+        if (s == null) {
+            ascii("null");
+        } else {
+            string(s);
+        }
+        return this;
+    }
+
+    JsonWriter value(long n) {
+        separator();
+        ascii(Long.toString(n));
+        return this;
+    }
+
+    JsonWriter value(boolean b) {
+        separator();
+        ascii(b ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Get the number of bytes written.
+     * @return the length of the JSON text.
+     */
+    int length() {
+        return len;
+    }
+
+    /**
+     * Writes the JSON text to a stream.
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, len);
+    }
+
+    /**
+     * Returns the JSON text, used for logging and tests.
+     * @return the JSON text.
+     */
+    @Override
+    public String toString() {
+        return new String(buf, 0, len, java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    private void push() {
+        first[depth++] = true;
+    }
+
+    private void separator() {
+        if (depth == 0) {return;}
+        if (first[depth - 1]) {
+            first[depth - 1] = false;
+        } else {
+            put(',');
+        }
+    }
+
+    private void string(String s) {
+        put('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                put('\\');
+                put(c);
+            } else if (c < 0x20) {
+                ascii(String.format("\\u%04x", (int) c));
+            } else if (c < 0x80) {
+                put(c);
+            } else if (c < 0x800) {
+                put(0xC0 | (c >> 6));
+                put(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                put(0xF0 | (cp >> 18));
+                put(0x80 | ((cp >> 12) & 0x3F));
+                put(0x80 | ((cp >> 6) & 0x3F));
+                put(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {// Unpaired, has no UTF-8 encoding, so it is escaped.
+                ascii(String.format("\\u%04x", (int) c));
+            } else {
+                put(0xE0 | (c >> 12));
+                put(0x80 | ((c >> 6) & 0x3F));
+                put(0x80 | (c & 0x3F));
+            }
+        }
+        put('"');
+    }
+
+    private void ascii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            put(s.charAt(i));
+        }
+    }
+
+    private void put(int b) {
+        if (len == buf.length) {
+            buf = Arrays.copyOf(buf, len * 2);
+        }
+        buf[len++] = (byte) b;
+    }
+}
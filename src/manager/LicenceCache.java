@@ -0,0 +1,306 @@
+package manager;
+import model.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class of a cache of commercial licence lookups, in front of a LicenceRegistry.
+ * The hire path asks isValid, which never waits for the registry:
+ * 1. A fresh answer, younger than the time to live, is returned from the cache.
+ * 2. An answer in the last part of its life (the refresh ahead window) is still returned, and a lookup is started in
+ *    the background, so a customer who hires regularly never finds their answer expired.
+ * 3. An expired answer is returned as well, while a lookup is started to replace it, but only up to the maximum
+ *    staleness. An answer older than that is no longer trusted: the licence is refused and the answer is dropped
+ *    until a lookup succeeds, so neither a revocation nor a long registry outage ever makes a licence valid again.
+ *    Answers past the maximum staleness are also swept from the cache by the lookup threads, so it only holds the
+ *    customers asked about recently.
+ * 4. A miss, i.e. a customer never looked up, starts a lookup and by default gets the licence they registered with.
+ *    With setTrustRegistered(false) a miss is refused until the registry has answered. A customer whose answer was
+ *    dropped is not a miss: they are refused until the registry answers, whatever the registered licence says.
+ *    The customers ever looked up are kept as one bit per Customer ID.
+ * The VehicleManager warms the cache when a customer is added or starts a hire, so most first requests are hits.
+ * Lookups run on the cache's worker threads. Lookups for the same customer are coalesced: while one is running,
+ * every other request for that customer shares its result instead of calling the registry again.
+ * A failed lookup keeps the last answer and is tried again on the next request.
+ * Only customers who registered with a commercial licence are looked up; a customer without one cannot gain one.
+ * @author Fandi Zhou
+ */
+public class LicenceCache implements Closeable {
+
+    /**
+     * The default age after which an answer is no longer trusted: one day, or the time to live if that is longer.
+     */
+    public static final long DEFAULT_MAX_STALE_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final LicenceRegistry registry;
+    private final Clock clock;
+    private final long ttlMillis;
+    private final long refreshAheadMillis;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;//The executor created by the cache, null if one was given.
+    private volatile long maxStaleMillis;
+    private volatile boolean trustRegistered = true;//The answer to a miss while its lookup runs.
+
+    private final Map<Integer, Cached> entries = new ConcurrentHashMap<>();//The latest answer per Customer ID.
+    private final Map<Integer, CompletableFuture<Boolean>> inflight = new ConcurrentHashMap<>();//Running lookups per Customer ID.
+    private final BitSet lookedUp = new BitSet();//Customer IDs the registry has answered for, guarded by itself.
+    private volatile long nextSweep;//Time from which the next lookup sweeps out the answers past the maximum staleness.
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Constructs a LicenceCache with two daemon worker threads for the lookups.
+     * @param registry           the registry answering the lookups.
+     * @param clock              the time source of the ages of the answers.
+     * @param ttlMillis          the time an answer is fresh.
+     * @param refreshAheadMillis the time before an answer expires from which a request starts a new lookup.
+     * @throws IllegalArgumentException if the time to live is not positive or the refresh window is negative or longer.
+     */
+    public LicenceCache(LicenceRegistry registry, Clock clock, long ttlMillis, long refreshAheadMillis) {
+        this(registry, clock, ttlMillis, refreshAheadMillis, null);
+    }
+
+    /**
+     * Constructs a LicenceCache running the lookups on the given executor.
+     * @param registry           the registry answering the lookups.
+     * @param clock              the time source of the ages of the answers.
+     * @param ttlMillis          the time an answer is fresh.
+     * @param refreshAheadMillis the time before an answer expires from which a request starts a new lookup.
+     * @param executor           the executor of the lookups, or null for two daemon worker threads owned by the cache.
+     *                           An executor that runs tasks in the calling thread makes the requests wait for the lookups,
+     *                           which is only meant for tests.
+     * @throws IllegalArgumentException if the time to live is not positive or the refresh window is negative or longer.
+     */
+    public LicenceCache(LicenceRegistry registry, Clock clock, long ttlMillis, long refreshAheadMillis, Executor executor) {
+        if (ttlMillis < 1 || refreshAheadMillis < 0 || refreshAheadMillis > ttlMillis) {
+            throw new IllegalArgumentException("Time to live must be positive and the refresh window between 0 and the time to live");
+        }
+        this.registry = registry;
+        this.clock = clock;
+        this.ttlMillis = ttlMillis;
+        this.refreshAheadMillis = refreshAheadMillis;
+        this.maxStaleMillis = Math.max(DEFAULT_MAX_STALE_MILLIS, ttlMillis);
+        this.nextSweep = clock.millis() + maxStaleMillis;
+        if (executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(2, r -> {
+                Thread t = new Thread(r, "licence-lookup");
+                t.setDaemon(true);
+                return t;
+            });
+            this.executor = ownExecutor;
+        } else {
+            ownExecutor = null;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * Sets the age after which an answer is no longer trusted, even while the registry cannot be reached.
+     * @param maxStaleMillis the maximum age of an answer that is served.
+     * @throws IllegalArgumentException if it is shorter than the time to live.
+     */
+    public void setMaxStale(long maxStaleMillis) {
+        if (maxStaleMillis < ttlMillis) {throw new IllegalArgumentException("Maximum staleness must be at least the time to live");}
+        this.maxStaleMillis = maxStaleMillis;
+        nextSweep = Math.min(nextSweep, clock.millis() + maxStaleMillis);
+    }
+
+    /**
+     * Sets the answer to a miss while its lookup runs.
+     * @param trustRegistered true to trust the licence the customer registered with (the default),
+     *                        false to refuse it until the registry has answered.
+     */
+    public void setTrustRegistered(boolean trustRegistered) {
+        this.trustRegistered = trustRegistered;
+    }
+
+    /**
+     * Checks if a customer's commercial licence is valid, using the cached answer. Never waits for the registry.
+     * @param c the customer.
+     * @return the latest known answer, false if it is too old, or on a miss the answer set by setTrustRegistered.
+     */
+    public boolean isValid(CustomerRecord c) {
+        if (!c.isHaveC_licence()) {return false;}
+        int id = c.getCustomerID();
+        Cached e = entries.get(id);
+        if (e == null) {
+            misses.incrementAndGet();
+            refresh(c);
+            boolean known;
+            synchronized (lookedUp) {
+                known = lookedUp.get(id);
+            }
+            return !known && trustRegistered;// An answer that was dropped is never replaced by the registered licence.
+        }
+        long age = clock.millis() - e.fetchedAt;
+        if (age >= maxStaleMillis) {
+            expired.incrementAndGet();
+            entries.remove(id, e);
+            refresh(c);
+            return false;// Too old to trust, whatever it said.
+        }
+        if (age >= ttlMillis) {
+            stale.incrementAndGet();
+            refresh(c);
+        } else {
+            hits.incrementAndGet();
+            if (age >= ttlMillis - refreshAheadMillis) {refresh(c);}// Refresh ahead of the expiry.
+        }
+        return e.valid;
+    }
+
+    /**
+     * Starts a lookup of a customer's licence ahead of their requests, unless a fresh answer is cached.
+     * Customers without a commercial licence are never looked up.
+     * @param c the customer.
+     */
+    public void warm(CustomerRecord c) {
+        if (!c.isHaveC_licence()) {return;}
+        Cached e = entries.get(c.getCustomerID());
+        if (e == null || clock.millis() - e.fetchedAt >= ttlMillis - refreshAheadMillis) {refresh(c);}
+    }
+
+    /**
+     * Starts a lookup of a customer's licence, or joins the one already running for them.
+     * @param c the customer.
+     * @return the future result of the lookup, completed exceptionally if the registry could not be reached.
+     */
+    public CompletableFuture<Boolean> refresh(CustomerRecord c) {
+        int id = c.getCustomerID();
+        CompletableFuture<Boolean> mine = new CompletableFuture<>();
+        CompletableFuture<Boolean> running = inflight.putIfAbsent(id, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return running;
+        }
+        try {
+            executor.execute(() -> lookup(c, mine));
+        } catch (RejectedExecutionException ex) {
+            inflight.remove(id, mine);
+            mine.completeExceptionally(ex);
+        }
+        return mine;
+    }
+
+    /**
+     * Forgets the answer for a customer, e.g. when the registry reports a change, so the next request looks it up again.
+     * @param customerID the ID of the customer.
+     */
+    public void invalidate(int customerID) {
+        entries.remove(customerID);
+    }
+
+    /**
+     * Get the number of requests answered with a fresh answer.
+     * @return the number of hits.
+     */
+    public long getHits() {return hits.get();}
+
+    /**
+     * Get the number of requests answered with an expired answer while it was looked up again.
+     * @return the number of stale answers.
+     */
+    public long getStale() {return stale.get();}
+
+    /**
+     * Get the number of requests whose answer was older than the maximum staleness, and so treated as a miss.
+     * @return the number of expired answers.
+     */
+    public long getExpired() {return expired.get();}
+
+    /**
+     * Get the number of answers held in the cache.
+     * @return the number of cached answers.
+     */
+    public int size() {return entries.size();}
+
+    /**
+     * Get the number of requests for customers without a cached answer.
+     * @return the number of misses.
+     */
+    public long getMisses() {return misses.get();}
+
+    /**
+     * Get the number of calls made to the registry.
+     * @return the number of lookups.
+     */
+    public long getLookups() {return lookups.get();}
+
+    /**
+     * Get the number of requests that joined a lookup already running instead of starting one.
+     * @return the number of coalesced requests.
+     */
+    public long getCoalesced() {return coalesced.get();}
+
+    /**
+     * Get the number of lookups that failed.
+     * @return the number of failures.
+     */
+    public long getFailures() {return failures.get();}
+
+    /**
+     * Stops the worker threads owned by the cache. Lookups already started are finished.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor != null) {ownExecutor.shutdown();}
+    }
+
+    /**
+     * Calls the registry and stores its answer.
+     */
+    private void lookup(CustomerRecord c, CompletableFuture<Boolean> f) {
+        int id = c.getCustomerID();
+        lookups.incrementAndGet();
+        try {
+            boolean valid = registry.isCommercialLicenceValid(c);
+            long now = clock.millis();
+            synchronized (lookedUp) {
+                lookedUp.set(id);
+            }
+            entries.put(id, new Cached(valid, now));
+            inflight.remove(id, f);
+            f.complete(valid);
+            if (now >= nextSweep) {sweep(now);}
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            System.out.println("Licence lookup of customer " + id + " failed: " + e.getMessage());
+            inflight.remove(id, f);// The last answer is kept, the next request tries again.
+            f.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Drops every answer past the maximum staleness. Runs on a lookup thread, at most once per maximum staleness.
+     */
+    private void sweep(long now) {
+        long maxStale = maxStaleMillis;
+        nextSweep = now + maxStale;
+        entries.values().removeIf(e -> now - e.fetchedAt >= maxStale);
+    }
+
+    /**
+     * An answer of the registry and the time it was given.
+     */
+    private static final class Cached {
+        private final boolean valid;
+        private final long fetchedAt;
+
+        private Cached(boolean valid, long fetchedAt) {
+            this.valid = valid;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
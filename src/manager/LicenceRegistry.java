@@ -0,0 +1,22 @@
+package manager;
+import model.*;
+
+import java.io.IOException;
+
+/**
+ * Interface of a registry that knows if a customer's commercial licence is still valid, e.g. the licensing authority.
+ * The CustomerRecord only says the customer had a commercial licence when they registered. Licences expire and are
+ * revoked, so a Van hire needs the registry's answer, which is kept in a LicenceCache because a lookup may be a slow
+ * remote call. InMemoryLicenceRegistry is an in-process stand-in for tests and simulations.
+ * @author Fandi Zhou
+ */
+public interface LicenceRegistry {
+
+    /**
+     * Looks up the commercial licence of a customer. May be slow, it is only called from the LicenceCache's worker threads.
+     * @param c the customer, who registered with a commercial licence.
+     * @return true if the licence is currently valid; false if it has expired or been revoked.
+     * @throws IOException if the registry could not be reached.
+     */
+    boolean isCommercialLicenceValid(CustomerRecord c) throws IOException;
+}
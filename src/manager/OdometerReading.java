@@ -0,0 +1,52 @@
+package manager;
+
+/**
+ * Class of one odometer reading sent by a vehicle while it is on hire.
+ * The reading holds the trip distance, i.e. the distance traveled since the hire started, not the total odometer value,
+ * so readings of the same hire only ever grow and the latest one can be found by taking the largest.
+ * This makes readings safe to deliver late, twice or out of order.
+ * @author Fandi Zhou
+ */
+public final class OdometerReading {
+
+    private final VehicleID vehicleID;
+    private final long timestamp;
+    private final int tripDistance;
+
+    /**
+     * Constructs a new OdometerReading.
+     * @param vehicleID    the ID of the vehicle sending the reading.
+     * @param timestamp    the time the reading was taken, in milliseconds of the manager's clock.
+     * @param tripDistance the distance traveled since the hire started.
+     * @throws IllegalArgumentException if the trip distance is negative.
+     */
+    public OdometerReading(VehicleID vehicleID, long timestamp, int tripDistance) {
+        if (tripDistance < 0) {throw new IllegalArgumentException("Trip distance must not be negative: " + tripDistance);}
+        this.vehicleID = vehicleID;
+        this.timestamp = timestamp;
+        this.tripDistance = tripDistance;
+    }
+
+    /**
+     * Get the ID of the vehicle.
+     * @return the VehicleID.
+     */
+    public VehicleID getVehicleID() {return vehicleID;}
+
+    /**
+     * Get the time the reading was taken.
+     * @return the timestamp in milliseconds.
+     */
+    public long getTimestamp() {return timestamp;}
+
+    /**
+     * Get the distance traveled since the hire started.
+     * @return the trip distance.
+     */
+    public int getTripDistance() {return tripDistance;}
+
+    @Override
+    public String toString() {
+        return vehicleID + "@" + timestamp + ": " + tripDistance;
+    }
+}
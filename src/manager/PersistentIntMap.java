@@ -0,0 +1,118 @@
+package manager;
+
+/**
+ * Class represents an immutable map from non-negative int keys (e.g. customer IDs) to values.
+ * The map is a 32-way bit-partitioned trie. Updating it copies only the path from the root to the changed entry,
+ * so every older version stays valid and can be read by other threads while new versions are built.
+ * Lookups and updates take O(log32 n) time.
+ * @param <V> the type of the values.
+ * @author Fandi Zhou
+ */
+final class PersistentIntMap<V> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(new Object[WIDTH], 0, 0);
+
+    private final Object[] root;//Inner nodes are Object[WIDTH], the bottom level holds the values.
+    private final int shift;//Number of key bits below the root level.
+    private final int size;
+
+    private PersistentIntMap(Object[] root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     * @param <V> the type of the values.
+     * @return an empty map.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    /**
+     * Gets the value of a key.
+     * @param key the key to look up.
+     * @return the value, or null if the key is not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        if (key < 0 || !fits(key, shift)) {return null;}
+
+        Object[] node = root;
+        for (int s = shift; s > 0; s -= BITS) {
+            node = (Object[]) node[(key >>> s) & MASK];
+            if (node == null) {return null;}
+        }
+        return (V) node[key & MASK];
+    }
+
+    /**
+     * Returns a new map with the key set to the value. This map is not changed.
+     * @param key   the key, must not be negative.
+     * @param value the value, must not be null.
+     * @return the new map.
+     * @throws IllegalArgumentException if the key is negative or the value is null.
+     */
+    PersistentIntMap<V> put(int key, V value) {
+        if (key < 0) {throw new IllegalArgumentException("Key must not be negative: " + key);}
+        if (value == null) {throw new IllegalArgumentException("Value must not be null");}
+
+        Object[] newRoot = root;
+        int newShift = shift;
+        while (!fits(key, newShift)) {// Add a level on top until the key fits.
+            Object[] up = new Object[WIDTH];
+            up[0] = newRoot;
+            newRoot = up;
+            newShift += BITS;
+        }
+
+        boolean existed = get(key) != null;
+        return new PersistentIntMap<>(set(newRoot, newShift, key, value), newShift, existed ? size : size + 1);
+    }
+
+    /**
+     * Returns a new map without the key. This map is not changed.
+     * @param key the key to remove.
+     * @return the new map, or this map if the key was not present.
+     */
+    PersistentIntMap<V> remove(int key) {
+        if (get(key) == null) {return this;}
+        return new PersistentIntMap<>(set(root, shift, key, null), shift, size - 1);
+    }
+
+    /**
+     * Get the number of entries in the map.
+     * @return the number of keys with a value.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies the path to the key and sets the value at the bottom.
+     */
+    private static Object[] set(Object[] node, int shift, int key, Object value) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        int i = (key >>> shift) & MASK;
+        if (shift == 0) {
+            copy[i] = value;
+        } else {
+            copy[i] = set((Object[]) copy[i], shift - BITS, key, value);
+        }
+        return copy;
+    }
+
+    /**
+     * Checks if a key can be stored in a trie whose root is at the given shift.
+     */
+    private static boolean fits(int key, int shift) {
+        return shift + BITS >= 31 || key < (1 << (shift + BITS));
+    }
+}
@@ -0,0 +1,180 @@
+package manager;
+import model.*;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Date;
+
+/**
+ * Class of a follower (hot standby) of a primary VehicleManager.
+ * The follower connects to a ReplicationPrimary, applies every change it receives to its own replica manager
+ * strictly in sequence order and acknowledges each frame once it has been applied.
+ * A snapshot from the primary, sent when the follower connects late or falls too far behind, is applied to a new
+ * replica manager, which then replaces the old one.
+ * The replica is meant for read only queries such as noOfAvailableVehicles, getVechilesByCustomer and snapshot;
+ * it must not be changed directly.
+ * @author Fandi Zhou
+ */
+public class ReplicationFollower implements Closeable {
+
+    private volatile VehicleManager replica = new VehicleManager();
+    private final Socket socket;
+    private volatile long lastApplied;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a ReplicationFollower and connects it to a primary.
+     * @param host the primary's host name.
+     * @param port the primary's replication port.
+     * @throws IOException if the connection cannot be made.
+     */
+    public ReplicationFollower(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+
+        Thread receiver = new Thread(this::receive, "replication-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    /**
+     * Get the replica manager, for read only queries.
+     * A snapshot replaces the replica, so get it again for each query rather than holding on to it.
+     * @return the replica.
+     */
+    public VehicleManager getManager() {
+        return replica;
+    }
+
+    /**
+     * Get the sequence number of the last change applied to the replica.
+     * @return the last applied sequence, 0 before the first change.
+     */
+    public long getLastAppliedSequence() {
+        return lastApplied;
+    }
+
+    /**
+     * Waits until the replica has applied the given change.
+     * @param sequence      the sequence number to wait for.
+     * @param timeoutMillis the maximum time to wait in milliseconds.
+     * @return true if the change was applied in time and false otherwise.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public synchronized boolean awaitSequence(long sequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (lastApplied < sequence) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0 || closed) {return false;}
+            wait(left);
+        }
+        return true;
+    }
+
+    /**
+     * Disconnects from the primary. The replica keeps the state it has applied so far.
+     * @throws IOException if the socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        socket.close();
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    private void receive() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (!closed) {
+                in.readInt();// Frame length, the frame is read field by field.
+                long first = in.readLong();
+                int count = in.readInt();
+                if (count == ReplicationPrimary.SNAPSHOT) {
+                    VehicleManager fresh = new VehicleManager();
+                    int records = in.readInt();
+                    for (int i = 0; i < records; i++) {
+                        apply(fresh, readChange(in));
+                    }
+                    synchronized (this) {
+                        replica = fresh;
+                        lastApplied = first;
+                        notifyAll();
+                    }
+                    out.writeLong(lastApplied);
+                    out.flush();
+                    continue;
+                }
+                if (first != lastApplied + 1) {throw new IOException("Replication gap: expected " + (lastApplied + 1) + " but got " + first);}
+
+                for (int i = 0; i < count; i++) {
+                    apply(replica, readChange(in));
+                }
+
+                synchronized (this) {
+                    lastApplied = first + count - 1;
+                    notifyAll();
+                }
+                out.writeLong(lastApplied);
+                out.flush();
+            }
+        } catch (SocketException | EOFException e) {
+            // The primary disconnected or the follower was closed.
+        } catch (IOException e) {
+            System.out.println("Replication from primary failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the bytes of one change from a frame.
+     */
+    private static DataInputStream readChange(DataInputStream in) throws IOException {
+        byte[] change = new byte[in.readInt()];
+        in.readFully(change);
+        return new DataInputStream(new ByteArrayInputStream(change));
+    }
+
+    /**
+     * Decodes one change and applies it to a replica.
+     */
+    private static void apply(VehicleManager replica, DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ReplicationPrimary.VEHICLE_ADDED:
+                replica.applyVehicleAdded(VehicleID.unpack(in.readInt()));
+                break;
+            case ReplicationPrimary.CUSTOMER_ADDED:
+                int id = in.readInt();
+                Name name = new Name(in.readUTF(), in.readUTF());
+                Date dob = new Date(in.readLong());
+                boolean licence = in.readBoolean();
+                replica.applyCustomerAdded(CustomerRecord.restore(name, dob, licence, id));
+                break;
+            case ReplicationPrimary.HIRED:
+                replica.applyHire(in.readInt(), VehicleID.unpack(in.readInt()), in.readInt());
+                break;
+            case ReplicationPrimary.RETURNED:
+                replica.applyReturn(in.readInt(), VehicleID.unpack(in.readInt()), in.readInt());
+                break;
+            case ReplicationPrimary.SERVICED:
+                replica.applyMaintenance(VehicleID.unpack(in.readInt()), false);
+                break;
+            case ReplicationPrimary.INSPECTED:
+                replica.applyMaintenance(VehicleID.unpack(in.readInt()), true);
+                break;
+            case ReplicationPrimary.RETIRED:
+                replica.applyRetire(VehicleID.unpack(in.readInt()));
+                break;
+            case ReplicationPrimary.MILEAGE:
+                replica.applyMileage(VehicleID.unpack(in.readInt()), in.readInt());
+                break;
+            case ReplicationPrimary.VEHICLE_STATE:
+                replica.applyVehicleState(VehicleID.unpack(in.readInt()), in.readInt(), in.readBoolean());
+                break;
+            default:
+                throw new IOException("Unknown replicated change type: " + type);
+        }
+    }
+}
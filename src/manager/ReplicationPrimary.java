@@ -0,0 +1,453 @@
+package manager;
+import model.*;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.*;
+
+/**
+ * Class streams every change made by a primary VehicleManager to one or more followers over TCP (a hot standby).
+ * Changes (new vehicles, new customers, hires, returns, services and inspections) are numbered in order from 1
+ * and kept in an in-memory log until every follower has acknowledged them. The log then drops them, remembering the
+ * sequence of the last change dropped as its base, so it only holds the changes some follower still needs.
+ * A follower whose next change is no longer in the log, i.e. one that connects later or falls more than the log
+ * limit behind, is sent a snapshot of the whole state instead and carries on from the snapshot's sequence.
+ * The primary must be created before any vehicle or customer is added to the manager, as a new follower starts from
+ * the first change recorded. Snapshots copy the vehicles, customers and hires from the manager itself, so the primary
+ * keeps no copy of the customers.
+ * Link format, all numbers big-endian:
+ * 1. Frame from primary: frame length (int), sequence of the first change (long), number of changes (int),
+ *    then each change as length (int) + encoded change.
+ * 2. Snapshot frame from primary: frame length (int), sequence the snapshot is at (long), -1 (int),
+ *    number of records (int), then each record as length (int) + encoded change. Applied in order to an empty
+ *    manager the records rebuild the primary's state: vehicles, customers, hires, then mileages and inspections.
+ * 3. Acknowledgement from follower: sequence of the last change applied (long).
+ * Each follower has its own sender thread that sends every change not yet sent in one frame (up to a batch limit)
+ * and waits for the acknowledgement before sending the next frame.
+ * @author Fandi Zhou
+ */
+public class ReplicationPrimary implements FleetEventListener, Closeable {
+
+    static final byte VEHICLE_ADDED = 1;
+    static final byte CUSTOMER_ADDED = 2;
+    static final byte HIRED = 3;
+    static final byte RETURNED = 4;
+    static final byte SERVICED = 5;
+    static final byte INSPECTED = 6;
+    static final byte RETIRED = 7;
+    static final byte MILEAGE = 8;
+    static final byte VEHICLE_STATE = 9;//Mileage and inspection of a vehicle, only sent in snapshots.
+
+    static final int SNAPSHOT = -1;//Number of changes marking a snapshot frame.
+
+    private static final int MAX_BATCH = 1024;//Maximum number of changes in one frame.
+
+    /**
+     * The default number of changes the log keeps for a slow follower before it is sent a snapshot instead.
+     */
+    public static final int DEFAULT_MAX_LOG = 1 << 16;
+
+    private final VehicleManager manager;
+    private final ServerSocket server;
+    private final int maxLog;
+    private final List<byte[]> log = new ArrayList<>();//Encoded change base + n + 1 is at index n.
+    private long base;//Sequence of the last change dropped from the log.
+    private final Map<Socket, Long> acked = new HashMap<>();//Last sequence acknowledged by each follower.
+    private long snapshotsSent;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a ReplicationPrimary that listens for followers and starts recording the manager's changes.
+     * @param manager the primary manager, with no vehicles or customers yet.
+     * @param port    the TCP port to listen on, 0 for any free port.
+     * @throws IOException if the port cannot be opened.
+     * @throws IllegalStateException if the manager already has vehicles or customers.
+     */
+    public ReplicationPrimary(VehicleManager manager, int port) throws IOException {
+        this(manager, port, DEFAULT_MAX_LOG);
+    }
+
+    /**
+     * Constructs a ReplicationPrimary with a limit on the changes kept for slow followers.
+     * @param manager the primary manager, with no vehicles or customers yet.
+     * @param port    the TCP port to listen on, 0 for any free port.
+     * @param maxLog  the number of changes kept for a follower that has not acknowledged them, beyond which the
+     *                oldest are dropped and the follower is sent a snapshot instead.
+     * @throws IOException if the port cannot be opened.
+     * @throws IllegalArgumentException if the limit is not positive.
+     * @throws IllegalStateException if the manager already has vehicles or customers.
+     */
+    public ReplicationPrimary(VehicleManager manager, int port, int maxLog) throws IOException {
+        if (maxLog < 1) {throw new IllegalArgumentException("Log limit must be positive");}
+        this.manager = manager;
+        this.maxLog = maxLog;
+        synchronized (manager) {// No change can slip in between the check and the registration.
+            if (manager.noOfVehicles() > 0 || manager.noOfCustomers() > 0) {
+                throw new IllegalStateException("The primary must be created before any vehicle or customer is added");
+            }
+            manager.addListener(this);
+        }
+        try {
+            this.server = new ServerSocket(port);
+        } catch (IOException e) {
+            manager.removeListener(this);
+            throw e;
+        }
+
+        Thread acceptor = new Thread(this::acceptFollowers, "replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Get the port followers connect to.
+     * @return the local port.
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Get the sequence number of the latest change.
+     * @return the number of changes recorded so far.
+     */
+    public synchronized long getLastSequence() {
+        return base + log.size();
+    }
+
+    /**
+     * Get the replication lag, i.e. how many changes the slowest follower has not yet acknowledged.
+     * @return the number of unacknowledged changes, 0 if there are no followers.
+     */
+    public synchronized long getReplicationLag() {
+        long last = base + log.size();
+        long slowest = last;
+        for (long a : acked.values()) {
+            slowest = Math.min(slowest, a);
+        }
+        return last - slowest;
+    }
+
+    /**
+     * Get the number of changes kept in the log, i.e. those some follower has not acknowledged yet.
+     * @return the size of the log.
+     */
+    public synchronized int getLogSize() {
+        return log.size();
+    }
+
+    /**
+     * Get the number of snapshots sent to followers that connected late or fell too far behind.
+     * @return the number of snapshots.
+     */
+    public synchronized long getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    /**
+     * Get the number of connected followers.
+     * @return the number of followers.
+     */
+    public synchronized int getFollowerCount() {
+        return acked.size();
+    }
+
+    @Override
+    public void vehicleAdded(Vehicle v) {
+        append(encode(out -> {
+            out.writeByte(VEHICLE_ADDED);
+            out.writeInt(v.getVehicleID().pack());
+        }));
+    }
+
+    @Override
+    public void customerAdded(CustomerRecord c) {
+        append(encodeCustomer(c));
+    }
+
+    private static byte[] encodeCustomer(CustomerRecord c) {
+        return encode(out -> {
+            out.writeByte(CUSTOMER_ADDED);
+            out.writeInt(c.getCustomerID());
+            out.writeUTF(c.getName().getFirstName());
+            out.writeUTF(c.getName().getlastName());
+            out.writeLong(c.getBirthDate().getTime());
+            out.writeBoolean(c.isHaveC_licence());
+        });
+    }
+
+    @Override
+    public void vehicleHired(CustomerRecord c, Vehicle v, int duration) {
+        append(encode(out -> {
+            out.writeByte(HIRED);
+            out.writeInt(c.getCustomerID());
+            out.writeInt(v.getVehicleID().pack());
+            out.writeInt(duration);
+        }));
+    }
+
+    @Override
+    public void vehicleReturned(CustomerRecord c, Vehicle v, int mileage) {
+        append(encode(out -> {
+            out.writeByte(RETURNED);
+            out.writeInt(c.getCustomerID());
+            out.writeInt(v.getVehicleID().pack());
+            out.writeInt(mileage);
+        }));
+    }
+
+    @Override
+    public void mileageReported(Vehicle v, int distance) {
+        append(encode(out -> {
+            out.writeByte(MILEAGE);
+            out.writeInt(v.getVehicleID().pack());
+            out.writeInt(distance);
+        }));
+    }
+
+    @Override
+    public void vehicleServiced(Vehicle v) {
+        append(encode(out -> {
+            out.writeByte(SERVICED);
+            out.writeInt(v.getVehicleID().pack());
+        }));
+    }
+
+    @Override
+    public void vehicleRetired(VehicleID id) {
+        append(encode(out -> {
+            out.writeByte(RETIRED);
+            out.writeInt(id.pack());
+        }));
+    }
+
+    @Override
+    public void vehicleInspected(Vehicle v) {
+        append(encode(out -> {
+            out.writeByte(INSPECTED);
+            out.writeInt(v.getVehicleID().pack());
+        }));
+    }
+
+    /**
+     * Stops recording changes and disconnects every follower.
+     * @throws IOException if the server socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        manager.removeListener(this);
+        server.close();
+        synchronized (this) {
+            for (Socket s : acked.keySet()) {
+                s.close();
+            }
+            acked.clear();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Encodes a change.
+     */
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try {
+            encoder.encode(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);// Cannot happen when writing to memory.
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Adds an encoded change to the log.
+     */
+    private synchronized void append(byte[] change) {
+        log.add(change);
+        trim();
+        notifyAll();// Wake the sender threads.
+    }
+
+    /**
+     * Drops the changes every follower has acknowledged, and the oldest changes beyond the log limit.
+     * Changes are dropped in runs of at least a batch, so the log is not copied on every acknowledgement.
+     */
+    private void trim() {
+        long last = base + log.size();
+        long upTo = last;
+        for (long a : acked.values()) {
+            upTo = Math.min(upTo, a);
+        }
+        upTo = Math.max(upTo, last - maxLog);// A follower further behind is sent a snapshot.
+        int drop = (int) (upTo - base);
+        if (drop > 0 && (drop == log.size() || drop >= MAX_BATCH || log.size() > maxLog)) {
+            log.subList(0, drop).clear();
+            base = upTo;
+        }
+    }
+
+    /**
+     * Copies the whole state of the manager as snapshot records, together with the sequence it is at.
+     * The manager lock is held throughout, so no change is made or recorded while it is copied.
+     */
+    private Snapshot snapshot() {
+        List<byte[]> vehicles = new ArrayList<>();
+        List<byte[]> customers = new ArrayList<>();
+        List<byte[]> hires = new ArrayList<>();
+        List<byte[]> states = new ArrayList<>();
+        List<byte[]> records = new ArrayList<>();
+        long sequence;
+        synchronized (manager) {
+            manager.exportState(new VehicleManager.StateVisitor() {
+                @Override
+                public void vehicle(VehicleID id, int mileage, boolean inspection) {
+                    vehicles.add(encode(out -> {
+                        out.writeByte(VEHICLE_ADDED);
+                        out.writeInt(id.pack());
+                    }));
+                    if (mileage > 0 || inspection) {
+                        states.add(encode(out -> {
+                            out.writeByte(VEHICLE_STATE);
+                            out.writeInt(id.pack());
+                            out.writeInt(mileage);
+                            out.writeBoolean(inspection);
+                        }));
+                    }
+                }
+
+                @Override
+                public void customer(CustomerRecord c) {
+                    customers.add(encodeCustomer(c));
+                }
+
+                @Override
+                public void hire(int customerID, VehicleID id, int duration) {
+                    hires.add(encode(out -> {
+                        out.writeByte(HIRED);
+                        out.writeInt(customerID);
+                        out.writeInt(id.pack());
+                        out.writeInt(duration);
+                    }));
+                }
+            });
+            synchronized (this) {
+                sequence = base + log.size();
+            }
+        }
+        records.addAll(vehicles);
+        records.addAll(customers);
+        // Hires before states: a vehicle is hired while it is clean, then given the mileage it has now.
+        records.addAll(hires);
+        records.addAll(states);
+        return new Snapshot(sequence, records);
+    }
+
+    private void acceptFollowers() {
+        while (!closed) {
+            try {
+                Socket s = server.accept();
+                synchronized (this) {
+                    acked.put(s, 0L);
+                }
+                Thread sender = new Thread(() -> serve(s), "replication-sender");
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (!closed) {System.out.println("Replication accept failed: " + e.getMessage());}
+            }
+        }
+    }
+
+    /**
+     * Sends frames to one follower until it disconnects.
+     */
+    private void serve(Socket s) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()))) {
+            long sent = 0;
+            while (!closed) {
+                List<byte[]> batch = null;
+                synchronized (this) {
+                    while (base + log.size() == sent && !closed) {
+                        wait();
+                    }
+                    if (closed) {break;}
+                    if (sent >= base) {
+                        int from = (int) (sent - base);
+                        batch = new ArrayList<>(log.subList(from, Math.min(log.size(), from + MAX_BATCH)));
+                    }
+                }
+
+                if (batch == null) {// The next change was dropped from the log.
+                    Snapshot snap = snapshot();
+                    writeFrame(out, snap.sequence, SNAPSHOT, snap.records);
+                    sent = snap.sequence;
+                    synchronized (this) {
+                        snapshotsSent++;
+                    }
+                } else {
+                    writeFrame(out, sent + 1, batch.size(), batch);
+                    sent += batch.size();
+                }
+
+                long ack = in.readLong();
+                synchronized (this) {
+                    acked.put(s, ack);
+                    trim();
+                }
+            }
+        } catch (SocketException | EOFException e) {
+            // The follower disconnected.
+        } catch (IOException e) {
+            System.out.println("Replication to follower failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                acked.remove(s);
+            }
+        }
+    }
+
+    /**
+     * Writes a frame of changes, or a snapshot frame.
+     */
+    private static void writeFrame(DataOutputStream out, long sequence, int count, List<byte[]> changes) throws IOException {
+        int length = 8 + 4 + (count == SNAPSHOT ? 4 : 0);
+        for (byte[] b : changes) {
+            length += 4 + b.length;
+        }
+        out.writeInt(length);
+        out.writeLong(sequence);
+        out.writeInt(count);
+        if (count == SNAPSHOT) {out.writeInt(changes.size());}
+        for (byte[] b : changes) {
+            out.writeInt(b.length);
+            out.write(b);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes one change.
+     */
+    private interface Encoder {
+        void encode(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * The records of a snapshot and the sequence of the last change they include.
+     */
+    private static final class Snapshot {
+        private final long sequence;
+        private final List<byte[]> records;
+
+        private Snapshot(long sequence, List<byte[]> records) {
+            this.sequence = sequence;
+            this.records = records;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package manager;
+import model.*;
+
+import java.util.*;
+
+/**
+ * Class of an index of the fleet ordered by the distance each vehicle can still travel before its next service.
+ * The remaining distance is the service distance requirement minus the current mileage, it is negative for overdue vehicles.
+ * The index listens to the FleetStore, so it is kept up to date whenever mileage is added on return
+ * or reset by a service. Each vehicle kind has its own sorted set, so:
+ * 1. Updating a vehicle takes logarithmic time.
+ * 2. "All Vans within 500 miles of service" takes logarithmic time plus the number of vehicles returned.
+ * 3. "The next 50 vehicles to pull in" merges the sets of both kinds and also takes logarithmic time plus the result size.
+ * @author Fandi Zhou
+ */
+public final class ServiceDueIndex implements FleetStore.Listener {
+
+    private final FleetStore store;
+
+    //One sorted set per kind. Each entry packs the remaining distance in the high 32 bits and the slot in the low 32 bits,
+    //so the natural order of the longs is the order of remaining distance, then slot.
+    private final List<TreeSet<Long>> byKind = List.of(new TreeSet<>(), new TreeSet<>());
+
+    /**
+     * Constructs a ServiceDueIndex over a fleet store, indexing the vehicles already in it and listening for changes.
+     * @param store the store to index.
+     */
+    public ServiceDueIndex(FleetStore store) {
+        this.store = store;
+        for (int slot = 0; slot < store.size(); slot++) {
+            vehicleAdded(slot);
+        }
+        store.addListener(this);
+    }
+
+    @Override
+    public void vehicleAdded(int slot) {
+        int kind = store.kind(slot);
+        byKind.get(kind).add(key(FleetStore.distanceRequirement(kind) - store.mileage(slot), slot));
+    }
+
+    @Override
+    public void vehicleRemoved(int slot) {
+        int kind = store.kind(slot);
+        byKind.get(kind).remove(key(FleetStore.distanceRequirement(kind) - store.mileage(slot), slot));
+    }
+
+    @Override
+    public void vehicleMoved(int from, int to) {
+        int kind = store.kind(from);
+        int remaining = FleetStore.distanceRequirement(kind) - store.mileage(from);
+        byKind.get(kind).remove(key(remaining, from));
+        byKind.get(kind).add(key(remaining, to));
+    }
+
+    @Override
+    public void mileageChanged(int slot, int oldMileage, int newMileage) {
+        int kind = store.kind(slot);
+        int limit = FleetStore.distanceRequirement(kind);
+        TreeSet<Long> set = byKind.get(kind);
+        set.remove(key(limit - oldMileage, slot));
+        set.add(key(limit - newMileage, slot));
+    }
+
+    /**
+     * Finds every vehicle of a type that is within the given distance of its next service, or already overdue.
+     * @param vehicleType the type of vehicle (e.g., "Car", "Van").
+     * @param miles       the distance to service.
+     * @return the vehicles, closest to service first.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public List<Vehicle> withinMiles(String vehicleType, int miles) {
+        TreeSet<Long> set = byKind.get(checkKind(vehicleType));
+        List<Vehicle> result = new ArrayList<>();
+        // Every key with this distance left, whatever the slot. Not key(miles + 1, 0), which overflows for Integer.MAX_VALUE.
+        for (long k : set.headSet(key(miles, Integer.MAX_VALUE), true)) {
+            result.add(store.view(slotOf(k)));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the vehicles of any type that are closest to their next service.
+     * @param n the maximum number of vehicles to return.
+     * @return up to n vehicles, closest to service first.
+     */
+    public List<Vehicle> nextToService(int n) {
+        Iterator<Long> cars = byKind.get(FleetStore.CAR).iterator();
+        Iterator<Long> vans = byKind.get(FleetStore.VAN).iterator();
+        Long car = cars.hasNext() ? cars.next() : null;
+        Long van = vans.hasNext() ? vans.next() : null;
+
+        List<Vehicle> result = new ArrayList<>();
+        while (result.size() < n && (car != null || van != null)) {// Merge the two sorted sets.
+            if (van == null || (car != null && car <= van)) {
+                result.add(store.view(slotOf(car)));
+                car = cars.hasNext() ? cars.next() : null;
+            } else {
+                result.add(store.view(slotOf(van)));
+                van = vans.hasNext() ? vans.next() : null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the vehicles of a type that are closest to their next service.
+     * @param vehicleType the type of vehicle (e.g., "Car", "Van").
+     * @param n           the maximum number of vehicles to return.
+     * @return up to n vehicles, closest to service first.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public List<Vehicle> nextToService(String vehicleType, int n) {
+        List<Vehicle> result = new ArrayList<>();
+        for (long k : byKind.get(checkKind(vehicleType))) {
+            if (result.size() >= n) {break;}
+            result.add(store.view(slotOf(k)));
+        }
+        return result;
+    }
+
+    private static int checkKind(String vehicleType) {
+        int kind = FleetStore.kindOf(vehicleType);
+        if (kind < 0) {throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);}
+        return kind;
+    }
+
+    private static long key(int remaining, int slot) {
+        return ((long) remaining << 32) | slot;
+    }
+
+    private static int slotOf(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,81 @@
+package manager;
+
+/**
+ * Class of the price list of one vehicle type, used by the BillingPipeline.
+ * All amounts are in pence, so prices add up exactly.
+ * The price of a hire is: the daily rate for every booked day, plus the mileage rate for every mile above
+ * the free miles of the booked days, plus the service fee if the vehicle came back due for a service,
+ * plus the inspection fee if it came back needing an inspection.
+ * @author Fandi Zhou
+ */
+public final class Tariff {
+
+    private final long dailyRate;
+    private final long mileageRate;
+    private final int freeMilesPerDay;
+    private final long serviceFee;
+    private final long inspectionFee;
+
+    /**
+     * Constructs a new Tariff.
+     * @param dailyRate       the price of one hire day.
+     * @param mileageRate     the price of one mile above the free miles.
+     * @param freeMilesPerDay the miles included in each hire day.
+     * @param serviceFee      the charge when the hire takes the vehicle over its service interval.
+     * @param inspectionFee   the charge when the vehicle needs an inspection after the hire.
+     * @throws IllegalArgumentException if any value is negative.
+     */
+    public Tariff(long dailyRate, long mileageRate, int freeMilesPerDay, long serviceFee, long inspectionFee) {
+        if (dailyRate < 0 || mileageRate < 0 || freeMilesPerDay < 0 || serviceFee < 0 || inspectionFee < 0) {
+            throw new IllegalArgumentException("Tariff values must not be negative");
+        }
+        this.dailyRate = dailyRate;
+        this.mileageRate = mileageRate;
+        this.freeMilesPerDay = freeMilesPerDay;
+        this.serviceFee = serviceFee;
+        this.inspectionFee = inspectionFee;
+    }
+
+    /**
+     * Prices a hire.
+     * @param duration   the booked duration in days.
+     * @param mileage    the distance traveled.
+     * @param service    true if the vehicle came back due for a service.
+     * @param inspection true if the vehicle came back needing an inspection.
+     * @return the price in pence.
+     */
+    public long price(int duration, int mileage, boolean service, boolean inspection) {
+        long extraMiles = Math.max(0, mileage - (long) freeMilesPerDay * duration);
+        return duration * dailyRate + extraMiles * mileageRate + (service ? serviceFee : 0) + (inspection ? inspectionFee : 0);
+    }
+
+    /**
+     * Get the price of one hire day.
+     * @return the daily rate in pence.
+     */
+    public long getDailyRate() {return dailyRate;}
+
+    /**
+     * Get the price of one mile above the free miles.
+     * @return the mileage rate in pence.
+     */
+    public long getMileageRate() {return mileageRate;}
+
+    /**
+     * Get the miles included in each hire day.
+     * @return the free miles per day.
+     */
+    public int getFreeMilesPerDay() {return freeMilesPerDay;}
+
+    /**
+     * Get the service charge.
+     * @return the service fee in pence.
+     */
+    public long getServiceFee() {return serviceFee;}
+
+    /**
+     * Get the inspection charge.
+     * @return the inspection fee in pence.
+     */
+    public long getInspectionFee() {return inspectionFee;}
+}
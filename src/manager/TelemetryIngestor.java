@@ -0,0 +1,171 @@
+package manager;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class of a streaming front end for odometer readings sent by vehicles on hire.
+ * Vehicles (or a gateway in front of them) submit readings at a high rate from any number of threads:
+ * 1. Readings go into a bounded queue. Submitting never blocks, a reading that finds the queue full is dropped.
+ *    As every reading carries the whole trip distance, a dropped reading is made up for by the next one.
+ * 2. A worker thread takes the waiting readings in batches and keeps only the latest reading of each vehicle in the batch.
+ * 3. The remaining readings are applied with a single VehicleManager.reportMileage call, i.e. under one manager lock.
+ * Readings that arrive late or out of order are skipped by the manager, so the ingestor does not need to sort them.
+ * @author Fandi Zhou
+ */
+public class TelemetryIngestor implements Closeable {
+
+    private static final int DEFAULT_BATCH = 1024;
+
+    private final VehicleManager manager;
+    private final BlockingQueue<OdometerReading> queue;
+    private final int maxBatch;
+    private final Thread worker;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+
+    /**
+     * Constructs a TelemetryIngestor taking up to 1024 readings per batch.
+     * @param manager  the manager the readings are applied to.
+     * @param capacity the largest number of readings waiting to be applied.
+     * @throws IllegalArgumentException if capacity is not positive.
+     */
+    public TelemetryIngestor(VehicleManager manager, int capacity) {
+        this(manager, capacity, DEFAULT_BATCH);
+    }
+
+    /**
+     * Constructs a TelemetryIngestor.
+     * @param manager  the manager the readings are applied to.
+     * @param capacity the largest number of readings waiting to be applied.
+     * @param maxBatch the largest number of readings taken from the queue for one manager call.
+     * @throws IllegalArgumentException if capacity or maxBatch is not positive.
+     */
+    public TelemetryIngestor(VehicleManager manager, int capacity, int maxBatch) {
+        if (capacity < 1 || maxBatch < 1) {throw new IllegalArgumentException("Capacity and batch size must be positive");}
+        this.manager = manager;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+
+        worker = new Thread(this::run, "telemetry-ingestor");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Submits an odometer reading.
+     * @param vehicleID    the ID of the vehicle sending the reading.
+     * @param timestamp    the time the reading was taken, in milliseconds of the manager's clock.
+     * @param tripDistance the distance traveled since the hire started.
+     * @return true if the reading was queued; false if the queue was full and it was dropped.
+     * @throws IllegalArgumentException if the trip distance is negative.
+     */
+    public boolean submit(VehicleID vehicleID, long timestamp, int tripDistance) {
+        return submit(new OdometerReading(vehicleID, timestamp, tripDistance));
+    }
+
+    /**
+     * Submits an odometer reading.
+     * @param reading the reading.
+     * @return true if the reading was queued; false if the queue was full and it was dropped.
+     */
+    public boolean submit(OdometerReading reading) {
+        if (queue.offer(reading)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Get the number of readings waiting to be applied.
+     * @return the queue depth.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Get the number of readings accepted into the queue.
+     * @return the number of accepted readings.
+     */
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    /**
+     * Get the number of readings dropped because the queue was full.
+     * @return the number of dropped readings.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Get the number of accepted readings the worker has finished with, whether they were applied or skipped.
+     * Once it equals getAccepted every submitted reading has reached the manager.
+     * @return the number of processed readings.
+     */
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * Stops the worker. Readings still waiting are discarded.
+     */
+    @Override
+    public void close() {
+        worker.interrupt();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes readings in batches until the ingestor is closed.
+     */
+    private void run() {
+        List<OdometerReading> batch = new ArrayList<>(maxBatch);
+        Map<VehicleID, OdometerReading> latest = new HashMap<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());// Wait for the first reading, then take whatever else is waiting.
+                queue.drainTo(batch, maxBatch - 1);
+
+                // Keep the latest reading of each vehicle, the earlier ones add nothing.
+                // Readings are compared by time rather than distance, so a late reading from a previous hire never wins.
+                for (OdometerReading r : batch) {
+                    latest.merge(r.getVehicleID(), r, TelemetryIngestor::later);
+                }
+
+                try {
+                    manager.reportMileage(latest.values());
+                } catch (RuntimeException e) {
+                    System.out.println("Telemetry batch failed: " + e.getMessage());
+                }
+
+                processed.addAndGet(batch.size());
+                batch.clear();
+                latest.clear();
+            }
+        } catch (InterruptedException e) {
+            // Closed.
+        }
+    }
+
+    /**
+     * Picks the later of two readings of the same vehicle, or the one with the larger trip distance if they were taken together.
+     */
+    private static OdometerReading later(OdometerReading a, OdometerReading b) {
+        if (a.getTimestamp() != b.getTimestamp()) {return b.getTimestamp() > a.getTimestamp() ? b : a;}
+        return b.getTripDistance() > a.getTripDistance() ? b : a;
+    }
+}
@@ -0,0 +1,192 @@
+package manager;
+
+import java.util.*;
+
+/**
+ * Class of a hierarchical timing wheel, holding timeouts that expire at a deadline, e.g. the due time of every open hire.
+ * Time is counted in ticks of a fixed length. The wheel has four levels of 64 slots: a slot of level 0 holds the
+ * timeouts of one tick, a slot of level 1 those of 64 ticks, and so on, so 64 to the power 4 ticks are covered
+ * (about 31 years with ticks of one minute). Each timeout sits in the lowest level whose slot holds its tick alone
+ * among the ticks still to come, and is moved down a level when the wheel reaches that slot.
+ * 1. Scheduling and cancelling a timeout take constant time, a slot is a doubly linked list.
+ * 2. Advancing the wheel costs one step per tick passed plus the timeouts moved or expired, and never looks at the
+ *    timeouts that are not due yet, so a check costs the same with ten or with hundreds of thousands of timeouts.
+ * The wheel is not thread safe, its owner guards it, e.g. the VehicleManager lock.
+ * @param <T> the type of the payload of a timeout.
+ * @author Fandi Zhou
+ */
+public final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Timeout<T>[][] wheel;//Head of the list of each slot of each level.
+    private long currentTick;//Every tick up to this one has been expired.
+    private int size;
+
+    /**
+     * Constructs a TimingWheel.
+     * @param tickMillis the length of a tick, the precision of the deadlines.
+     * @param startMillis the current time.
+     * @throws IllegalArgumentException if the tick is not positive.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis < 1) {throw new IllegalArgumentException("Tick must be positive");}
+        this.tickMillis = tickMillis;
+        this.wheel = (Timeout<T>[][]) new Timeout[LEVELS][SLOTS];
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules a timeout. A deadline that has already passed expires on the next advance.
+     * Deadlines are rounded up to a whole tick, so a timeout never expires early.
+     * @param deadlineMillis the time the timeout expires.
+     * @param payload        the object returned when it expires.
+     * @return the timeout, which can be cancelled.
+     */
+    public Timeout<T> schedule(long deadlineMillis, T payload) {
+        Timeout<T> t = new Timeout<>(deadlineMillis, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), payload);
+        insert(t);
+        size++;
+        return t;
+    }
+
+    /**
+     * Cancels a timeout, e.g. when the vehicle of a hire is returned on time.
+     * @param t the timeout.
+     * @return true if the timeout was waiting, false if it had already expired or been cancelled.
+     */
+    public boolean cancel(Timeout<T> t) {
+        if (t.level < 0) {return false;}
+        unlink(t);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel on to a time and removes every timeout that has expired by then.
+     * @param nowMillis the current time.
+     * @return the payloads of the expired timeouts, earliest tick first.
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        expire(wheel[0][(int) (currentTick & (SLOTS - 1))], expired);// Deadlines that had passed when they were scheduled.
+
+        while (currentTick < target) {
+            if (size == 0) {// Nothing to expire on the way, jump straight there.
+                currentTick = target;
+                break;
+            }
+            currentTick++;
+            // Move down the slots of the higher levels that start at this tick.
+            for (int level = 1; level < LEVELS; level++) {
+                long shift = (long) SLOT_BITS * level;
+                if ((currentTick & ((1L << shift) - 1)) != 0) {break;}
+                int slot = (int) ((currentTick >>> shift) & (SLOTS - 1));
+                Timeout<T> t = wheel[level][slot];
+                wheel[level][slot] = null;
+                while (t != null) {
+                    Timeout<T> next = t.next;
+                    t.prev = t.next = null;
+                    insert(t);
+                    t = next;
+                }
+            }
+            expire(wheel[0][(int) (currentTick & (SLOTS - 1))], expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Get the number of timeouts waiting.
+     * @return the number of timeouts scheduled and not yet expired or cancelled.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Puts a timeout into the lowest level whose slot holds only its tick among the ticks still to come.
+     */
+    private void insert(Timeout<T> t) {
+        long tick = Math.max(t.tick, currentTick);// Past deadlines go into the current slot.
+        long diff = tick ^ currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && (diff >>> (SLOT_BITS * (level + 1))) != 0) {level++;}
+        int slot = (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+
+        t.level = level;
+        t.slot = slot;
+        t.prev = null;
+        t.next = wheel[level][slot];
+        if (t.next != null) {t.next.prev = t;}
+        wheel[level][slot] = t;
+    }
+
+    private void unlink(Timeout<T> t) {
+        if (t.prev != null) {t.prev.next = t.next;} else {wheel[t.level][t.slot] = t.next;}
+        if (t.next != null) {t.next.prev = t.prev;}
+        t.prev = t.next = null;
+        t.level = -1;
+    }
+
+    /**
+     * Removes the timeouts of a level 0 slot that are due, putting back any that lie beyond the range of the wheel.
+     */
+    private void expire(Timeout<T> head, List<T> expired) {
+        Timeout<T> t = head;
+        while (t != null) {
+            Timeout<T> next = t.next;
+            unlink(t);
+            if (t.tick <= currentTick) {
+                size--;
+                expired.add(t.payload);
+            } else {
+                insert(t);// Came round early from the top level.
+            }
+            t = next;
+        }
+    }
+
+    /**
+     * A scheduled timeout.
+     * @param <T> the type of the payload.
+     */
+    public static final class Timeout<T> {
+        private final long deadline;
+        private final long tick;
+        private final T payload;
+        private int level = -1;//Level of the slot holding the timeout, -1 once it has expired or been cancelled.
+        private int slot;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(long deadline, long tick, T payload) {
+            this.deadline = deadline;
+            this.tick = tick;
+            this.payload = payload;
+        }
+
+        /**
+         * Get the time the timeout expires.
+         * @return the deadline in milliseconds.
+         */
+        public long getDeadline() {return deadline;}
+
+        /**
+         * Get the object the timeout was scheduled with.
+         * @return the payload.
+         */
+        public T getPayload() {return payload;}
+
+        /**
+         * Checks if the timeout is still waiting.
+         * @return true if it has neither expired nor been cancelled.
+         */
+        public boolean isPending() {return level >= 0;}
+    }
+}
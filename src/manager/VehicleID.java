@@ -2,6 +2,8 @@ package manager;
 import model.*;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Class represents a unique id for a vehicle in the system.
@@ -11,6 +13,9 @@ import java.util.*;
  * The third character is a randomly generated single-digit number (0-9).
  * The second component rules:
  * A three-digit number, randomly generated to ensure each vehicle ID is distinct. This number must be even for cars and odd for vans.
+ * The random numbers come from a RandomGenerator chosen by the caller, e.g. a seeded SplittableRandom, so a sequence of IDs
+ * can be replayed. Without one the thread's own ThreadLocalRandom is used, which needs no allocation or shared seed.
+ * IDs are unique within a VehicleIDRegistry. Each VehicleManager has its own; the static factory methods use a default one.
  * @author Fandi Zhou
  */
 public class VehicleID {
@@ -19,7 +24,16 @@ public class VehicleID {
     private final int secondComponent;
     private final String strRep;
 
-    private static final Map<String, VehicleID> allIDs = new HashMap<>();//A static registry of all generated IDs.
+    static final int LETTERS = 26, DIGITS = 10, NUMBERS = 500;
+    static final int ID_SPACE = LETTERS * DIGITS * NUMBERS;//Number of possible IDs for each vehicle type.
+
+    /**
+     * Number of distinct packed IDs over both vehicle types. Packed IDs run from 0 to PACKED_SPACE - 1.
+     */
+    public static final int PACKED_SPACE = 2 * ID_SPACE;
+
+    //The registry used by the static factory methods, for vehicles created outside a VehicleManager.
+    private static final VehicleIDRegistry DEFAULT_REGISTRY = new VehicleIDRegistry();
 
     /**
      * Private constructor to enforce the use of the factory method.
@@ -37,57 +51,109 @@ public class VehicleID {
 
 
     /**
-     * Method generates a random ID adhering to the format rules for the Car or Van type.
+     * Method generates a random ID adhering to the format rules for the Car or Van type, using the thread's ThreadLocalRandom.
+     * The ID is registered in the JVM wide default registry. A VehicleManager uses its own VehicleIDRegistry instead.
      * @param type the type of vehicle ("Car" or "Van").
      * @return a unique id.
      * @throws IllegalArgumentException if the provided type is invalid.
      */
     public static VehicleID getInstance(String type) {
-        Random r= new Random();
-
-        // While loop to ensure we keep looping until we get a unique ID.
-        while (true) {
-
-            if(type.equals("Car")) {
-                String firstChar = "C";
-                char secondChar = (char) ('A' + r.nextInt(26));//Randomly generate letter from A-Z.
-                int thirdChar = r.nextInt(10);//Randomly generate letter from 1-9.
-                String temp_firstComponent = firstChar + secondChar + thirdChar;//Connect those 3 char we generated.
-
-                int n = r.nextInt(500);//Randomly generate a number from 1-499.
-                int temp_secondComponent = n * 2;//Multiply the number we create so the number can always be even.
-
-                String temp_ID = temp_firstComponent + "-" + String.format("%03d", temp_secondComponent);//Creat a temp obj to connect first and second component, make sure generate the correct format
-
-                if(!allIDs.containsKey(temp_ID)) {//Check the generated id if is unique, if it is, put the id in the store map.
-                    VehicleID newID = new VehicleID(temp_firstComponent, temp_secondComponent, temp_ID);
-                    allIDs.put(temp_ID, newID);
-
-                    return newID;
-                }
-                //Van id generate case.
-            }else if(type.equals("Van")) {
-                String firstChar = "V";
-                char secondChar = (char) ('A' + r.nextInt(26));
-                int thirdChar = r.nextInt(10);
-                String temp_firstComponent = firstChar + secondChar + thirdChar;
-
-                int n = r.nextInt(500);
-                int temp_secondComponent = n * 2 + 1;// This make sure the number we created can always be odd.
-
-                String temp_ID = temp_firstComponent + "-" + String.format("%03d", temp_secondComponent);//Creat a temp obj to connect first and second component, make sure generate the correct format
-
-                if(!allIDs.containsKey(temp_ID)) {
-                    VehicleID newID = new VehicleID(temp_firstComponent, temp_secondComponent, temp_ID);
-                    allIDs.put(temp_ID, newID);
-
-                    return newID;
-                }
-                //throw an exception if the input param is incorrect.
-            }else {
-                throw new IllegalArgumentException("Invalid vehicle type: " + type);
-            }
-        }
+        return DEFAULT_REGISTRY.allocate(type, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Method generates a random ID adhering to the format rules for the Car or Van type, registered in the default registry.
+     * @param type the type of vehicle ("Car" or "Van").
+     * @param r    the source of random numbers. The same seed gives the same IDs as long as they are not already in use.
+     * @return a unique id.
+     * @throws IllegalArgumentException if the provided type is invalid.
+     */
+    public static VehicleID getInstance(String type, RandomGenerator r) {
+        return DEFAULT_REGISTRY.allocate(type, r);
+    }
+
+    /**
+     * Method reserves a block of unique IDs for the Car or Van type in the default registry, see VehicleIDRegistry.allocate.
+     * @param type  the type of vehicle ("Car" or "Van").
+     * @param count the number of IDs to reserve.
+     * @return a list of count unique ids.
+     * @throws IllegalArgumentException if the provided type is invalid or count is negative.
+     * @throws IllegalStateException if there are not enough unused IDs left for the type.
+     */
+    public static List<VehicleID> getInstances(String type, int count) {
+        return DEFAULT_REGISTRY.allocate(type, count, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Method reserves a block of unique IDs like getInstances(type, count), taking the start and step of the pass from r.
+     * @param type  the type of vehicle ("Car" or "Van").
+     * @param count the number of IDs to reserve.
+     * @param r     the source of random numbers.
+     * @return a list of count unique ids.
+     * @throws IllegalArgumentException if the provided type is invalid or count is negative.
+     * @throws IllegalStateException if there are not enough unused IDs left for the type.
+     */
+    public static List<VehicleID> getInstances(String type, int count, RandomGenerator r) {
+        return DEFAULT_REGISTRY.allocate(type, count, r);
+    }
+
+    /**
+     * Returns an ID to the default registry so it can be issued again.
+     * @param id the ID to release.
+     */
+    public static void release(VehicleID id) {
+        DEFAULT_REGISTRY.release(id);
+    }
+
+    /**
+     * Converts the random parts of an ID into its position in the ID space of its type.
+     * @param letter the second character as 0-25.
+     * @param digit  the third character as 0-9.
+     * @param n      the second component divided by 2, 0-499.
+     * @return the ordinal of the ID, 0 to 129999.
+     */
+    static int ordinal(int letter, int digit, int n) {
+        return (letter * DIGITS + digit) * NUMBERS + n;
+    }
+
+    /**
+     * Creates the ID at a position in the ID space of its type.
+     * The string is built directly from its characters rather than with String.format.
+     */
+    static VehicleID build(char kind, int ordinal) {
+        int n = ordinal % NUMBERS;
+        int digit = (ordinal / NUMBERS) % DIGITS;
+        int letter = ordinal / (NUMBERS * DIGITS);
+        int number = kind == 'C' ? n * 2 : n * 2 + 1;//Even numbers for cars and odd numbers for vans.
+
+        char[] c = {kind, (char) ('A' + letter), (char) ('0' + digit), '-',
+                (char) ('0' + number / 100), (char) ('0' + number / 10 % 10), (char) ('0' + number % 10)};
+        String strRep = new String(c);
+
+        return new VehicleID(strRep.substring(0, 3), number, strRep);
+    }
+
+    /**
+     * Packs this ID into a single int, used to store IDs compactly in primitive arrays.
+     * Car IDs pack to 0-129999 and Van IDs to 130000-259999, so packed IDs can also be used as array indexes.
+     * @return the packed ID.
+     */
+    public int pack() {
+        int letter = firstComponent.charAt(1) - 'A';
+        int digit = firstComponent.charAt(2) - '0';
+        int ordinal = ordinal(letter, digit, secondComponent / 2);
+        return firstComponent.charAt(0) == 'V' ? ID_SPACE + ordinal : ordinal;
+    }
+
+    /**
+     * Rebuilds an ID from its packed form.
+     * @param packed an int returned by pack.
+     * @return an ID equal to the one that was packed.
+     * @throws IllegalArgumentException if the value is not a valid packed ID.
+     */
+    public static VehicleID unpack(int packed) {
+        if (packed < 0 || packed >= PACKED_SPACE) {throw new IllegalArgumentException("Invalid packed vehicle ID: " + packed);}
+        return packed < ID_SPACE ? build('C', packed) : build('V', packed - ID_SPACE);
     }
 
     /**
@@ -0,0 +1,149 @@
+package manager;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+import static manager.VehicleID.ID_SPACE;
+
+/**
+ * Class of a registry of the vehicle IDs issued in one ID domain.
+ * An ID is unique within its registry only, so two registries can issue the same ID to different vehicles.
+ * Each VehicleManager owns one, which keeps managers in the same JVM (e.g. tests or several depots) independent
+ * of each other: a seeded manager always issues the same IDs, whatever other managers have done before.
+ * The issued IDs are held as the ordinals of the IDs already issued for each type.
+ * The VehicleID objects themselves are not kept, they can be rebuilt from their packed form at any time.
+ * All methods are synchronized, so a registry can be shared by several threads.
+ * @author Fandi Zhou
+ */
+public class VehicleIDRegistry {
+
+    private final BitSet usedCarIDs = new BitSet(ID_SPACE);
+    private final BitSet usedVanIDs = new BitSet(ID_SPACE);
+
+    /**
+     * Method generates a random ID adhering to the format rules for the Car or Van type and marks it as used.
+     * @param type the type of vehicle ("Car" or "Van").
+     * @param r    the source of random numbers. The same seed gives the same IDs in a new registry.
+     * @return an id unique in this registry.
+     * @throws IllegalArgumentException if the provided type is invalid.
+     */
+    public synchronized VehicleID allocate(String type, RandomGenerator r) {
+        BitSet used = used(type);
+        char kind = type.charAt(0);
+
+        // While loop to ensure we keep looping until we get a unique ID.
+        while (true) {
+            int secondChar = r.nextInt(VehicleID.LETTERS);//Randomly generate letter from A-Z.
+            int thirdChar = r.nextInt(VehicleID.DIGITS);//Randomly generate digit from 0-9.
+            int n = r.nextInt(VehicleID.NUMBERS);//Randomly generate a number, made even for a Car and odd for a Van when the ID is built.
+
+            int ordinal = VehicleID.ordinal(secondChar, thirdChar, n);
+
+            if (!used.get(ordinal)) {
+                return register(used, kind, ordinal);
+            }
+        }
+    }
+
+    /**
+     * Method reserves a block of unique IDs for the Car or Van type in one pass over the ID space.
+     * The pass starts at a random ID and moves with a random step that is co-prime with the size of the ID space,
+     * so every possible ID is visited at most once and the block is spread out like individually generated IDs.
+     * @param type  the type of vehicle ("Car" or "Van").
+     * @param count the number of IDs to reserve.
+     * @param r     the source of random numbers.
+     * @return a list of count ids unique in this registry.
+     * @throws IllegalArgumentException if the provided type is invalid or count is negative.
+     * @throws IllegalStateException if there are not enough unused IDs left for the type.
+     */
+    public synchronized List<VehicleID> allocate(String type, int count, RandomGenerator r) {
+        BitSet used = used(type);
+        char kind = type.charAt(0);
+        if (count < 0) {throw new IllegalArgumentException("Count must not be negative: " + count);}
+        if (ID_SPACE - used.cardinality() < count) {throw new IllegalStateException("Not enough " + type + " IDs left for " + count + " vehicles");}
+
+        int ordinal = r.nextInt(ID_SPACE);
+        int step = coprimeStep(r);
+
+        List<VehicleID> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            if (!used.get(ordinal)) {
+                ids.add(register(used, kind, ordinal));
+            }
+            ordinal = (int) ((ordinal + (long) step) % ID_SPACE);
+        }
+        return ids;
+    }
+
+    /**
+     * Marks an ID issued elsewhere as used, e.g. one copied from a primary by a replica.
+     * @param id the ID to reserve.
+     * @return true if the ID was free and false if it was already in use.
+     */
+    public synchronized boolean reserve(VehicleID id) {
+        int packed = id.pack();
+        BitSet used = packed < ID_SPACE ? usedCarIDs : usedVanIDs;
+        int ordinal = packed % ID_SPACE;
+        if (used.get(ordinal)) {return false;}
+        used.set(ordinal);
+        return true;
+    }
+
+    /**
+     * Returns an ID to the registry so it can be issued again, e.g. after its vehicle has been retired.
+     * @param id the ID to release.
+     */
+    public synchronized void release(VehicleID id) {
+        int packed = id.pack();
+        if (packed < ID_SPACE) {
+            usedCarIDs.clear(packed);
+        } else {
+            usedVanIDs.clear(packed - ID_SPACE);
+        }
+    }
+
+    /**
+     * Checks if an ID is currently issued in this registry.
+     * @param id the ID to check.
+     * @return true if the ID is in use and false otherwise.
+     */
+    public synchronized boolean isUsed(VehicleID id) {
+        int packed = id.pack();
+        return packed < ID_SPACE ? usedCarIDs.get(packed) : usedVanIDs.get(packed - ID_SPACE);
+    }
+
+    /**
+     * Get the number of IDs currently issued in this registry.
+     * @return the number of Car and Van IDs in use.
+     */
+    public synchronized int size() {
+        return usedCarIDs.cardinality() + usedVanIDs.cardinality();
+    }
+
+    private BitSet used(String type) {
+        if (type.equals("Car")) {return usedCarIDs;}
+        if (type.equals("Van")) {return usedVanIDs;}
+        //throw an exception if the input param is incorrect.
+        throw new IllegalArgumentException("Invalid vehicle type: " + type);
+    }
+
+    /**
+     * Creates the ID at a position in the ID space and marks it as used.
+     */
+    private static VehicleID register(BitSet used, char kind, int ordinal) {
+        used.set(ordinal);
+        return VehicleID.build(kind, ordinal);
+    }
+
+    /**
+     * Picks a random step that shares no factor with the ID space (2, 5 and 13), so stepping visits every ID once.
+     */
+    private static int coprimeStep(RandomGenerator r) {
+        while (true) {
+            int step = 1 + r.nextInt(ID_SPACE - 1);
+            if (step % 2 != 0 && step % 5 != 0 && step % 13 != 0) {
+                return step;
+            }
+        }
+    }
+}
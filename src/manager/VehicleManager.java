@@ -1,9 +1,12 @@
 package manager;
 import model.*;
 
-import java.time.LocalDate;
-import java.time.Period;
+import java.time.Clock;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntUnaryOperator;
+import java.util.random.RandomGenerator;
 
 /**
  * The VehicleManager class acts as the main class for managing the business.
@@ -14,14 +17,32 @@ import java.util.*;
  * 3.Check vehicle availability.
  * 4.Process vehicle hiring with age and license validation.
  * 5.Process vehicle returns, including mileage updates and service checks.
+ * 6.Optionally send returned vehicles to a capacity limited workshop for their service or inspection.
+ * 7.Keep a waitlist of customers waiting for a vehicle type, served as soon as a vehicle of that type becomes free.
+ * 8.Retire vehicles, compacting the fleet and recycling their IDs after a quarantine period.
+ * 9.Take odometer readings during a hire, so a vehicle is flagged for a service as soon as it crosses its interval.
+ * 10.Hire a bundle of vehicles for one customer as a single all or nothing transaction.
+ * 11.Apply the hire rules of its region, compiled by EligibilityRules into a bitmask per customer,
+ *   checking commercial licences against a LicenceCache if the rules have one.
+ * 12.Record the due time of every hire in a timing wheel, so overdue hires are reported without scanning the hires.
+ * Every change is published as an immutable FleetSnapshot, so read only queries never wait for hires and returns.
+ * Snapshots hold copies of the vehicles' state. The Vehicle views returned by other methods read the live fleet,
+ * so they are not point-in-time and their state should only be relied on while no change is being made.
+ * Methods that change the state are synchronized, the read only queries are answered from the latest snapshot without locks.
+ * Vehicle and Customer IDs are scoped to the manager: it issues vehicle IDs from its own VehicleIDRegistry
+ * and its customer storage numbers its own customers, so managers in the same JVM never affect each other's IDs.
  * @author Fandi Zhou
  */
 public class VehicleManager {
 
 
-    ArrayList<Vehicle> allVehicles= new ArrayList<>();//A list holding all vehicles.
+    FleetStore allVehicles= new FleetStore();//A compact store holding all vehicles, Vehicle objects are views of its slots.
 
-    HashSet<CustomerRecord> CustomerRecords= new HashSet<>();//A set of registered customer records.
+    private final ServiceDueIndex serviceDue = new ServiceDueIndex(allVehicles);//Vehicles ordered by distance left to their next service.
+
+    private final FleetIndex fleetIndex = new FleetIndex(allVehicles);//Bitmaps of the vehicles by type, status and mileage.
+
+    final CustomerStorage CustomerRecords;//The storage of registered customer records.
 
     /**
      * A map tracking currently hired vehicles.
@@ -30,6 +51,133 @@ public class VehicleManager {
      */
     Map<Integer, Collection<Vehicle>> hiredVehicles = new HashMap<>();
 
+    private final WorkshopScheduler workshop;//The maintenance workshop, null if services and inspections are done instantly on return.
+
+    private final Clock clock;//The time source used for workshop slots.
+
+    private final RandomGenerator idRandom;//The source of random vehicle IDs, null to use each thread's ThreadLocalRandom.
+
+    private final VehicleIDRegistry vehicleIDs = new VehicleIDRegistry();//The vehicle IDs issued by this manager.
+
+    private final Map<String, Integer> available = new HashMap<>();//Number of vehicles available for hire, per vehicle type.
+
+    private PersistentIntMap<List<Vehicle>> hireView = PersistentIntMap.empty();//Persistent copy of hiredVehicles used by the snapshots.
+
+    private final List<FleetEventListener> listeners = new ArrayList<>();//Observers of every change, e.g. replication.
+
+    private final Map<String, PriorityQueue<Waiter>> waitlist = new HashMap<>();//Customers under the hire limit waiting for a vehicle, oldest first, per vehicle type.
+
+    private final Map<Integer, List<Waiter>> cappedWaiters = new HashMap<>();//Waiters set aside while their customer is at the hire limit, by Customer ID.
+
+    private long waiterSeq;//Join order of the waiters, so a customer set aside keeps their place.
+
+    /**
+     * The default time the ID of a retired vehicle is held back before it can be issued again: 30 days.
+     */
+    public static final long DEFAULT_ID_QUARANTINE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    private long idQuarantineMillis = DEFAULT_ID_QUARANTINE_MILLIS;
+
+    private final Deque<Quarantined> quarantine = new ArrayDeque<>();//IDs of retired vehicles, oldest first.
+
+    private final Map<VehicleID, Trip> trips = new HashMap<>();//The current hire of every hired vehicle, for telemetry and due times.
+
+    /**
+     * The precision of the due times of hires: one minute.
+     */
+    public static final long DUE_TICK_MILLIS = 60L * 1000;
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final TimingWheel<Trip> dueHires;//The due time of every hire that is not overdue yet.
+
+    private int overdueHires;//Hires past their due time whose vehicle has not been returned.
+
+    private volatile Eligibility eligibility = new Eligibility(EligibilityRules.standard(Clock.systemDefaultZone()), EligibilityRules.DEFAULT_REGION);
+
+    private volatile FleetSnapshot snapshot = new FleetSnapshot(0, available, hireView);//The latest published snapshot.
+
+    /**
+     * Constructs a VehicleManager that services and inspects vehicles instantly when they are returned.
+     */
+    public VehicleManager() {
+        this(null, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a VehicleManager that keeps its customers in the given storage.
+     * @param customerStorage the storage of customer records, e.g. a CachingCustomerStorage in front of a FileCustomerStorage.
+     */
+    public VehicleManager(CustomerStorage customerStorage) {
+        this(null, Clock.systemDefaultZone(), customerStorage);
+    }
+
+    /**
+     * Constructs a VehicleManager that sends vehicles due for a service or inspection to a workshop.
+     * Those vehicles stay out of the hire pool until the workshop releases them.
+     * @param workshop the workshop scheduler, or null to service and inspect vehicles instantly.
+     * @param clock    the time source used to book and release workshop slots.
+     */
+    public VehicleManager(WorkshopScheduler workshop, Clock clock) {
+        this(workshop, clock, new CustomerStore());
+    }
+
+    /**
+     * Constructs a VehicleManager with a workshop and a customer storage.
+     * @param workshop        the workshop scheduler, or null to service and inspect vehicles instantly.
+     * @param clock           the time source used to book and release workshop slots.
+     * @param customerStorage the storage of customer records.
+     */
+    public VehicleManager(WorkshopScheduler workshop, Clock clock, CustomerStorage customerStorage) {
+        this(workshop, clock, customerStorage, null);
+    }
+
+    /**
+     * Constructs a VehicleManager that draws its vehicle IDs from the given random source,
+     * e.g. a SplittableRandom with a fixed seed so a simulation or benchmark gives the same IDs every run.
+     * The source is only used while holding the manager lock, so it does not need to be thread safe.
+     * @param workshop        the workshop scheduler, or null to service and inspect vehicles instantly.
+     * @param clock           the time source used to book and release workshop slots.
+     * @param customerStorage the storage of customer records.
+     * @param idRandom        the source of random vehicle IDs, or null to use each thread's ThreadLocalRandom.
+     */
+    public VehicleManager(WorkshopScheduler workshop, Clock clock, CustomerStorage customerStorage, RandomGenerator idRandom) {
+        this.workshop = workshop;
+        this.clock = clock;
+        this.CustomerRecords = customerStorage;
+        this.idRandom = idRandom;
+        this.dueHires = new TimingWheel<>(DUE_TICK_MILLIS, clock.millis());
+        allVehicles.indexIDs();// Views handed out are used from other threads, which must never build the table.
+    }
+
+
+    /**
+     * Sets the hire rules and the region whose rules this manager applies.
+     * The manager starts with EligibilityRules.standard in the default region.
+     * @param rules  the compiled hire rules.
+     * @param region the region of this manager.
+     * @throws IllegalArgumentException if the rules have no rule for the region.
+     */
+    public synchronized void setEligibilityRules(EligibilityRules rules, String region) {
+        if (!rules.hasRegion(region)) {throw new IllegalArgumentException("No hire rules for region: " + region);}
+        eligibility = new Eligibility(rules, region);
+    }
+
+    /**
+     * Get the hire rules this manager applies.
+     * @return the rules.
+     */
+    public EligibilityRules getEligibilityRules() {
+        return eligibility.rules;
+    }
+
+    /**
+     * Get the region whose hire rules this manager applies.
+     * @return the name of the region.
+     */
+    public String getRegion() {
+        return eligibility.region;
+    }
 
     /**
      * This method adds a new vehicle of the specified type vehicleType to the system and
@@ -37,34 +185,177 @@ public class VehicleManager {
      * @param vehicleType the type of vehicle to create (e.g., "Car", "Van").
      * @return the newly created Vehicle object.
      */
-    public Vehicle addVehicle(String vehicleType){
+    public synchronized Vehicle addVehicle(String vehicleType){
+        recycleIDs();
+
+        int kind = FleetStore.kindOf(vehicleType);
+        if (kind < 0) {throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);}
 
-        Vehicle a = AbstractVehicle.getInstance(vehicleType);
+        Vehicle a = allVehicles.view(allVehicles.add(vehicleType, vehicleIDs.allocate(vehicleType, idRandom())));
 
-        allVehicles.add(a);
+        changeAvailable(a.getVehicleType(), 1);
+        publish();
+        for (FleetEventListener l : listeners) {l.vehicleAdded(a);}
+        serveWaitlist(vehicleType);
         return a;
 
     }
 
+    /**
+     * This method adds count new vehicles of the specified type in one go.
+     * The IDs are reserved as a block in a single pass over the ID space, the fleet list grows once
+     * and a single snapshot is published, so provisioning a whole depot is much faster than calling addVehicle in a loop.
+     * @param vehicleType the type of vehicle to create (e.g., "Car", "Van").
+     * @param count       the number of vehicles to create.
+     * @return an unmodifiable list of the newly created vehicles.
+     * @throws IllegalArgumentException if the vehicle type is not recognized or count is negative.
+     * @throws IllegalStateException if there are not enough unused IDs left for the type.
+     */
+    public synchronized List<Vehicle> addVehicles(String vehicleType, int count) {
+        recycleIDs();
+        List<VehicleID> ids = vehicleIDs.allocate(vehicleType, count, idRandom());
+
+        List<Vehicle> added = new ArrayList<>(count);
+        allVehicles.ensureCapacity(allVehicles.size() + count);
+        for (VehicleID id : ids) {
+            added.add(allVehicles.view(allVehicles.add(vehicleType, id)));
+        }
+
+        changeAvailable(vehicleType, count);
+        publish();
+        for (FleetEventListener l : listeners) {
+            for (Vehicle v : added) {l.vehicleAdded(v);}
+        }
+        serveWaitlist(vehicleType);
+        return Collections.unmodifiableList(added);
+    }
+
+    /**
+     * Takes a vehicle out of the fleet for good, e.g. when it is sold or scrapped.
+     * The vehicle in the last slot of the fleet store moves into its place, so scans keep covering only the live fleet.
+     * The ID is held in quarantine and returned to the ID registry once the quarantine period has passed,
+     * so a stale reference to the old vehicle does not pick up a new vehicle straight away.
+     * Views of the retired vehicle throw an IllegalStateException when used.
+     * @param vehicleID the ID of the vehicle to retire.
+     * @throws IllegalArgumentException if there is no vehicle with this ID.
+     * @throws IllegalStateException if the vehicle is on hire or in the workshop.
+     */
+    public synchronized void retireVehicle(VehicleID vehicleID) {
+        recycleIDs();
+
+        int slot = allVehicles.slotOf(vehicleID);
+        if (slot < 0) {throw new IllegalArgumentException("Unknown vehicle: " + vehicleID);}
+        if (allVehicles.isHired(slot)) {throw new IllegalStateException("Vehicle " + vehicleID + " is on hire and cannot be retired");}
+
+        Vehicle v = allVehicles.view(slot);
+        if (isInWorkshop(v)) {throw new IllegalStateException("Vehicle " + vehicleID + " is in the workshop and cannot be retired");}
+
+        allVehicles.remove(slot);
+        changeAvailable(v.getVehicleType(), -1);
+        quarantine.add(new Quarantined(vehicleID, clock.millis() + idQuarantineMillis));
+        publish();
+        for (FleetEventListener l : listeners) {l.vehicleRetired(vehicleID);}
+    }
+
+    /**
+     * Sets how long the IDs of vehicles retired from now on are held back before they can be issued again.
+     * @param millis the quarantine period in milliseconds.
+     * @throws IllegalArgumentException if the period is negative.
+     */
+    public synchronized void setIdQuarantine(long millis) {
+        if (millis < 0) {throw new IllegalArgumentException("Quarantine must not be negative");}
+        idQuarantineMillis = millis;
+    }
+
+    /**
+     * Get the number of vehicles in the fleet, on hire or not.
+     * @return the fleet size.
+     */
+    public synchronized int noOfVehicles() {
+        return allVehicles.size();
+    }
+
+    /**
+     * Get the number of retired vehicle IDs still held in quarantine.
+     * @return the number of IDs waiting to be recycled.
+     */
+    public synchronized int noOfQuarantinedIDs() {
+        recycleIDs();
+        return quarantine.size();
+    }
+
+    /**
+     * Returns the IDs whose quarantine has passed to the ID registry.
+     */
+    private void recycleIDs() {
+        long now = clock.millis();
+        while (!quarantine.isEmpty() && quarantine.peek().until <= now) {
+            vehicleIDs.release(quarantine.poll().id);
+        }
+    }
+
+    /**
+     * Returns the source of random vehicle IDs for the calling thread.
+     */
+    private RandomGenerator idRandom() {
+        return idRandom == null ? ThreadLocalRandom.current() : idRandom;
+    }
+
     /**
      *This method returns the number of vehicles of the specified type (a car or a van) that are Not hired.
+     * Vehicles in the workshop are not counted. The count is read from the latest snapshot without locking.
      * @param vehicleType the type of vehicle to count (e.g., "Car", "Van").
      * @return the number of vehicles available for hire.
      */
     public int noOfAvailableVehicles(String vehicleType) {
-        int count = 0;
-
-        // Iterate through the entire fleet of vehicles.
-        for (Vehicle v : allVehicles) {
-            if (v.getVehicleType().equals(vehicleType) && !v.isHired()) {
-                // Check two conditions:
-                // 1. The vehicle type matches what we are looking for (Car or Van).
-                // 2. The vehicle is NOT currently hired.
-                count++;
-            }
-        }
+        return snapshot.noOfAvailableVehicles(vehicleType);
+    }
+
+    /**
+     * Returns the latest immutable snapshot of the fleet and hire state.
+     * The snapshot can be queried from any thread without locks and never changes, even while hires continue.
+     * @return the latest FleetSnapshot.
+     */
+    public FleetSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Finds every vehicle of a type that is within the given distance of its next service, or already overdue.
+     * @param vehicleType the type of vehicle (e.g., "Car", "Van").
+     * @param miles       the distance to service.
+     * @return the vehicles, closest to service first.
+     * @throws IllegalArgumentException if the vehicle type is not recognized.
+     */
+    public synchronized List<Vehicle> vehiclesDueForService(String vehicleType, int miles) {
+        return serviceDue.withinMiles(vehicleType, miles);
+    }
 
-        return count;
+    /**
+     * Finds the vehicles of any type that are closest to their next service, i.e. the next ones to pull in.
+     * @param n the maximum number of vehicles to return.
+     * @return up to n vehicles, closest to service first.
+     */
+    public synchronized List<Vehicle> nextVehiclesToService(int n) {
+        return serviceDue.nextToService(n);
+    }
+
+    /**
+     * Counts the vehicles matching a query, e.g. "Cars on hire over 9000 miles", without creating the vehicles.
+     * @param query the conditions the vehicles must meet.
+     * @return the number of matching vehicles.
+     */
+    public synchronized int countVehicles(FleetQuery query) {
+        return fleetIndex.count(query);
+    }
+
+    /**
+     * Finds the vehicles matching a query, e.g. "Vans, not hired, no inspection pending, mileage under 4000".
+     * @param query the conditions the vehicles must meet.
+     * @return the matching vehicles, in the order they were added.
+     */
+    public synchronized List<Vehicle> findVehicles(FleetQuery query) {
+        return fleetIndex.find(query);
     }
 
     /**
@@ -77,18 +368,36 @@ public class VehicleManager {
      * @throws IllegalArgumentException if a record for this customer already exists.
      */
 
-    public CustomerRecord addCustomerRecord(String firstName, String lastName, Date dob, Boolean hasCommercialLicense) {
-        Name name = new Name(firstName, lastName);
+    public synchronized CustomerRecord addCustomerRecord(String firstName, String lastName, Date dob, Boolean hasCommercialLicense) {
+        // The store checks if this customer already exists and throws if it does, otherwise it returns the new record.
+        CustomerRecord c = CustomerRecords.add(firstName, lastName, dob, hasCommercialLicense);
+        eligibility.rules.warmLicence(c);// Looked up before the first Van hire asks.
+        for (FleetEventListener l : listeners) {l.customerAdded(c);}
+        return c;
+    }
 
-        CustomerRecord c = new CustomerRecord(name, dob, hasCommercialLicense);
+    /**
+     * Retrieves a registered customer by ID.
+     * @param customerID the customer's ID.
+     * @return the CustomerRecord, or null if no customer has this ID.
+     */
+    public synchronized CustomerRecord getCustomerRecord(int customerID) {
+        return CustomerRecords.get(customerID);
+    }
 
-        // Check if this customer already exists in our set.
-        if (CustomerRecords.contains(c)) {
-            throw new IllegalArgumentException("Duplicate record found");
-        }else {// If unique, add to the set and return the new record.
-            CustomerRecords.add(c);
-            return c;
-        }
+    /**
+     * Get the number of registered customers.
+     * @return the number of customers.
+     */
+    public synchronized int noOfCustomers() {
+        return CustomerRecords.size();
+    }
+
+    /**
+     * Writes any customer records buffered by the customer storage.
+     */
+    public synchronized void flushCustomers() {
+        CustomerRecords.flush();
     }
 
     /**
@@ -106,23 +415,23 @@ public class VehicleManager {
      * @return {@code true} if the vehicle was successfully hired; false if no vehicle is available or the hire limit is reached.
      * @throws IllegalArgumentException if the customer does not meet the age or license requirements.
      */
-    public boolean hireVehicle(CustomerRecord customerRecord, String vehicleType, int duration) {
-
-        //count the age of the current customer
-        LocalDate birth = new java.sql.Date(customerRecord.getBirthDate().getTime()).toLocalDate();
-        // Calculate the exact age in years.
-        int age = Period.between(birth, LocalDate.now()).getYears();
-
+    public synchronized boolean hireVehicle(CustomerRecord customerRecord, String vehicleType, int duration) {
+        return hire(customerRecord, vehicleType, duration) != null;
+    }
 
-        // Driver must be at least 18 to rent a Car.
-        if (vehicleType.equals("Car") && age <18){ throw new IllegalArgumentException("Age must above 18 to rent a Car!");}
+    /**
+     * Hires a vehicle following the rules of hireVehicle, and returns the vehicle that was hired.
+     * Used by the front ends that tell the client which vehicle it got.
+     * @param customerRecord the customer attempting to hire the vehicle.
+     * @param vehicleType    the type of vehicle requested (Car or Van).
+     * @param duration       the duration of the hire in days.
+     * @return the hired vehicle, or null if no vehicle is available or the hire limit is reached.
+     * @throws IllegalArgumentException if the customer does not meet the age or license requirements.
+     */
+    synchronized Vehicle hire(CustomerRecord customerRecord, String vehicleType, int duration) {
 
-        //Specific requirements for Vans.
-        //Driver must be at least 23 and have Commercial licence to rent a Van.
-        if (vehicleType.equals("Van")){
-            if(age < 23){throw new IllegalArgumentException("Age must above 23 to rent a Van!");}
-            if(!customerRecord.isHaveC_licence()){ throw new IllegalArgumentException("Commercial Licence Not Found!");}
-        }
+        Eligibility e = eligibility;
+        e.rules.check(customerRecord, e.region, vehicleType);
 
 
         int id = customerRecord.getCustomerID();//Get the customer id
@@ -132,18 +441,25 @@ public class VehicleManager {
        // A customer can only hire a maximum of 3 vehicles at once.
         if (hired_V != null && hired_V.size() >= 3) {
             System.out.println("Vehicle already hired at maximum number");
-            return  false;
+            return null;
         }
 
         Vehicle v = null;
 
-        for (Vehicle v_ : allVehicles) {
+        int kind = FleetStore.kindOf(vehicleType);
+        int limit = FleetStore.distanceRequirement(kind);
+
+        // Scan the columns of the fleet store, a view is only created for a vehicle that passes the checks.
+        for (int slot = 0; kind >= 0 && slot < allVehicles.size(); slot++) {
             // We need a vehicle that matches the type AND is not currently hired.
-            if (v_.getVehicleType().equals(vehicleType)&& !v_.isHired() && v_.getCurrentMileage() < v_.getDistanceRequirement()) {
-                    if(v_ instanceof Van){
-                        Van van =  (Van)v_;//casting v_ into Van obj so it can use its set method.
-                        if(van.requiresInspection()){ continue;}//If the van is flagged for inspection, it cannot be hired. Skip it.
-                        if(duration >= 10){van.setNeedInspection(true);}// Set the inspection status if the duration is above 10.
+            if (allVehicles.kind(slot) == kind && !allVehicles.isHired(slot) && allVehicles.mileage(slot) < limit) {
+                    if(allVehicles.needsInspection(slot)){ continue;}//If the van is flagged for inspection, it cannot be hired. Skip it.
+
+                    Vehicle v_ = allVehicles.view(slot);
+                    if(isInWorkshop(v_)){ continue;}
+
+                    if(v_ instanceof Van && duration >= 10){
+                        ((Van)v_).setNeedInspection(true);// Set the inspection status if the duration is above 10.
                     }
                     v = v_;// Found a valid vehicle.
                 break;
@@ -153,22 +469,150 @@ public class VehicleManager {
 
         if (v == null) {// If 'v' is still null, it means no suitable vehicle was found in the loop.
             System.out.println("No available vehicle found!");
-            return  false;
+            return null;
         }
 
         if (hired_V == null) {// If this is the customer's first hire, initialize the list in the map.
             hired_V =  new ArrayList<>();
             hiredVehicles.put(id, hired_V);
+            CustomerRecords.setActive(id, true);// Active customers stay in memory.
+            eligibility.rules.warmLicence(customerRecord);
         }
         hired_V.add(v);
 
         v.setHired(true);//Update the status to the hired Vehicle.
+        startTrip(customerRecord, v, duration);
 
-        return true;
+        changeAvailable(vehicleType, -1);
+        hireView = hireView.put(id, freeze(hired_V));
+        publish();
+        for (FleetEventListener l : listeners) {l.vehicleHired(customerRecord, v, duration);}
+
+        return v;
+
+    }
+
+
+
+    /**
+     * Hires several vehicles for one customer as a single transaction, e.g. a Car and two Vans for a corporate booking.
+     * The rules of hireVehicle apply to every vehicle, and the limit of three vehicles applies to the whole bundle
+     * together with the vehicles the customer already has.
+     * The hire runs in two phases:
+     * 1. Plan, without the manager lock: eligibility is checked once per type against the customer's compiled mask,
+     *    and the hire limit and the number of free vehicles are checked against the latest snapshot.
+     *    A bundle that cannot succeed fails here without waiting for the lock.
+     * 2. Commit, holding the manager lock for the whole step like any other hire: the plan is checked again against
+     *    the live state, since a competing hire may have taken a vehicle in between, then the vehicles are found in
+     *    one pass over the fleet. Only if a vehicle was found for every entry are they hired, otherwise none is.
+     *    The plan only saves the lock for bundles that would fail; it is not a lock-free claim.
+     * @param customerRecord the customer attempting to hire the vehicles.
+     * @param vehicleTypes   the type of each vehicle requested, e.g. ["Car", "Van", "Van"].
+     * @param duration       the duration of the hire in days, the same for every vehicle.
+     * @return an unmodifiable list of the hired vehicles in the order of vehicleTypes,
+     *         or an empty list if the bundle could not be hired as a whole and nothing was hired.
+     * @throws IllegalArgumentException if a vehicle type is not recognized, the bundle is empty,
+     *         or the customer does not meet the age or license requirements for one of the types.
+     */
+    public List<Vehicle> hireBundle(CustomerRecord customerRecord, List<String> vehicleTypes, int duration) {
+        if (vehicleTypes.isEmpty()) {throw new IllegalArgumentException("A bundle needs at least one vehicle");}
+
+        // Phase 1: plan against the snapshot.
+        int[] wanted = new int[2];//Number of vehicles wanted per kind.
+        for (String type : vehicleTypes) {
+            int kind = FleetStore.kindOf(type);
+            if (kind < 0) {throw new IllegalArgumentException("Unknown vehicle type: " + type);}
+            wanted[kind]++;
+        }
+        Eligibility e = eligibility;
+        for (int kind = 0; kind < wanted.length; kind++) {
+            if (wanted[kind] > 0) {e.rules.check(customerRecord, e.region, FleetStore.typeOf(kind));}
+        }
+
+        FleetSnapshot plan = snapshot;
+        if (!fits(plan.getVechilesByCustomer(customerRecord).size(), wanted, kind -> plan.noOfAvailableVehicles(FleetStore.typeOf(kind)))) {
+            return List.of();
+        }
 
+        // Phase 2: validate and commit.
+        return commitBundle(customerRecord, vehicleTypes, wanted, duration);
     }
 
+    /**
+     * Checks the bundle against the live state and hires its vehicles, all or nothing, under the manager lock.
+     */
+    private synchronized List<Vehicle> commitBundle(CustomerRecord customerRecord, List<String> vehicleTypes, int[] wanted, int duration) {
+        int id = customerRecord.getCustomerID();
+        Collection<Vehicle> hired_V = hiredVehicles.get(id);
+        if (!fits(hired_V == null ? 0 : hired_V.size(), wanted, kind -> available.getOrDefault(FleetStore.typeOf(kind), 0))) {
+            return List.of();// A competing hire got there first.
+        }
+
+        // Claim one vehicle per entry in a single scan of the columns. Nothing is changed until every claim is found.
+        int[] missing = wanted.clone();
+        List<Vehicle> claimed = new ArrayList<>();
+        for (int slot = 0; slot < allVehicles.size() && claimed.size() < vehicleTypes.size(); slot++) {
+            int kind = allVehicles.kind(slot);
+            if (missing[kind] == 0 || allVehicles.isHired(slot) || allVehicles.needsInspection(slot)) {continue;}
+            if (allVehicles.mileage(slot) >= FleetStore.distanceRequirement(kind)) {continue;}
+
+            Vehicle v = allVehicles.view(slot);
+            if (isInWorkshop(v)) {continue;}
+            claimed.add(v);
+            missing[kind]--;
+        }
+        if (claimed.size() < vehicleTypes.size()) {
+            System.out.println("Not enough vehicles available for the bundle!");
+            return List.of();// Roll back: no claim has been applied.
+        }
 
+        // Commit every claim, in the order the types were asked for.
+        List<Vehicle> hired = new ArrayList<>(claimed.size());
+        for (String type : vehicleTypes) {
+            for (Iterator<Vehicle> it = claimed.iterator(); it.hasNext(); ) {
+                Vehicle v = it.next();
+                if (v.getVehicleType().equals(type)) {
+                    it.remove();
+                    hired.add(v);
+                    break;
+                }
+            }
+        }
+
+        if (hired_V == null) {
+            hired_V = new ArrayList<>();
+            hiredVehicles.put(id, hired_V);
+            CustomerRecords.setActive(id, true);
+            eligibility.rules.warmLicence(customerRecord);
+        }
+        for (Vehicle v : hired) {
+            if (v instanceof Van && duration >= 10) {((Van) v).setNeedInspection(true);}
+            v.setHired(true);
+            startTrip(customerRecord, v, duration);
+            hired_V.add(v);
+            changeAvailable(v.getVehicleType(), -1);
+        }
+        hireView = hireView.put(id, freeze(hired_V));
+        publish();
+        for (Vehicle v : hired) {
+            for (FleetEventListener l : listeners) {l.vehicleHired(customerRecord, v, duration);}
+        }
+        return Collections.unmodifiableList(hired);
+    }
+
+    /**
+     * Checks a bundle keeps the customer within the hire limit and that there are enough free vehicles of each kind.
+     */
+    private static boolean fits(int alreadyHired, int[] wanted, IntUnaryOperator free) {
+        if (alreadyHired + wanted[0] + wanted[1] > 3) {
+            System.out.println("Vehicle already hired at maximum number");
+            return false;
+        }
+        for (int kind = 0; kind < wanted.length; kind++) {
+            if (wanted[kind] > free.applyAsInt(kind)) {return false;}
+        }
+        return true;
+    }
 
     /**
      * Method of the return of a hired vehicle, Updates the vehicle's mileage and status.
@@ -176,12 +620,14 @@ public class VehicleManager {
      * 1. If the vehicle requires a standard service based on total mileage.
      * 2. If the vehicle is a Van, checks if it requires a post-hire inspection.
      * 3. Removes the vehicle from the customer's list of hired vehicles.
+     * If a workshop is configured, the service and inspection are booked into it instead of being done instantly.
+     * Distance already reported by odometer readings during the hire is not added a second time.
 
      * @param vehicleID      the unique ID of the vehicle being returned.
      * @param customerRecord the customer returning the vehicle.
      * @param mileage        the distance traveled during this specific hire period.
      */
-    public void returnVehicle(VehicleID vehicleID , CustomerRecord customerRecord, int mileage) {
+    public synchronized void returnVehicle(VehicleID vehicleID , CustomerRecord customerRecord, int mileage) {
 
         //Get the list of vehicles currently hired by this customer.
         int id = customerRecord.getCustomerID();
@@ -206,52 +652,657 @@ public class VehicleManager {
             return;
         }
 
-        // Update the total mileage of the vehicle.
-        int newMileage = TargetV.getCurrentMileage() + mileage;
+        // Update the total mileage of the vehicle, less what the odometer readings have already added.
+        Trip trip = trips.remove(vehicleID);
+        if (trip != null) {endTrip(trip);}
+        int added = Math.max(0, mileage - (trip == null ? 0 : trip.reported));
+        int newMileage = TargetV.getCurrentMileage() + added;
         TargetV.setCurrentMileage(newMileage);
 
         TargetV.setHired(false);// Mark the vehicle as available.
+        for (FleetEventListener l : listeners) {l.vehicleReturned(customerRecord, TargetV, added);}
 
-        if(TargetV.performServiceIfDue()){// Check if exceeds service interval.
-            System.out.println("The vehicle of " + vehicleID + "has been serviced.");
+        if (workshop != null) {
+            // Vehicles that need work are booked into the workshop and stay out of the hire pool until released.
+            if (workshop.schedule(TargetV, clock.millis())) {
+                System.out.println("The vehicle of " + vehicleID + " has been booked into the workshop.");
+            } else {
+                changeAvailable(TargetV.getVehicleType(), 1);
+            }
+        } else {
+            serviceAndInspect(TargetV);
+            changeAvailable(TargetV.getVehicleType(), 1);
         }
 
-        if(TargetV instanceof Van){
-            Van van =  (Van)TargetV;
+        hired_Vehicle.remove(TargetV);// Remove the vehicle from the customer's current hire list.
+
+
+        //If the customer has no other active vehicle hires remaining after the removal, the entire customer entry is deleted from the data structure.
+        if(hired_Vehicle.isEmpty()){
+            hiredVehicles.remove(id);
+            hireView = hireView.remove(id);
+            CustomerRecords.setActive(id, false);
+        } else {
+            hireView = hireView.put(id, freeze(hired_Vehicle));
+        }
+        publish();
+
+        // Hand the vehicle straight to a waiting customer if it went back into the pool, and give a customer who is
+        // now under the hire limit their place back in the queues they were set aside from.
+        Set<String> types = uncap(id);
+        types.add(TargetV.getVehicleType());
+        for (String type : types) {serveWaitlist(type);}
+    }
+
+
+    /**
+     * Records the trip of a new hire and registers its due time, the end of the last booked day.
+     */
+    private void startTrip(CustomerRecord customerRecord, Vehicle v, int duration) {
+        long now = clock.millis();
+        Trip trip = new Trip(customerRecord, v, now, now + duration * DAY_MILLIS);
+        trip.timeout = dueHires.schedule(trip.due, trip);
+        trips.put(v.getVehicleID(), trip);
+    }
+
+    /**
+     * Takes a finished trip off the due times, or off the overdue count if it was late.
+     */
+    private void endTrip(Trip trip) {
+        if (!dueHires.cancel(trip.timeout)) {overdueHires--;}
+    }
+
+    /**
+     * Reports the hires that have become overdue since the last check.
+     * The due times are kept in a TimingWheel, so a check only visits the minutes passed and the hires that fall due,
+     * never the other open hires. Run it regularly, e.g. every minute from a scheduled executor, so late fees and
+     * the recovery of vehicles start on time. Each overdue hire is reported once, to the listeners with hireOverdue;
+     * nothing is printed, as a burst of overdue hires would otherwise hold the manager lock for the console output.
+     * @return the vehicles whose hire became overdue, earliest due first.
+     */
+    public synchronized List<Vehicle> checkOverdue() {
+        List<Vehicle> overdue = new ArrayList<>();
+        for (Trip trip : dueHires.advance(clock.millis())) {
+            overdueHires++;
+            overdue.add(trip.vehicle);
+            for (FleetEventListener l : listeners) {l.hireOverdue(trip.customer, trip.vehicle, trip.due);}
+        }
+        return overdue;
+    }
+
+    /**
+     * Get the number of hires reported overdue whose vehicle has not been returned yet.
+     * @return the number of overdue hires.
+     */
+    public synchronized int noOfOverdueHires() {
+        return overdueHires;
+    }
+
+    /**
+     * Get the time a hired vehicle is due back.
+     * @param vehicleID the ID of the vehicle.
+     * @return the due time in milliseconds, or -1 if the vehicle is not on hire.
+     */
+    public synchronized long getDueTime(VehicleID vehicleID) {
+        Trip trip = trips.get(vehicleID);
+        return trip == null ? -1 : trip.due;
+    }
+
+    /**
+     * Applies a batch of odometer readings taken during hires, holding the manager lock once for the whole batch.
+     * Each reading moves the mileage of its vehicle on by the distance traveled since the last applied reading of the hire.
+     * Readings are tolerant of late and repeated delivery: a reading that is not ahead of the last applied one,
+     * was taken before the current hire started, or is for a vehicle that is not on hire is skipped.
+     * When a vehicle crosses its service interval the listeners are told at once with serviceDue,
+     * so the customer can be called in before the vehicle overruns its interval by the whole rest of the hire.
+     * @param readings the readings, in any order.
+     * @return the number of readings that moved a vehicle's mileage on.
+     */
+    public synchronized int reportMileage(Collection<OdometerReading> readings) {
+        int applied = 0;
+        for (OdometerReading r : readings) {
+            Trip trip = trips.get(r.getVehicleID());
+            if (trip == null || r.getTimestamp() < trip.start || r.getTripDistance() <= trip.reported) {continue;}// Stale or unknown.
+
+            int distance = r.getTripDistance() - trip.reported;
+            trip.reported = r.getTripDistance();
+            applied++;
+
+            Vehicle v = trip.vehicle;
+            int old = v.getCurrentMileage();
+            v.setCurrentMileage(old + distance);
+            refreshHireView(trip.customer.getCustomerID());
+            for (FleetEventListener l : listeners) {l.mileageReported(v, distance);}
+
+            if (old < v.getDistanceRequirement() && old + distance >= v.getDistanceRequirement()) {
+                System.out.println("The vehicle of " + v.getVehicleID() + " is due for a service.");
+                for (FleetEventListener l : listeners) {l.serviceDue(v);}
+            }
+        }
+        if (applied > 0) {publish();}
+        return applied;
+    }
+
+    /**
+     * Returns a vehicle following the rules of returnVehicle, and tells the caller if it was on hire to the customer.
+     * Used by the front ends that answer the client.
+     * @param vehicleID      the unique ID of the vehicle being returned.
+     * @param customerRecord the customer returning the vehicle.
+     * @param mileage        the distance traveled during this specific hire period.
+     * @return true if the vehicle was returned; false if the customer has not hired it.
+     */
+    synchronized boolean giveBack(VehicleID vehicleID, CustomerRecord customerRecord, int mileage) {
+        Collection<Vehicle> hired_Vehicle = hiredVehicles.get(customerRecord.getCustomerID());
+        if (hired_Vehicle == null) {return false;}
+
+        for (Vehicle v : hired_Vehicle) {
+            if (v.getVehicleID().equals(vehicleID)) {
+                returnVehicle(vehicleID, customerRecord, mileage);
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Carries out the service and inspection of a returned vehicle instantly, used when there is no workshop.
+     * @param v the returned vehicle.
+     */
+    private void serviceAndInspect(Vehicle v) {
+        if(v.performServiceIfDue()){// Check if exceeds service interval.
+            System.out.println("The vehicle of " + v.getVehicleID() + "has been serviced.");
+            for (FleetEventListener l : listeners) {l.vehicleServiced(v);}
+        }
+
+        if(v instanceof Van){
+            Van van =  (Van)v;
 
             // If the van was flagged for inspection due to long hire, run the below.
             if(van.requiresInspection()){
                 van.setNeedInspection(false);// Reset the inspection flag so it can be hired again.
-                System.out.println("The vehicle of " + vehicleID + "inspection done!");
+                System.out.println("The vehicle of " + v.getVehicleID() + "inspection done!");
+                for (FleetEventListener l : listeners) {l.vehicleInspected(v);}
             }
         }
+    }
 
-        hired_Vehicle.remove(TargetV);// Remove the vehicle from the customer's current hire list.
+    /**
+     * Checks if a vehicle is currently in the workshop and therefore cannot be hired.
+     * @param v the vehicle to check.
+     * @return true if the vehicle is in the workshop; false otherwise or if there is no workshop.
+     */
+    private boolean isInWorkshop(Vehicle v) {
+        return workshop != null && workshop.isInWorkshop(v);
+    }
+
+    /**
+     * Hires a vehicle like hireVehicle, but if none is available the customer joins the waitlist for the vehicle type
+     * instead of having to try again. When a vehicle of the type is returned, released from the workshop or added,
+     * it is hired straight away to the oldest waiting customer who is still under the hire limit, and that customer's future completes.
+     * The future is completed while the manager lock is held, so actions attached to it should not block.
+     * Cancelling the future takes the customer off the waitlist.
+     * @param customerRecord the customer attempting to hire the vehicle.
+     * @param vehicleType    the type of vehicle requested (Car or Van).
+     * @param duration       the duration of the hire in days.
+     * @return a future of the hired vehicle. It is already complete if a vehicle was free, and completes with null
+     *         at once if the customer has reached the hire limit.
+     * @throws IllegalArgumentException if the vehicle type is not recognized or the customer does not meet the age or license requirements.
+     */
+    public synchronized CompletableFuture<Vehicle> hireOrWait(CustomerRecord customerRecord, String vehicleType, int duration) {
+        if (FleetStore.kindOf(vehicleType) < 0) {throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);}
 
+        if (atHireLimit(customerRecord.getCustomerID())) {
+            return CompletableFuture.completedFuture(null);
+        }
 
-        //If the customer has no other active vehicle hires remaining after the removal, the entire customer entry is deleted from the data structure.
-        if(hired_Vehicle.isEmpty()){
-            hiredVehicles.remove(id);
+        Vehicle v = hire(customerRecord, vehicleType, duration);// Checks the age and licence rules, so only eligible customers wait.
+        if (v != null) {
+            return CompletableFuture.completedFuture(v);
         }
+
+        CompletableFuture<Vehicle> future = new CompletableFuture<>();
+        waitlist.computeIfAbsent(vehicleType, k -> new PriorityQueue<>()).add(new Waiter(customerRecord, vehicleType, duration, future, waiterSeq++));
+        return future;
+    }
+
+    /**
+     * Get the number of customers waiting for a vehicle type.
+     * @param vehicleType the type of vehicle (Car or Van).
+     * @return the number of waiting customers, not counting cancelled waits.
+     */
+    public synchronized int noOfWaitingCustomers(String vehicleType) {
+        int n = 0;
+        Queue<Waiter> q = waitlist.get(vehicleType);
+        if (q != null) {
+            for (Waiter w : q) {
+                if (!w.future.isDone()) {n++;}
+            }
+        }
+        for (List<Waiter> set : cappedWaiters.values()) {
+            for (Waiter w : set) {
+                if (w.type.equals(vehicleType) && !w.future.isDone()) {n++;}
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Hires free vehicles of a type to the waiting customers, oldest first.
+     * A customer who has reached the hire limit since they joined is set aside until they return a vehicle, so each
+     * freed vehicle only looks at the head of the queue and never scans past customers who cannot take it.
+     * @param vehicleType the type of vehicle that may have become free.
+     */
+    private void serveWaitlist(String vehicleType) {
+        PriorityQueue<Waiter> q = waitlist.get(vehicleType);
+        if (q == null) {return;}
+
+        while (!q.isEmpty() && available.getOrDefault(vehicleType, 0) > 0) {
+            Waiter w = q.peek();
+            if (w.future.isDone()) {// Cancelled by the customer.
+                q.poll();
+                continue;
+            }
+            int id = w.customer.getCustomerID();
+            if (atHireLimit(id)) {
+                q.poll();
+                cappedWaiters.computeIfAbsent(id, k -> new ArrayList<>()).add(w);
+                continue;
+            }
+
+            Vehicle v;
+            try {
+                v = hire(w.customer, vehicleType, w.duration);
+            } catch (IllegalArgumentException e) {
+                q.poll();
+                w.future.completeExceptionally(e);
+                continue;
+            }
+            if (v == null) {break;}// The free vehicles are not fit for hire yet.
+
+            q.poll();
+            w.future.complete(v);
+        }
+    }
+
+    /**
+     * Puts the waiters set aside for a customer back into their queues, in their old places.
+     * @return the vehicle types the customer is waiting for again.
+     */
+    private Set<String> uncap(int customerID) {
+        Set<String> types = new LinkedHashSet<>();
+        if (atHireLimit(customerID)) {return types;}
+        List<Waiter> set = cappedWaiters.remove(customerID);
+        if (set == null) {return types;}
+        for (Waiter w : set) {
+            if (w.future.isDone()) {continue;}
+            waitlist.get(w.type).add(w);
+            types.add(w.type);
+        }
+        return types;
     }
 
+    private boolean atHireLimit(int customerID) {
+        Collection<Vehicle> hired_V = hiredVehicles.get(customerID);
+        return hired_V != null && hired_V.size() >= 3;
+    }
 
     /**
-     * Retrieves an unmodifiable collection of vehicles currently hired by a specific customer.
+     * Releases every vehicle whose workshop slot has finished back into the hire pool.
+     * @return the vehicles released. Returns an empty list if there is no workshop or nothing is ready.
+     */
+    public synchronized List<Vehicle> releaseFromWorkshop() {
+        if (workshop == null) {
+            return Collections.emptyList();
+        }
+
+        List<Vehicle> released = new ArrayList<>();
+        for (WorkshopScheduler.Job job : workshop.releaseJobs(clock.millis())) {
+            Vehicle v = job.getVehicle();
+            changeAvailable(v.getVehicleType(), 1);
+            released.add(v);
+
+            for (FleetEventListener l : listeners) {
+                if (job.isService()) {l.vehicleServiced(v);}
+                if (job.isInspection()) {l.vehicleInspected(v);}
+            }
+        }
+        if (!released.isEmpty()) {
+            publish();
+        }
+        for (Vehicle v : released) {
+            serveWaitlist(v.getVehicleType());
+        }
+        return released;
+    }
+
+    /**
+     * Registers a listener that is told about every change made from now on.
+     * @param listener the listener to add.
+     */
+    public synchronized void addListener(FleetEventListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     * @param listener the listener to remove.
+     */
+    public synchronized void removeListener(FleetEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Applies a vehicle added on a primary manager to this replica, keeping its ID.
+     * @param id the ID of the new vehicle.
+     */
+    synchronized void applyVehicleAdded(VehicleID id) {
+        String type = id.getFirstComponent().charAt(0) == 'V' ? "Van" : "Car";
+        vehicleIDs.reserve(id);
+        allVehicles.add(type, id);
+        changeAvailable(type, 1);
+        publish();
+    }
+
+    /**
+     * Applies a vehicle retired on a primary manager to this replica.
+     * @param id the ID of the retired vehicle.
+     */
+    synchronized void applyRetire(VehicleID id) {
+        int slot = replicaSlot(id);
+        String type = FleetStore.typeOf(allVehicles.kind(slot));
+        allVehicles.remove(slot);
+        vehicleIDs.release(id);
+        changeAvailable(type, -1);
+        publish();
+    }
+
+    /**
+     * Applies a customer registered on a primary manager to this replica, keeping its Customer ID.
+     * @param c the new customer.
+     */
+    synchronized void applyCustomerAdded(CustomerRecord c) {
+        CustomerRecords.store(List.of(c));
+    }
+
+    /**
+     * Applies a hire made on a primary manager to this replica. The eligibility checks were already made by the primary.
+     * The hire's trip and due time are recorded as on the primary, counted from when the replica applies it,
+     * so a replica promoted to primary reports overdue hires too.
+     * @param customerID the ID of the hiring customer.
+     * @param id         the ID of the hired vehicle.
+     * @param duration   the duration of the hire in days.
+     */
+    synchronized void applyHire(int customerID, VehicleID id, int duration) {
+        Vehicle v = allVehicles.view(replicaSlot(id));
+        v.setHired(true);
+        if (v instanceof Van && duration >= 10) {((Van) v).setNeedInspection(true);}
+
+        Collection<Vehicle> hired_V = hiredVehicles.computeIfAbsent(customerID, k -> new ArrayList<>());
+        hired_V.add(v);
+        startTrip(CustomerRecords.get(customerID), v, duration);
+
+        changeAvailable(v.getVehicleType(), -1);
+        hireView = hireView.put(customerID, freeze(hired_V));
+        publish();
+    }
+
+    /**
+     * Applies a return made on a primary manager to this replica. Services and inspections arrive as separate changes,
+     * so the vehicle is only counted as available once it needs no more work.
+     * @param customerID the ID of the returning customer.
+     * @param id         the ID of the returned vehicle.
+     * @param mileage    the distance traveled during the hire.
+     */
+    synchronized void applyReturn(int customerID, VehicleID id, int mileage) {
+        Vehicle v = allVehicles.view(replicaSlot(id));
+        Trip trip = trips.remove(id);
+        if (trip != null) {endTrip(trip);}
+        v.setCurrentMileage(v.getCurrentMileage() + mileage);
+        v.setHired(false);
+        if (!needsWork(v)) {changeAvailable(v.getVehicleType(), 1);}
+
+        Collection<Vehicle> hired_V = hiredVehicles.get(customerID);
+        if (hired_V != null) {
+            hired_V.remove(v);
+            if (hired_V.isEmpty()) {
+                hiredVehicles.remove(customerID);
+                hireView = hireView.remove(customerID);
+            } else {
+                hireView = hireView.put(customerID, freeze(hired_V));
+            }
+        }
+        publish();
+    }
+
+    /**
+     * Applies distance reported by odometer readings on a primary manager to this replica.
+     * @param id       the ID of the vehicle.
+     * @param distance the distance added to the vehicle's mileage.
+     */
+    synchronized void applyMileage(VehicleID id, int distance) {
+        Vehicle v = allVehicles.view(replicaSlot(id));
+        v.setCurrentMileage(v.getCurrentMileage() + distance);
+        Trip trip = trips.get(id);
+        if (trip != null && trip.customer != null) {
+            refreshHireView(trip.customer.getCustomerID());
+            publish();
+        }
+    }
+
+    /**
+     * Applies a service or inspection made on a primary manager to this replica.
+     * @param id         the ID of the vehicle.
+     * @param inspection true for an inspection, false for a service.
+     */
+    synchronized void applyMaintenance(VehicleID id, boolean inspection) {
+        Vehicle v = allVehicles.view(replicaSlot(id));
+        boolean before = needsWork(v);
+
+        if (inspection) {
+            ((Van) v).setNeedInspection(false);
+        } else {
+            v.setCurrentMileage(0);
+        }
+
+        if (before && !needsWork(v) && !v.isHired()) {
+            changeAvailable(v.getVehicleType(), 1);
+            publish();
+        }
+    }
+
+    /**
+     * Applies the mileage and inspection of a vehicle copied by a snapshot of a primary manager to this replica.
+     * @param id         the ID of the vehicle.
+     * @param mileage    the vehicle's mileage.
+     * @param inspection true if the vehicle needs an inspection.
+     */
+    synchronized void applyVehicleState(VehicleID id, int mileage, boolean inspection) {
+        Vehicle v = allVehicles.view(replicaSlot(id));
+        boolean before = needsWork(v);
+        v.setCurrentMileage(mileage);
+        if (v instanceof Van) {((Van) v).setNeedInspection(inspection);}
+
+        if (!v.isHired() && before != needsWork(v)) {changeAvailable(v.getVehicleType(), before ? 1 : -1);}
+        Trip trip = trips.get(id);
+        if (trip != null && trip.customer != null) {refreshHireView(trip.customer.getCustomerID());}
+        publish();
+    }
+
+    /**
+     * Copies every vehicle, every customer and every open hire, while no change can be made.
+     * Used by ReplicationPrimary to bring a follower that connected late or fell behind up to date with a snapshot.
+     * @param state the receiver of the state.
+     */
+    synchronized void exportState(StateVisitor state) {
+        for (int s = 0; s < allVehicles.size(); s++) {
+            state.vehicle(allVehicles.vehicleID(s), allVehicles.mileage(s), allVehicles.needsInspection(s));
+        }
+        CustomerRecords.forEach(state::customer);
+        for (Trip trip : trips.values()) {
+            if (trip.customer == null) {continue;}
+            state.hire(trip.customer.getCustomerID(), trip.vehicle.getVehicleID(), (int) ((trip.due - trip.start) / DAY_MILLIS));
+        }
+    }
+
+    private int replicaSlot(VehicleID id) {
+        int slot = allVehicles.slotOf(id);
+        if (slot < 0) {throw new IllegalStateException("Unknown vehicle in replicated change: " + id);}
+        return slot;
+    }
+
+    /**
+     * Checks if a vehicle still needs a service or an inspection before it can be hired again.
+     */
+    private static boolean needsWork(Vehicle v) {
+        return v.getCurrentMileage() >= v.getDistanceRequirement() || v.requiresInspection();
+    }
+
+    /**
+     * Adjusts the number of available vehicles of a type.
+     * @param vehicleType the type of vehicle.
+     * @param delta       the change in the number of available vehicles.
+     */
+    private void changeAvailable(String vehicleType, int delta) {
+        available.merge(vehicleType, delta, Integer::sum);
+    }
+
+    /**
+     * Publishes the current state as a new snapshot. Must be called while holding the lock after every change.
+     */
+    private void publish() {
+        snapshot = new FleetSnapshot(snapshot.getVersion() + 1, available, hireView);
+    }
+
+    /**
+     * Copies the state of a customer's hired vehicles for the snapshots, so readers never see the live store.
+     */
+    private static List<Vehicle> freeze(Collection<Vehicle> hired) {
+        List<Vehicle> copy = new ArrayList<>(hired.size());
+        for (Vehicle v : hired) {copy.add(new VehicleValue(v));}
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Copies the state of the hires of a customer into the snapshots again, e.g. after the mileage of one of them changed.
+     */
+    private void refreshHireView(int customerID) {
+        Collection<Vehicle> hired = hiredVehicles.get(customerID);
+        if (hired != null) {hireView = hireView.put(customerID, freeze(hired));}
+    }
+
+    /**
+     * Retrieves an immutable collection of vehicles currently hired by a specific customer.
+     * The collection comes from the latest snapshot, so it does not change if the customer hires or returns
+     * vehicles while the caller is iterating over it.
      *
      * @param customerRecord the customer whose hired vehicles are to be retrieved.
      * @return a Collection of Vehicle objects. Returns an empty list if the customer has no active hires.
      */
     public Collection<Vehicle> getVechilesByCustomer (CustomerRecord customerRecord){
 
-        Collection<Vehicle> hired_Vehicle_record = hiredVehicles.get(customerRecord.getCustomerID());
+        Collection<Vehicle> hired_Vehicle_record = snapshot.getVechilesByCustomer(customerRecord);
 
-        if (hired_Vehicle_record == null) {
+        if (hired_Vehicle_record.isEmpty()) {
             System.out.println("No available vehicle found!");
-            return Collections.emptyList();//Return an empty list instead of null if no records found.
         }
 
-        //Return an unmodifiable collection so the caller cannot modify it.
-        return Collections.unmodifiableCollection(hired_Vehicle_record);
+        return hired_Vehicle_record;//The snapshot list is immutable so the caller cannot modify it.
+    }
+
+    /**
+     * The ID of a retired vehicle and the time it may be issued again.
+     */
+    private static final class Quarantined {
+        private final VehicleID id;
+        private final long until;
+
+        private Quarantined(VehicleID id, long until) {
+            this.id = id;
+            this.until = until;
+        }
+    }
+
+    /**
+     * Receiver of the state copied by exportState.
+     */
+    interface StateVisitor {
+        /**
+         * Receives a vehicle.
+         * @param id         the vehicle's ID.
+         * @param mileage    the vehicle's mileage.
+         * @param inspection true if the vehicle needs an inspection.
+         */
+        void vehicle(VehicleID id, int mileage, boolean inspection);
+
+        /**
+         * Receives a customer, in ascending ID order.
+         * @param c the customer's record.
+         */
+        void customer(CustomerRecord c);
+
+        /**
+         * Receives an open hire.
+         * @param customerID the ID of the hiring customer.
+         * @param id         the ID of the hired vehicle.
+         * @param duration   the booked duration of the hire in days.
+         */
+        void hire(int customerID, VehicleID id, int duration);
+    }
+
+    /**
+     * The current hire of a vehicle, its due time and the trip distance its odometer readings have reported so far.
+     */
+    private static final class Trip {
+        private final CustomerRecord customer;
+        private final Vehicle vehicle;
+        private final long start;
+        private final long due;
+        private TimingWheel.Timeout<Trip> timeout;
+        private int reported;
+
+        private Trip(CustomerRecord customer, Vehicle vehicle, long start, long due) {
+            this.customer = customer;
+            this.vehicle = vehicle;
+            this.start = start;
+            this.due = due;
+        }
+    }
+
+    /**
+     * The hire rules and the region they are applied for, swapped together so a hire never sees one without the other.
+     */
+    private static final class Eligibility {
+        private final EligibilityRules rules;
+        private final String region;
+
+        private Eligibility(EligibilityRules rules, String region) {
+            this.rules = rules;
+            this.region = region;
+        }
+    }
+
+    /**
+     * A customer on the waitlist.
+     */
+    private static final class Waiter implements Comparable<Waiter> {
+        private final CustomerRecord customer;
+        private final String type;
+        private final int duration;
+        private final CompletableFuture<Vehicle> future;
+        private final long seq;//Join order.
+
+        private Waiter(CustomerRecord customer, String type, int duration, CompletableFuture<Vehicle> future, long seq) {
+            this.customer = customer;
+            this.type = type;
+            this.duration = duration;
+            this.future = future;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(Waiter o) {
+            return Long.compare(seq, o.seq);
+        }
     }
 }
@@ -0,0 +1,99 @@
+package manager;
+import model.*;
+
+/**
+ * Class of an immutable copy of the state of a vehicle, taken by the VehicleManager for a FleetSnapshot.
+ * Unlike a Car or Van view, which reads the live columns of the FleetStore, a copy never changes,
+ * so a snapshot can be read from any thread without locks and always shows the state it was taken with.
+ * Copies are equal if they are copies of the same vehicle in the same state.
+ * @author Fandi Zhou
+ */
+final class VehicleValue implements Vehicle {
+
+    private final VehicleID vehicleID;
+    private final String vehicleType;
+    private final int distanceRequirement;
+    private final int mileage;
+    private final boolean hired;
+    private final boolean inspection;
+
+    /**
+     * Copies the current state of a vehicle. Only called while the manager lock is held.
+     * @param v the view of the vehicle.
+     */
+    VehicleValue(Vehicle v) {
+        this.vehicleID = v.getVehicleID();
+        this.vehicleType = v.getVehicleType();
+        this.distanceRequirement = v.getDistanceRequirement();
+        this.mileage = v.getCurrentMileage();
+        this.hired = v.isHired();
+        this.inspection = v.requiresInspection();
+    }
+
+    @Override
+    public VehicleID getVehicleID() {return vehicleID;}
+
+    @Override
+    public String getVehicleType() {return vehicleType;}
+
+    @Override
+    public boolean isHired() {return hired;}
+
+    @Override
+    public int getDistanceRequirement() {return distanceRequirement;}
+
+    @Override
+    public int getCurrentMileage() {return mileage;}
+
+    @Override
+    public boolean requiresInspection() {return inspection;}
+
+    /**
+     * A copy cannot be changed, change the vehicle through the VehicleManager.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void setHired(boolean h) {
+        throw new UnsupportedOperationException("A snapshot of a vehicle cannot be changed");
+    }
+
+    /**
+     * A copy cannot be changed, change the vehicle through the VehicleManager.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void setCurrentMileage(int mileage) {
+        throw new UnsupportedOperationException("A snapshot of a vehicle cannot be changed");
+    }
+
+    /**
+     * A copy cannot be changed, change the vehicle through the VehicleManager.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public boolean performServiceIfDue() {
+        throw new UnsupportedOperationException("A snapshot of a vehicle cannot be changed");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {return true;}
+        if (!(obj instanceof VehicleValue)) {return false;}
+        VehicleValue v = (VehicleValue) obj;
+        return vehicleID.equals(v.vehicleID) && mileage == v.mileage && hired == v.hired && inspection == v.inspection;
+    }
+
+    @Override
+    public int hashCode() {
+        return vehicleID.hashCode();
+    }
+
+    /**
+     * Returns the string representation of the vehicle.
+     * @return the vehicle type and ID (e.g., "Car CA1-102").
+     */
+    @Override
+    public String toString() {
+        return vehicleType + " " + vehicleID;
+    }
+}
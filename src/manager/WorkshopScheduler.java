@@ -0,0 +1,216 @@
+package manager;
+import model.*;
+
+import java.util.*;
+
+/**
+ * Class represents the maintenance workshop of the business.
+ * The workshop has a fixed number of bays. Vehicles that are due for a service or (for Vans) an inspection
+ * are queued here when they are returned, are given a time slot on the bay that becomes free first,
+ * and stay out of the hire pool until their slot has finished.
+ * Rules:
+ * 1. A vehicle is only accepted if it needs a service, an inspection or both.
+ * 2. The slot length is the service time plus the inspection time for the work that is needed.
+ * 3. Vehicles are released in batches by calling release with the current time.
+ * Both the bay free times and the booked jobs are held in priority queues (binary heaps),
+ * so scheduling and releasing a vehicle take logarithmic time in the number of queued vehicles.
+ * @author Fandi Zhou
+ */
+public class WorkshopScheduler {
+
+    private final int bays;
+    private final long serviceMillis;
+    private final long inspectionMillis;
+
+    private final PriorityQueue<Long> bayFreeAt = new PriorityQueue<>();//The time each bay next becomes free, earliest first.
+
+    private final PriorityQueue<Job> jobs = new PriorityQueue<>();//All booked jobs, earliest finish first.
+
+    private final Map<Vehicle, Job> inWorkshop = new HashMap<>();//Vehicles currently in the workshop.
+
+    /**
+     * Constructs a new WorkshopScheduler.
+     * @param bays             the number of bays that can work on a vehicle at the same time.
+     * @param serviceMillis    how long a standard service takes, in milliseconds.
+     * @param inspectionMillis how long a Van inspection takes, in milliseconds.
+     * @throws IllegalArgumentException if there is not at least one bay or a duration is negative.
+     */
+    public WorkshopScheduler(int bays, long serviceMillis, long inspectionMillis) {
+        if (bays < 1) {throw new IllegalArgumentException("Workshop needs at least one bay");}
+        if (serviceMillis < 0 || inspectionMillis < 0) {throw new IllegalArgumentException("Workshop durations must not be negative");}
+
+        this.bays = bays;
+        this.serviceMillis = serviceMillis;
+        this.inspectionMillis = inspectionMillis;
+
+        for (int i = 0; i < bays; i++) {
+            bayFreeAt.add(0L);//Every bay is free from the start.
+        }
+    }
+
+    /**
+     * Books a vehicle into the first bay that becomes free.
+     * @param v   the vehicle being returned.
+     * @param now the current time in milliseconds.
+     * @return true if the vehicle needed work and was booked; false if it needs neither a service nor an inspection.
+     * @throws IllegalStateException if the vehicle is already in the workshop.
+     */
+    public boolean schedule(Vehicle v, long now) {
+        if (inWorkshop.containsKey(v)) {throw new IllegalStateException("Vehicle " + v.getVehicleID() + " is already in the workshop");}
+
+        boolean service = v.getCurrentMileage() >= v.getDistanceRequirement();
+        boolean inspection = v.requiresInspection();
+
+        if (!service && !inspection) {
+            return false;// Nothing to do, the vehicle can go straight back into the hire pool.
+        }
+
+        long length = (service ? serviceMillis : 0) + (inspection ? inspectionMillis : 0);
+
+        long start = Math.max(now, bayFreeAt.poll());//Take the bay that frees up first.
+        long finish = start + length;
+        bayFreeAt.add(finish);
+
+        Job job = new Job(v, start, finish, service, inspection);
+        jobs.add(job);
+        inWorkshop.put(v, job);
+        return true;
+    }
+
+    /**
+     * Releases every vehicle whose slot has finished by the given time.
+     * The service and inspection are carried out on release, so the vehicle goes back into the hire pool in a usable state.
+     * @param now the current time in milliseconds.
+     * @return the released vehicles in the order they finished. Returns an empty list if nothing is ready.
+     */
+    public List<Vehicle> release(long now) {
+        List<Vehicle> released = new ArrayList<>();
+        for (Job job : releaseJobs(now)) {
+            released.add(job.vehicle);
+        }
+        return released;
+    }
+
+    /**
+     * Releases every vehicle whose slot has finished by the given time, like release,
+     * but returns the finished jobs so the caller can tell which work was done on each vehicle.
+     * @param now the current time in milliseconds.
+     * @return the finished jobs in the order they finished. Returns an empty list if nothing is ready.
+     */
+    public List<Job> releaseJobs(long now) {
+        List<Job> released = new ArrayList<>();
+
+        while (!jobs.isEmpty() && jobs.peek().finish <= now) {
+            Job job = jobs.poll();
+
+            if (job.service) {
+                job.vehicle.performServiceIfDue();
+            }
+            if (job.inspection && job.vehicle instanceof Van) {
+                ((Van) job.vehicle).setNeedInspection(false);
+            }
+
+            inWorkshop.remove(job.vehicle);
+            released.add(job);
+        }
+        return released;
+    }
+
+    /**
+     * Checks if a vehicle is currently in the workshop.
+     * @param v the vehicle to check.
+     * @return true if the vehicle is queued or being worked on.
+     */
+    public boolean isInWorkshop(Vehicle v) {
+        return inWorkshop.containsKey(v);
+    }
+
+    /**
+     * Returns the time a vehicle in the workshop will be ready.
+     * @param v the vehicle to check.
+     * @return the finish time in milliseconds, or -1 if the vehicle is not in the workshop.
+     */
+    public long readyAt(Vehicle v) {
+        Job job = inWorkshop.get(v);
+        return job == null ? -1 : job.finish;
+    }
+
+    /**
+     * Returns the time the next vehicle will be ready.
+     * @return the earliest finish time in milliseconds, or -1 if the workshop is empty.
+     */
+    public long nextReleaseTime() {
+        return jobs.isEmpty() ? -1 : jobs.peek().finish;
+    }
+
+    /**
+     * Get the number of vehicles currently in the workshop.
+     * @return the number of booked vehicles.
+     */
+    public int size() {
+        return jobs.size();
+    }
+
+    /**
+     * Get the number of bays in the workshop.
+     * @return the number of bays.
+     */
+    public int getBays() {
+        return bays;
+    }
+
+    /**
+     * A booked slot for one vehicle, ordered by finish time.
+     */
+    public static final class Job implements Comparable<Job> {
+        private final Vehicle vehicle;
+        private final long start;
+        private final long finish;
+        private final boolean service;
+        private final boolean inspection;
+
+        private Job(Vehicle vehicle, long start, long finish, boolean service, boolean inspection) {
+            this.vehicle = vehicle;
+            this.start = start;
+            this.finish = finish;
+            this.service = service;
+            this.inspection = inspection;
+        }
+
+        /**
+         * Get the vehicle the job is for.
+         * @return the vehicle.
+         */
+        public Vehicle getVehicle() {return vehicle;}
+
+        /**
+         * Get the time the slot started.
+         * @return the start time in milliseconds.
+         */
+        public long getStart() {return start;}
+
+        /**
+         * Get the time the slot finishes.
+         * @return the finish time in milliseconds.
+         */
+        public long getFinish() {return finish;}
+
+        /**
+         * Checks if the job includes a service.
+         * @return true if the vehicle is serviced in this slot.
+         */
+        public boolean isService() {return service;}
+
+        /**
+         * Checks if the job includes an inspection.
+         * @return true if the Van is inspected in this slot.
+         */
+        public boolean isInspection() {return inspection;}
+
+        @Override
+        public int compareTo(Job o) {
+            int c = Long.compare(finish, o.finish);
+            return c != 0 ? c : Long.compare(start, o.start);
+        }
+    }
+}
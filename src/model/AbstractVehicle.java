@@ -10,28 +10,47 @@ import manager.VehicleID;
  * Hiring Status: Whether the vehicle is currently on hire.
  * Mileage:Tracking the distance traveled to determine service intervals.
  * Specific behaviors, such as the service distance requirement.
+ * The state itself is held in a FleetStore. A vehicle object is a lightweight view of one vehicle of the store,
+ * so two views of the same vehicle are equal and see the same state.
+ * A view remembers the vehicle's packed ID and the slot it was last found in. If the store has moved the vehicle
+ * to another slot while compacting, the view finds it again by ID on its next use.
  *
  * @author Fandi Zhou
  */
 
 public abstract class AbstractVehicle implements Vehicle {
 
-    private boolean isHired;
-    private final VehicleID id;
-    private int currentMileage;
+    final FleetStore store;//The store holding the state of this vehicle.
+    private final int packedID;//The packed ID of this vehicle, which does not change when the vehicle moves.
+    private int slot;//The slot this vehicle was last found in.
 
 
     /**
-     * Constructs a new AbstractVehicle with the given ID.
-     * Initializes the vehicle as available (not hired) and with zero mileage.
-     * This constructor is package-private as it should only be called by subclasses or the factory method.
+     * Constructs a view of a vehicle held in a FleetStore.
+     * This constructor is package-private as it should only be called by subclasses, the FleetStore or the factory method.
      *
-     * @param id assigned to this vehicle.
+     * @param store the store holding the vehicle.
+     * @param slot  the slot of the vehicle in the store.
      */
-    AbstractVehicle(VehicleID id) {
-        this.isHired = false;
-        this.currentMileage = 0;
-        this.id = id;
+    AbstractVehicle(FleetStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+        this.packedID = store.packedID(slot);
+    }
+
+    /**
+     * Returns the current slot of this vehicle, looking it up again if the store has moved it.
+     * @return the slot of this vehicle.
+     * @throws IllegalStateException if the vehicle has been retired from the store.
+     */
+    final int slot() {
+        int s = slot;
+        if (s < store.size() && store.packedID(s) == packedID) {return s;}
+
+        s = store.slotOf(packedID);
+        if (s < 0) {throw new IllegalStateException("Vehicle " + getVehicleID() + " has been retired");}
+        slot = s;
+        return s;
     }
 
     /**
@@ -46,14 +65,21 @@ public abstract class AbstractVehicle implements Vehicle {
     public static Vehicle getInstance(String type) {
         VehicleID newID = VehicleID.getInstance(type);// Get a new VehicleID specific to the requested type.
 
-        if (type.equals("Car")) {
-            return new Car(newID);
-        } else if (type.equals("Van")) {
-            return new Van(newID);
-        } else {//Handle invalid input types.
-            throw new IllegalArgumentException("Unknown vehicle type: " + type);
-        }
+        return getInstance(type, newID);
+    }
+
+    /**
+     * Static Factory method to create a Car or Van with an ID that has already been reserved.
+     * The vehicle is held in its own single slot FleetStore, initialized as available (not hired) and with zero mileage.
 
+     * @param type  the type of vehicle to create (e.g., "Car" or "Van").
+     * @param newID the ID reserved for the vehicle.
+     * @return a new instance of a  Car or Van subclass.
+     * @throws IllegalArgumentException if the provided vehicle type is not recognized.
+     */
+    public static Vehicle getInstance(String type, VehicleID newID) {
+        FleetStore own = new FleetStore(1);
+        return own.view(own.add(type, newID));//The store rejects invalid input types.
     }
 
     /**
@@ -61,7 +87,16 @@ public abstract class AbstractVehicle implements Vehicle {
      * @return the id object associated with this vehicle.
      */
     public VehicleID getVehicleID() {
-        return id;
+        return VehicleID.unpack(packedID);
+    }
+
+    /**
+     * Returns the slot (ordinal) of the vehicle in its FleetStore.
+     * @return the slot of this vehicle.
+     * @throws IllegalStateException if the vehicle has been retired from the store.
+     */
+    public int getSlot() {
+        return slot();
     }
 
     /**
@@ -69,7 +104,7 @@ public abstract class AbstractVehicle implements Vehicle {
      * @return true or false.
      */
     public boolean isHired() {
-        return isHired;
+        return store.isHired(slot());
     }
 
     /**
@@ -77,7 +112,7 @@ public abstract class AbstractVehicle implements Vehicle {
      * @param h true to mark as hired; false to mark as available.
      */
     public void setHired(boolean h) {
-        this.isHired = h;
+        store.setHired(slot(), h);
     }
 
     /**
@@ -91,7 +126,7 @@ public abstract class AbstractVehicle implements Vehicle {
      * @return the current mileage as an integer.
      */
     public int getCurrentMileage() {
-        return currentMileage;
+        return store.mileage(slot());
     }
 
     /**
@@ -99,7 +134,7 @@ public abstract class AbstractVehicle implements Vehicle {
      * @param mileage the new mileage value to set.
      */
     public void setCurrentMileage(int mileage) {
-        this.currentMileage = mileage;
+        store.setMileage(slot(), mileage);
     }
 
     /**
@@ -107,8 +142,8 @@ public abstract class AbstractVehicle implements Vehicle {
      * @return true if the service was performed and vice versa.
      */
     public boolean performServiceIfDue() {
-        if( this.currentMileage >= getDistanceRequirement()){// Check if the accumulated mileage has reached or exceeded the service limit.
-            this.currentMileage = 0;
+        if( getCurrentMileage() >= getDistanceRequirement()){// Check if the accumulated mileage has reached or exceeded the service limit.
+            setCurrentMileage(0);
             return true;
         }
         return false;// No service needed.
@@ -123,4 +158,35 @@ public abstract class AbstractVehicle implements Vehicle {
         return false;
     }
 
+    /**
+     * Override equals method, two views are equal if they are views of the same vehicle in the same store.
+     * @param obj the reference object with which to compare.
+     * @return true if both objects view the same vehicle and vice versa.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj){return true;}
+        if (!(obj instanceof AbstractVehicle)){return false;}//Also covers null.
+        AbstractVehicle v = (AbstractVehicle) obj;
+        return store == v.store && packedID == v.packedID;
+    }
+
+    /**
+     * Generates a hash code matching equals, so views can be used in hash-based collections.
+     * @return a hash code value for this object.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(store) + packedID;
+    }
+
+    /**
+     * Returns the string representation of the vehicle.
+     * @return the vehicle type and ID (e.g., "Car CA1-102").
+     */
+    @Override
+    public String toString() {
+        return getVehicleType() + " " + getVehicleID();
+    }
+
 }
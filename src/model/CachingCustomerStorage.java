@@ -0,0 +1,188 @@
+package model;
+
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Class of a CustomerStorage that keeps a bounded working set of customers in memory in front of another storage.
+ * The working set is made of:
+ * 1. Active customers, i.e. customers with vehicles on hire. They are never evicted.
+ * 2. Recently used customers, held in least recently used (LRU) order up to a fixed capacity.
+ * Customers that have not been used for a while are evicted and loaded from the backing storage again when needed.
+ * New customers are written behind: they are buffered and written to the backing storage in one batch
+ * when the buffer is full or flush is called, so many registrations cost a single write.
+ * Heap use therefore follows the number of active and recent customers, not every customer ever registered.
+ *
+ * @author Fandi Zhou
+ */
+public class CachingCustomerStorage implements CustomerStorage {
+
+    private final CustomerStorage backing;
+    private final int writeBatch;
+
+    private final Map<Integer, CustomerRecord> active = new HashMap<>();//Customers with vehicles on hire.
+    private final LinkedHashMap<Integer, CustomerRecord> recent;//Recently used customers, least recently used first.
+    private final LinkedHashMap<Integer, CustomerRecord> pending = new LinkedHashMap<>();//New customers not yet written, in ID order.
+    private final Set<CustomerRecord> pendingKeys = new HashSet<>();//Same records, looked up by name and date of birth.
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs a CachingCustomerStorage.
+     * @param backing    the storage the customers are loaded from and written to.
+     * @param capacity   the maximum number of recently used (not active) customers kept in memory.
+     * @param writeBatch the number of new customers buffered before they are written.
+     * @throws IllegalArgumentException if capacity or writeBatch is not positive.
+     */
+    public CachingCustomerStorage(CustomerStorage backing, int capacity, int writeBatch) {
+        if (capacity < 1 || writeBatch < 1) {throw new IllegalArgumentException("Capacity and write batch must be positive");}
+        this.backing = backing;
+        this.writeBatch = writeBatch;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CustomerRecord> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CustomerRecord add(String firstName, String lastName, Date birthDate, boolean haveC_licence) {
+        Name name = new Name(firstName, lastName);
+        if (contains(name, birthDate)) {
+            throw new IllegalArgumentException("Duplicate record found");
+        }
+
+        CustomerRecord r = new CustomerRecord(name, startOfDay(birthDate), haveC_licence, backing.allocateCustomerID());
+        pending.put(r.getCustomerID(), r);
+        pendingKeys.add(r);
+        recent.put(r.getCustomerID(), r);
+
+        if (pending.size() >= writeBatch) {
+            flush();
+        }
+        return r;
+    }
+
+    @Override
+    public synchronized void store(List<CustomerRecord> records) {
+        flush();// Keep the backing storage in ID order.
+        backing.store(records);
+    }
+
+    /**
+     * Takes the next Customer ID from the backing storage, so buffered customers and stored ones share one ID domain.
+     */
+    @Override
+    public int allocateCustomerID() {
+        return backing.allocateCustomerID();
+    }
+
+    @Override
+    public synchronized CustomerRecord get(int customerID) {
+        CustomerRecord r = active.get(customerID);
+        if (r == null) {r = recent.get(customerID);}
+        if (r == null) {r = pending.get(customerID);}
+        if (r != null) {
+            hits++;
+            return r;
+        }
+
+        misses++;
+        r = backing.get(customerID);// Cold customer, load it on demand.
+        if (r != null) {
+            recent.put(customerID, r);
+        }
+        return r;
+    }
+
+    @Override
+    public synchronized boolean contains(Name name, Date birthDate) {
+        return pendingKeys.contains(new CustomerRecord(name, startOfDay(birthDate), false, 0)) || backing.contains(name, birthDate);
+    }
+
+    /**
+     * Truncates a date of birth to the start of its day, as the stores compare dates of birth to the day.
+     */
+    private static Date startOfDay(Date d) {
+        ZoneId zone = ZoneId.systemDefault();
+        return Date.from(d.toInstant().atZone(zone).toLocalDate().atStartOfDay(zone).toInstant());
+    }
+
+    @Override
+    public synchronized int size() {
+        return backing.size() + pending.size();
+    }
+
+    /**
+     * Writes the buffered customers first, so the backing storage passes every customer in ID order.
+     * The customers are not added to the working set.
+     */
+    @Override
+    public synchronized void forEach(Consumer<CustomerRecord> action) {
+        flush();
+        backing.forEach(action);
+    }
+
+    /**
+     * Keeps active customers in memory until they have returned every vehicle,
+     * then moves them back to the recently used customers.
+     */
+    @Override
+    public synchronized void setActive(int customerID, boolean isActive) {
+        if (isActive) {
+            CustomerRecord r = get(customerID);
+            if (r != null) {
+                recent.remove(customerID);
+                active.put(customerID, r);
+            }
+        } else {
+            CustomerRecord r = active.remove(customerID);
+            if (r != null) {
+                recent.put(customerID, r);
+            }
+        }
+    }
+
+    /**
+     * Writes every buffered new customer to the backing storage in one batch.
+     */
+    @Override
+    public synchronized void flush() {
+        if (!pending.isEmpty()) {
+            backing.store(new ArrayList<>(pending.values()));
+            pending.clear();
+            pendingKeys.clear();
+        }
+        backing.flush();
+    }
+
+    /**
+     * Get the number of customers currently held in memory.
+     * @return the number of active, recently used and pending customers.
+     */
+    public synchronized int cachedCount() {
+        Set<Integer> ids = new HashSet<>(active.keySet());
+        ids.addAll(recent.keySet());
+        ids.addAll(pending.keySet());
+        return ids.size();
+    }
+
+    /**
+     * Get the number of lookups answered from memory.
+     * @return the number of cache hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups that had to load the customer from the backing storage.
+     * @return the number of cache misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -1,7 +1,5 @@
 package model;
 
-import manager.VehicleID;
-
 /**
  * Class represents a specific class of Car.
  * This class extends AbstractVehicle and provides implementations
@@ -9,13 +7,16 @@ import manager.VehicleID;
  */
 public class Car extends AbstractVehicle {
 
+    static final int SERVICE_DISTANCE = 10000;//Cars must be serviced every 10,000 miles.
+
     /**
-     * Constructs a new Car instance with the specified unique identifier.
-     * This constructor delegates the initialization of the ID, hiring status and mileage to the superclass AbstractVehicle.
-     * @param id assigned to this car.
+     * Constructs a Car view of a slot in a FleetStore.
+     * This constructor delegates to the superclass AbstractVehicle, the ID, hiring status and mileage are held in the store.
+     * @param store the store holding this car.
+     * @param slot  the slot of this car in the store.
      */
-    Car(VehicleID id) {
-        super(id);// Call the constructor of the abstract superclass to handle ID assignment.
+    Car(FleetStore store, int slot) {
+        super(store, slot);// Call the constructor of the abstract superclass to handle the store and slot.
     }
 
     /**
@@ -32,7 +33,7 @@ public class Car extends AbstractVehicle {
      * @return the service interval in miles 10000.
      */
     public int getDistanceRequirement(){
-        return 10000;
+        return SERVICE_DISTANCE;
     }
 
 }
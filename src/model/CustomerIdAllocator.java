@@ -0,0 +1,40 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class of a thread-safe allocator of Customer IDs for one ID domain, e.g. one customer storage.
+ * IDs start at 1 and increase by one. IDs that are already in use, e.g. ones loaded from a file or copied from a primary,
+ * can be reserved so they are never issued again.
+ * Allocation is lock free, so threads registering customers in different domains never contend with each other.
+ *
+ * @author Fandi Zhou
+ */
+public final class CustomerIdAllocator {
+
+    private final AtomicInteger nextID = new AtomicInteger(1);//The next ID to issue.
+
+    /**
+     * Takes the next unique Customer ID.
+     * @return the next Customer ID.
+     */
+    public int next() {
+        return nextID.getAndIncrement();
+    }
+
+    /**
+     * Moves the allocator past an ID that is already in use, so it is never issued again.
+     * @param usedID a Customer ID that is in use.
+     */
+    public void reserve(int usedID) {
+        nextID.accumulateAndGet(usedID + 1, Math::max);
+    }
+
+    /**
+     * Get the ID the next call to next will return.
+     * @return the next Customer ID.
+     */
+    public int peek() {
+        return nextID.get();
+    }
+}
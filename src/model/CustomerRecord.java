@@ -16,8 +16,10 @@ public class CustomerRecord {
     private final Date birthDate;
     private final boolean haveC_licence;
     private final int customerID;
+    private final int hash;//Hash of name and birth date, computed once as both are immutable.
 
-    private static int nextID = 1;//A static counter used to generate unique id for customer, starts at 1 and increments with every new CustomerRecord created.
+    //The ID domain of records created outside a storage with the public constructor. Storages keep their own allocators.
+    private static final CustomerIdAllocator DEFAULT_IDS = new CustomerIdAllocator();
 
     /**
      * Constructs a new CustomerRecord.
@@ -28,10 +30,46 @@ public class CustomerRecord {
      * @param haveC_licence true if the customer has a commercial license and false otherwise.
      */
     public CustomerRecord(Name name, Date birthDate, boolean haveC_licence) {
+        this(name, birthDate, haveC_licence, nextCustomerID());
+    }
+
+    /**
+     * Constructs a CustomerRecord with a Customer ID that has already been assigned.
+     * This constructor is package-private as it is only used by the CustomerStore to create views of stored customers.
+     *
+     * @param name          the Name object representing the customer's full name.
+     * @param birthDate     the customer's date of birth.
+     * @param haveC_licence true if the customer has a commercial license and false otherwise.
+     * @param customerID    the customer's ID.
+     */
+    CustomerRecord(Name name, Date birthDate, boolean haveC_licence, int customerID) {
         this.name = name;
         this.birthDate = new Date(birthDate.getTime());//Immutable defense.
         this.haveC_licence = haveC_licence;
-        this.customerID = nextID++;
+        this.customerID = customerID;
+        this.hash = 31 * (31 + Objects.hashCode(name)) + this.birthDate.hashCode();//Same value as Objects.hash(name, birthDate) without the varargs array.
+    }
+
+    /**
+     * Re-creates a customer record that was already assigned a Customer ID, e.g. one received from a primary manager.
+     * The ID is reserved by the storage the record is stored in, so that storage never hands it out again.
+     *
+     * @param name          the Name object representing the customer's full name.
+     * @param birthDate     the customer's date of birth.
+     * @param haveC_licence true if the customer has a commercial license and false otherwise.
+     * @param customerID    the customer's existing ID.
+     * @return the CustomerRecord.
+     */
+    public static CustomerRecord restore(Name name, Date birthDate, boolean haveC_licence, int customerID) {
+        return new CustomerRecord(name, birthDate, haveC_licence, customerID);
+    }
+
+    /**
+     * Takes the next Customer ID from the default ID domain, shared by records created outside a storage.
+     * @return the next Customer ID.
+     */
+    static int nextCustomerID() {
+        return DEFAULT_IDS.next();
     }
 
 
@@ -89,11 +127,12 @@ public class CustomerRecord {
     /**
      * Generates a hash code for this customer record.
      * This method must correspond to equals Object. Since equality depends on Name and BirthDate, the hash code must be generated from these same fields.
+     * The hash code is computed once in the constructor.
      * @return a hash code value for this object.
      */
     @Override
     public int hashCode() {
-        return Objects.hash(name, birthDate);
+        return hash;
     }
 
 
@@ -0,0 +1,86 @@
+package model;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Interface of a storage for customer records (a service provider interface).
+ * The VehicleManager registers and looks up customers only through this interface, so the storage can be swapped:
+ * CustomerStore keeps every customer in memory, FileCustomerStorage keeps them in a file,
+ * and CachingCustomerStorage keeps a bounded working set in memory in front of another storage.
+ * Implementations report I/O failures with UncheckedIOException.
+ *
+ * @author Fandi Zhou
+ */
+public interface CustomerStorage {
+
+    /**
+     * Registers a new customer and assigns it a unique Customer ID.
+     * @param firstName     the customer's first name.
+     * @param lastName      the customer's last name.
+     * @param birthDate     the customer's date of birth.
+     * @param haveC_licence true if the customer has a commercial license and false otherwise.
+     * @return the new CustomerRecord.
+     * @throws IllegalArgumentException if a customer with the same name and date of birth already exists.
+     */
+    CustomerRecord add(String firstName, String lastName, Date birthDate, boolean haveC_licence);
+
+    /**
+     * Stores records that already have a Customer ID, e.g. records written behind by a cache.
+     * Records must be given in ascending ID order and with IDs larger than any already stored.
+     * @param records the records to store.
+     * @throws IllegalArgumentException if a record is a duplicate or out of order.
+     */
+    void store(List<CustomerRecord> records);
+
+    /**
+     * Gets a customer by ID.
+     * @param customerID the customer's ID.
+     * @return the CustomerRecord, or null if there is no customer with this ID.
+     */
+    CustomerRecord get(int customerID);
+
+    /**
+     * Checks if a customer with the same name and date of birth is stored.
+     * @param name      the customer's name.
+     * @param birthDate the customer's date of birth.
+     * @return true if the customer exists and false otherwise.
+     */
+    boolean contains(Name name, Date birthDate);
+
+    /**
+     * Get the number of stored customers.
+     * @return the number of customers.
+     */
+    int size();
+
+    /**
+     * Passes every stored customer to an action, in ascending ID order, e.g. to copy the customers to a replica.
+     * @param action the action to run for each customer.
+     */
+    void forEach(Consumer<CustomerRecord> action);
+
+    /**
+     * Takes the next unique Customer ID of this storage's ID domain.
+     * Storages that keep their own CustomerIdAllocator override this, so every storage numbers its customers from 1.
+     * The default takes IDs from the domain shared by records created outside a storage.
+     * @return the next Customer ID.
+     */
+    default int allocateCustomerID() {
+        return CustomerRecord.nextCustomerID();
+    }
+
+    /**
+     * Tells the storage whether a customer currently has vehicles on hire.
+     * Caching storages keep active customers in memory, other storages ignore this.
+     * @param customerID the customer's ID.
+     * @param active     true while the customer has at least one vehicle on hire.
+     */
+    default void setActive(int customerID, boolean active) {}
+
+    /**
+     * Writes any buffered changes to the underlying storage.
+     */
+    default void flush() {}
+}
@@ -0,0 +1,241 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Class of a memory compact store of customer records, the in-memory implementation of CustomerStorage.
+ * Instead of keeping a CustomerRecord, a Name, two Strings and a Date object for every customer,
+ * the store keeps one row per customer spread over primitive arrays (columns):
+ * Customer ID, first and last name as references into a pool of de-duplicated strings,
+ * date of birth as a day number (days since 1970-01-01), the commercial licence as a bit and a precomputed hash.
+ * Duplicate detection uses an open addressing hash table over the precomputed hashes, so no objects are created for a lookup.
+ * CustomerRecord objects are created on demand as lightweight views of a row and can be thrown away after use.
+ * Dates of birth are stored to the day in the system time zone, so two dates on the same day are the same birth date.
+ * @author Fandi Zhou
+ */
+public class CustomerStore implements CustomerStorage {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Map<String, Integer> poolIndex = new HashMap<>();//Pool of de-duplicated name strings.
+    private final ArrayList<String> pool = new ArrayList<>();
+
+    private int size;
+    private int[] ids = new int[INITIAL_CAPACITY];//Customer IDs in ascending order.
+    private int[] firstNames = new int[INITIAL_CAPACITY];//Index into the string pool.
+    private int[] lastNames = new int[INITIAL_CAPACITY];
+    private int[] birthDays = new int[INITIAL_CAPACITY];//Date of birth as epoch day.
+    private int[] hashes = new int[INITIAL_CAPACITY];//Precomputed hash of name and date of birth.
+    private final BitSet licences = new BitSet();//Bit set if the customer has a commercial licence.
+
+    private int[] table = new int[INITIAL_CAPACITY * 2];//Open addressing hash table of row + 1, 0 means empty.
+
+    private final CustomerIdAllocator customerIDs = new CustomerIdAllocator();//The Customer IDs of this store.
+
+    /**
+     * Adds a new customer and assigns it a unique Customer ID.
+     * @param firstName     the customer's first name.
+     * @param lastName      the customer's last name.
+     * @param birthDate     the customer's date of birth.
+     * @param haveC_licence true if the customer has a commercial license and false otherwise.
+     * @return a CustomerRecord view of the new customer.
+     * @throws IllegalArgumentException if a customer with the same name and date of birth already exists.
+     */
+    @Override
+    public CustomerRecord add(String firstName, String lastName, Date birthDate, boolean haveC_licence) {
+        return add(firstName, lastName, birthDate, haveC_licence, customerIDs.next());
+    }
+
+    /**
+     * Adds a customer that already has a Customer ID, e.g. one loaded from storage.
+     * IDs must be added in ascending order.
+     * @param firstName     the customer's first name.
+     * @param lastName      the customer's last name.
+     * @param birthDate     the customer's date of birth.
+     * @param haveC_licence true if the customer has a commercial license and false otherwise.
+     * @param customerID    the customer's ID.
+     * @return a CustomerRecord view of the new customer.
+     * @throws IllegalArgumentException if the customer already exists or the ID is not larger than every stored ID.
+     */
+    public CustomerRecord add(String firstName, String lastName, Date birthDate, boolean haveC_licence, int customerID) {
+        int first = intern(firstName);
+        int last = intern(lastName);
+        int day = toDay(birthDate);
+        int hash = hash(first, last, day);
+
+        if (find(first, last, day, hash) >= 0) {
+            throw new IllegalArgumentException("Duplicate record found");
+        }
+        if (size > 0 && customerID <= ids[size - 1]) {
+            throw new IllegalArgumentException("Customer IDs must be added in ascending order: " + customerID);
+        }
+
+        if (size == ids.length) {grow();}
+
+        int row = size++;
+        ids[row] = customerID;
+        firstNames[row] = first;
+        lastNames[row] = last;
+        birthDays[row] = day;
+        hashes[row] = hash;
+        licences.set(row, haveC_licence);
+        insert(row);
+        customerIDs.reserve(customerID);
+
+        return view(row);
+    }
+
+    /**
+     * Stores records that already have a Customer ID.
+     * @param records the records to store, in ascending ID order.
+     * @throws IllegalArgumentException if a record is a duplicate or out of order.
+     */
+    @Override
+    public void store(List<CustomerRecord> records) {
+        for (CustomerRecord r : records) {
+            add(r.getName().getFirstName(), r.getName().getlastName(), r.getBirthDate(), r.isHaveC_licence(), r.getCustomerID());
+        }
+    }
+
+    /**
+     * Checks if a customer with the same name and date of birth is stored.
+     * @param name      the customer's name.
+     * @param birthDate the customer's date of birth.
+     * @return true if the customer exists and false otherwise.
+     */
+    @Override
+    public boolean contains(Name name, Date birthDate) {
+        Integer first = poolIndex.get(name.getFirstName());
+        Integer last = poolIndex.get(name.getlastName());
+        if (first == null || last == null) {return false;}// An unknown name cannot be stored.
+
+        int day = toDay(birthDate);
+        return find(first, last, day, hash(first, last, day)) >= 0;
+    }
+
+    /**
+     * Gets a customer by ID.
+     * @param customerID the customer's ID.
+     * @return a CustomerRecord view of the customer, or null if there is no customer with this ID.
+     */
+    @Override
+    public CustomerRecord get(int customerID) {
+        int row = Arrays.binarySearch(ids, 0, size, customerID);
+        return row < 0 ? null : view(row);
+    }
+
+    @Override
+    public int allocateCustomerID() {
+        return customerIDs.next();
+    }
+
+    /**
+     * Get the number of stored customers.
+     * @return the number of customers.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(Consumer<CustomerRecord> action) {
+        for (int row = 0; row < size; row++) {
+            action.accept(view(row));
+        }
+    }
+
+    /**
+     * Get the number of distinct name strings held in the pool.
+     * @return the size of the string pool.
+     */
+    public int pooledNames() {
+        return pool.size();
+    }
+
+    /**
+     * Creates a CustomerRecord view of a row.
+     */
+    private CustomerRecord view(int row) {
+        Name name = new Name(pool.get(firstNames[row]), pool.get(lastNames[row]));
+        Date dob = Date.from(LocalDate.ofEpochDay(birthDays[row]).atStartOfDay(zone).toInstant());
+        return new CustomerRecord(name, dob, licences.get(row), ids[row]);
+    }
+
+    /**
+     * Finds the row of a customer in the hash table.
+     * @return the row, or -1 if the customer is not stored.
+     */
+    private int find(int first, int last, int day, int hash) {
+        int mask = table.length - 1;
+        for (int i = hash & mask; table[i] != 0; i = (i + 1) & mask) {
+            int row = table[i] - 1;
+            if (hashes[row] == hash && firstNames[row] == first && lastNames[row] == last && birthDays[row] == day) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts a row into the hash table, doubling the table when it is half full.
+     */
+    private void insert(int row) {
+        if (size * 2 > table.length) {
+            table = new int[table.length * 2];
+            for (int r = 0; r < row; r++) {
+                place(r);
+            }
+        }
+        place(row);
+    }
+
+    private void place(int row) {
+        int mask = table.length - 1;
+        int i = hashes[row] & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = row + 1;
+    }
+
+    private void grow() {
+        int n = ids.length * 2;
+        ids = Arrays.copyOf(ids, n);
+        firstNames = Arrays.copyOf(firstNames, n);
+        lastNames = Arrays.copyOf(lastNames, n);
+        birthDays = Arrays.copyOf(birthDays, n);
+        hashes = Arrays.copyOf(hashes, n);
+    }
+
+    /**
+     * Returns the pool index of a string, adding it to the pool if needed.
+     */
+    private int intern(String s) {
+        Integer i = poolIndex.get(s);
+        if (i == null) {
+            i = pool.size();
+            pool.add(s);
+            poolIndex.put(s, i);
+        }
+        return i;
+    }
+
+    private int toDay(Date d) {
+        return (int) d.toInstant().atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Mixes the three key fields into a well spread hash for the open addressing table.
+     */
+    private static int hash(int first, int last, int day) {
+        int h = first * 0x9E3779B9 + last;
+        h = h * 0x9E3779B9 + day;
+        return h ^ (h >>> 16);
+    }
+}
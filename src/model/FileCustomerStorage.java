@@ -0,0 +1,273 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Class of an embedded, file backed implementation of CustomerStorage.
+ * Customers are appended to a single file, one record each:
+ * length (int), Customer ID (int), date of birth as epoch day (int), licence (byte), first name and last name (short length + UTF-8).
+ * Only a small index is kept in memory: the Customer IDs with their file offsets, and a hash table of name and
+ * date of birth hashes for duplicate detection. Names and dates stay on disk and are read back when needed.
+ * When an existing file is opened, the index is rebuilt by reading the file once.
+ *
+ * @author Fandi Zhou
+ */
+public class FileCustomerStorage implements CustomerStorage, Closeable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final FileChannel channel;
+
+    private int size;
+    private int[] ids = new int[INITIAL_CAPACITY];//Customer IDs in ascending order.
+    private long[] offsets = new long[INITIAL_CAPACITY];//File offset of each record.
+    private int[] keyHashes = new int[INITIAL_CAPACITY];//Hash of name and date of birth of each record.
+    private int[] table = new int[INITIAL_CAPACITY * 2];//Open addressing hash table of row + 1, 0 means empty.
+
+    private final CustomerIdAllocator customerIDs = new CustomerIdAllocator();//The Customer IDs of this file.
+
+    /**
+     * Opens (or creates) a customer file.
+     * @param file the file holding the customers.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    public FileCustomerStorage(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long pos = 0;
+        long end = channel.size();
+        while (pos < end) {// Rebuild the index from the records already in the file.
+            CustomerRecord r = read(pos);
+            index(r.getCustomerID(), pos, keyHash(r.getName().getFirstName(), r.getName().getlastName(), toDay(r.getBirthDate())));
+            customerIDs.reserve(r.getCustomerID());
+            pos += 4 + readInt(pos);
+        }
+    }
+
+    @Override
+    public synchronized CustomerRecord add(String firstName, String lastName, Date birthDate, boolean haveC_licence) {
+        if (contains(new Name(firstName, lastName), birthDate)) {
+            throw new IllegalArgumentException("Duplicate record found");
+        }
+        // Stored as a day, so return the record as get will read it back: at the start of that day.
+        CustomerRecord r = new CustomerRecord(new Name(firstName, lastName), startOfDay(toDay(birthDate)), haveC_licence, customerIDs.next());
+        store(List.of(r));
+        return r;
+    }
+
+    /**
+     * Appends records that already have a Customer ID with a single write.
+     * @param records the records to store, in ascending ID order.
+     * @throws IllegalArgumentException if a record is a duplicate, of a stored record or of an earlier one in the batch,
+     *         or out of order. Nothing is stored then.
+     */
+    @Override
+    public synchronized void store(List<CustomerRecord> records) {
+        if (records.isEmpty()) {return;}
+
+        int last = size > 0 ? ids[size - 1] : Integer.MIN_VALUE;
+        List<byte[]> encoded = new ArrayList<>(records.size());
+        Set<List<Object>> batch = new HashSet<>();//Name and birth day of the records before, which are not indexed yet.
+        int total = 0;
+        for (CustomerRecord r : records) {
+            if (r.getCustomerID() <= last) {throw new IllegalArgumentException("Customer IDs must be stored in ascending order: " + r.getCustomerID());}
+            if (contains(r.getName(), r.getBirthDate()) || !batch.add(List.of(r.getName(), toDay(r.getBirthDate())))) {
+                throw new IllegalArgumentException("Duplicate record found");
+            }
+            last = r.getCustomerID();
+
+            byte[] b = encode(r);
+            encoded.add(b);
+            total += b.length;
+        }
+
+        try {
+            long pos = channel.size();
+            ByteBuffer buf = ByteBuffer.allocate(total);
+            for (byte[] b : encoded) {
+                buf.put(b);
+            }
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf, pos + buf.position());
+            }
+
+            for (int i = 0; i < records.size(); i++) {
+                CustomerRecord r = records.get(i);
+                index(r.getCustomerID(), pos, keyHash(r.getName().getFirstName(), r.getName().getlastName(), toDay(r.getBirthDate())));
+                customerIDs.reserve(r.getCustomerID());
+                pos += encoded.get(i).length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized CustomerRecord get(int customerID) {
+        int row = Arrays.binarySearch(ids, 0, size, customerID);
+        return row < 0 ? null : read(offsets[row]);
+    }
+
+    @Override
+    public synchronized boolean contains(Name name, Date birthDate) {
+        int day = toDay(birthDate);
+        int hash = keyHash(name.getFirstName(), name.getlastName(), day);
+        int mask = table.length - 1;
+
+        for (int i = hash & mask; table[i] != 0; i = (i + 1) & mask) {
+            int row = table[i] - 1;
+            if (keyHashes[row] == hash) {// Same hash, read the record to make sure.
+                CustomerRecord r = read(offsets[row]);
+                if (r.getName().equals(name) && toDay(r.getBirthDate()) == day) {return true;}
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int allocateCustomerID() {
+        return customerIDs.next();
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Reads every record back from the file, in ascending ID order.
+     */
+    @Override
+    public synchronized void forEach(Consumer<CustomerRecord> action) {
+        for (int row = 0; row < size; row++) {
+            action.accept(read(offsets[row]));
+        }
+    }
+
+    /**
+     * Forces the records written so far onto the disk.
+     */
+    @Override
+    public synchronized void flush() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the file.
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Adds a record to the in-memory index.
+     */
+    private void index(int id, long offset, int hash) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+            keyHashes = Arrays.copyOf(keyHashes, size * 2);
+        }
+        int row = size++;
+        ids[row] = id;
+        offsets[row] = offset;
+        keyHashes[row] = hash;
+
+        if (size * 2 > table.length) {// Keep the table at most half full.
+            table = new int[table.length * 2];
+            for (int r = 0; r < row; r++) {
+                place(r);
+            }
+        }
+        place(row);
+    }
+
+    private void place(int row) {
+        int mask = table.length - 1;
+        int i = keyHashes[row] & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = row + 1;
+    }
+
+    private byte[] encode(CustomerRecord r) {
+        byte[] first = r.getName().getFirstName().getBytes(StandardCharsets.UTF_8);
+        byte[] last = r.getName().getlastName().getBytes(StandardCharsets.UTF_8);
+        int length = 4 + 4 + 1 + 2 + first.length + 2 + last.length;
+
+        ByteBuffer b = ByteBuffer.allocate(4 + length);
+        b.putInt(length).putInt(r.getCustomerID()).putInt(toDay(r.getBirthDate())).put((byte) (r.isHaveC_licence() ? 1 : 0));
+        b.putShort((short) first.length).put(first);
+        b.putShort((short) last.length).put(last);
+        return b.array();
+    }
+
+    private CustomerRecord read(long pos) {
+        ByteBuffer b = ByteBuffer.allocate(readInt(pos));
+        readFully(b, pos + 4);
+        b.flip();
+
+        int id = b.getInt();
+        int day = b.getInt();
+        boolean licence = b.get() != 0;
+        String first = readString(b);
+        String last = readString(b);
+
+        return new CustomerRecord(new Name(first, last), startOfDay(day), licence, id);
+    }
+
+    private int readInt(long pos) {
+        ByteBuffer b = ByteBuffer.allocate(4);
+        readFully(b, pos);
+        return b.getInt(0);
+    }
+
+    private void readFully(ByteBuffer b, long pos) {
+        try {
+            while (b.hasRemaining()) {
+                if (channel.read(b, pos + b.position()) < 0) {throw new IOException("Unexpected end of customer file");}
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readString(ByteBuffer b) {
+        byte[] s = new byte[b.getShort() & 0xFFFF];
+        b.get(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+
+    private Date startOfDay(int day) {
+        return Date.from(LocalDate.ofEpochDay(day).atStartOfDay(zone).toInstant());
+    }
+
+    private int toDay(Date d) {
+        return (int) d.toInstant().atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    private static int keyHash(String first, String last, int day) {
+        int h = (31 * first.hashCode() + last.hashCode()) * 0x9E3779B9 + day;
+        return h ^ (h >>> 16);
+    }
+}
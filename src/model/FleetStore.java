@@ -0,0 +1,415 @@
+package model;
+
+import manager.VehicleID;
+
+import java.util.*;
+
+/**
+ * Class of a memory compact store of vehicles, laid out as a struct of arrays.
+ * Every vehicle occupies one slot (its ordinal, 0, 1, 2 ...). The state of all vehicles is held in primitive arrays (columns):
+ * Kind: 0 for Car, 1 for Van.
+ * Packed ID: the VehicleID packed into an int.
+ * Mileage: the distance traveled since the last service.
+ * Hired and inspection flags: one bit per vehicle.
+ * Car and Van objects are lightweight views of a slot, created on demand. All reads and writes go through to the arrays,
+ * so any number of views of the same slot see the same state and are equal to each other.
+ * Scans over the fleet read the columns directly without creating any objects.
+ * Removing a vehicle keeps the columns dense: the vehicle in the last slot is moved into the freed slot,
+ * so removal takes constant time and scans only ever cover the live fleet. Views find a moved vehicle again by its ID.
+ * Listeners can be registered to keep indexes over the columns up to date as vehicles are added and their state changes.
+ * The store is not thread safe. Views read the live columns, so they are not a point-in-time copy of a vehicle:
+ * a view used outside the lock of the store's owner may see a state that is half way through a change.
+ * An owner shared between threads should call indexIDs while it holds its lock, so that a view looking up its slot
+ * only ever reads the ID table and never builds it.
+ *
+ * @author Fandi Zhou
+ */
+public class FleetStore {
+
+    /**
+     * The kind of a Car slot.
+     */
+    public static final int CAR = 0;
+
+    /**
+     * The kind of a Van slot.
+     */
+    public static final int VAN = 1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+    private byte[] kinds;
+    private int[] packedIDs;
+    private int[] mileages;
+    private final BitSet hired = new BitSet();
+    private final BitSet inspection = new BitSet();
+
+    private int[] slotByID;//Packed ID to slot + 1, 0 if the ID is not in this store. Created by indexIDs or on first lookup.
+
+    private final List<Listener> listeners = new ArrayList<>();
+
+    /**
+     * Interface of an observer of changes to the store, e.g. an index over one of the columns.
+     * Listeners are called after the change has been made, on the thread that made it.
+     */
+    public interface Listener {
+        /**
+         * Called when a vehicle is added to the store.
+         * @param slot the slot of the new vehicle.
+         */
+        default void vehicleAdded(int slot) {}
+
+        /**
+         * Called when the mileage of a vehicle changes.
+         * @param slot        the slot of the vehicle.
+         * @param oldMileage  the mileage before the change.
+         * @param newMileage  the mileage after the change.
+         */
+        default void mileageChanged(int slot, int oldMileage, int newMileage) {}
+
+        /**
+         * Called when a vehicle is hired or becomes available.
+         * @param slot  the slot of the vehicle.
+         * @param hired the new hiring status.
+         */
+        default void hiredChanged(int slot, boolean hired) {}
+
+        /**
+         * Called when a vehicle is flagged for inspection or the flag is cleared.
+         * @param slot           the slot of the vehicle.
+         * @param needInspection the new inspection flag.
+         */
+        default void inspectionChanged(int slot, boolean needInspection) {}
+
+        /**
+         * Called when a vehicle is about to be removed from the store. Its state can still be read from the slot.
+         * @param slot the slot of the vehicle.
+         */
+        default void vehicleRemoved(int slot) {}
+
+        /**
+         * Called when a vehicle is about to be moved to another slot to fill the gap left by a removal.
+         * Its state can still be read from the old slot.
+         * @param from the slot the vehicle is in now.
+         * @param to   the slot it is moving to.
+         */
+        default void vehicleMoved(int from, int to) {}
+    }
+
+    /**
+     * Constructs an empty FleetStore.
+     */
+    public FleetStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty FleetStore with room for the given number of vehicles.
+     * @param capacity the initial number of slots.
+     */
+    public FleetStore(int capacity) {
+        int c = Math.max(1, capacity);
+        kinds = new byte[c];
+        packedIDs = new int[c];
+        mileages = new int[c];
+    }
+
+    /**
+     * Converts a vehicle type string into a kind.
+     * @param vehicleType the type of vehicle (e.g., "Car", "Van").
+     * @return CAR or VAN, or -1 if the type is not recognized.
+     */
+    public static int kindOf(String vehicleType) {
+        if (vehicleType.equals("Car")) {return CAR;}
+        if (vehicleType.equals("Van")) {return VAN;}
+        return -1;
+    }
+
+    /**
+     * Converts a kind into its vehicle type string.
+     * @param kind CAR or VAN.
+     * @return "Car" or "Van".
+     */
+    public static String typeOf(int kind) {
+        return kind == VAN ? "Van" : "Car";
+    }
+
+    /**
+     * Returns the distance a vehicle of the kind may travel before it needs a service.
+     * @param kind CAR or VAN.
+     * @return the service interval in miles.
+     */
+    public static int distanceRequirement(int kind) {
+        return kind == VAN ? Van.SERVICE_DISTANCE : Car.SERVICE_DISTANCE;
+    }
+
+    /**
+     * Adds a new vehicle that is not hired and has zero mileage.
+     * @param vehicleType the type of vehicle to add (e.g., "Car", "Van").
+     * @param id          the vehicle's ID.
+     * @return the slot of the new vehicle.
+     * @throws IllegalArgumentException if the provided vehicle type is not recognized.
+     */
+    public int add(String vehicleType, VehicleID id) {
+        int kind = kindOf(vehicleType);
+        if (kind < 0) {throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);}
+
+        ensureCapacity(size + 1);
+        int slot = size++;
+        kinds[slot] = (byte) kind;
+        packedIDs[slot] = id.pack();
+        mileages[slot] = 0;
+        hired.clear(slot);
+        inspection.clear(slot);
+
+        if (slotByID != null) {slotByID[packedIDs[slot]] = slot + 1;}
+
+        for (Listener l : listeners) {
+            l.vehicleAdded(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Removes the vehicle in a slot. The vehicle in the last slot, if it is another one, moves into the freed slot.
+     * The columns shrink once the fleet is less than a quarter of their length.
+     * @param slot the slot of the vehicle to remove.
+     */
+    public void remove(int slot) {
+        checkSlot(slot);
+        int last = size - 1;
+
+        for (Listener l : listeners) {
+            l.vehicleRemoved(slot);
+            if (slot != last) {l.vehicleMoved(last, slot);}
+        }
+
+        if (slotByID != null) {slotByID[packedIDs[slot]] = 0;}
+        if (slot != last) {
+            kinds[slot] = kinds[last];
+            packedIDs[slot] = packedIDs[last];
+            mileages[slot] = mileages[last];
+            hired.set(slot, hired.get(last));
+            inspection.set(slot, inspection.get(last));
+            if (slotByID != null) {slotByID[packedIDs[slot]] = slot + 1;}
+        }
+        hired.clear(last);
+        inspection.clear(last);
+        size--;
+
+        if (kinds.length > INITIAL_CAPACITY && size < kinds.length / 4) {
+            int c = Math.max(INITIAL_CAPACITY, kinds.length / 2);
+            kinds = Arrays.copyOf(kinds, c);
+            packedIDs = Arrays.copyOf(packedIDs, c);
+            mileages = Arrays.copyOf(mileages, c);
+        }
+    }
+
+    /**
+     * Registers a listener. It is told about vehicles added and changes made from now on.
+     * @param listener the listener to add.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Makes sure the store has room for the given number of vehicles, so bulk adds grow the arrays only once.
+     * @param capacity the number of slots needed.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > kinds.length) {
+            int c = Math.max(capacity, kinds.length * 2);
+            kinds = Arrays.copyOf(kinds, c);
+            packedIDs = Arrays.copyOf(packedIDs, c);
+            mileages = Arrays.copyOf(mileages, c);
+        }
+    }
+
+    /**
+     * Returns a Car or Van view of a slot.
+     * @param slot the slot of the vehicle.
+     * @return a new view of the vehicle.
+     */
+    public Vehicle view(int slot) {
+        checkSlot(slot);
+        return kinds[slot] == VAN ? new Van(this, slot) : new Car(this, slot);
+    }
+
+    /**
+     * Finds the slot of a vehicle by ID.
+     * @param id the vehicle's ID.
+     * @return the slot, or -1 if the vehicle is not in this store.
+     */
+    public int slotOf(VehicleID id) {
+        return slotOf(id.pack());
+    }
+
+    /**
+     * Builds the table of slots by ID now instead of on the first lookup, e.g. by the VehicleManager, whose views are
+     * used from many threads. The table is kept up to date by add and remove from then on.
+     */
+    public void indexIDs() {
+        if (slotByID != null) {return;}
+        int[] table = new int[VehicleID.PACKED_SPACE];
+        for (int s = 0; s < size; s++) {
+            table[packedIDs[s]] = s + 1;
+        }
+        slotByID = table;
+    }
+
+    /**
+     * Finds the slot of a vehicle by packed ID.
+     * @param packed the packed ID of the vehicle.
+     * @return the slot, or -1 if the vehicle is not in this store.
+     */
+    int slotOf(int packed) {
+        if (slotByID == null) {indexIDs();}// Build the lookup table the first time it is needed.
+        return slotByID[packed] - 1;
+    }
+
+    /**
+     * Get the number of vehicles in the store.
+     * @return the number of slots in use.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the kind of the vehicle in a slot.
+     * @param slot the slot of the vehicle.
+     * @return CAR or VAN.
+     */
+    public int kind(int slot) {
+        checkSlot(slot);
+        return kinds[slot];
+    }
+
+    /**
+     * Get the ID of the vehicle in a slot, rebuilt from its packed form.
+     * @param slot the slot of the vehicle.
+     * @return the VehicleID.
+     */
+    public VehicleID vehicleID(int slot) {
+        return VehicleID.unpack(packedID(slot));
+    }
+
+    /**
+     * Get the packed ID of the vehicle in a slot.
+     * @param slot the slot of the vehicle.
+     * @return the packed ID.
+     */
+    public int packedID(int slot) {
+        checkSlot(slot);
+        return packedIDs[slot];
+    }
+
+    /**
+     * Checks if the vehicle in a slot is hired.
+     * @param slot the slot of the vehicle.
+     * @return true if the vehicle is hired and false otherwise.
+     */
+    public boolean isHired(int slot) {
+        checkSlot(slot);
+        return hired.get(slot);
+    }
+
+    /**
+     * Updates the hiring status of the vehicle in a slot.
+     * @param slot the slot of the vehicle.
+     * @param h    true to mark as hired; false to mark as available.
+     */
+    public void setHired(int slot, boolean h) {
+        checkSlot(slot);
+        if (hired.get(slot) == h) {return;}
+        hired.set(slot, h);
+
+        for (Listener l : listeners) {
+            l.hiredChanged(slot, h);
+        }
+    }
+
+    /**
+     * Gets the mileage of the vehicle in a slot since its last service.
+     * @param slot the slot of the vehicle.
+     * @return the current mileage.
+     */
+    public int mileage(int slot) {
+        checkSlot(slot);
+        return mileages[slot];
+    }
+
+    /**
+     * Sets the mileage of the vehicle in a slot.
+     * @param slot    the slot of the vehicle.
+     * @param mileage the new mileage value to set.
+     */
+    public void setMileage(int slot, int mileage) {
+        checkSlot(slot);
+        int old = mileages[slot];
+        mileages[slot] = mileage;
+
+        if (old != mileage) {
+            for (Listener l : listeners) {
+                l.mileageChanged(slot, old, mileage);
+            }
+        }
+    }
+
+    /**
+     * Checks if the vehicle in a slot needs an inspection. Only Vans can need one.
+     * @param slot the slot of the vehicle.
+     * @return true if an inspection is pending and false otherwise.
+     */
+    public boolean needsInspection(int slot) {
+        checkSlot(slot);
+        return inspection.get(slot);
+    }
+
+    /**
+     * Sets the inspection flag of the vehicle in a slot.
+     * @param slot           the slot of the vehicle.
+     * @param needInspection true to flag the vehicle for inspection and vice versa.
+     */
+    public void setNeedInspection(int slot, boolean needInspection) {
+        checkSlot(slot);
+        if (inspection.get(slot) == needInspection) {return;}
+        inspection.set(slot, needInspection);
+
+        for (Listener l : listeners) {
+            l.inspectionChanged(slot, needInspection);
+        }
+    }
+
+    /**
+     * Counts the vehicles of a kind that are not hired, reading only the columns.
+     * @param kind CAR or VAN.
+     * @return the number of vehicles of the kind that are not hired.
+     */
+    public int countNotHired(int kind) {
+        int count = 0;
+        for (int s = 0; s < size; s++) {
+            if (kinds[s] == kind && !hired.get(s)) {count++;}
+        }
+        return count;
+    }
+
+    /**
+     * Sums the mileage of every vehicle of a kind, reading only the columns.
+     * @param kind CAR or VAN.
+     * @return the total mileage since the last service.
+     */
+    public long totalMileage(int kind) {
+        long total = 0;
+        for (int s = 0; s < size; s++) {
+            if (kinds[s] == kind) {total += mileages[s];}
+        }
+        return total;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {throw new IndexOutOfBoundsException("Invalid vehicle slot: " + slot);}
+    }
+}
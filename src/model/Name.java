@@ -10,6 +10,7 @@ import java.util.Objects;
 public final class Name {
 
     private final String firstName, lastName;
+    private final int hash;//Computed once as the name is immutable.
 
     /**
      * Constructs a new Name object.
@@ -19,6 +20,7 @@ public final class Name {
     public Name (String firstName, String lastName) {
         this.firstName= firstName;
         this.lastName = lastName;
+        this.hash = 31 * (31 + Objects.hashCode(firstName)) + Objects.hashCode(lastName);//Same value as Objects.hash(firstName, lastName) without the varargs array.
     }
 
     /**
@@ -40,11 +42,12 @@ public final class Name {
     /**
      * This method is essential for using Name objects in has-based collections
      * It ensures that equal objects (same first/last name) produce the same hash code.
+     * The hash code is computed once in the constructor.
      * @return a hash code value for this object.
      */
     @Override
     public int hashCode() {
-        return Objects.hash(firstName, lastName);
+        return hash;
     }
 
     /**
@@ -1,30 +1,28 @@
 package model;
 
-import manager.VehicleID;
-
 /**
  * Class represents a Vehicle of Van.
  * This class extends AbstractVehicle to inherit common vehicle properties.
  * It has unique behaviors specific to vans:
  * Shorter Service Interval:Vans require service every 5000 miles.
  * Inspection Logic:Vans may require a special inspection after long hires.
- * tracked by the needInspection flag.
+ * tracked by the inspection flag of its slot in the FleetStore.
  *
  * @author Fandi Zhou
  */
 public class Van extends AbstractVehicle {
 
-    private boolean needInspection;//indicating whether this van requires a inspection.
+    static final int SERVICE_DISTANCE = 5000;//Vans must be serviced every 5,000 miles.
 
 
     /**
-     * Constructs a new Van instance with the specified unique identifier.
+     * Constructs a Van view of a slot in a FleetStore.
      *
-     * @param id assigned to this van.
+     * @param store the store holding this van.
+     * @param slot  the slot of this van in the store.
      */
-     Van(VehicleID id) {
-        super(id);
-        this.needInspection = false;
+     Van(FleetStore store, int slot) {
+        super(store, slot);
     }
 
     /**
@@ -40,7 +38,7 @@ public class Van extends AbstractVehicle {
      * @return the service interval in miles 5000.
      */
     public int getDistanceRequirement(){
-        return 5000;
+        return SERVICE_DISTANCE;
     }
 
     /**
@@ -50,7 +48,7 @@ public class Van extends AbstractVehicle {
      * @return true if an inspection is pending and vice versa.
      */
     public boolean requiresInspection(){
-        return needInspection;
+        return store.needsInspection(slot());
     }
 
     /**
@@ -58,7 +56,7 @@ public class Van extends AbstractVehicle {
      * @param needInspection true to flag the van for inspection and vice versa.
      */
     public void setNeedInspection(boolean needInspection) {
-        this.needInspection = needInspection;
+        store.setNeedInspection(slot(), needInspection);
     }
 
 }
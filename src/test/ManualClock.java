@@ -0,0 +1,52 @@
+package test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A Clock for tests whose time only moves when the test advances it.
+ * This lets time dependent features (workshop slots, due dates etc.) be tested without sleeping.
+ * @author Fandi Zhou
+ */
+public class ManualClock extends Clock {
+
+    private long millis;
+
+    /**
+     * Constructs a ManualClock starting at the given time.
+     * @param startMillis the start time in milliseconds since the epoch.
+     */
+    public ManualClock(long startMillis) {
+        this.millis = startMillis;
+    }
+
+    /**
+     * Moves the clock forward.
+     * @param deltaMillis the number of milliseconds to move forward.
+     */
+    public void advance(long deltaMillis) {
+        millis += deltaMillis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+}
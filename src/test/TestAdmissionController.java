@@ -0,0 +1,183 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A test class for AdmissionController.
+ * This class utilizes the Assertions framework to verify the admission layer in front of hire and return.
+ * Test:
+ * Hires and returns complete through the queue, the token bucket limits the hire rate,
+ * a full queue is rejected with a retry-after hint, and the metrics count every request.
+ * @author Fandi Zhou
+ */
+public class TestAdmissionController {
+
+    /**
+     * The main for the admission controller tests.
+     */
+    public static void main(String[] args) throws Exception {
+        System.out.println("Running AdmissionController Tests...");
+
+        tHireAndReturn();
+        System.out.println("Hire and return through the queue: pass!");
+
+        tRateLimit();
+        System.out.println("Token bucket rate limit: pass!");
+
+        tQueueFull();
+        System.out.println("Full queue rejection: pass!");
+
+        tQueueFullKeepsToken();
+        System.out.println("Full queue rejection keeps the hire token: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Tests that admitted requests are carried out and their futures completed.
+     */
+    public static void tHireAndReturn() throws Exception {
+        VehicleManager manager = new VehicleManager();
+        manager.addVehicle("Car");
+        CustomerRecord c = manager.addCustomerRecord("Adm", "It", createDate(1980, 1, 1), false);
+        CustomerRecord young = manager.addCustomerRecord("Too", "Young", createDate(2015, 1, 1), false);
+
+        try (AdmissionController ac = new AdmissionController(manager, 10, 100, 10)) {
+            Vehicle v = ac.hire(c, "Car", 2).get(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(v);
+            Assertions.assertEquals(0, manager.noOfAvailableVehicles("Car"));
+            Assertions.assertNull(ac.hire(c, "Car", 2).get(5, TimeUnit.SECONDS));// None left.
+
+            try {
+                ac.hire(young, "Car", 2).get(5, TimeUnit.SECONDS);
+                Assertions.assertNotReached();
+            } catch (ExecutionException e) {
+                Assertions.assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+
+            Assertions.assertTrue(ac.returnVehicle(v.getVehicleID(), c, 10).get(5, TimeUnit.SECONDS));
+            Assertions.assertFalse(ac.returnVehicle(v.getVehicleID(), c, 10).get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, manager.noOfAvailableVehicles("Car"));
+
+            Assertions.assertEquals(5, (int) ac.getAdmitted("Car"));
+            Assertions.assertEquals(0, (int) ac.getRejected("Car"));
+            Assertions.assertEquals(0, ac.getQueueDepth("Car"));
+        }
+    }
+
+    /**
+     * Tests that hires over the burst are rejected until the bucket refills, and that returns are not rate limited.
+     */
+    public static void tRateLimit() throws Exception {
+        VehicleManager manager = new VehicleManager();
+        manager.addVehicles("Van", 5);
+        CustomerRecord c = manager.addCustomerRecord("Rate", "Limit", createDate(1980, 1, 1), true);
+        ManualClock clock = new ManualClock(0);
+
+        try (AdmissionController ac = new AdmissionController(manager, 10, 2, 2, clock)) {
+            Vehicle first = ac.hire(c, "Van", 1).get(5, TimeUnit.SECONDS);
+            ac.hire(c, "Van", 1).get(5, TimeUnit.SECONDS);
+
+            try {
+                ac.hire(c, "Van", 1);
+                Assertions.assertNotReached();
+            } catch (AdmissionRejectedException e) {
+                Assertions.assertEquals(500, (int) e.getRetryAfterMillis());// Two tokens a second.
+            }
+            Assertions.assertEquals(1, (int) ac.getRejected("Van"));
+            Assertions.assertEquals(0, (int) ac.getRejected("Car"));// Each type has its own lane.
+
+            Assertions.assertTrue(ac.returnVehicle(first.getVehicleID(), c, 1).get(5, TimeUnit.SECONDS));
+
+            clock.advance(500);
+            Assertions.assertNotNull(ac.hire(c, "Van", 1).get(5, TimeUnit.SECONDS));
+            try {
+                ac.hire(c, "Bus", 1);
+                Assertions.assertNotReached();
+            } catch (IllegalArgumentException e) {
+                Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+            }
+        }
+    }
+
+    /**
+     * Tests that requests are rejected once the queue is full, while the manager is held busy.
+     */
+    public static void tQueueFull() throws Exception {
+        VehicleManager manager = new VehicleManager();
+        Vehicle car = manager.addVehicle("Car");
+        CustomerRecord c = manager.addCustomerRecord("Queue", "Full", createDate(1980, 1, 1), false);
+        int capacity = 4;
+
+        try (AdmissionController ac = new AdmissionController(manager, capacity, 1000, 1000)) {
+            List<Future<Boolean>> admitted = new ArrayList<>();
+            AdmissionRejectedException rejection = null;
+
+            synchronized (manager) {// The worker cannot carry out anything while the test holds the lock.
+                for (int i = 0; i < 3 * capacity && rejection == null; i++) {
+                    try {
+                        admitted.add(ac.returnVehicle(car.getVehicleID(), c, 1));
+                    } catch (AdmissionRejectedException e) {
+                        rejection = e;
+                    }
+                }
+                Assertions.assertNotNull(rejection);
+                Assertions.assertTrue(rejection.getRetryAfterMillis() >= 1);
+                Assertions.assertEquals(capacity, ac.getQueueDepth("Car"));
+                Assertions.assertEquals(1, (int) ac.getRejected("Car"));
+            }
+
+            for (Future<Boolean> f : admitted) {
+                Assertions.assertFalse(f.get(5, TimeUnit.SECONDS));// The car was never hired.
+            }
+            Assertions.assertEquals(admitted.size(), (int) ac.getAdmitted("Car"));
+        }
+    }
+
+    /**
+     * Tests that a hire turned away by a full queue does not use up a token of the rate limit.
+     */
+    public static void tQueueFullKeepsToken() throws Exception {
+        VehicleManager manager = new VehicleManager();
+        Vehicle car = manager.addVehicle("Car");
+        CustomerRecord c = manager.addCustomerRecord("Token", "Kept", createDate(1980, 1, 1), false);
+        ManualClock clock = new ManualClock(0);// Never advanced, so the single token is never refilled.
+
+        try (AdmissionController ac = new AdmissionController(manager, 1, 1, 1, clock)) {
+            Future<Boolean> queued;
+            synchronized (manager) {
+                // Wait for the worker to take the first return, so the next one stays in the queue.
+                Future<Boolean> first = ac.returnVehicle(car.getVehicleID(), c, 1);
+                long deadline = System.currentTimeMillis() + 5000;
+                while (ac.getQueueDepth("Car") > 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                queued = ac.returnVehicle(car.getVehicleID(), c, 1);
+                try {
+                    ac.hire(c, "Car", 1);
+                    Assertions.assertNotReached();
+                } catch (Throwable t) {
+                    Assertions.assertExpectedThrowable(AdmissionRejectedException.class, t);
+                }
+                Assertions.assertFalse(first.isDone());
+            }
+            Assertions.assertFalse(queued.get(5, TimeUnit.SECONDS));
+
+            Vehicle hired = ac.hire(c, "Car", 1).get(5, TimeUnit.SECONDS);// The token is still there.
+            Assertions.assertEquals(car.getVehicleID(), hired.getVehicleID());
+        }
+    }
+}
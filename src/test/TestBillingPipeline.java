@@ -0,0 +1,223 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A test class for BillingPipeline.
+ * This class utilizes the Assertions framework to verify returns are billed off the return path.
+ * Test:
+ * Invoices are priced with the tariff of the vehicle type including mileage, service and inspection charges,
+ * returns are written to the sink in bulk batches, and closing bills what is still waiting.
+ * @author Fandi Zhou
+ */
+public class TestBillingPipeline {
+
+    private static final Tariff CAR = new Tariff(4000, 20, 100, 5000, 0);// 40.00 a day, 100 free miles a day.
+    private static final Tariff VAN = new Tariff(7000, 30, 150, 8000, 6000);
+
+    /**
+     * The main for the billing pipeline tests.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Running BillingPipeline Tests...");
+
+        tPricing();
+        System.out.println("Tariff pricing of returns: pass!");
+
+        tBatches();
+        System.out.println("Micro-batched bulk writes: pass!");
+
+        tSlowSink();
+        System.out.println("Returns never wait for a slow sink: pass!");
+
+        tFailingSink();
+        System.out.println("Failed writes are retried or handed back: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * A sink keeping every invoice and the size of every batch.
+     */
+    private static final class CollectingSink implements InvoiceSink {
+        private final List<Invoice> invoices = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void write(List<Invoice> batch) {
+            invoices.addAll(batch);
+            batchSizes.add(batch.size());
+        }
+    }
+
+    /**
+     * Tests the amounts of the invoices.
+     */
+    public static void tPricing() throws InterruptedException {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(null, clock);
+        CollectingSink sink = new CollectingSink();
+        BillingPipeline billing = new BillingPipeline(clock, CAR, VAN, sink, 64, 16, 5);
+        m.addListener(billing);
+
+        Vehicle car = m.addVehicle("Car");
+        Vehicle van = m.addVehicle("Van");
+        CustomerRecord c = m.addCustomerRecord("Bill", "Ing", createDate(1980, 1, 1), true);
+
+        m.hireVehicle(c, "Car", 2);
+        m.hireVehicle(c, "Van", 12);// Needs an inspection after return.
+        m.returnVehicle(car.getVehicleID(), c, 250);// 50 miles over.
+        m.reportMileage(List.of(new OdometerReading(van.getVehicleID(), 0, 3000)));
+        m.returnVehicle(van.getVehicleID(), c, 5200);// Over the service interval.
+
+        Assertions.assertTrue(billing.awaitBilled(5000));
+        Assertions.assertEquals(2, sink.invoices.size());
+
+        Invoice ci = sink.invoices.get(0);
+        Assertions.assertEquals(car.getVehicleID(), ci.getVehicleID());
+        Assertions.assertEquals(c.getCustomerID(), ci.getCustomerID());
+        Assertions.assertEquals(2 * 4000 + 50 * 20, (int) ci.getAmount());
+        Assertions.assertFalse(ci.isService());
+
+        Invoice vi = sink.invoices.get(1);
+        Assertions.assertEquals(5200, vi.getMileage());// Telemetry distance plus the rest at return.
+        Assertions.assertTrue(vi.isService());
+        Assertions.assertTrue(vi.isInspection());
+        Assertions.assertEquals(12 * 7000 + (5200 - 12 * 150) * 30 + 8000 + 6000, (int) vi.getAmount());
+
+        billing.close();
+    }
+
+    /**
+     * Tests that many returns are written in a few large batches and that close bills the rest.
+     */
+    public static void tBatches() throws InterruptedException {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(null, clock);
+        CollectingSink sink = new CollectingSink();
+        BillingPipeline billing = new BillingPipeline(clock, CAR, VAN, sink, 256, 100, 50);
+        m.addListener(billing);
+
+        m.addVehicles("Car", 3);
+        CustomerRecord c = m.addCustomerRecord("Bulk", "Billed", createDate(1980, 1, 1), false);
+
+        int returns = 2000;
+        for (int i = 0; i < returns; i++) {
+            m.hireVehicle(c, "Car", 1);
+            Vehicle v = m.getVechilesByCustomer(c).iterator().next();
+            m.returnVehicle(v.getVehicleID(), c, 10);
+        }
+        billing.close();// Bills whatever is still waiting.
+
+        Assertions.assertEquals(returns, sink.invoices.size());
+        Assertions.assertEquals(returns, (int) billing.getInvoiced());
+        Assertions.assertEquals(0, billing.getPending());
+        for (int size : sink.batchSizes) {
+            Assertions.assertTrue(size <= 100);
+        }
+        Assertions.assertTrue(billing.getBatches() < returns / 10);// Batched, not one write per return.
+        System.out.println(returns + " returns billed in " + billing.getBatches() + " batches");
+    }
+
+    /**
+     * Tests that returns go on while the sink is stuck, spilling past the full ring, and are billed in order later.
+     */
+    public static void tSlowSink() throws InterruptedException {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(null, clock);
+        CountDownLatch stuck = new CountDownLatch(1);
+        List<Invoice> written = Collections.synchronizedList(new ArrayList<>());
+        BillingPipeline billing = new BillingPipeline(clock, CAR, VAN, batch -> {
+            try {
+                stuck.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.addAll(batch);
+        }, 4, 2, 1);
+        m.addListener(billing);
+
+        Vehicle car = m.addVehicle("Car");
+        CustomerRecord c = m.addCustomerRecord("Slow", "Sink", createDate(1980, 1, 1), false);
+        int returns = 50;
+        for (int i = 1; i <= returns; i++) {// Would never finish if a return waited for the stuck sink.
+            m.hireVehicle(c, "Car", 1);
+            m.returnVehicle(car.getVehicleID(), c, i);
+        }
+        Assertions.assertTrue(billing.getSpilled() > 0);
+
+        stuck.countDown();
+        billing.close();
+        Assertions.assertEquals(returns, written.size());
+        for (int i = 0; i < returns; i++) {
+            Assertions.assertEquals(i + 1, written.get(i).getMileage());// Spilled records keep the order of the returns.
+        }
+        Assertions.assertEquals(0, billing.getPending());
+
+        m.hireVehicle(c, "Car", 1);
+        m.returnVehicle(car.getVehicleID(), c, 1);
+        Assertions.assertEquals(1, (int) billing.getDroppedAfterClose());
+    }
+
+    /**
+     * Tests that a batch the sink fails to write is written again, that invoices the sink still refuses at close are
+     * handed back instead of being counted, and that the delay must be positive.
+     */
+    public static void tFailingSink() throws InterruptedException {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(null, clock);
+        int[] failuresLeft = {2};
+        List<Invoice> written = Collections.synchronizedList(new ArrayList<>());
+        BillingPipeline billing = new BillingPipeline(clock, CAR, VAN, batch -> {
+            if (failuresLeft[0] > 0) {
+                failuresLeft[0]--;
+                throw new IllegalStateException("Sink offline");
+            }
+            written.addAll(batch);
+        }, 16, 4, 1);
+        m.addListener(billing);
+
+        Vehicle car = m.addVehicle("Car");
+        CustomerRecord c = m.addCustomerRecord("Failing", "Sink", createDate(1980, 1, 1), false);
+        for (int i = 1; i <= 3; i++) {
+            m.hireVehicle(c, "Car", 1);
+            m.returnVehicle(car.getVehicleID(), c, i);
+        }
+        Assertions.assertTrue(billing.awaitBilled(5000));
+        Assertions.assertEquals(3, written.size());
+        Assertions.assertEquals(3, (int) billing.getInvoiced());
+        Assertions.assertEquals(2, (int) billing.getWriteFailures());
+        billing.close();
+
+        billing = new BillingPipeline(clock, CAR, VAN, batch -> {throw new IllegalStateException("Sink offline");}, 16, 4, 1);
+        m.addListener(billing);
+        m.hireVehicle(c, "Car", 1);
+        m.returnVehicle(car.getVehicleID(), c, 7);
+        billing.close();
+        Assertions.assertEquals(0, (int) billing.getInvoiced());
+        List<Invoice> unwritten = billing.takeUnwritten();
+        Assertions.assertEquals(1, unwritten.size());
+        Assertions.assertEquals(7, unwritten.get(0).getMileage());
+        Assertions.assertTrue(billing.takeUnwritten().isEmpty());
+
+        try {
+            new BillingPipeline(clock, CAR, VAN, batch -> {}, 16, 4, 0);
+            Assertions.assertNotReached();
+        } catch (Exception e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+    }
+}
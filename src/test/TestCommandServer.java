@@ -0,0 +1,106 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A test class for CommandServer and CommandClient.
+ * This class utilizes the Assertions framework to verify the binary command protocol against a manager on a local port.
+ * Test:
+ * Pipelined add, hire, availability and return commands, error statuses, and a pipeline larger than the server's buffers.
+ * @author Fandi Zhou
+ */
+public class TestCommandServer {
+
+    /**
+     * The main for the command server tests.
+     */
+    public static void main(String[] args) throws IOException {
+        System.out.println("Running CommandServer Tests...");
+
+        tPipelinedCommands();
+        System.out.println("Pipelined commands: pass!");
+
+        tLongPipeline();
+        System.out.println("Long pipeline: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Tests a batch of different commands sent in one round trip, and the answers in order.
+     */
+    public static void tPipelinedCommands() throws IOException {
+        VehicleManager manager = new VehicleManager();
+        CustomerRecord c = manager.addCustomerRecord("Kio", "Sk", createDate(1980, 1, 1), true);
+        CustomerRecord young = manager.addCustomerRecord("Ter", "Minal", createDate(2015, 1, 1), false);
+
+        try (CommandServer server = new CommandServer(manager, 0);
+             CommandClient client = new CommandClient("localhost", server.getPort(), 16)) {
+
+            client.addVehicle(FleetStore.VAN);
+            client.addVehicle(FleetStore.CAR);
+            client.hire(c.getCustomerID(), FleetStore.VAN, 3);
+            client.available(FleetStore.VAN);
+            client.hire(c.getCustomerID(), FleetStore.VAN, 3);// No Van left.
+            client.hire(young.getCustomerID(), FleetStore.CAR, 1);// Too young.
+            client.hire(999999, FleetStore.CAR, 1);// Unknown customer.
+            client.available(7);// Unknown type.
+            Assertions.assertEquals(8, client.flush());
+
+            int van = client.value(0);
+            Assertions.assertEquals(CommandProtocol.OK, client.status(0));
+            Assertions.assertEquals(CommandProtocol.OK, client.status(1));
+            Assertions.assertEquals(CommandProtocol.OK, client.status(2));
+            Assertions.assertEquals(van, client.value(2));
+            Assertions.assertEquals(0, client.value(3));
+            Assertions.assertEquals(CommandProtocol.REJECTED, client.status(4));
+            Assertions.assertEquals(CommandProtocol.INVALID, client.status(5));
+            Assertions.assertEquals(CommandProtocol.NOT_FOUND, client.status(6));
+            Assertions.assertEquals(CommandProtocol.INVALID, client.status(7));
+            Assertions.assertEquals(VehicleID.unpack(van), manager.getVechilesByCustomer(c).iterator().next().getVehicleID());
+
+            client.returnVehicle(c.getCustomerID(), van, 100);
+            client.returnVehicle(c.getCustomerID(), van, 100);// Already returned.
+            client.available(FleetStore.VAN);
+            Assertions.assertEquals(3, client.flush());
+            Assertions.assertEquals(CommandProtocol.OK, client.status(0));
+            Assertions.assertEquals(CommandProtocol.REJECTED, client.status(1));
+            Assertions.assertEquals(1, client.value(2));
+        }
+    }
+
+    /**
+     * Tests a batch whose commands and responses do not fit in the server's buffers and the sockets at once.
+     */
+    public static void tLongPipeline() throws IOException {
+        VehicleManager manager = new VehicleManager();
+        manager.addVehicles("Car", 5);
+        int n = 100_000;
+
+        try (CommandServer server = new CommandServer(manager, 0);
+             CommandClient client = new CommandClient("localhost", server.getPort(), n)) {
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < n; i++) {
+                    client.available(FleetStore.CAR);
+                }
+                Assertions.assertEquals(n, client.flush());
+                for (int i = 0; i < n; i++) {
+                    Assertions.assertEquals(5, client.value(i));
+                }
+            }
+        }
+    }
+}
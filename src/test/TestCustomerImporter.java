@@ -0,0 +1,118 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A test class for the CustomerImporter class.
+ * This class utilizes the Assertions framework to verify the functionality of the CustomerImporter class.
+ * Test:
+ * Streaming import across chunk boundaries, duplicate and malformed line rejection, strict licence values,
+ * and the first line of a duplicated customer winning whatever the chunk scheduling.
+ * @author Fandi Zhou
+ */
+public class TestCustomerImporter {
+
+    /**
+     * The main for the CustomerImporter tests.
+     */
+    public static void main(String[] args) throws IOException {
+        System.out.println("Running CustomerImporter Tests...");
+
+        tImportWithRejects();
+        System.out.println("Import with duplicates and malformed lines: pass!");
+
+        tManyChunks();
+        System.out.println("Import across many small chunks: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to find a registered customer by first name among the first Customer IDs.
+     */
+    private static CustomerRecord find(VehicleManager m, String firstName) {
+        for (int id = 1; id <= 100; id++) {
+            CustomerRecord c = m.getCustomerRecord(id);
+            if (c != null && c.getName().getFirstName().equals(firstName)) {return c;}
+        }
+        return null;
+    }
+
+    /**
+     * Tests that duplicates (in the file and already registered) and malformed lines go to the reject file.
+     */
+    public static void tImportWithRejects() throws IOException {
+        VehicleManager m = new VehicleManager();
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(1985, Calendar.MARCH, 3);
+        m.addCustomerRecord("Already", "There", cal.getTime(), false);
+
+        Path in = Files.createTempFile("customers", ".csv");
+        Path rejects = Files.createTempFile("rejects", ".csv");
+        Files.write(in, List.of(
+                "firstName,lastName,birthDate,commercialLicence",
+                "Ann,Lee,1990-01-02,true",
+                "Bob,Ray,1980-05-06,false",
+                "Ann,Lee,1990-01-02,false",
+                "Already,There,1985-03-03,true",
+                "Broken,Line,not-a-date,true",
+                "Cat,Ng,1991-01-01,yes",// Not a licence value.
+                "Dan,Oh,1992-02-02,",
+                "Eve,Lo,1993-03-03,TRUE"), StandardCharsets.UTF_8);
+
+        CustomerImporter.Report r = new CustomerImporter(m, 2, 64).importFile(in, rejects);
+
+        Assertions.assertEquals(3, (int) r.getImported());
+        Assertions.assertEquals(2, (int) r.getDuplicates());
+        Assertions.assertEquals(3, (int) r.getMalformed());
+        Assertions.assertEquals(List.of(
+                "Ann,Lee,1990-01-02,false,duplicate",
+                "Already,There,1985-03-03,true,duplicate",
+                "Broken,Line,not-a-date,true,malformed",
+                "Cat,Ng,1991-01-01,yes,malformed",
+                "Dan,Oh,1992-02-02,,malformed"), Files.readAllLines(rejects));// In file order.
+        Assertions.assertTrue(find(m, "Ann").isHaveC_licence());// The first Ann Lee line was kept.
+        Assertions.assertTrue(find(m, "Eve").isHaveC_licence());
+
+        Files.delete(in);
+        Files.delete(rejects);
+    }
+
+    /**
+     * Tests a larger file read in chunks much smaller than the file, without a trailing newline.
+     */
+    public static void tManyChunks() throws IOException {
+        VehicleManager m = new VehicleManager();
+        Path in = Files.createTempFile("customers", ".csv");
+        Path rejects = Files.createTempFile("rejects", ".csv");
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) {sb.append('\n');}
+            sb.append("First").append(i % 2500).append(",Last,1970-01-01,").append(i < 2500);// Every customer appears twice, first with a licence.
+        }
+        Files.write(in, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        CustomerImporter.Report r = new CustomerImporter(m, 4, 1024).importFile(in, rejects);
+
+        Assertions.assertEquals(2500, (int) r.getImported());
+        Assertions.assertEquals(2500, (int) r.getDuplicates());
+        Assertions.assertEquals(0, (int) r.getMalformed());
+        Assertions.assertTrue(r.getRecordsPerSecond() > 0);
+        for (int i = 0; i < 2500; i++) {// Registered in file order, the first line of each customer kept.
+            CustomerRecord c = m.getCustomerRecord(i + 1);
+            Assertions.assertEquals("First" + i, c.getName().getFirstName());
+            Assertions.assertTrue(c.isHaveC_licence());
+        }
+
+        Files.delete(in);
+        Files.delete(rejects);
+    }
+}
@@ -32,6 +32,9 @@ public class TestCustomerRecord {
         testHashCode();
         System.out.println("Tests the override hashcode method: pass!");
 
+        tCustomerStore();
+        System.out.println("Tests the compact CustomerStore: pass!");
+
         System.out.println("All tests passed!");
     }
 
@@ -145,4 +148,39 @@ public class TestCustomerRecord {
         Assertions.assertTrue(r1.equals(r2));
         Assertions.assertEquals(r1.hashCode(), r2.hashCode());
     }
+
+    /**
+     * Tests the compact CustomerStore.
+     * Test:
+     * 1. A view returned by the store is equal to a normal record with the same details.
+     * 2. Duplicates are rejected and lookups by ID return an equal view.
+     * 3. Repeated names are stored once in the string pool.
+     */
+    public static void tCustomerStore() {
+        CustomerStore store = new CustomerStore();
+        Date dob = createDate(1988, 4, 9);
+
+        CustomerRecord view = store.add("Mary", "Smith", dob, true);
+        CustomerRecord plain = new CustomerRecord(new Name("Mary", "Smith"), dob, false);
+
+        Assertions.assertEquals(plain, view);
+        Assertions.assertEquals(plain.hashCode(), view.hashCode());
+        Assertions.assertTrue(view.isHaveC_licence());
+        Assertions.assertTrue(store.contains(new Name("Mary", "Smith"), dob));
+
+        try {
+            store.add("Mary", "Smith", dob, false);
+            Assertions.assertNotReached();
+        } catch (Exception e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            store.add("Mary", "Smith", createDate(1950, 1, 1 + i), i % 2 == 0);
+        }
+        Assertions.assertEquals(1001, store.size());
+        Assertions.assertEquals(2, store.pooledNames());
+        Assertions.assertEquals(view, store.get(view.getCustomerID()));
+        Assertions.assertNull(store.get(-5));
+    }
 }
@@ -0,0 +1,171 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A test class for the customer storage implementations.
+ * This class utilizes the Assertions framework to verify the functionality of FileCustomerStorage and CachingCustomerStorage.
+ * Test:
+ * Records survive reopening the file, the cache evicts dormant customers, keeps active ones and writes behind in batches.
+ * @author Fandi Zhou
+ */
+public class TestCustomerStorage {
+
+    /**
+     * The main for the customer storage tests.
+     */
+    public static void main(String[] args) throws IOException {
+        System.out.println("Running CustomerStorage Tests...");
+
+        tFileRoundTrip();
+        System.out.println("File storage survives reopening: pass!");
+
+        tWriteBehindAndEviction();
+        System.out.println("Write behind and LRU eviction: pass!");
+
+        tManagerWithCache();
+        System.out.println("Manager keeps active customers in memory: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Tests that customers written to a file can be read back after reopening it, and duplicates are still detected.
+     */
+    public static void tFileRoundTrip() throws IOException {
+        Path file = Files.createTempFile("customers", ".dat");
+        int id;
+
+        try (FileCustomerStorage s = new FileCustomerStorage(file)) {
+            id = s.add("Ada", "Byron", createDate(1985, 12, 10), true).getCustomerID();
+            s.add("Alan", "Turing", createDate(1982, 6, 23), false);
+        }
+
+        try (FileCustomerStorage s = new FileCustomerStorage(file)) {
+            Assertions.assertEquals(2, s.size());
+            CustomerRecord r = s.get(id);
+            Assertions.assertEquals(new Name("Ada", "Byron"), r.getName());
+            Assertions.assertEquals(createDate(1985, 12, 10), r.getBirthDate());
+            Assertions.assertTrue(r.isHaveC_licence());
+            Assertions.assertTrue(s.contains(new Name("Alan", "Turing"), createDate(1982, 6, 23)));
+
+            try {
+                s.add("Ada", "Byron", createDate(1985, 12, 10), false);
+                Assertions.assertNotReached();
+            } catch (Exception e) {
+                Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+            }
+
+            // New IDs never clash with IDs loaded from the file.
+            Assertions.assertTrue(s.add("Grace", "Hopper", createDate(1976, 12, 9), true).getCustomerID() > id);
+
+            // The record returned by add is the one get reads back, at the start of the day of birth.
+            Date noon = new Date(createDate(1990, 1, 2).getTime() + 12 * 60 * 60 * 1000);
+            CustomerRecord added = s.add("Katherine", "Johnson", noon, false);
+            Assertions.assertEquals(createDate(1990, 1, 2), added.getBirthDate());
+            Assertions.assertEquals(s.get(added.getCustomerID()), added);
+
+            // A batch repeating a customer is refused as a whole.
+            int next = s.allocateCustomerID();
+            List<CustomerRecord> batch = List.of(
+                    CustomerRecord.restore(new Name("Hedy", "Lamarr"), createDate(1974, 11, 9), false, next),
+                    CustomerRecord.restore(new Name("Hedy", "Lamarr"), createDate(1974, 11, 9), true, s.allocateCustomerID()));
+            try {
+                s.store(batch);
+                Assertions.assertNotReached();
+            } catch (Exception e) {
+                Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+            }
+            Assertions.assertEquals(4, s.size());
+            Assertions.assertNull(s.get(next));
+
+            List<CustomerRecord> all = new ArrayList<>();
+            s.forEach(all::add);
+            Assertions.assertEquals(4, all.size());
+            Assertions.assertEquals(added, all.get(3));
+        }
+        Files.delete(file);
+    }
+
+    /**
+     * Tests that new customers are buffered until a full batch, and that the cache holds at most its capacity.
+     */
+    public static void tWriteBehindAndEviction() {
+        CustomerStore backing = new CustomerStore();
+        CachingCustomerStorage cache = new CachingCustomerStorage(backing, 10, 25);
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            ids.add(cache.add("Cust" + i, "Omer", createDate(1990, 1, 1), false).getCustomerID());
+        }
+        Assertions.assertEquals(0, backing.size());// Still buffered.
+        Assertions.assertEquals(24, cache.size());
+
+        cache.add("Cust24", "Omer", createDate(1990, 1, 1), false);
+        Assertions.assertEquals(25, backing.size());// One batch write.
+
+        Assertions.assertTrue(cache.cachedCount() <= 10);
+
+        // A dormant customer is loaded from the backing storage on demand.
+        long misses = cache.getMisses();
+        Assertions.assertEquals(new Name("Cust0", "Omer"), cache.get(ids.get(0)).getName());
+        Assertions.assertEquals(misses + 1, cache.getMisses());
+        cache.get(ids.get(0));
+        Assertions.assertEquals(misses + 1, cache.getMisses());
+
+        // Duplicates are found in the buffer as well as the backing storage.
+        cache.add("Late", "Comer", createDate(2000, 2, 2), false);
+        try {
+            cache.add("Late", "Comer", createDate(2000, 2, 2), false);
+            Assertions.assertNotReached();
+        } catch (Exception e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+
+        // Every customer is passed in ID order, the buffered ones written first.
+        List<Integer> order = new ArrayList<>();
+        cache.forEach(c -> order.add(c.getCustomerID()));
+        Assertions.assertEquals(26, order.size());
+        Assertions.assertEquals(26, backing.size());
+        for (int i = 1; i < order.size(); i++) {
+            Assertions.assertTrue(order.get(i - 1) < order.get(i));
+        }
+    }
+
+    /**
+     * Tests that a customer with a vehicle on hire is not evicted.
+     */
+    public static void tManagerWithCache() {
+        CustomerStore backing = new CustomerStore();
+        CachingCustomerStorage cache = new CachingCustomerStorage(backing, 2, 100);
+        VehicleManager m = new VehicleManager(cache);
+        m.addVehicle("Car");
+
+        CustomerRecord hirer = m.addCustomerRecord("Active", "Hirer", createDate(1970, 3, 3), false);
+        m.hireVehicle(hirer, "Car", 3);
+        for (int i = 0; i < 10; i++) {
+            m.addCustomerRecord("Walk" + i, "In", createDate(1995, 5, 5), false);
+        }
+        m.flushCustomers();
+        Assertions.assertEquals(11, backing.size());
+
+        long misses = cache.getMisses();
+        Assertions.assertEquals(hirer, m.getCustomerRecord(hirer.getCustomerID()));
+        Assertions.assertEquals(misses, cache.getMisses());// Still in memory.
+    }
+}
@@ -0,0 +1,243 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * A test class for EligibilityRules.
+ * This class utilizes the Assertions framework to verify the compiled hire rules.
+ * Test:
+ * The standard rules give the same answers as the old checks, masks are only worked out again on the birthday that
+ * crosses a rule's age, rules per region are applied by the manager, and a batch run agrees with a direct check.
+ * @author Fandi Zhou
+ */
+public class TestEligibilityRules {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * The main for the eligibility rules tests.
+     */
+    public static void main(String[] args) {
+        System.out.println("Running EligibilityRules Tests...");
+
+        tStandard();
+        System.out.println("Standard Car and Van rules: pass!");
+
+        tBirthdays();
+        System.out.println("Recompute only on threshold birthdays: pass!");
+
+        tRegions();
+        System.out.println("Rules per region in the manager: pass!");
+
+        tBatch();
+        System.out.println("Batch eligibility run: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Helper method to create a clock at noon of a day.
+     */
+    private static ManualClock clockAt(int year, int month, int day) {
+        return new ManualClock(LocalDate.of(year, month, day).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + DAY / 2);
+    }
+
+    /**
+     * Tests the standard rules.
+     */
+    public static void tStandard() {
+        EligibilityRules rules = EligibilityRules.standard(clockAt(2030, 6, 15));
+        String region = EligibilityRules.DEFAULT_REGION;
+
+        CustomerRecord driver = new CustomerRecord(new Name("Van", "Driver"), createDate(2000, 1, 1), true);
+        CustomerRecord noLicence = new CustomerRecord(new Name("Car", "Only"), createDate(2000, 1, 1), false);
+        CustomerRecord young = new CustomerRecord(new Name("Too", "Young"), createDate(2012, 6, 16), true);
+        CustomerRecord twenty = new CustomerRecord(new Name("Twenty", "Two"), createDate(2008, 1, 1), true);
+
+        Assertions.assertEquals(List.of("Car", "Van"), rules.hireableTypes(driver, region));
+        Assertions.assertEquals(List.of("Car"), rules.hireableTypes(noLicence, region));
+        Assertions.assertEquals(List.of(), rules.hireableTypes(young, region));
+        Assertions.assertEquals(List.of("Car"), rules.hireableTypes(twenty, region));
+
+        long van = rules.bitOf(region, "Van");
+        Assertions.assertTrue((rules.maskOf(driver) & van) != 0);
+        Assertions.assertTrue((rules.maskOf(noLicence) & van) == 0);
+        Assertions.assertTrue(rules.bitOf("nowhere", "Car") == 0);
+
+        // The reasons are the same as before the rules were compiled.
+        try {
+            rules.check(young, region, "Car");
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertEquals("Age must above 18 to rent a Car!", e.getMessage());
+        }
+        try {
+            rules.check(twenty, region, "Van");
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertEquals("Age must above 23 to rent a Van!", e.getMessage());
+        }
+        try {
+            rules.check(noLicence, region, "Van");
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertEquals("Commercial Licence Not Found!", e.getMessage());
+        }
+        rules.check(driver, region, "Van");
+        rules.check(young, region, "Bike");// Unknown types are left to the caller.
+    }
+
+    /**
+     * Tests that a cached mask is only worked out again on the birthday that moves the customer into a new age band.
+     */
+    public static void tBirthdays() {
+        ManualClock clock = clockAt(2030, 6, 15);
+        EligibilityRules rules = EligibilityRules.standard(clock);
+        String region = EligibilityRules.DEFAULT_REGION;
+
+        CustomerRecord turning18 = new CustomerRecord(new Name("Birthday", "Tomorrow"), createDate(2012, 6, 16), true);
+        Assertions.assertFalse(rules.canHire(turning18, region, "Car"));
+        Assertions.assertFalse(rules.canHire(turning18, region, "Car"));
+        Assertions.assertEquals(1, (int) rules.getRecomputations());// The second check used the cached mask.
+
+        clock.advance(DAY);
+        Assertions.assertTrue(rules.canHire(turning18, region, "Car"));
+        Assertions.assertFalse(rules.canHire(turning18, region, "Van"));
+        Assertions.assertEquals(2, (int) rules.getRecomputations());
+
+        // Birthdays 19 to 22 change nothing, so the mask is kept until the 23rd birthday.
+        clock.advance(4 * 365 * DAY);
+        Assertions.assertFalse(rules.canHire(turning18, region, "Van"));
+        Assertions.assertEquals(2, (int) rules.getRecomputations());
+        clock.advance(2 * 365 * DAY);
+        Assertions.assertTrue(rules.canHire(turning18, region, "Van"));
+        Assertions.assertEquals(3, (int) rules.getRecomputations());
+
+        // Past the last threshold the mask never needs working out again.
+        clock.advance(40 * 365 * DAY);
+        Assertions.assertTrue(rules.canHire(turning18, region, "Van"));
+        Assertions.assertEquals(3, (int) rules.getRecomputations());
+
+        // Changing a rule drops the cached masks.
+        rules.addRule(region, "Van", 70, true);
+        Assertions.assertFalse(rules.canHire(turning18, region, "Van"));
+        Assertions.assertEquals(4, (int) rules.getRecomputations());
+
+        // A different record with the same ID does not get the cached mask.
+        CustomerRecord sameID = CustomerRecord.restore(new Name("Same", "ID"), createDate(2060, 1, 1), false, turning18.getCustomerID());
+        Assertions.assertFalse(rules.canHire(sameID, region, "Car"));
+
+        // Born on the 29th of February: still 17 on the 28th in a year without one, 18 on the 1st of March.
+        clock = clockAt(2030, 2, 28);
+        rules = EligibilityRules.standard(clock);
+        CustomerRecord leapDay = new CustomerRecord(new Name("Leap", "Day"), createDate(2012, 2, 29), true);
+        Assertions.assertFalse(rules.canHire(leapDay, region, "Car"));
+        try {
+            rules.check(leapDay, region, "Car");
+            Assertions.assertNotReached();
+        } catch (Throwable t) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, t);
+        }
+        clock.advance(DAY);
+        Assertions.assertTrue(rules.canHire(leapDay, region, "Car"));
+        Assertions.assertEquals(2, (int) rules.getRecomputations());
+    }
+
+    /**
+     * Tests rules per region, and that the manager applies the rules of its region.
+     */
+    public static void tRegions() {
+        EligibilityRules rules = EligibilityRules.standard(clockAt(2030, 6, 15));
+        rules.addRule("city", "Car", 21, false);// No Vans in the city.
+        rules.addRule("farm", "Car", 17, false);
+        rules.addRule("farm", "Van", 21, false);
+
+        CustomerRecord nineteen = new CustomerRecord(new Name("Nine", "Teen"), createDate(2011, 1, 1), false);
+        Assertions.assertEquals(List.of("Car"), rules.hireableTypes(nineteen, EligibilityRules.DEFAULT_REGION));
+        Assertions.assertEquals(List.of(), rules.hireableTypes(nineteen, "city"));
+        Assertions.assertEquals(List.of("Car"), rules.hireableTypes(nineteen, "farm"));
+        try {
+            rules.check(nineteen, "city", "Van");
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertEquals("Van hire is not offered in city!", e.getMessage());
+        }
+
+        VehicleManager m = new VehicleManager();
+        m.addVehicle("Car");
+        m.addVehicle("Van");
+        try {
+            m.setEligibilityRules(rules, "moon");
+            Assertions.assertNotReached();
+        } catch (Throwable t) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, t);
+        }
+        Assertions.assertEquals(EligibilityRules.DEFAULT_REGION, m.getRegion());
+
+        EligibilityRules local = EligibilityRules.standard(java.time.Clock.systemDefaultZone());
+        local.addRule("city", "Car", 21, false);
+        local.addRule("city", "Van", 30, true);
+        m.setEligibilityRules(local, "city");
+        CustomerRecord c = m.addCustomerRecord("Young", "Driver", createDate(LocalDate.now().getYear() - 20, 1, 1), true);
+        try {
+            m.hireVehicle(c, "Car", 1);
+            Assertions.assertNotReached();
+        } catch (Throwable t) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, t);
+        }
+        try {
+            m.hireBundle(c, List.of("Car", "Van"), 1);
+            Assertions.assertNotReached();
+        } catch (Throwable t) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, t);
+        }
+
+        m.setEligibilityRules(local, EligibilityRules.DEFAULT_REGION);
+        Assertions.assertTrue(m.hireVehicle(c, "Car", 1));
+    }
+
+    /**
+     * Tests a batch run over many customers against a direct check of their ages.
+     */
+    public static void tBatch() {
+        ManualClock clock = clockAt(2030, 6, 15);
+        EligibilityRules rules = EligibilityRules.standard(clock);
+        String region = EligibilityRules.DEFAULT_REGION;
+        LocalDate today = LocalDate.of(2030, 6, 15);
+
+        Random r = new Random(48);
+        List<CustomerRecord> customers = new ArrayList<>();
+        int expectedVan = 0;
+        for (int i = 0; i < 200_000; i++) {
+            LocalDate birth = LocalDate.of(1950 + r.nextInt(80), 1 + r.nextInt(12), 1 + r.nextInt(28));
+            boolean licence = r.nextBoolean();
+            customers.add(CustomerRecord.restore(new Name("Batch", "Customer"), java.sql.Date.valueOf(birth), licence, i + 1));
+            if (licence && !birth.plusYears(23).isAfter(today)) {expectedVan++;}
+        }
+
+        long start = System.nanoTime();
+        Assertions.assertEquals(expectedVan, rules.eligible(customers, region, "Van").size());
+        long first = System.nanoTime() - start;
+
+        long before = rules.getRecomputations();
+        start = System.nanoTime();
+        Assertions.assertEquals(expectedVan, rules.eligible(customers, region, "Van").size());
+        long second = System.nanoTime() - start;
+        Assertions.assertEquals((int) before, (int) rules.getRecomputations());// Every mask came from the cache.
+        System.out.println(customers.size() + " customers: compiled " + first / 1_000_000 + " ms, cached " + second / 1_000_000 + " ms");
+    }
+}
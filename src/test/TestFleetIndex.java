@@ -0,0 +1,137 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.util.*;
+
+/**
+ * A test class for FleetIndex and FleetQuery.
+ * This class utilizes the Assertions framework to verify that bitmap queries give the same answers as a scan of the FleetStore.
+ * Test:
+ * 1. Compound queries over a fleet large enough to span several bitmap chunks, dense and sparse.
+ * 2. The index follows hires, returns, inspection flags and mileage changes.
+ * 3. The manager answers the example queries.
+ * @author Fandi Zhou
+ */
+public class TestFleetIndex {
+
+    /**
+     * The main for the FleetIndex tests.
+     */
+    public static void main(String[] args) {
+        System.out.println("Running FleetIndex Tests...");
+
+        tMatchesScan();
+        System.out.println("Queries match a scan of the store: pass!");
+
+        tManagerQueries();
+        System.out.println("Manager queries: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Tests random queries against a brute force scan, before and after random changes.
+     */
+    public static void tMatchesScan() {
+        SplittableRandom r = new SplittableRandom(40);
+        FleetStore store = new FleetStore();
+        for (VehicleID id : VehicleID.getInstances("Car", 90000, r)) {store.add("Car", id);}
+        for (VehicleID id : VehicleID.getInstances("Van", 30000, r)) {store.add("Van", id);}
+
+        for (int s = 0; s < store.size(); s++) {
+            store.setMileage(s, r.nextInt(17000));
+            store.setHired(s, r.nextInt(4) == 0);
+            if (store.kind(s) == FleetStore.VAN) {store.setNeedInspection(s, r.nextInt(50) == 0);}
+        }
+
+        FleetIndex index = new FleetIndex(store);// Indexes the existing vehicles.
+        checkRandomQueries(store, index, r);
+
+        for (int i = 0; i < 20000; i++) {// Changes after the index was built.
+            int s = r.nextInt(store.size());
+            store.setMileage(s, r.nextInt(17000));
+            store.setHired(s, !store.isHired(s));
+            store.setNeedInspection(s, r.nextInt(3) == 0);
+        }
+        checkRandomQueries(store, index, r);
+
+        FleetQuery q = new FleetQuery().type("Van").hired(false).inspectionPending(false).mileageBelow(4000);
+        List<Vehicle> found = index.find(q);
+        Assertions.assertEquals(scan(store, new int[] {FleetStore.VAN, 0, 0, 0, 4000}), found.size());
+        for (Vehicle v : found) {
+            Assertions.assertTrue(v instanceof Van);
+            Assertions.assertFalse(v.isHired());
+            Assertions.assertTrue(v.getCurrentMileage() < 4000);
+        }
+    }
+
+    /**
+     * Runs random compound queries and compares the counts with a scan.
+     */
+    private static void checkRandomQueries(FleetStore store, FleetIndex index, SplittableRandom r) {
+        for (int i = 0; i < 200; i++) {
+            int kind = r.nextInt(3) - 1;// -1 for any type.
+            int hired = r.nextInt(3) - 1;// -1 for either, 0 not hired, 1 hired.
+            int inspection = r.nextInt(3) - 1;
+            int min = r.nextInt(3) == 0 ? 0 : r.nextInt(17000);
+            int max = r.nextInt(3) == 0 ? Integer.MAX_VALUE : r.nextInt(17000);
+
+            FleetQuery q = new FleetQuery();
+            if (kind >= 0) {q.type(FleetStore.typeOf(kind));}
+            if (hired >= 0) {q.hired(hired == 1);}
+            if (inspection >= 0) {q.inspectionPending(inspection == 1);}
+            q.mileageAtLeast(min).mileageBelow(max);
+
+            int expected = scan(store, new int[] {kind, hired, inspection, min, max});
+            Assertions.assertEquals(expected, index.count(q));
+            if (i % 20 == 0) {Assertions.assertEquals(expected, index.find(q).size());}
+        }
+    }
+
+    /**
+     * Counts the matching vehicles by reading every slot.
+     * @param c kind, hired, inspection (-1 for any), min and max mileage.
+     */
+    private static int scan(FleetStore store, int[] c) {
+        int n = 0;
+        for (int s = 0; s < store.size(); s++) {
+            if (c[0] >= 0 && store.kind(s) != c[0]) {continue;}
+            if (c[1] >= 0 && store.isHired(s) != (c[1] == 1)) {continue;}
+            if (c[2] >= 0 && store.needsInspection(s) != (c[2] == 1)) {continue;}
+            if (store.mileage(s) < c[3] || store.mileage(s) >= c[4]) {continue;}
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Tests the example queries through VehicleManager as vehicles are hired and returned.
+     */
+    public static void tManagerQueries() {
+        VehicleManager m = new VehicleManager();
+        m.addVehicles("Car", 5);
+        m.addVehicles("Van", 3);
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(1980, Calendar.JANUARY, 1);
+        CustomerRecord c = m.addCustomerRecord("Query", "Index", cal.getTime(), true);
+
+        FleetQuery freeVans = new FleetQuery().type("Van").hired(false).inspectionPending(false).mileageBelow(4000);
+        FleetQuery busyCars = new FleetQuery().type("Car").hired(true).mileageAtLeast(9000);
+        Assertions.assertEquals(3, m.countVehicles(freeVans));
+        Assertions.assertEquals(0, m.countVehicles(busyCars));
+
+        m.hireVehicle(c, "Van", 12);// Flags an inspection.
+        Assertions.assertEquals(2, m.countVehicles(freeVans));
+        Assertions.assertEquals(1, m.countVehicles(new FleetQuery().inspectionPending(true)));
+
+        m.hireVehicle(c, "Car", 1);
+        Vehicle car = m.findVehicles(new FleetQuery().type("Car").hired(true)).get(0);
+        m.returnVehicle(car.getVehicleID(), c, 9500);
+        m.hireVehicle(c, "Car", 1);// The same car, it is the first free one.
+        Assertions.assertEquals(1, m.countVehicles(busyCars));
+        Assertions.assertEquals(car, m.findVehicles(busyCars).get(0));
+        Assertions.assertEquals(8, m.countVehicles(new FleetQuery()));
+    }
+}
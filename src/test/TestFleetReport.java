@@ -0,0 +1,159 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.util.*;
+
+/**
+ * A test class for FleetReport.
+ * This class utilizes the Assertions framework to verify the report is kept up to date by the manager's events.
+ * Test:
+ * Running totals follow hires, returns, services and inspections, with and without a workshop,
+ * hire days are the days actually out counted on return, open hires are reported apart,
+ * and the rolling window forgets days that have left it.
+ * @author Fandi Zhou
+ */
+public class TestFleetReport {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * The main for the fleet report tests.
+     */
+    public static void main(String[] args) {
+        System.out.println("Running FleetReport Tests...");
+
+        tTotals();
+        System.out.println("Running totals: pass!");
+
+        tRollingWindow();
+        System.out.println("Rolling day buckets: pass!");
+
+        tWorkshop();
+        System.out.println("Workshop services and inspections: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Tests the running totals.
+     */
+    public static void tTotals() {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(null, clock);
+        FleetReport report = new FleetReport(clock);
+        m.addListener(report);
+
+        m.addVehicles("Car", 3);
+        Vehicle van = m.addVehicle("Van");
+        CustomerRecord c = m.addCustomerRecord("Rep", "Ort", createDate(1980, 1, 1), true);
+
+        m.hireVehicle(c, "Car", 2);
+        m.hireVehicle(c, "Car", 5);
+        m.hireVehicle(c, "Van", 12);
+
+        Assertions.assertEquals(2, (int) report.getHires("Car"));
+        Assertions.assertEquals(0, (int) report.getHiredDays("Car"));// Nothing returned yet.
+        Assertions.assertTrue(report.getAverageHireDuration("Car") == 0);
+        Assertions.assertEquals(2, report.getOnHire("Car"));
+        Assertions.assertEquals(7, (int) report.getOpenBookedDays("Car"));
+        Assertions.assertEquals(12, (int) report.getOpenBookedDays("Van"));
+
+        clock.advance(3 * DAY + 1000);// Returned early, a part day counts as a whole one.
+        m.returnVehicle(van.getVehicleID(), c, 6000);// Serviced and inspected on return.
+        Assertions.assertEquals(0, report.getOnHire("Van"));
+        Assertions.assertEquals(0, (int) report.getOpenBookedDays("Van"));
+        Assertions.assertEquals(1, (int) report.getReturns("Van"));
+        Assertions.assertEquals(4, (int) report.getHiredDays("Van"));
+        Assertions.assertTrue(report.getAverageHireDuration("Van") == 4.0);
+        Assertions.assertEquals(4, (int) report.getHiredDaysInLast("Van", 1));// Counted on the day of the return.
+
+        Vehicle car = m.getVechilesByCustomer(c).iterator().next();
+        clock.advance(10 * DAY);// Returned late.
+        m.returnVehicle(car.getVehicleID(), c, 10);
+        Assertions.assertEquals(14, (int) report.getHiredDays("Car"));
+        Assertions.assertEquals(1, report.getOnHire("Car"));
+        Assertions.assertEquals(1, (int) report.getServices());
+        Assertions.assertEquals(1, (int) report.getInspections());
+
+        try {
+            report.getHires("Bus");
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+    }
+
+    /**
+     * Tests that the window covers the last days only and that old buckets are reused.
+     */
+    public static void tRollingWindow() {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(null, clock);
+        FleetReport report = new FleetReport(clock, 7);
+        m.addListener(report);
+
+        m.addVehicles("Car", 3);
+        CustomerRecord c = m.addCustomerRecord("Wind", "Ow", createDate(1980, 1, 1), false);
+
+        for (int day = 0; day < 10; day++) {// One 3 day hire a day, returned the same day, so one day is counted.
+            m.hireVehicle(c, "Car", 3);
+            Vehicle v = m.getVechilesByCustomer(c).iterator().next();
+            m.returnVehicle(v.getVehicleID(), c, 4000);// Every third return of a car takes it over 10,000 miles.
+            clock.advance(DAY);
+        }
+        clock.advance(-DAY);// Back to the last day with a hire.
+
+        Assertions.assertEquals(10, (int) report.getHires("Car"));
+        Assertions.assertEquals(10, (int) report.getHiredDays("Car"));
+        Assertions.assertEquals(7, (int) report.getHiresInLast("Car", 7));
+        Assertions.assertEquals(7, (int) report.getHiredDaysInLast("Car", 7));
+        Assertions.assertEquals(1, (int) report.getHiredDaysInLast("Car", 1));
+        Assertions.assertEquals(0, (int) report.getHiresInLast("Van", 7));
+        Assertions.assertEquals(3, (int) report.getServices());// The first car is hired every day and serviced on days 2, 5 and 8.
+        Assertions.assertEquals(2, (int) report.getServicesInLast(7));
+        Assertions.assertTrue(report.getServicesPerDay(7) == 2 / 7.0);
+
+        clock.advance(3 * DAY);// Three quiet days.
+        Assertions.assertEquals(4, (int) report.getHiresInLast("Car", 7));
+
+        try {
+            report.getHiresInLast("Car", 8);
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+    }
+
+    /**
+     * Tests that services and inspections done by the workshop are counted when the vehicle is released.
+     */
+    public static void tWorkshop() {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(new WorkshopScheduler(1, 1000, 1000), clock);
+        FleetReport report = new FleetReport(clock);
+        m.addListener(report);
+
+        Vehicle van = m.addVehicle("Van");
+        CustomerRecord c = m.addCustomerRecord("Work", "Shop", createDate(1980, 1, 1), true);
+        m.hireVehicle(c, "Van", 10);
+        m.returnVehicle(van.getVehicleID(), c, 10);// Needs an inspection only.
+
+        Assertions.assertEquals(0, (int) report.getInspections());
+        clock.advance(1000);
+        m.releaseFromWorkshop();
+        Assertions.assertEquals(1, (int) report.getInspections());
+        Assertions.assertEquals(1, (int) report.getInspectionsInLast(1));
+        Assertions.assertEquals(0, (int) report.getServices());
+    }
+}
@@ -0,0 +1,138 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.util.*;
+
+/**
+ * A test class for the FleetStore class.
+ * This class utilizes the Assertions framework to verify the functionality of the FleetStore class.
+ * Test:
+ * Packed IDs, flyweight Car and Van views, and lookups by ID.
+ * @author Fandi Zhou
+ */
+public class TestFleetStore {
+
+    /**
+     * The main for the FleetStore tests.
+     */
+    public static void main(String[] args) {
+        System.out.println("Running FleetStore Tests...");
+
+        tPackedIDs();
+        System.out.println("Packed ID round trip: pass!");
+
+        tViews();
+        System.out.println("Views share the state of their slot: pass!");
+
+        tSlotLookup();
+        System.out.println("Slot lookup by ID: pass!");
+
+        tRemove();
+        System.out.println("Removal compacts the store: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Tests that packing and unpacking an ID gives an equal ID, and that Cars and Vans pack to different ranges.
+     */
+    public static void tPackedIDs() {
+        for (VehicleID id : VehicleID.getInstances("Car", 100)) {
+            Assertions.assertEquals(id, VehicleID.unpack(id.pack()));
+            Assertions.assertTrue(id.pack() < VehicleID.PACKED_SPACE / 2);
+        }
+        for (VehicleID id : VehicleID.getInstances("Van", 100)) {
+            Assertions.assertEquals(id, VehicleID.unpack(id.pack()));
+            Assertions.assertTrue(id.pack() >= VehicleID.PACKED_SPACE / 2);
+        }
+    }
+
+    /**
+     * Tests that two views of the same slot are equal and see each other's changes.
+     */
+    public static void tViews() {
+        FleetStore store = new FleetStore();
+        VehicleID id = VehicleID.getInstance("Van");
+        int slot = store.add("Van", id);
+
+        Vehicle a = store.view(slot);
+        Vehicle b = store.view(slot);
+
+        Assertions.assertTrue(a instanceof Van);
+        Assertions.assertEquals(a, b);
+        Assertions.assertEquals(a.hashCode(), b.hashCode());
+        Assertions.assertEquals(id, a.getVehicleID());
+
+        a.setHired(true);
+        a.setCurrentMileage(5200);
+        ((Van) a).setNeedInspection(true);
+
+        Assertions.assertTrue(b.isHired());
+        Assertions.assertTrue(b.requiresInspection());
+        Assertions.assertTrue(b.performServiceIfDue());
+        Assertions.assertEquals(0, a.getCurrentMileage());
+        Assertions.assertEquals(0, store.countNotHired(FleetStore.VAN));
+
+        try {
+            store.add("Bus", VehicleID.getInstance("Car"));
+            Assertions.assertNotReached();
+        } catch (Exception e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+    }
+
+    /**
+     * Tests finding a slot by ID, before and after the lookup table is built.
+     */
+    public static void tSlotLookup() {
+        FleetStore store = new FleetStore(2);
+        List<VehicleID> ids = VehicleID.getInstances("Car", 50);
+        for (VehicleID id : ids.subList(0, 25)) {
+            store.add("Car", id);
+        }
+        Assertions.assertEquals(10, store.slotOf(ids.get(10)));
+        for (VehicleID id : ids.subList(25, 50)) {
+            store.add("Car", id);
+        }
+        Assertions.assertEquals(40, store.slotOf(ids.get(40)));
+        Assertions.assertEquals(-1, store.slotOf(VehicleID.getInstance("Van")));
+    }
+
+    /**
+     * Tests that removing a vehicle moves the last one into its slot, and that views follow the move.
+     */
+    public static void tRemove() {
+        FleetStore store = new FleetStore();
+        List<VehicleID> ids = VehicleID.getInstances("Van", 100);
+        for (VehicleID id : ids) {
+            store.add("Van", id);
+        }
+        Vehicle gone = store.view(3);
+        Van last = (Van) store.view(99);
+        last.setCurrentMileage(1234);
+        last.setNeedInspection(true);
+
+        store.remove(3);
+        Assertions.assertEquals(99, store.size());
+        Assertions.assertEquals(ids.get(99), store.vehicleID(3));
+        Assertions.assertEquals(3, last.getSlot());// The view found its vehicle in the new slot.
+        Assertions.assertEquals(1234, last.getCurrentMileage());
+        Assertions.assertTrue(last.requiresInspection());
+        Assertions.assertEquals(last, store.view(3));
+        Assertions.assertEquals(-1, store.slotOf(ids.get(3)));
+
+        try {
+            gone.getCurrentMileage();
+            Assertions.assertNotReached();
+        } catch (IllegalStateException e) {
+            Assertions.assertEquals(ids.get(3), gone.getVehicleID());// The ID is still known.
+        }
+
+        for (int i = 0; i < 95; i++) {// Shrinks as it empties.
+            store.remove(0);
+        }
+        Assertions.assertEquals(4, store.size());
+        Assertions.assertEquals(1234, last.getCurrentMileage());
+    }
+}
@@ -0,0 +1,130 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.util.*;
+
+/**
+ * A test class for HireHistory.
+ * This class utilizes the Assertions framework to verify the compressed history of finished hires.
+ * Test:
+ * Returns are recorded with their times and distance, queries by vehicle, time range and customer
+ * give the same answers as a plain list, and the encoding stays compact over a million records.
+ * @author Fandi Zhou
+ */
+public class TestHireHistory {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * The main for the hire history tests.
+     */
+    public static void main(String[] args) {
+        System.out.println("Running HireHistory Tests...");
+
+        tRecordsReturns();
+        System.out.println("Returns recorded from manager events: pass!");
+
+        tQueries();
+        System.out.println("Vehicle, time range and customer queries: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Tests that hires are recorded when the vehicles are returned, including distance reported during the hire.
+     */
+    public static void tRecordsReturns() {
+        ManualClock clock = new ManualClock(1000);
+        VehicleManager m = new VehicleManager(null, clock);
+        HireHistory history = new HireHistory(clock);
+        m.addListener(history);
+
+        Vehicle van = m.addVehicle("Van");
+        CustomerRecord c = m.addCustomerRecord("His", "Tory", createDate(1980, 1, 1), true);
+
+        m.hireVehicle(c, "Van", 3);
+        clock.advance(DAY);
+        m.reportMileage(List.of(new OdometerReading(van.getVehicleID(), clock.millis(), 200)));
+        clock.advance(DAY);
+        Assertions.assertEquals(0, (int) history.size());// Not finished yet.
+        m.returnVehicle(van.getVehicleID(), c, 350);
+
+        Assertions.assertEquals(1, (int) history.size());
+        HireRecord r = history.hiresOfVehicle(van.getVehicleID()).get(0);
+        Assertions.assertEquals(new HireRecord(c.getCustomerID(), van.getVehicleID().pack(), 1000, 1000 + 2 * DAY, 3, 350), r);
+        Assertions.assertEquals(van.getVehicleID(), r.getVehicleID());
+        Assertions.assertEquals(r, history.lastHiresOfCustomer(c.getCustomerID(), 20).get(0));
+    }
+
+    /**
+     * Tests the queries against a plain list of the same records, over enough records to fill many segments.
+     */
+    public static void tQueries() {
+        HireHistory history = new HireHistory(new ManualClock(0), 64);
+        Random random = new Random(8014);
+        List<VehicleID> vehicles = VehicleID.getInstances("Van", 500, new SplittableRandom(1));
+        List<HireRecord> all = new ArrayList<>();
+
+        int records = 1_000_000;
+        long end = 0;
+        for (int i = 0; i < records; i++) {
+            end += random.nextInt(60_000);
+            int days = 1 + random.nextInt(14);
+            HireRecord r = new HireRecord(1 + random.nextInt(50_000), vehicles.get(random.nextInt(vehicles.size())).pack(),
+                    end - days * DAY, end, days, random.nextInt(2000));
+            history.append(r);
+            all.add(r);
+        }
+        Assertions.assertEquals(records, (int) history.size());
+        Assertions.assertTrue(history.getSegmentCount() > 100);
+
+        long bytes = history.getEncodedBytes();
+        System.out.println("Encoded " + records + " hires in " + bytes + " bytes (" + (bytes / (double) records) + " bytes per hire)");
+        Assertions.assertTrue(bytes < records * 20L);// A HireRecord object alone takes about 48 bytes.
+        long indexBytes = history.getIndexBytes();
+        System.out.println("Indexed them in " + indexBytes + " bytes of block lists");
+        Assertions.assertTrue(indexBytes < records * 4L);// A long per vehicle and customer of each block took about 16 per hire.
+
+        // All hires of one vehicle in a time range.
+        VehicleID target = vehicles.get(7);
+        long from = all.get(records / 3).getStart();
+        long to = all.get(records / 2).getStart();
+        List<HireRecord> expected = new ArrayList<>();
+        for (HireRecord r : all) {
+            if (r.getPackedVehicleID() == target.pack() && r.getStart() >= from && r.getStart() < to) {expected.add(r);}
+        }
+        long t0 = System.nanoTime();
+        List<HireRecord> found = history.hiresOfVehicle(target, from, to);
+        long vehicleMicros = (System.nanoTime() - t0) / 1000;
+        Assertions.assertEquals(expected, found);
+        Assertions.assertTrue(!found.isEmpty());
+
+        // The last 20 hires of one customer.
+        int customer = all.get(records - 1).getCustomerID();
+        List<HireRecord> last = new ArrayList<>();
+        for (int i = all.size() - 1; i >= 0 && last.size() < 20; i--) {
+            if (all.get(i).getCustomerID() == customer) {last.add(all.get(i));}
+        }
+        t0 = System.nanoTime();
+        List<HireRecord> lastFound = history.lastHiresOfCustomer(customer, 20);
+        long customerMicros = (System.nanoTime() - t0) / 1000;
+        Assertions.assertEquals(last, lastFound);
+        Assertions.assertEquals(all.get(records - 1), lastFound.get(0));
+
+        System.out.println("Vehicle range query " + vehicleMicros + " us, customer last 20 query " + customerMicros + " us");
+
+        Assertions.assertTrue(history.lastHiresOfCustomer(999_999, 20).isEmpty());
+        Assertions.assertTrue(history.hiresOfVehicle(VehicleID.getInstance("Car")).isEmpty());// Never hired.
+    }
+}
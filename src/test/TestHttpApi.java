@@ -0,0 +1,134 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Date;
+
+/**
+ * A test class for HttpApi and HttpLoadClient.
+ * This class utilizes the Assertions framework to verify the JSON endpoints against a manager on a local port.
+ * Test:
+ * Adding vehicles and customers, hiring, listing and returning over HTTP, error statuses, a short load test
+ * and rejection by the admission layer.
+ * @author Fandi Zhou
+ */
+public class TestHttpApi {
+
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * The main for the HTTP API tests.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.out.println("Running HttpApi Tests...");
+        HttpApi.enableTcpNoDelay();
+
+        tEndpoints();
+        System.out.println("Endpoints: pass!");
+
+        tLoadClient();
+        System.out.println("Load client: pass!");
+
+        tAdmission();
+        System.out.println("Admission rejection: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Tests every endpoint, including invalid requests.
+     */
+    public static void tEndpoints() throws IOException, InterruptedException {
+        VehicleManager manager = new VehicleManager();
+        try (HttpApi api = new HttpApi(manager, 0)) {
+            String base = "http://localhost:" + api.getPort();
+
+            HttpResponse<String> r = send("POST", base + "/vehicles?type=Van");
+            Assertions.assertEquals(201, r.statusCode());
+            Assertions.assertTrue(r.body().contains("\"type\":\"Van\""));
+            Assertions.assertEquals(1, manager.noOfAvailableVehicles("Van"));
+
+            r = send("POST", base + "/customers?firstName=Ht&lastName=Tp&dob=1980-05-01&commercialLicence=true");
+            Assertions.assertEquals(201, r.statusCode());
+            int id = Integer.parseInt(r.body().replaceAll("\\D", ""));
+            Assertions.assertNotNull(manager.getCustomerRecord(id));
+
+            r = send("POST", base + "/hires?customerID=" + id + "&type=Van&duration=3");
+            Assertions.assertEquals(201, r.statusCode());
+            Assertions.assertTrue(r.body().startsWith("{\"hired\":true,\"vehicleID\":\""));
+            String vehicleID = r.body().split("\"vehicleID\":\"")[1].split("\"")[0];
+
+            r = send("GET", base + "/availability?type=Van");
+            Assertions.assertEquals("{\"type\":\"Van\",\"available\":0}", r.body());
+
+            r = send("GET", base + "/customers/" + id + "/vehicles");
+            Assertions.assertEquals("{\"customerID\":" + id + ",\"vehicles\":[{\"vehicleID\":\"" + vehicleID + "\",\"type\":\"Van\"}]}", r.body());
+
+            r = send("POST", base + "/hires?customerID=" + id + "&type=Van&duration=3");// No Van left.
+            Assertions.assertEquals(409, r.statusCode());
+            Assertions.assertEquals("{\"hired\":false}", r.body());
+
+            r = send("POST", base + "/returns?customerID=" + id + "&vehicleID=" + vehicleID + "&mileage=100");
+            Assertions.assertEquals(200, r.statusCode());
+            Assertions.assertEquals(1, manager.noOfAvailableVehicles("Van"));
+
+            r = send("POST", base + "/returns?customerID=" + id + "&vehicleID=" + vehicleID + "&mileage=100");// Already returned.
+            Assertions.assertEquals(409, r.statusCode());
+
+            Assertions.assertEquals(400, send("POST", base + "/vehicles?type=Bus").statusCode());
+            Assertions.assertEquals(400, send("POST", base + "/hires?customerID=" + id + "&type=Car").statusCode());
+            Assertions.assertEquals(400, send("POST", base + "/customers?firstName=A&lastName=B&dob=yesterday").statusCode());
+            Assertions.assertEquals(400, send("POST", base + "/customers?firstName=A&lastName=B&dob=1980-01-01&commercialLicence=yes").statusCode());
+            Assertions.assertEquals(201, send("POST", base + "/customers?firstName=A&lastName=B&dob=1980-01-01&commercialLicence=FALSE").statusCode());
+            Assertions.assertEquals(404, send("GET", base + "/customers/999999/vehicles").statusCode());
+            Assertions.assertEquals(404, send("GET", base + "/nowhere").statusCode());
+        }
+    }
+
+    /**
+     * Tests that the load client sends every request and reports ordered percentiles.
+     */
+    public static void tLoadClient() throws IOException, InterruptedException {
+        VehicleManager manager = new VehicleManager();
+        manager.addVehicles("Car", 10);
+        try (HttpApi api = new HttpApi(manager, 0)) {
+            URI uri = URI.create("http://localhost:" + api.getPort() + "/availability?type=Car");
+            HttpLoadClient.Result result = new HttpLoadClient().run(uri, 4, 400);
+
+            Assertions.assertEquals(400, result.getRequests());
+            Assertions.assertEquals(0, result.getErrors());
+            Assertions.assertTrue(result.getRequestsPerSecond() > 0);
+            Assertions.assertTrue(result.percentileMicros(50) <= result.percentileMicros(99));
+        }
+    }
+
+    /**
+     * Tests that a hire over the admission rate limit gets status 429 and a Retry-After header.
+     */
+    public static void tAdmission() throws IOException, InterruptedException {
+        VehicleManager manager = new VehicleManager();
+        manager.addVehicles("Car", 3);
+        CustomerRecord c = manager.addCustomerRecord("Bur", "St", new Date(0), false);
+
+        try (AdmissionController ac = new AdmissionController(manager, 10, 0.001, 1);
+             HttpApi api = new HttpApi(manager, 0, ac)) {
+            String hire = "http://localhost:" + api.getPort() + "/hires?customerID=" + c.getCustomerID() + "&type=Car&duration=1";
+
+            Assertions.assertEquals(201, send("POST", hire).statusCode());
+            HttpResponse<String> r = send("POST", hire);
+            Assertions.assertEquals(429, r.statusCode());
+            Assertions.assertTrue(Long.parseLong(r.headers().firstValue("Retry-After").orElse("0")) > 0);
+            Assertions.assertEquals(2, manager.noOfAvailableVehicles("Car"));
+        }
+    }
+
+    private static HttpResponse<String> send(String method, String uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri)).method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,304 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A test class for LicenceCache.
+ * This class utilizes the Assertions framework to verify cached licence lookups.
+ * Test:
+ * Answers are served fresh, refreshed ahead of expiry and served stale while being looked up again,
+ * lookups for a customer are coalesced, failures keep the last answer, answers past the maximum staleness and misses
+ * follow the miss policy, the manager warms the cache, and a Van hire uses the cached answer without waiting for the registry.
+ * @author Fandi Zhou
+ */
+public class TestLicenceCache {
+
+    private static final long MINUTE = 60L * 1000;
+
+    /**
+     * The main for the licence cache tests.
+     */
+    public static void main(String[] args) throws Exception {
+        System.out.println("Running LicenceCache Tests...");
+
+        tLifecycle();
+        System.out.println("Fresh, refresh ahead and stale answers: pass!");
+
+        tCoalescing();
+        System.out.println("Coalesced lookups: pass!");
+
+        tMaxStaleAndMissPolicy();
+        System.out.println("Maximum staleness and miss policy: pass!");
+
+        tWarming();
+        System.out.println("Cache warmed on new and active customers: pass!");
+
+        tVanHire();
+        System.out.println("Van hire with cached licences: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Helper method to run the lookups queued on a manual executor.
+     */
+    private static void runAll(Deque<Runnable> tasks) {
+        while (!tasks.isEmpty()) {tasks.poll().run();}
+    }
+
+    /**
+     * Tests the life of a cached answer, running the lookups by hand.
+     */
+    public static void tLifecycle() {
+        ManualClock clock = new ManualClock(0);
+        InMemoryLicenceRegistry registry = new InMemoryLicenceRegistry();
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        LicenceCache cache = new LicenceCache(registry, clock, 60 * MINUTE, 10 * MINUTE, tasks::add);
+
+        CustomerRecord c = new CustomerRecord(new Name("Lic", "Ensed"), createDate(1980, 1, 1), true);
+        CustomerRecord none = new CustomerRecord(new Name("No", "Licence"), createDate(1980, 1, 1), false);
+
+        // Never looked up: the registered licence is used and one lookup is started for both requests.
+        Assertions.assertTrue(cache.isValid(c));
+        Assertions.assertTrue(cache.isValid(c));
+        Assertions.assertEquals(1, tasks.size());
+        Assertions.assertEquals(2, (int) cache.getMisses());
+        Assertions.assertEquals(1, (int) cache.getCoalesced());
+        runAll(tasks);
+        Assertions.assertEquals(1, (int) registry.getLookups());
+
+        // Without a licence there is nothing to look up.
+        Assertions.assertFalse(cache.isValid(none));
+        Assertions.assertEquals(0, tasks.size());
+
+        // Revoked, but the fresh answer is used until the refresh ahead window.
+        registry.revoke(c.getCustomerID());
+        clock.advance(49 * MINUTE);
+        Assertions.assertTrue(cache.isValid(c));
+        Assertions.assertEquals(0, tasks.size());
+        clock.advance(2 * MINUTE);
+        Assertions.assertTrue(cache.isValid(c));// Still served, a lookup is started ahead of the expiry.
+        Assertions.assertEquals(1, tasks.size());
+        runAll(tasks);
+        Assertions.assertFalse(cache.isValid(c));
+
+        // Expired: the old answer is served while it is looked up again.
+        registry.reinstate(c.getCustomerID());
+        clock.advance(61 * MINUTE);
+        Assertions.assertFalse(cache.isValid(c));
+        Assertions.assertEquals(1, (int) cache.getStale());
+        runAll(tasks);
+        Assertions.assertTrue(cache.isValid(c));
+
+        // A failed lookup keeps the last answer and is tried again on the next request.
+        registry.setOnline(false);
+        clock.advance(61 * MINUTE);
+        Assertions.assertTrue(cache.isValid(c));
+        runAll(tasks);
+        Assertions.assertEquals(1, (int) cache.getFailures());
+        Assertions.assertTrue(cache.isValid(c));
+        Assertions.assertEquals(1, tasks.size());
+        registry.setOnline(true);
+        runAll(tasks);
+        Assertions.assertEquals(1, (int) cache.getFailures());
+
+        try {
+            new LicenceCache(registry, clock, MINUTE, 2 * MINUTE);
+            Assertions.assertNotReached();
+        } catch (Throwable t) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, t);
+        }
+    }
+
+    /**
+     * Tests that many threads asking for the same customer share a single lookup, held open by a latch.
+     */
+    public static void tCoalescing() throws Exception {
+        InMemoryLicenceRegistry registry = new InMemoryLicenceRegistry();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LicenceRegistry blocked = c -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new java.io.IOException("Lookup interrupted", e);
+            }
+            return registry.isCommercialLicenceValid(c);
+        };
+        LicenceCache cache = new LicenceCache(blocked, new ManualClock(0), 60 * MINUTE, 10 * MINUTE);
+        CustomerRecord c = new CustomerRecord(new Name("Many", "Requests"), createDate(1980, 1, 1), true);
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> requests = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            requests.add(pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    Assertions.assertTrue(cache.isValid(c));
+                }
+            }));
+        }
+        for (Future<?> f : requests) {
+            f.get(5, TimeUnit.SECONDS);// Every request is answered while the lookup is still blocked.
+        }
+        pool.shutdown();
+
+        Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> pending = cache.refresh(c);// Joins the blocked lookup as well.
+        Assertions.assertTrue(cache.getCoalesced() > 0);
+        release.countDown();
+        Assertions.assertTrue(pending.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, (int) registry.getLookups());
+        cache.close();
+    }
+
+    /**
+     * Tests that an answer past the maximum staleness is not trusted and is swept out, and the miss policy.
+     */
+    public static void tMaxStaleAndMissPolicy() {
+        ManualClock clock = new ManualClock(0);
+        InMemoryLicenceRegistry registry = new InMemoryLicenceRegistry();
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        LicenceCache cache = new LicenceCache(registry, clock, 60 * MINUTE, 10 * MINUTE, tasks::add);
+        cache.setMaxStale(120 * MINUTE);
+
+        CustomerRecord revoked = new CustomerRecord(new Name("Stale", "Revoked"), createDate(1980, 1, 1), true);
+        CustomerRecord valid = new CustomerRecord(new Name("Stale", "Valid"), createDate(1980, 1, 1), true);
+        registry.revoke(revoked.getCustomerID());
+        cache.refresh(revoked);
+        cache.refresh(valid);
+        runAll(tasks);
+        registry.setOnline(false);// A long outage.
+
+        clock.advance(119 * MINUTE);
+        Assertions.assertFalse(cache.isValid(revoked));// Stale, but within the maximum.
+        Assertions.assertTrue(cache.isValid(valid));
+        runAll(tasks);
+        clock.advance(2 * MINUTE);
+        Assertions.assertFalse(cache.isValid(revoked));// Too old: refused, never the registered licence.
+        Assertions.assertFalse(cache.isValid(valid));
+        Assertions.assertEquals(2, (int) cache.getExpired());
+        Assertions.assertEquals(0, cache.size());// Dropped.
+        Assertions.assertFalse(cache.isValid(revoked));// A dropped answer is not trusted as a new customer would be.
+        runAll(tasks);
+
+        registry.setOnline(true);
+        Assertions.assertFalse(cache.isValid(valid));// Still refused, and looked up again.
+        runAll(tasks);
+        Assertions.assertTrue(cache.isValid(valid));
+        Assertions.assertFalse(cache.isValid(revoked));
+        runAll(tasks);
+        Assertions.assertFalse(cache.isValid(revoked));// The registry's answer.
+
+        // Customers no longer asked about are swept out by a later lookup.
+        CustomerRecord other = new CustomerRecord(new Name("Later", "Lookup"), createDate(1980, 1, 1), true);
+        clock.advance(121 * MINUTE);
+        cache.refresh(other);
+        runAll(tasks);
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertFalse(cache.isValid(valid));// Until the registry has answered again.
+        runAll(tasks);
+        Assertions.assertTrue(cache.isValid(valid));
+
+        // The miss policy for customers never looked up.
+        CustomerRecord unknown = new CustomerRecord(new Name("Never", "Seen"), createDate(1980, 1, 1), true);
+        cache.setTrustRegistered(false);
+        Assertions.assertFalse(cache.isValid(unknown));
+        runAll(tasks);
+        Assertions.assertTrue(cache.isValid(unknown));
+        CustomerRecord trusted = new CustomerRecord(new Name("Also", "New"), createDate(1980, 1, 1), true);
+        cache.setTrustRegistered(true);
+        Assertions.assertTrue(cache.isValid(trusted));
+
+        try {
+            cache.setMaxStale(MINUTE);
+            Assertions.assertNotReached();
+        } catch (Throwable t) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, t);
+        }
+    }
+
+    /**
+     * Tests that the manager starts a lookup when a customer with a licence is added, and none when the answer is fresh.
+     */
+    public static void tWarming() {
+        ManualClock clock = new ManualClock(0);
+        InMemoryLicenceRegistry registry = new InMemoryLicenceRegistry();
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        LicenceCache cache = new LicenceCache(registry, clock, 60 * MINUTE, 10 * MINUTE, tasks::add);
+
+        VehicleManager m = new VehicleManager();
+        m.getEligibilityRules().setLicenceCache(cache);
+        m.addVehicles("Van", 2);
+        CustomerRecord c = m.addCustomerRecord("Warm", "Start", createDate(1980, 1, 1), true);
+        m.addCustomerRecord("No", "Licence", createDate(1980, 1, 1), false);
+        Assertions.assertEquals(1, tasks.size());
+        runAll(tasks);
+
+        // The first Van hire finds the answer cached.
+        Assertions.assertTrue(m.hireVehicle(c, "Van", 1));
+        Assertions.assertEquals(0, (int) cache.getMisses());
+        Assertions.assertEquals(0, tasks.size());// Becoming active with a fresh answer needs no lookup.
+
+        // A customer becoming active again after the refresh ahead point is looked up before they ask.
+        m.returnVehicle(m.getVechilesByCustomer(c).iterator().next().getVehicleID(), c, 10);
+        clock.advance(55 * MINUTE);
+        Assertions.assertTrue(m.hireVehicle(c, "Van", 1));
+        Assertions.assertTrue(tasks.size() >= 1);
+        runAll(tasks);
+        Assertions.assertEquals(2, (int) registry.getLookups());
+    }
+
+    /**
+     * Tests that the Van check of the manager uses the cached licence and does not wait for the registry.
+     */
+    public static void tVanHire() throws Exception {
+        InMemoryLicenceRegistry registry = new InMemoryLicenceRegistry();
+        registry.setDelay(200);
+        LicenceCache cache = new LicenceCache(registry, java.time.Clock.systemDefaultZone(), 60 * MINUTE, 10 * MINUTE);
+
+        VehicleManager m = new VehicleManager();
+        m.getEligibilityRules().setLicenceCache(cache);
+        m.addVehicles("Van", 2);
+        m.addVehicle("Car");
+        CustomerRecord c = m.addCustomerRecord("Van", "Driver", createDate(1980, 1, 1), true);
+        registry.revoke(c.getCustomerID());
+
+        // The first hire goes through on the registered licence, without waiting for the slow registry.
+        long start = System.nanoTime();
+        Assertions.assertTrue(m.hireVehicle(c, "Van", 1));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(150));
+
+        // Once the registry has answered, the revoked licence is refused.
+        Assertions.assertFalse(cache.refresh(c).get(5, TimeUnit.SECONDS));
+        try {
+            m.hireVehicle(c, "Van", 1);
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertEquals("Commercial Licence is no longer valid!", e.getMessage());
+        }
+
+        // A Car does not need the licence, so the registry is not asked.
+        long lookups = registry.getLookups();
+        long requests = cache.getHits() + cache.getMisses() + cache.getStale();
+        Assertions.assertTrue(m.hireVehicle(c, "Car", 1));
+        Assertions.assertEquals(lookups, registry.getLookups());
+        Assertions.assertEquals(requests, cache.getHits() + cache.getMisses() + cache.getStale());
+        cache.close();
+    }
+}
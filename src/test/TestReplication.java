@@ -0,0 +1,119 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A test class for ReplicationPrimary and ReplicationFollower.
+ * This class utilizes the Assertions framework to verify that a follower on localhost keeps an identical read only replica.
+ * Test:
+ * Vehicles, customers, hires, returns, services, inspections and retirements are applied in order.
+ * A late follower is brought up to date with a snapshot, the log only keeps unacknowledged changes,
+ * and a primary cannot be created for a manager that already has vehicles.
+ * @author Fandi Zhou
+ */
+public class TestReplication {
+
+    /**
+     * The main for the replication tests.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.out.println("Running Replication Tests...");
+
+        tFollowerMatchesPrimary();
+        System.out.println("Follower replica matches the primary: pass!");
+
+        tRejectsNonEmptyManager();
+        System.out.println("Primary rejects a manager with existing state: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Tests that two followers, one connected late, end up with the same answers as the primary.
+     */
+    public static void tFollowerMatchesPrimary() throws IOException, InterruptedException {
+        VehicleManager primary = new VehicleManager();
+
+        try (ReplicationPrimary rp = new ReplicationPrimary(primary, 0);
+             ReplicationFollower early = new ReplicationFollower("localhost", rp.getPort())) {
+
+            primary.addVehicles("Car", 50);
+            Vehicle van = primary.addVehicle("Van");
+            CustomerRecord c = primary.addCustomerRecord("Repl", "Ica", createDate(1980, 1, 1), true);
+            CustomerRecord d = primary.addCustomerRecord("Fol", "Lower", createDate(1990, 1, 1), false);
+
+            primary.hireVehicle(c, "Van", 12);// Long hire, needs an inspection after return.
+            primary.hireVehicle(c, "Car", 2);
+            primary.hireVehicle(d, "Car", 2);
+            Vehicle dCar = primary.getVechilesByCustomer(d).iterator().next();
+            primary.reportMileage(List.of(new OdometerReading(dCar.getVehicleID(), System.currentTimeMillis() + 1000, 70)));// Telemetry during the hire.
+            primary.returnVehicle(van.getVehicleID(), c, 5100);// Serviced and inspected on return.
+            Vehicle spare = primary.addVehicle("Car");
+            primary.retireVehicle(spare.getVehicleID());
+
+            try (ReplicationFollower late = new ReplicationFollower("localhost", rp.getPort())) {
+                long last = rp.getLastSequence();
+                Assertions.assertTrue(early.awaitSequence(last, 5000));
+                Assertions.assertTrue(late.awaitSequence(last, 5000));
+
+                for (ReplicationFollower f : List.of(early, late)) {
+                    VehicleManager replica = f.getManager();
+                    Assertions.assertEquals(48, replica.noOfAvailableVehicles("Car"));
+                    Assertions.assertEquals(1, replica.noOfAvailableVehicles("Van"));
+                    Assertions.assertEquals(1, replica.getVechilesByCustomer(c).size());
+                    Assertions.assertEquals(1, replica.getVechilesByCustomer(d).size());
+                    Assertions.assertEquals(primary.getVechilesByCustomer(d).iterator().next().getVehicleID(),
+                            replica.getVechilesByCustomer(d).iterator().next().getVehicleID());
+                    Assertions.assertTrue(replica.getDueTime(dCar.getVehicleID()) > 0);// Due times are kept for a promotion.
+                    Assertions.assertEquals(2, replica.noOfCustomers());
+                    Assertions.assertEquals(primary.noOfVehicles(), replica.noOfVehicles());
+                    Assertions.assertEquals(70, replica.getVechilesByCustomer(d).iterator().next().getCurrentMileage());
+                    Assertions.assertEquals(primary.getCustomerRecord(c.getCustomerID()), replica.getCustomerRecord(c.getCustomerID()));
+                }
+
+                // Lag drops to zero once every follower has acknowledged.
+                long deadline = System.currentTimeMillis() + 5000;
+                while (rp.getReplicationLag() > 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                Assertions.assertEquals(0, (int) rp.getReplicationLag());
+                Assertions.assertEquals(2, rp.getFollowerCount());
+                Assertions.assertTrue(rp.getSnapshotsSent() >= 1);// The late follower's changes had been dropped.
+                Assertions.assertEquals(0, rp.getLogSize());// Every change is acknowledged, none is kept.
+
+                // Changes after the snapshot are streamed as usual.
+                primary.returnVehicle(dCar.getVehicleID(), d, 30);
+                Assertions.assertTrue(late.awaitSequence(rp.getLastSequence(), 5000));
+                Assertions.assertEquals(0, late.getManager().getVechilesByCustomer(d).size());
+                Assertions.assertEquals(49, late.getManager().noOfAvailableVehicles("Car"));
+            }
+        }
+    }
+
+    /**
+     * Tests that a primary cannot be created for a manager whose earlier changes it could never send.
+     */
+    public static void tRejectsNonEmptyManager() throws IOException {
+        VehicleManager primary = new VehicleManager();
+        primary.addVehicle("Car");
+        try {
+            new ReplicationPrimary(primary, 0).close();
+            Assertions.assertNotReached();
+        } catch (Throwable t) {
+            Assertions.assertExpectedThrowable(IllegalStateException.class, t);
+        }
+    }
+}
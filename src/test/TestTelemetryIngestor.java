@@ -0,0 +1,162 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.util.*;
+
+/**
+ * A test class for the odometer telemetry of hires, VehicleManager.reportMileage and TelemetryIngestor.
+ * This class utilizes the Assertions framework to verify mileage is taken in during a hire.
+ * Test:
+ * Readings move the mileage on in place, late, repeated and stale readings are skipped,
+ * a service due alert is raised as soon as a vehicle crosses its interval,
+ * the return only adds the distance not yet reported, and the ingestor applies readings sent from many threads.
+ * @author Fandi Zhou
+ */
+public class TestTelemetryIngestor {
+
+    /**
+     * The main for the telemetry tests.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Running Telemetry Tests...");
+
+        tReportMileage();
+        System.out.println("Readings applied in place, out of order readings skipped: pass!");
+
+        tServiceDueAlert();
+        System.out.println("Service due alert during a hire: pass!");
+
+        tIngestor();
+        System.out.println("Batched ingestion from many threads: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Tests applying readings directly.
+     * Test:
+     * 1. A reading adds the distance since the last reading of the hire.
+     * 2. Repeated, older and pre-hire readings and readings for vehicles not on hire are skipped.
+     * 3. The return adds only the rest of the trip.
+     */
+    public static void tReportMileage() {
+        ManualClock clock = new ManualClock(1000);
+        VehicleManager m = new VehicleManager(null, clock);
+        Vehicle car = m.addVehicle("Car");
+        Vehicle idle = m.addVehicle("Car");
+        CustomerRecord c = m.addCustomerRecord("Tele", "Metry", createDate(1980, 1, 1), false);
+
+        Assertions.assertTrue(m.hireVehicle(c, "Car", 3));
+        VehicleID id = car.getVehicleID();
+
+        Assertions.assertEquals(1, m.reportMileage(List.of(new OdometerReading(id, 2000, 120))));
+        Assertions.assertEquals(120, car.getCurrentMileage());
+
+        // Out of order: the reading of 150 arrives after the one of 300.
+        Assertions.assertEquals(1, m.reportMileage(List.of(new OdometerReading(id, 4000, 300), new OdometerReading(id, 3000, 150))));
+        Assertions.assertEquals(300, car.getCurrentMileage());
+
+        // Repeated reading, a reading from before the hire and a vehicle not on hire.
+        Assertions.assertEquals(0, m.reportMileage(List.of(new OdometerReading(id, 4000, 300),
+                new OdometerReading(id, 500, 900), new OdometerReading(idle.getVehicleID(), 4000, 50))));
+        Assertions.assertEquals(300, car.getCurrentMileage());
+        Assertions.assertEquals(0, idle.getCurrentMileage());
+
+        m.returnVehicle(id, c, 420);
+        Assertions.assertEquals(420, car.getCurrentMileage());// Not 720.
+
+        // Readings of the finished hire arriving late add nothing.
+        Assertions.assertEquals(0, m.reportMileage(List.of(new OdometerReading(id, 5000, 400))));
+        Assertions.assertEquals(420, car.getCurrentMileage());
+
+        try {
+            new OdometerReading(id, 0, -1);
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+    }
+
+    /**
+     * Tests that listeners hear about a vehicle crossing its service interval during the hire, once.
+     */
+    public static void tServiceDueAlert() {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(null, clock);
+        Vehicle van = m.addVehicle("Van");
+        CustomerRecord c = m.addCustomerRecord("Long", "Haul", createDate(1980, 1, 1), true);
+
+        List<Vehicle> due = new ArrayList<>();
+        m.addListener(new FleetEventListener() {
+            @Override
+            public void serviceDue(Vehicle v) {due.add(v);}
+        });
+
+        m.hireVehicle(c, "Van", 5);
+        m.reportMileage(List.of(new OdometerReading(van.getVehicleID(), 10, 4000)));
+        Assertions.assertTrue(due.isEmpty());
+
+        m.reportMileage(List.of(new OdometerReading(van.getVehicleID(), 20, 5100)));
+        Assertions.assertEquals(1, due.size());
+        Assertions.assertEquals(van, due.get(0));
+        Assertions.assertTrue(m.vehiclesDueForService("Van", 0).contains(van));
+
+        m.reportMileage(List.of(new OdometerReading(van.getVehicleID(), 30, 6000)));
+        Assertions.assertEquals(1, due.size());// Already over the interval.
+
+        m.returnVehicle(van.getVehicleID(), c, 6000);
+        Assertions.assertEquals(0, van.getCurrentMileage());// Serviced on return.
+    }
+
+    /**
+     * Tests the ingestor with readings sent from several threads, shuffled and repeated.
+     */
+    public static void tIngestor() throws InterruptedException {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(null, clock);
+        List<Vehicle> cars = m.addVehicles("Car", 30);
+        for (int i = 0; i < 10; i++) {
+            CustomerRecord c = m.addCustomerRecord("Driver", "No" + i, createDate(1980, 1, 1), false);
+            for (int j = 0; j < 3; j++) {m.hireVehicle(c, "Car", 2);}
+        }
+
+        try (TelemetryIngestor ingestor = new TelemetryIngestor(m, 100000, 256)) {
+            Thread[] senders = new Thread[4];
+            for (int t = 0; t < senders.length; t++) {
+                int seed = t;
+                senders[t] = new Thread(() -> {
+                    List<OdometerReading> readings = new ArrayList<>();
+                    for (Vehicle v : cars) {
+                        for (int k = 1; k <= 100; k++) {readings.add(new OdometerReading(v.getVehicleID(), k, k * 10));}
+                    }
+                    Collections.shuffle(readings, new Random(seed));
+                    for (OdometerReading r : readings) {Assertions.assertTrue(ingestor.submit(r));}
+                });
+                senders[t].start();
+            }
+            for (Thread t : senders) {t.join();}
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (ingestor.getProcessed() < ingestor.getAccepted() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assertions.assertEquals(12000, (int) ingestor.getProcessed());
+            Assertions.assertEquals(0, (int) ingestor.getDropped());
+        }
+
+        for (Vehicle v : cars) {
+            Assertions.assertEquals(1000, v.getCurrentMileage());
+        }
+    }
+}
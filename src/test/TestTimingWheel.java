@@ -0,0 +1,133 @@
+package test;
+import manager.*;
+
+import java.util.*;
+
+/**
+ * A test class for TimingWheel.
+ * This class utilizes the Assertions framework to verify timeouts expire at their deadline and never before.
+ * Test:
+ * Timeouts at random deadlines across every level of the wheel expire in the tick of their deadline,
+ * cancelled timeouts never expire, and hundreds of thousands of timeouts are checked cheaply.
+ * @author Fandi Zhou
+ */
+public class TestTimingWheel {
+
+    private static final long MINUTE = 60L * 1000;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    /**
+     * The main for the timing wheel tests.
+     */
+    public static void main(String[] args) {
+        System.out.println("Running TimingWheel Tests...");
+
+        tDeadlines();
+        System.out.println("Expire at the deadline across levels: pass!");
+
+        tCancel();
+        System.out.println("Cancelled and past deadlines: pass!");
+
+        tScale();
+        System.out.println("Many open timeouts: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Tests that random deadlines expire in the minute they fall in, stepping the wheel by random amounts.
+     */
+    public static void tDeadlines() {
+        long start = 7 * MINUTE + 123;
+        TimingWheel<Long> wheel = new TimingWheel<>(MINUTE, start);
+        Random r = new Random(49);
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            long deadline = start + (long) (r.nextDouble() * 3 * 365 * DAY);// Up to three years, into level 3.
+            wheel.schedule(deadline, deadline);
+        }
+        Assertions.assertEquals(count, wheel.size());
+
+        long now = start;
+        int expired = 0;
+        long last = Long.MIN_VALUE;
+        while (expired < count) {
+            now += (long) (r.nextDouble() * 20 * DAY);
+            for (long deadline : wheel.advance(now)) {
+                Assertions.assertTrue(deadline <= now);// Never early.
+                Assertions.assertTrue(deadline > now - 20 * DAY - MINUTE);// Not missed at an earlier step.
+                Assertions.assertTrue(deadline / MINUTE >= last / MINUTE);// Earliest tick first.
+                last = deadline;
+                expired++;
+            }
+        }
+        Assertions.assertEquals(0, wheel.size());
+
+        // Stepping one minute at a time, each timeout comes out in the minute of its deadline.
+        wheel = new TimingWheel<>(MINUTE, 0);
+        for (int i = 0; i < 1000; i++) {
+            long deadline = 1 + (long) (r.nextDouble() * 5 * DAY);
+            wheel.schedule(deadline, deadline);
+        }
+        for (long t = MINUTE; wheel.size() > 0; t += MINUTE) {
+            for (long deadline : wheel.advance(t)) {
+                Assertions.assertTrue(deadline > t - MINUTE && deadline <= t);
+            }
+        }
+    }
+
+    /**
+     * Tests cancelled timeouts and deadlines that have already passed.
+     */
+    public static void tCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(MINUTE, 10 * DAY);
+        TimingWheel.Timeout<String> kept = wheel.schedule(12 * DAY, "kept");
+        TimingWheel.Timeout<String> cancelled = wheel.schedule(11 * DAY, "cancelled");
+        TimingWheel.Timeout<String> late = wheel.schedule(DAY, "late");
+
+        Assertions.assertTrue(wheel.cancel(cancelled));
+        Assertions.assertFalse(wheel.cancel(cancelled));
+        Assertions.assertFalse(cancelled.isPending());
+
+        Assertions.assertEquals(List.of("late"), wheel.advance(10 * DAY));// Already past, expires on the next advance.
+        Assertions.assertFalse(late.isPending());
+        Assertions.assertEquals(List.of(), wheel.advance(12 * DAY - 1));
+        Assertions.assertEquals(List.of("kept"), wheel.advance(12 * DAY));
+        Assertions.assertFalse(wheel.cancel(kept));
+        Assertions.assertEquals(0, wheel.size());
+
+        try {
+            new TimingWheel<String>(0, 0);
+            Assertions.assertNotReached();
+        } catch (Throwable t) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, t);
+        }
+    }
+
+    /**
+     * Tests that a check with hundreds of thousands of open timeouts only costs the timeouts that fall due.
+     */
+    public static void tScale() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(MINUTE, 0);
+        Random r = new Random(4949);
+        int open = 300_000;
+        for (int i = 0; i < open; i++) {
+            wheel.schedule((1 + r.nextInt(30)) * DAY + r.nextInt(24 * 60) * MINUTE, i);
+        }
+
+        // A check every minute of the first day: nothing is due, and no check looks at the open timeouts.
+        long start = System.nanoTime();
+        for (long t = MINUTE; t < DAY; t += MINUTE) {
+            Assertions.assertEquals(0, wheel.advance(t).size());
+        }
+        long idle = System.nanoTime() - start;
+        Assertions.assertEquals(open, wheel.size());
+
+        int expired = 0;
+        for (long t = DAY; t <= 32 * DAY; t += MINUTE) {
+            expired += wheel.advance(t).size();
+        }
+        Assertions.assertEquals(open, expired);
+        System.out.println(open + " timeouts: a day of idle checks took " + idle / 1_000_000 + " ms");
+    }
+}
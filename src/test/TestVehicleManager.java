@@ -2,7 +2,9 @@ package test;
 import model.*;
 import manager.*;
 
+import java.time.Clock;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A test class for the VehicleManager class.
@@ -19,7 +21,7 @@ public class TestVehicleManager {
     /**
      * The main for the test harness.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         System.out.println("Running VehicleManager Tests...");
 
         tAddVehicle();// Tests addVehicle function
@@ -59,6 +61,36 @@ public class TestVehicleManager {
         tGetVehiclesByCustomer();//Tests getVechilesByCustomer method
         System.out.println("getVechilesByCustomer method working!");
 
+        tSnapshotIsolation();//Tests that snapshots do not change after later hires
+        System.out.println("Snapshot isolation check pass!");
+
+        tAddVehicles();//Tests bulk provisioning
+        System.out.println("Bulk addVehicles check pass!");
+
+        tServiceDueIndex();//Tests the service due queries
+        System.out.println("Service due index check pass!");
+
+        tWaitlist();//Tests waiting customers are served on return
+        System.out.println("Waitlist check pass!");
+
+        tWaitlistWorkshop();//Tests waiting customers are served on workshop release
+        System.out.println("Waitlist workshop release check pass!");
+
+        tSeededIDs();//Tests vehicle IDs follow a seeded random source
+        System.out.println("Seeded vehicle ID check pass!");
+
+        tRetireVehicle();//Tests retiring vehicles
+        System.out.println("Retire vehicle check pass!");
+
+        tIdDomains();//Tests IDs are scoped to a manager
+        System.out.println("ID domain check pass!");
+
+        tHireBundle();//Tests all or nothing bundle hires
+        System.out.println("Hire bundle check pass!");
+
+        tOverdue();//Tests overdue hires are reported on time
+        System.out.println("Overdue hire check pass!");
+
         System.out.println("All tests passed!");
     }
 
@@ -293,4 +325,434 @@ public class TestVehicleManager {
         Collection<Vehicle> hired = m.getVechilesByCustomer(c);
         Assertions.assertEquals(2, hired.size());
     }
+
+    /**
+     * Tests that a snapshot is a consistent point-in-time view.
+     * Test:
+     * 1. A snapshot taken before a hire still shows the vehicle as available afterwards.
+     * 2. A collection returned by getVechilesByCustomer does not change when the customer returns a vehicle.
+     * 3. Each change publishes a snapshot with a higher version.
+     * 4. The vehicles of a snapshot keep the mileage they had when it was taken and cannot be changed.
+     */
+    public static void tSnapshotIsolation() {
+        VehicleManager m = new VehicleManager();
+        Vehicle car = m.addVehicle("Car");
+        m.addVehicle("Car");
+        CustomerRecord c = m.addCustomerRecord("Snap", "Shot", createDate(1990, 6, 1), false);
+
+        FleetSnapshot before = m.snapshot();
+
+        m.hireVehicle(c, "Car", 1);
+        m.hireVehicle(c, "Car", 1);
+        Collection<Vehicle> hired = m.getVechilesByCustomer(c);
+
+        m.returnVehicle(car.getVehicleID(), c, 50);
+
+        Assertions.assertEquals(2, before.noOfAvailableVehicles("Car"));
+        Assertions.assertEquals(0, before.getVechilesByCustomer(c).size());
+        Assertions.assertEquals(2, hired.size());
+        Assertions.assertEquals(1, m.getVechilesByCustomer(c).size());
+        Assertions.assertEquals(1, m.noOfAvailableVehicles("Car"));
+        Assertions.assertTrue(m.snapshot().getVersion() > before.getVersion());
+
+        Vehicle copy = m.getVechilesByCustomer(c).iterator().next();
+        m.reportMileage(List.of(new OdometerReading(copy.getVehicleID(), System.currentTimeMillis(), 30)));
+        Assertions.assertEquals(0, copy.getCurrentMileage());
+        Assertions.assertEquals(30, m.getVechilesByCustomer(c).iterator().next().getCurrentMileage());
+        try {
+            copy.setCurrentMileage(5);
+            Assertions.assertNotReached();
+        } catch (Throwable t) {
+            Assertions.assertExpectedThrowable(UnsupportedOperationException.class, t);
+        }
+    }
+
+    /**
+     * Tests bulk provisioning with addVehicles.
+     * Test:
+     * 1. The requested number of vehicles is created and available.
+     * 2. Every ID is unique and follows the even (Car) / odd (Van) rule.
+     */
+    public static void tAddVehicles() {
+        VehicleManager m = new VehicleManager();
+
+        List<Vehicle> cars = m.addVehicles("Car", 20000);
+        List<Vehicle> vans = m.addVehicles("Van", 500);
+
+        Assertions.assertEquals(20000, m.noOfAvailableVehicles("Car"));
+        Assertions.assertEquals(500, m.noOfAvailableVehicles("Van"));
+
+        Set<VehicleID> ids = new HashSet<>();
+        for (Vehicle v : cars) {
+            Assertions.assertTrue(ids.add(v.getVehicleID()));
+            Assertions.assertEquals(0, v.getVehicleID().getSecondComponent() % 2);
+            Assertions.assertTrue(v.getVehicleID().toString().matches("C[A-Z][0-9]-[0-9]{3}"));
+        }
+        for (Vehicle v : vans) {
+            Assertions.assertTrue(ids.add(v.getVehicleID()));
+            Assertions.assertEquals(1, v.getVehicleID().getSecondComponent() % 2);
+        }
+
+        try {
+            m.addVehicles("Bus", 1);
+            Assertions.assertNotReached();
+        } catch (Exception e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+    }
+
+    /**
+     * Tests the service due index.
+     * Test:
+     * 1. Mileage added on return moves a vehicle closer to service.
+     * 2. A service on return moves it back to the end.
+     * 3. The next vehicles to service are merged across types, closest first.
+     */
+    public static void tServiceDueIndex() {
+        VehicleManager m = new VehicleManager();
+        Vehicle car = m.addVehicle("Car");
+        Vehicle van = m.addVehicle("Van");
+        m.addVehicle("Van");
+        CustomerRecord c = m.addCustomerRecord("Index", "Due", createDate(1980, 2, 2), true);
+
+        m.hireVehicle(c, "Van", 2);
+        m.returnVehicle(van.getVehicleID(), c, 4700);// 300 miles left
+        m.hireVehicle(c, "Car", 2);
+        m.returnVehicle(car.getVehicleID(), c, 9900);// 100 miles left
+
+        Assertions.assertEquals(1, m.vehiclesDueForService("Van", 500).size());
+        Assertions.assertEquals(van, m.vehiclesDueForService("Van", 500).get(0));
+        Assertions.assertEquals(0, m.vehiclesDueForService("Van", 299).size());
+        Assertions.assertEquals(2, m.vehiclesDueForService("Van", Integer.MAX_VALUE).size());// Every Van, the bound does not overflow.
+
+        List<Vehicle> next = m.nextVehiclesToService(2);
+        Assertions.assertEquals(car, next.get(0));
+        Assertions.assertEquals(van, next.get(1));
+
+        m.hireVehicle(c, "Car", 1);
+        m.returnVehicle(car.getVehicleID(), c, 200);// Over the interval, serviced on return.
+        Assertions.assertEquals(0, m.vehiclesDueForService("Car", 500).size());
+        Assertions.assertEquals(van, m.nextVehiclesToService(1).get(0));
+    }
+
+    /**
+     * Tests the waitlist.
+     * Test:
+     * 1. A free vehicle is hired at once and the future is already complete.
+     * 2. Customers wait when none is free and are served oldest first as vehicles are returned or added.
+     * 3. A cancelled wait is skipped, and an ineligible customer is refused instead of waiting.
+     * 4. A customer who reaches the hire limit while waiting is passed over, and gets their place back on a return.
+     */
+    public static void tWaitlist() {
+        VehicleManager m = new VehicleManager();
+        Vehicle car = m.addVehicle("Car");
+        CustomerRecord a = m.addCustomerRecord("Wait", "First", createDate(1980, 3, 3), false);
+        CustomerRecord b = m.addCustomerRecord("Wait", "Second", createDate(1981, 3, 3), false);
+        CustomerRecord c = m.addCustomerRecord("Wait", "Third", createDate(1982, 3, 3), false);
+        CustomerRecord young = m.addCustomerRecord("Wait", "Young", createDate(2015, 3, 3), false);
+
+        CompletableFuture<Vehicle> fa = m.hireOrWait(a, "Car", 2);
+        Assertions.assertTrue(fa.isDone());
+        Assertions.assertEquals(car, fa.join());
+
+        CompletableFuture<Vehicle> fc = m.hireOrWait(c, "Car", 2);
+        CompletableFuture<Vehicle> fb = m.hireOrWait(b, "Car", 2);
+        Assertions.assertFalse(fc.isDone());
+        Assertions.assertEquals(2, m.noOfWaitingCustomers("Car"));
+
+        m.returnVehicle(car.getVehicleID(), a, 50);
+        Assertions.assertTrue(fc.isDone());// Oldest waiter first.
+        Assertions.assertEquals(car, fc.join());
+        Assertions.assertFalse(fb.isDone());
+        Assertions.assertEquals(0, m.noOfAvailableVehicles("Car"));
+
+        fb.cancel(false);
+        m.hireOrWait(a, "Car", 1);// Waits behind the cancelled wait.
+        Vehicle added = m.addVehicle("Car");
+        Assertions.assertEquals(0, m.noOfWaitingCustomers("Car"));
+        Assertions.assertEquals(added.getVehicleID(), m.getVechilesByCustomer(a).iterator().next().getVehicleID());
+
+        try {
+            m.hireOrWait(young, "Car", 1);
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertEquals(0, m.noOfWaitingCustomers("Car"));
+        }
+
+        m = new VehicleManager();
+        Vehicle[] cars = {m.addVehicle("Car"), m.addVehicle("Car"), m.addVehicle("Car")};
+        Vehicle van = m.addVehicle("Van");
+        CustomerRecord d = m.addCustomerRecord("Wait", "Capped", createDate(1980, 5, 5), true);
+        CustomerRecord e = m.addCustomerRecord("Wait", "Next", createDate(1981, 5, 5), false);
+        CustomerRecord f = m.addCustomerRecord("Wait", "Holder", createDate(1982, 5, 5), false);
+        m.hireVehicle(d, "Car", 1);
+        m.hireVehicle(d, "Car", 1);
+        m.hireVehicle(f, "Car", 1);
+        CompletableFuture<Vehicle> fd = m.hireOrWait(d, "Car", 1);
+        CompletableFuture<Vehicle> fe = m.hireOrWait(e, "Car", 1);
+        Assertions.assertTrue(m.hireVehicle(d, "Van", 1));// Now at the hire limit.
+
+        m.returnVehicle(cars[2].getVehicleID(), f, 10);
+        Assertions.assertFalse(fd.isDone());// Set aside.
+        Assertions.assertEquals(cars[2], fe.join());
+        Assertions.assertEquals(1, m.noOfWaitingCustomers("Car"));
+
+        m.returnVehicle(van.getVehicleID(), d, 10);// Under the limit again, but no Car is free.
+        Assertions.assertFalse(fd.isDone());
+        m.returnVehicle(cars[2].getVehicleID(), e, 10);
+        Assertions.assertEquals(cars[2], fd.join());
+        Assertions.assertEquals(0, m.noOfWaitingCustomers("Car"));
+    }
+
+    /**
+     * Tests that a vehicle released from the workshop goes straight to a waiting customer.
+     */
+    public static void tWaitlistWorkshop() {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(new WorkshopScheduler(1, 1000, 500), clock);
+        Vehicle van = m.addVehicle("Van");
+        CustomerRecord a = m.addCustomerRecord("Shop", "First", createDate(1980, 4, 4), true);
+        CustomerRecord b = m.addCustomerRecord("Shop", "Second", createDate(1981, 4, 4), true);
+
+        m.hireVehicle(a, "Van", 12);// Needs an inspection after return.
+        CompletableFuture<Vehicle> fb = m.hireOrWait(b, "Van", 1);
+        m.returnVehicle(van.getVehicleID(), a, 100);
+        Assertions.assertFalse(fb.isDone());// Still in the workshop.
+
+        clock.advance(500);
+        m.releaseFromWorkshop();
+        Assertions.assertTrue(fb.isDone());
+        Assertions.assertEquals(van, fb.join());
+        Assertions.assertEquals(0, m.noOfAvailableVehicles("Van"));
+    }
+
+    /**
+     * Tests that a manager given a seeded random source issues the IDs that seed predicts.
+     * Each manager has its own ID registry, so IDs issued by earlier tests do not change the sequence.
+     */
+    public static void tSeededIDs() {
+        long seed = 0x5EEDL;
+        VehicleManager m = new VehicleManager(null, Clock.systemDefaultZone(), new CustomerStore(), new SplittableRandom(seed));
+
+        // Replay the draws of the registry.
+        SplittableRandom expected = new SplittableRandom(seed);
+        char letter = (char) ('A' + expected.nextInt(26));
+        int digit = expected.nextInt(10);
+        int number = expected.nextInt(500) * 2;// Even for a Car.
+
+        Vehicle car = m.addVehicle("Car");
+        Assertions.assertEquals(String.format("C%c%d-%03d", letter, digit, number), car.getVehicleID().toString());
+
+        List<Vehicle> block = m.addVehicles("Van", 20);
+        Set<VehicleID> unique = new HashSet<>();
+        for (Vehicle v : block) {unique.add(v.getVehicleID());}
+        Assertions.assertEquals(20, unique.size());
+    }
+
+    /**
+     * Tests that IDs are scoped to a manager.
+     * Test:
+     * 1. Two managers with the same seed issue the same vehicle IDs, which would clash in a JVM wide registry.
+     * 2. Each manager numbers its customers from 1.
+     * 3. Allocation from one manager's registry is thread safe.
+     */
+    public static void tIdDomains() throws InterruptedException {
+        VehicleManager m1 = new VehicleManager(null, Clock.systemDefaultZone(), new CustomerStore(), new SplittableRandom(42));
+        VehicleManager m2 = new VehicleManager(null, Clock.systemDefaultZone(), new CustomerStore(), new SplittableRandom(42));
+
+        List<Vehicle> a = m1.addVehicles("Car", 50);
+        List<Vehicle> b = m2.addVehicles("Car", 50);
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertEquals(a.get(i).getVehicleID(), b.get(i).getVehicleID());
+        }
+        Assertions.assertEquals(m1.addVehicle("Van").getVehicleID(), m2.addVehicle("Van").getVehicleID());
+
+        Calendar cal = Calendar.getInstance();
+        cal.set(1990, Calendar.JANUARY, 1);
+        Assertions.assertEquals(1, m1.addCustomerRecord("Ann", "Lee", cal.getTime(), true).getCustomerID());
+        Assertions.assertEquals(1, m2.addCustomerRecord("Bob", "Ray", cal.getTime(), true).getCustomerID());
+        Assertions.assertEquals(2, m1.addCustomerRecord("Bob", "Ray", cal.getTime(), true).getCustomerID());
+
+        // Four threads share one registry and must never get the same ID.
+        VehicleIDRegistry registry = new VehicleIDRegistry();
+        Set<VehicleID> issued = Collections.synchronizedSet(new HashSet<>());
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {issued.add(registry.allocate("Van", new SplittableRandom(i)));}
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {t.join();}
+        Assertions.assertEquals(8000, issued.size());
+        Assertions.assertEquals(8000, registry.size());
+    }
+
+    /**
+     * Tests retiring vehicles.
+     * Test:
+     * 1. A vehicle on hire or in the workshop cannot be retired.
+     * 2. Retiring a free vehicle shrinks the fleet and the availability, and hired vehicles are unaffected by the compaction.
+     * 3. The ID stays in quarantine until the period has passed.
+     */
+    public static void tRetireVehicle() {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(new WorkshopScheduler(1, 1000, 1000), clock);
+        m.setIdQuarantine(5000);
+        List<Vehicle> vans = m.addVehicles("Van", 4);
+        CustomerRecord c = m.addCustomerRecord("Retire", "Ment", createDate(1980, 5, 5), true);
+
+        m.hireVehicle(c, "Van", 2);
+        Vehicle hired = m.getVechilesByCustomer(c).iterator().next();
+        try {
+            m.retireVehicle(hired.getVehicleID());
+            Assertions.assertNotReached();
+        } catch (IllegalStateException e) {
+            Assertions.assertEquals(4, m.noOfVehicles());
+        }
+
+        Vehicle free = vans.get(0).getVehicleID().equals(hired.getVehicleID()) ? vans.get(1) : vans.get(0);
+        m.retireVehicle(free.getVehicleID());
+        Assertions.assertEquals(3, m.noOfVehicles());
+        Assertions.assertEquals(2, m.noOfAvailableVehicles("Van"));
+        Assertions.assertEquals(3, m.countVehicles(new FleetQuery().type("Van")));
+        Assertions.assertEquals(1, m.countVehicles(new FleetQuery().hired(true)));
+        Assertions.assertEquals(1, m.noOfQuarantinedIDs());
+
+        m.returnVehicle(hired.getVehicleID(), c, 6000);// Still works after other vehicles moved, and goes to the workshop.
+        Assertions.assertEquals(0, m.countVehicles(new FleetQuery().hired(true)));
+        Assertions.assertTrue(hired.isHired());// The snapshot copy keeps the state it was taken with.
+        try {
+            m.retireVehicle(hired.getVehicleID());
+            Assertions.assertNotReached();
+        } catch (IllegalStateException e) {
+            Assertions.assertEquals(3, m.noOfVehicles());
+        }
+        try {
+            m.retireVehicle(free.getVehicleID());// Already retired.
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertEquals(1, m.noOfQuarantinedIDs());
+        }
+
+        clock.advance(5000);
+        Assertions.assertEquals(0, m.noOfQuarantinedIDs());
+    }
+
+    /**
+     * Tests hiring bundles of vehicles.
+     * Test:
+     * 1. A Car and two Vans are hired together and listed in the order asked for.
+     * 2. The hire limit counts the whole bundle and the vehicles already hired.
+     * 3. A bundle that cannot be fully served hires nothing.
+     * 4. Eligibility is checked for every type in the bundle.
+     * 5. Competing bundles from several threads never hire a vehicle twice.
+     */
+    public static void tHireBundle() throws InterruptedException {
+        VehicleManager m = new VehicleManager();
+        m.addVehicles("Car", 2);
+        m.addVehicles("Van", 2);
+        CustomerRecord corp = m.addCustomerRecord("Corp", "Orate", createDate(1980, 1, 1), true);
+        CustomerRecord other = m.addCustomerRecord("Oth", "Er", createDate(1980, 1, 1), true);
+        CustomerRecord noLicence = m.addCustomerRecord("No", "Licence", createDate(1980, 1, 1), false);
+
+        List<Vehicle> bundle = m.hireBundle(corp, List.of("Van", "Car", "Van"), 12);
+        Assertions.assertEquals(3, bundle.size());
+        Assertions.assertEquals("Van", bundle.get(0).getVehicleType());
+        Assertions.assertEquals("Car", bundle.get(1).getVehicleType());
+        Assertions.assertEquals("Van", bundle.get(2).getVehicleType());
+        Assertions.assertTrue(((Van) bundle.get(0)).requiresInspection());// Long hire.
+        Assertions.assertEquals(3, m.getVechilesByCustomer(corp).size());
+        Assertions.assertEquals(1, m.noOfAvailableVehicles("Car"));
+        Assertions.assertEquals(0, m.noOfAvailableVehicles("Van"));
+
+        // Over the hire limit together with the vehicles already hired.
+        Assertions.assertTrue(m.hireBundle(corp, List.of("Car"), 1).isEmpty());
+
+        // Only one Car is free, so the Van cannot be served and the Car must not be taken either.
+        Assertions.assertTrue(m.hireBundle(other, List.of("Car", "Van"), 1).isEmpty());
+        Assertions.assertEquals(1, m.noOfAvailableVehicles("Car"));
+        Assertions.assertEquals(0, m.getVechilesByCustomer(other).size());
+
+        try {
+            m.hireBundle(noLicence, List.of("Car", "Van"), 1);
+            Assertions.assertNotReached();
+        } catch (IllegalArgumentException e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+        Assertions.assertEquals(1, m.noOfAvailableVehicles("Car"));
+
+        // Eight customers race for 12 Cars with bundles of 3, so exactly four bundles can win.
+        VehicleManager race = new VehicleManager();
+        race.addVehicles("Car", 12);
+        List<CustomerRecord> racers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {racers.add(race.addCustomerRecord("Racer", "No" + i, createDate(1980, 1, 1), false));}
+
+        List<List<Vehicle>> results = Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[racers.size()];
+        for (int i = 0; i < threads.length; i++) {
+            CustomerRecord r = racers.get(i);
+            threads[i] = new Thread(() -> results.add(race.hireBundle(r, List.of("Car", "Car", "Car"), 1)));
+            threads[i].start();
+        }
+        for (Thread t : threads) {t.join();}
+
+        Set<VehicleID> taken = new HashSet<>();
+        int won = 0;
+        for (List<Vehicle> r : results) {
+            if (!r.isEmpty()) {won++;}
+            for (Vehicle v : r) {Assertions.assertTrue(taken.add(v.getVehicleID()));}
+        }
+        Assertions.assertEquals(4, won);
+        Assertions.assertEquals(0, race.noOfAvailableVehicles("Car"));
+    }
+
+    /**
+     * Tests the overdue hires.
+     * Test:
+     * 1. The due time of a hire is the end of its last booked day.
+     * 2. A hire is reported overdue once, when the first check after its due time runs, and told to the listeners.
+     * 3. A vehicle returned in time is never reported, and returning an overdue vehicle clears it from the count.
+     */
+    public static void tOverdue() {
+        long day = 24L * 60 * 60 * 1000;
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(null, clock);
+        List<Vehicle> told = new ArrayList<>();
+        m.addListener(new FleetEventListener() {
+            @Override
+            public void hireOverdue(CustomerRecord c, Vehicle v, long due) {
+                told.add(v);
+            }
+        });
+        Vehicle oneDay = m.addVehicle("Car");
+        Vehicle threeDays = m.addVehicle("Car");
+        Vehicle onTime = m.addVehicle("Van");
+        CustomerRecord c = m.addCustomerRecord("Over", "Due", createDate(1980, 1, 1), true);
+
+        m.hireVehicle(c, "Car", 1);
+        m.hireVehicle(c, "Car", 3);
+        m.hireVehicle(c, "Van", 2);
+        Assertions.assertEquals(day, m.getDueTime(oneDay.getVehicleID()));
+        Assertions.assertEquals(3 * day, m.getDueTime(threeDays.getVehicleID()));
+        Assertions.assertEquals(-1L, m.getDueTime(VehicleID.getInstance("Car")));
+
+        clock.advance(day - 1);
+        Assertions.assertEquals(0, m.checkOverdue().size());// Not due yet.
+        clock.advance(1);
+        Assertions.assertEquals(List.of(oneDay), m.checkOverdue());
+        Assertions.assertEquals(0, m.checkOverdue().size());// Only reported once.
+        Assertions.assertEquals(1, m.noOfOverdueHires());
+
+        m.returnVehicle(onTime.getVehicleID(), c, 10);
+        clock.advance(5 * day);
+        Assertions.assertEquals(List.of(threeDays), m.checkOverdue());
+        Assertions.assertEquals(List.of(oneDay, threeDays), told);
+        Assertions.assertEquals(2, m.noOfOverdueHires());
+
+        m.returnVehicle(oneDay.getVehicleID(), c, 10);
+        m.returnVehicle(threeDays.getVehicleID(), c, 10);
+        Assertions.assertEquals(0, m.noOfOverdueHires());
+        Assertions.assertEquals(-1L, m.getDueTime(oneDay.getVehicleID()));
+    }
 }
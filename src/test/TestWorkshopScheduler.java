@@ -0,0 +1,135 @@
+package test;
+import model.*;
+import manager.*;
+
+import java.util.*;
+
+/**
+ * A test class for the WorkshopScheduler class.
+ * This class utilizes the Assertions framework to verify the functionality of the WorkshopScheduler class.
+ * Test:
+ * Slot allocation on a limited number of bays, vehicles kept out of the hire pool and batch release.
+ * @author Fandi Zhou
+ */
+public class TestWorkshopScheduler {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    /**
+     * The main for the WorkshopScheduler tests.
+     */
+    public static void main(String[] args) {
+        System.out.println("Running WorkshopScheduler Tests...");
+
+        tNothingToDo();
+        System.out.println("Vehicle needing no work is not booked: pass!");
+
+        tBaySlots();
+        System.out.println("Slots are given on the first free bay: pass!");
+
+        tManagerKeepsVehicleOutOfPool();
+        System.out.println("Workshop vehicles are kept out of the hire pool: pass!");
+
+        tInvalidBays();
+        System.out.println("Invalid bay count check: pass!");
+
+        System.out.println("All tests passed!");
+    }
+
+    /**
+     * Helper method to create a Date.
+     */
+    private static Date createDate(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, day);
+        return cal.getTime();
+    }
+
+    /**
+     * Tests that a vehicle that needs neither a service nor an inspection is not booked.
+     */
+    public static void tNothingToDo() {
+        WorkshopScheduler w = new WorkshopScheduler(1, 2 * HOUR, HOUR);
+        Vehicle car = AbstractVehicle.getInstance("Car");
+
+        Assertions.assertFalse(w.schedule(car, 0));
+        Assertions.assertEquals(0, w.size());
+    }
+
+    /**
+     * Tests slot allocation with two bays and three vehicles due for a service.
+     * The third vehicle has to wait for the first bay to become free.
+     */
+    public static void tBaySlots() {
+        WorkshopScheduler w = new WorkshopScheduler(2, 2 * HOUR, HOUR);
+
+        Vehicle c1 = AbstractVehicle.getInstance("Car");
+        Vehicle c2 = AbstractVehicle.getInstance("Car");
+        Vehicle v1 = AbstractVehicle.getInstance("Van");
+        c1.setCurrentMileage(10000);
+        c2.setCurrentMileage(12000);
+        v1.setCurrentMileage(5000);
+        ((Van) v1).setNeedInspection(true);
+
+        Assertions.assertTrue(w.schedule(c1, 0));
+        Assertions.assertTrue(w.schedule(c2, 0));
+        Assertions.assertTrue(w.schedule(v1, 0));// Service + inspection, starts when c1 is done.
+
+        Assertions.assertEquals(2 * HOUR, w.readyAt(c1));
+        Assertions.assertEquals(5 * HOUR, w.readyAt(v1));
+
+        // Nothing is ready yet.
+        Assertions.assertEquals(0, w.release(HOUR).size());
+
+        // Both cars finish together and are released as one batch.
+        List<Vehicle> batch = w.release(2 * HOUR);
+        Assertions.assertEquals(2, batch.size());
+        Assertions.assertEquals(0, c1.getCurrentMileage());
+        Assertions.assertTrue(w.isInWorkshop(v1));
+
+        batch = w.release(5 * HOUR);
+        Assertions.assertEquals(1, batch.size());
+        Assertions.assertFalse(v1.requiresInspection());
+        Assertions.assertEquals(0, v1.getCurrentMileage());
+        Assertions.assertEquals(-1, (int) w.nextReleaseTime());
+    }
+
+    /**
+     * Tests that a returned vehicle needing a service is not available until the workshop releases it.
+     */
+    public static void tManagerKeepsVehicleOutOfPool() {
+        ManualClock clock = new ManualClock(0);
+        VehicleManager m = new VehicleManager(new WorkshopScheduler(1, 3 * HOUR, HOUR), clock);
+
+        Vehicle v = m.addVehicle("Car");
+        CustomerRecord c = m.addCustomerRecord("Work", "Shop", createDate(1990, 1, 1), false);
+
+        Assertions.assertTrue(m.hireVehicle(c, "Car", 2));
+        m.returnVehicle(v.getVehicleID(), c, 10500);// Over the 10000 mile service interval.
+
+        Assertions.assertFalse(v.isHired());
+        Assertions.assertEquals(0, m.noOfAvailableVehicles("Car"));
+        Assertions.assertEquals(10500, v.getCurrentMileage());
+
+        clock.advance(HOUR);
+        Assertions.assertEquals(0, m.releaseFromWorkshop().size());
+
+        clock.advance(2 * HOUR);
+        Assertions.assertEquals(1, m.releaseFromWorkshop().size());
+        Assertions.assertEquals(1, m.noOfAvailableVehicles("Car"));
+        Assertions.assertEquals(0, v.getCurrentMileage());
+    }
+
+    /**
+     * Tests that a workshop without bays cannot be created.
+     */
+    public static void tInvalidBays() {
+        try {
+            new WorkshopScheduler(0, HOUR, HOUR);
+            Assertions.assertNotReached();
+        } catch (Exception e) {
+            Assertions.assertExpectedThrowable(IllegalArgumentException.class, e);
+        }
+    }
+}